@@ -12,6 +12,7 @@ plugins {
     id("java")
     id("org.jetbrains.kotlin.jvm") version "2.1.0"
     id("org.jetbrains.intellij.platform") version "2.7.1"
+    id("me.champeau.jmh") version "0.7.3"
 }
 
 group = "me.kongkiat"
@@ -28,9 +29,14 @@ repositories {
 // Read more: https://plugins.jetbrains.com/docs/intellij/tools-intellij-platform-gradle-plugin.html
 dependencies {
     implementation("org.commonmark:commonmark:0.22.0")
+    // JDBC drivers for the EXPLAIN preview, loaded through the plugin class loader
+    runtimeOnly("com.h2database:h2:2.3.232")
+    runtimeOnly("org.postgresql:postgresql:42.7.4")
+    // Unit tests of the classes that run without the IntelliJ Platform
+    testImplementation("org.junit.jupiter:junit-jupiter:5.10.3")
+    testRuntimeOnly("org.junit.platform:junit-platform-launcher:1.10.3")
     intellijPlatform {
         create("IU", "2025.1.4.1")
-        testFramework(org.jetbrains.intellij.platform.gradle.TestFrameworkType.Platform)
 
         // Add necessary plugin dependencies for compilation here, example:
         bundledPlugin("com.intellij.java")
@@ -62,11 +68,26 @@ tasks {
         sourceCompatibility = "21"
         targetCompatibility = "21"
     }
+    test {
+        useJUnitPlatform()
+    }
     register<Delete>("cleanSandbox") {
         delete("build/idea-sandbox")
     }
 }
 
+// JMH benchmarks for the formatting and projection-extraction hot paths (src/jmh)
+// Run with: ./gradlew jmh  (results in build/results/jmh/results.json)
+jmh {
+    jmhVersion.set("1.37")
+    warmupIterations.set(3)
+    iterations.set(5)
+    fork.set(1)
+    // The gc profiler reports the allocation rate per operation (gc.alloc.rate.norm) next to throughput
+    profilers.set(listOf("gc"))
+    resultFormat.set("JSON")
+}
+
 kotlin {
     compilerOptions {
         jvmTarget.set(org.jetbrains.kotlin.gradle.dsl.JvmTarget.JVM_21)
@@ -0,0 +1,42 @@
+package me.kongkiat.octoquery.layout;
+
+import me.kongkiat.octoquery.sql.QueryCorpus;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the fast-mode layout engine on the same corpus as the DTO and projection benchmarks.
+ *
+ * This is all of the formatting that {@code FormatQueryAction.formatQuery} does in fast mode, for native
+ * and JPQL queries alike. The caches, the query budget and the IDE SQL formatter around it need a running
+ * platform, so they are not part of the suite.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class QueryLayoutEngineBenchmark {
+
+    @Param({"jpql-simple.jpql", "jpql-dto-1.jpql", "jpql-dto-8-union.jpql", "jpql-dto-32-union.jpql",
+            "native-medium.sql", "native-nested-8.sql", "native-large.sql"})
+    public String query;
+
+    private String text;
+
+    @Setup
+    public void setUp() {
+        text = QueryCorpus.load(query);
+    }
+
+    @Benchmark
+    public String format() {
+        return QueryLayoutEngine.format(text, LayoutOptions.DEFAULT);
+    }
+}
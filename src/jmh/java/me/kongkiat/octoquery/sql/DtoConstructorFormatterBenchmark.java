@@ -0,0 +1,48 @@
+package me.kongkiat.octoquery.sql;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the JPQL DTO constructor protection and restoration passes
+ * that run around the SQL formatter for every JPQL query.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class DtoConstructorFormatterBenchmark {
+
+    @Param({"jpql-simple.jpql", "jpql-dto-1.jpql", "jpql-dto-8-union.jpql", "jpql-dto-32-union.jpql"})
+    public String query;
+
+    private String jpql;
+    private String protectedJpql;
+    private List<String> snippets;
+
+    @Setup
+    public void setUp() {
+        jpql = QueryCorpus.load(query);
+        snippets = new ArrayList<>();
+        protectedJpql = DtoConstructorFormatter.protectDtoConstructors(jpql, snippets);
+    }
+
+    @Benchmark
+    public String protectDtoConstructors() {
+        return DtoConstructorFormatter.protectDtoConstructors(jpql, new ArrayList<>());
+    }
+
+    @Benchmark
+    public String restoreAndFormatConstructors() {
+        return DtoConstructorFormatter.restoreAndFormatConstructors(protectedJpql, snippets);
+    }
+}
@@ -0,0 +1,56 @@
+package me.kongkiat.octoquery.sql;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the select-list extraction used by "Generate Projection Interface".
+ * Each benchmark starts from raw text so the lexer cost is included,
+ * matching what the action pays per invocation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class ProjectionFieldExtractorBenchmark {
+
+    @Param({"native-medium.sql", "native-nested-8.sql", "native-large.sql", "jpql-dto-1.jpql", "jpql-dto-32-union.jpql"})
+    public String query;
+
+    private String sql;
+
+    @Setup
+    public void setUp() {
+        sql = QueryCorpus.load(query);
+    }
+
+    @Benchmark
+    public SqlTokens tokenize() {
+        return SqlLexer.tokenize(sql);
+    }
+
+    @Benchmark
+    public SqlTokens.Range extractSelectClause() {
+        return ProjectionFieldExtractor.extractSelectClause(SqlLexer.tokenize(sql));
+    }
+
+    @Benchmark
+    public List<String> extractAliases() {
+        SqlTokens tokens = SqlLexer.tokenize(sql);
+        SqlTokens.Range selectClause = ProjectionFieldExtractor.extractSelectClause(tokens);
+        return selectClause == null ? List.of() : ProjectionFieldExtractor.extractAliases(tokens, selectClause);
+    }
+
+    @Benchmark
+    public List<String> extractDtoConstructorFields() {
+        return ProjectionFieldExtractor.extractDtoConstructorFields(SqlLexer.tokenize(sql));
+    }
+}
@@ -0,0 +1,28 @@
+package me.kongkiat.octoquery.sql;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Loads benchmark queries from the checked-in corpus under {@code src/jmh/resources/corpus}.
+ * The corpus scales along three axes: overall length, parenthesis nesting depth
+ * and the number of DTO constructors per query.
+ */
+public final class QueryCorpus {
+
+    private QueryCorpus() {
+    }
+
+    public static String load(String name) {
+        try (InputStream in = QueryCorpus.class.getResourceAsStream("/corpus/" + name)) {
+            if (in == null) {
+                throw new IllegalArgumentException("Unknown corpus entry: " + name);
+            }
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
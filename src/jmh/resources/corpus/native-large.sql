@@ -0,0 +1,404 @@
+select t.col_0 as col_0,
+coalesce(t.amount_1, 0) * 1.07 as amount_1,
+case when t.state_2 in ('A','B','C') then 1 else 0 end as state_flag_2,
+/* legacy */ cast(t.code_3 as varchar(32)) as "Code3",
+(select count(*) from detail d4 where d4.t_id = t.id and d4.kind = 'k4') as detail_4,
+t.col_5 as col_5,
+coalesce(t.amount_6, 0) * 1.07 as amount_6,
+case when t.state_7 in ('A','B','C') then 1 else 0 end as state_flag_7,
+/* legacy */ cast(t.code_8 as varchar(32)) as "Code8",
+(select count(*) from detail d9 where d9.t_id = t.id and d9.kind = 'k9') as detail_9,
+t.col_10 as col_10,
+coalesce(t.amount_11, 0) * 1.07 as amount_11,
+case when t.state_12 in ('A','B','C') then 1 else 0 end as state_flag_12,
+/* legacy */ cast(t.code_13 as varchar(32)) as "Code13",
+(select count(*) from detail d14 where d14.t_id = t.id and d14.kind = 'k14') as detail_14,
+t.col_15 as col_15,
+coalesce(t.amount_16, 0) * 1.07 as amount_16,
+case when t.state_17 in ('A','B','C') then 1 else 0 end as state_flag_17,
+/* legacy */ cast(t.code_18 as varchar(32)) as "Code18",
+(select count(*) from detail d19 where d19.t_id = t.id and d19.kind = 'k19') as detail_19,
+t.col_20 as col_20,
+coalesce(t.amount_21, 0) * 1.07 as amount_21,
+case when t.state_22 in ('A','B','C') then 1 else 0 end as state_flag_22,
+/* legacy */ cast(t.code_23 as varchar(32)) as "Code23",
+(select count(*) from detail d24 where d24.t_id = t.id and d24.kind = 'k24') as detail_24,
+t.col_25 as col_25,
+coalesce(t.amount_26, 0) * 1.07 as amount_26,
+case when t.state_27 in ('A','B','C') then 1 else 0 end as state_flag_27,
+/* legacy */ cast(t.code_28 as varchar(32)) as "Code28",
+(select count(*) from detail d29 where d29.t_id = t.id and d29.kind = 'k29') as detail_29,
+t.col_30 as col_30,
+coalesce(t.amount_31, 0) * 1.07 as amount_31,
+case when t.state_32 in ('A','B','C') then 1 else 0 end as state_flag_32,
+/* legacy */ cast(t.code_33 as varchar(32)) as "Code33",
+(select count(*) from detail d34 where d34.t_id = t.id and d34.kind = 'k34') as detail_34,
+t.col_35 as col_35,
+coalesce(t.amount_36, 0) * 1.07 as amount_36,
+case when t.state_37 in ('A','B','C') then 1 else 0 end as state_flag_37,
+/* legacy */ cast(t.code_38 as varchar(32)) as "Code38",
+(select count(*) from detail d39 where d39.t_id = t.id and d39.kind = 'k39') as detail_39,
+t.col_40 as col_40,
+coalesce(t.amount_41, 0) * 1.07 as amount_41,
+case when t.state_42 in ('A','B','C') then 1 else 0 end as state_flag_42,
+/* legacy */ cast(t.code_43 as varchar(32)) as "Code43",
+(select count(*) from detail d44 where d44.t_id = t.id and d44.kind = 'k44') as detail_44,
+t.col_45 as col_45,
+coalesce(t.amount_46, 0) * 1.07 as amount_46,
+case when t.state_47 in ('A','B','C') then 1 else 0 end as state_flag_47,
+/* legacy */ cast(t.code_48 as varchar(32)) as "Code48",
+(select count(*) from detail d49 where d49.t_id = t.id and d49.kind = 'k49') as detail_49,
+t.col_50 as col_50,
+coalesce(t.amount_51, 0) * 1.07 as amount_51,
+case when t.state_52 in ('A','B','C') then 1 else 0 end as state_flag_52,
+/* legacy */ cast(t.code_53 as varchar(32)) as "Code53",
+(select count(*) from detail d54 where d54.t_id = t.id and d54.kind = 'k54') as detail_54,
+t.col_55 as col_55,
+coalesce(t.amount_56, 0) * 1.07 as amount_56,
+case when t.state_57 in ('A','B','C') then 1 else 0 end as state_flag_57,
+/* legacy */ cast(t.code_58 as varchar(32)) as "Code58",
+(select count(*) from detail d59 where d59.t_id = t.id and d59.kind = 'k59') as detail_59,
+t.col_60 as col_60,
+coalesce(t.amount_61, 0) * 1.07 as amount_61,
+case when t.state_62 in ('A','B','C') then 1 else 0 end as state_flag_62,
+/* legacy */ cast(t.code_63 as varchar(32)) as "Code63",
+(select count(*) from detail d64 where d64.t_id = t.id and d64.kind = 'k64') as detail_64,
+t.col_65 as col_65,
+coalesce(t.amount_66, 0) * 1.07 as amount_66,
+case when t.state_67 in ('A','B','C') then 1 else 0 end as state_flag_67,
+/* legacy */ cast(t.code_68 as varchar(32)) as "Code68",
+(select count(*) from detail d69 where d69.t_id = t.id and d69.kind = 'k69') as detail_69,
+t.col_70 as col_70,
+coalesce(t.amount_71, 0) * 1.07 as amount_71,
+case when t.state_72 in ('A','B','C') then 1 else 0 end as state_flag_72,
+/* legacy */ cast(t.code_73 as varchar(32)) as "Code73",
+(select count(*) from detail d74 where d74.t_id = t.id and d74.kind = 'k74') as detail_74,
+t.col_75 as col_75,
+coalesce(t.amount_76, 0) * 1.07 as amount_76,
+case when t.state_77 in ('A','B','C') then 1 else 0 end as state_flag_77,
+/* legacy */ cast(t.code_78 as varchar(32)) as "Code78",
+(select count(*) from detail d79 where d79.t_id = t.id and d79.kind = 'k79') as detail_79,
+t.col_80 as col_80,
+coalesce(t.amount_81, 0) * 1.07 as amount_81,
+case when t.state_82 in ('A','B','C') then 1 else 0 end as state_flag_82,
+/* legacy */ cast(t.code_83 as varchar(32)) as "Code83",
+(select count(*) from detail d84 where d84.t_id = t.id and d84.kind = 'k84') as detail_84,
+t.col_85 as col_85,
+coalesce(t.amount_86, 0) * 1.07 as amount_86,
+case when t.state_87 in ('A','B','C') then 1 else 0 end as state_flag_87,
+/* legacy */ cast(t.code_88 as varchar(32)) as "Code88",
+(select count(*) from detail d89 where d89.t_id = t.id and d89.kind = 'k89') as detail_89,
+t.col_90 as col_90,
+coalesce(t.amount_91, 0) * 1.07 as amount_91,
+case when t.state_92 in ('A','B','C') then 1 else 0 end as state_flag_92,
+/* legacy */ cast(t.code_93 as varchar(32)) as "Code93",
+(select count(*) from detail d94 where d94.t_id = t.id and d94.kind = 'k94') as detail_94,
+t.col_95 as col_95,
+coalesce(t.amount_96, 0) * 1.07 as amount_96,
+case when t.state_97 in ('A','B','C') then 1 else 0 end as state_flag_97,
+/* legacy */ cast(t.code_98 as varchar(32)) as "Code98",
+(select count(*) from detail d99 where d99.t_id = t.id and d99.kind = 'k99') as detail_99,
+t.col_100 as col_100,
+coalesce(t.amount_101, 0) * 1.07 as amount_101,
+case when t.state_102 in ('A','B','C') then 1 else 0 end as state_flag_102,
+/* legacy */ cast(t.code_103 as varchar(32)) as "Code103",
+(select count(*) from detail d104 where d104.t_id = t.id and d104.kind = 'k104') as detail_104,
+t.col_105 as col_105,
+coalesce(t.amount_106, 0) * 1.07 as amount_106,
+case when t.state_107 in ('A','B','C') then 1 else 0 end as state_flag_107,
+/* legacy */ cast(t.code_108 as varchar(32)) as "Code108",
+(select count(*) from detail d109 where d109.t_id = t.id and d109.kind = 'k109') as detail_109,
+t.col_110 as col_110,
+coalesce(t.amount_111, 0) * 1.07 as amount_111,
+case when t.state_112 in ('A','B','C') then 1 else 0 end as state_flag_112,
+/* legacy */ cast(t.code_113 as varchar(32)) as "Code113",
+(select count(*) from detail d114 where d114.t_id = t.id and d114.kind = 'k114') as detail_114,
+t.col_115 as col_115,
+coalesce(t.amount_116, 0) * 1.07 as amount_116,
+case when t.state_117 in ('A','B','C') then 1 else 0 end as state_flag_117,
+/* legacy */ cast(t.code_118 as varchar(32)) as "Code118",
+(select count(*) from detail d119 where d119.t_id = t.id and d119.kind = 'k119') as detail_119,
+t.col_120 as col_120,
+coalesce(t.amount_121, 0) * 1.07 as amount_121,
+case when t.state_122 in ('A','B','C') then 1 else 0 end as state_flag_122,
+/* legacy */ cast(t.code_123 as varchar(32)) as "Code123",
+(select count(*) from detail d124 where d124.t_id = t.id and d124.kind = 'k124') as detail_124,
+t.col_125 as col_125,
+coalesce(t.amount_126, 0) * 1.07 as amount_126,
+case when t.state_127 in ('A','B','C') then 1 else 0 end as state_flag_127,
+/* legacy */ cast(t.code_128 as varchar(32)) as "Code128",
+(select count(*) from detail d129 where d129.t_id = t.id and d129.kind = 'k129') as detail_129,
+t.col_130 as col_130,
+coalesce(t.amount_131, 0) * 1.07 as amount_131,
+case when t.state_132 in ('A','B','C') then 1 else 0 end as state_flag_132,
+/* legacy */ cast(t.code_133 as varchar(32)) as "Code133",
+(select count(*) from detail d134 where d134.t_id = t.id and d134.kind = 'k134') as detail_134,
+t.col_135 as col_135,
+coalesce(t.amount_136, 0) * 1.07 as amount_136,
+case when t.state_137 in ('A','B','C') then 1 else 0 end as state_flag_137,
+/* legacy */ cast(t.code_138 as varchar(32)) as "Code138",
+(select count(*) from detail d139 where d139.t_id = t.id and d139.kind = 'k139') as detail_139,
+t.col_140 as col_140,
+coalesce(t.amount_141, 0) * 1.07 as amount_141,
+case when t.state_142 in ('A','B','C') then 1 else 0 end as state_flag_142,
+/* legacy */ cast(t.code_143 as varchar(32)) as "Code143",
+(select count(*) from detail d144 where d144.t_id = t.id and d144.kind = 'k144') as detail_144,
+t.col_145 as col_145,
+coalesce(t.amount_146, 0) * 1.07 as amount_146,
+case when t.state_147 in ('A','B','C') then 1 else 0 end as state_flag_147,
+/* legacy */ cast(t.code_148 as varchar(32)) as "Code148",
+(select count(*) from detail d149 where d149.t_id = t.id and d149.kind = 'k149') as detail_149,
+t.col_150 as col_150,
+coalesce(t.amount_151, 0) * 1.07 as amount_151,
+case when t.state_152 in ('A','B','C') then 1 else 0 end as state_flag_152,
+/* legacy */ cast(t.code_153 as varchar(32)) as "Code153",
+(select count(*) from detail d154 where d154.t_id = t.id and d154.kind = 'k154') as detail_154,
+t.col_155 as col_155,
+coalesce(t.amount_156, 0) * 1.07 as amount_156,
+case when t.state_157 in ('A','B','C') then 1 else 0 end as state_flag_157,
+/* legacy */ cast(t.code_158 as varchar(32)) as "Code158",
+(select count(*) from detail d159 where d159.t_id = t.id and d159.kind = 'k159') as detail_159,
+t.col_160 as col_160,
+coalesce(t.amount_161, 0) * 1.07 as amount_161,
+case when t.state_162 in ('A','B','C') then 1 else 0 end as state_flag_162,
+/* legacy */ cast(t.code_163 as varchar(32)) as "Code163",
+(select count(*) from detail d164 where d164.t_id = t.id and d164.kind = 'k164') as detail_164,
+t.col_165 as col_165,
+coalesce(t.amount_166, 0) * 1.07 as amount_166,
+case when t.state_167 in ('A','B','C') then 1 else 0 end as state_flag_167,
+/* legacy */ cast(t.code_168 as varchar(32)) as "Code168",
+(select count(*) from detail d169 where d169.t_id = t.id and d169.kind = 'k169') as detail_169,
+t.col_170 as col_170,
+coalesce(t.amount_171, 0) * 1.07 as amount_171,
+case when t.state_172 in ('A','B','C') then 1 else 0 end as state_flag_172,
+/* legacy */ cast(t.code_173 as varchar(32)) as "Code173",
+(select count(*) from detail d174 where d174.t_id = t.id and d174.kind = 'k174') as detail_174,
+t.col_175 as col_175,
+coalesce(t.amount_176, 0) * 1.07 as amount_176,
+case when t.state_177 in ('A','B','C') then 1 else 0 end as state_flag_177,
+/* legacy */ cast(t.code_178 as varchar(32)) as "Code178",
+(select count(*) from detail d179 where d179.t_id = t.id and d179.kind = 'k179') as detail_179,
+t.col_180 as col_180,
+coalesce(t.amount_181, 0) * 1.07 as amount_181,
+case when t.state_182 in ('A','B','C') then 1 else 0 end as state_flag_182,
+/* legacy */ cast(t.code_183 as varchar(32)) as "Code183",
+(select count(*) from detail d184 where d184.t_id = t.id and d184.kind = 'k184') as detail_184,
+t.col_185 as col_185,
+coalesce(t.amount_186, 0) * 1.07 as amount_186,
+case when t.state_187 in ('A','B','C') then 1 else 0 end as state_flag_187,
+/* legacy */ cast(t.code_188 as varchar(32)) as "Code188",
+(select count(*) from detail d189 where d189.t_id = t.id and d189.kind = 'k189') as detail_189,
+t.col_190 as col_190,
+coalesce(t.amount_191, 0) * 1.07 as amount_191,
+case when t.state_192 in ('A','B','C') then 1 else 0 end as state_flag_192,
+/* legacy */ cast(t.code_193 as varchar(32)) as "Code193",
+(select count(*) from detail d194 where d194.t_id = t.id and d194.kind = 'k194') as detail_194,
+t.col_195 as col_195,
+coalesce(t.amount_196, 0) * 1.07 as amount_196,
+case when t.state_197 in ('A','B','C') then 1 else 0 end as state_flag_197,
+/* legacy */ cast(t.code_198 as varchar(32)) as "Code198",
+(select count(*) from detail d199 where d199.t_id = t.id and d199.kind = 'k199') as detail_199,
+t.col_200 as col_200,
+coalesce(t.amount_201, 0) * 1.07 as amount_201,
+case when t.state_202 in ('A','B','C') then 1 else 0 end as state_flag_202,
+/* legacy */ cast(t.code_203 as varchar(32)) as "Code203",
+(select count(*) from detail d204 where d204.t_id = t.id and d204.kind = 'k204') as detail_204,
+t.col_205 as col_205,
+coalesce(t.amount_206, 0) * 1.07 as amount_206,
+case when t.state_207 in ('A','B','C') then 1 else 0 end as state_flag_207,
+/* legacy */ cast(t.code_208 as varchar(32)) as "Code208",
+(select count(*) from detail d209 where d209.t_id = t.id and d209.kind = 'k209') as detail_209,
+t.col_210 as col_210,
+coalesce(t.amount_211, 0) * 1.07 as amount_211,
+case when t.state_212 in ('A','B','C') then 1 else 0 end as state_flag_212,
+/* legacy */ cast(t.code_213 as varchar(32)) as "Code213",
+(select count(*) from detail d214 where d214.t_id = t.id and d214.kind = 'k214') as detail_214,
+t.col_215 as col_215,
+coalesce(t.amount_216, 0) * 1.07 as amount_216,
+case when t.state_217 in ('A','B','C') then 1 else 0 end as state_flag_217,
+/* legacy */ cast(t.code_218 as varchar(32)) as "Code218",
+(select count(*) from detail d219 where d219.t_id = t.id and d219.kind = 'k219') as detail_219,
+t.col_220 as col_220,
+coalesce(t.amount_221, 0) * 1.07 as amount_221,
+case when t.state_222 in ('A','B','C') then 1 else 0 end as state_flag_222,
+/* legacy */ cast(t.code_223 as varchar(32)) as "Code223",
+(select count(*) from detail d224 where d224.t_id = t.id and d224.kind = 'k224') as detail_224,
+t.col_225 as col_225,
+coalesce(t.amount_226, 0) * 1.07 as amount_226,
+case when t.state_227 in ('A','B','C') then 1 else 0 end as state_flag_227,
+/* legacy */ cast(t.code_228 as varchar(32)) as "Code228",
+(select count(*) from detail d229 where d229.t_id = t.id and d229.kind = 'k229') as detail_229,
+t.col_230 as col_230,
+coalesce(t.amount_231, 0) * 1.07 as amount_231,
+case when t.state_232 in ('A','B','C') then 1 else 0 end as state_flag_232,
+/* legacy */ cast(t.code_233 as varchar(32)) as "Code233",
+(select count(*) from detail d234 where d234.t_id = t.id and d234.kind = 'k234') as detail_234,
+t.col_235 as col_235,
+coalesce(t.amount_236, 0) * 1.07 as amount_236,
+case when t.state_237 in ('A','B','C') then 1 else 0 end as state_flag_237,
+/* legacy */ cast(t.code_238 as varchar(32)) as "Code238",
+(select count(*) from detail d239 where d239.t_id = t.id and d239.kind = 'k239') as detail_239,
+t.col_240 as col_240,
+coalesce(t.amount_241, 0) * 1.07 as amount_241,
+case when t.state_242 in ('A','B','C') then 1 else 0 end as state_flag_242,
+/* legacy */ cast(t.code_243 as varchar(32)) as "Code243",
+(select count(*) from detail d244 where d244.t_id = t.id and d244.kind = 'k244') as detail_244,
+t.col_245 as col_245,
+coalesce(t.amount_246, 0) * 1.07 as amount_246,
+case when t.state_247 in ('A','B','C') then 1 else 0 end as state_flag_247,
+/* legacy */ cast(t.code_248 as varchar(32)) as "Code248",
+(select count(*) from detail d249 where d249.t_id = t.id and d249.kind = 'k249') as detail_249,
+t.col_250 as col_250,
+coalesce(t.amount_251, 0) * 1.07 as amount_251,
+case when t.state_252 in ('A','B','C') then 1 else 0 end as state_flag_252,
+/* legacy */ cast(t.code_253 as varchar(32)) as "Code253",
+(select count(*) from detail d254 where d254.t_id = t.id and d254.kind = 'k254') as detail_254,
+t.col_255 as col_255,
+coalesce(t.amount_256, 0) * 1.07 as amount_256,
+case when t.state_257 in ('A','B','C') then 1 else 0 end as state_flag_257,
+/* legacy */ cast(t.code_258 as varchar(32)) as "Code258",
+(select count(*) from detail d259 where d259.t_id = t.id and d259.kind = 'k259') as detail_259,
+t.col_260 as col_260,
+coalesce(t.amount_261, 0) * 1.07 as amount_261,
+case when t.state_262 in ('A','B','C') then 1 else 0 end as state_flag_262,
+/* legacy */ cast(t.code_263 as varchar(32)) as "Code263",
+(select count(*) from detail d264 where d264.t_id = t.id and d264.kind = 'k264') as detail_264,
+t.col_265 as col_265,
+coalesce(t.amount_266, 0) * 1.07 as amount_266,
+case when t.state_267 in ('A','B','C') then 1 else 0 end as state_flag_267,
+/* legacy */ cast(t.code_268 as varchar(32)) as "Code268",
+(select count(*) from detail d269 where d269.t_id = t.id and d269.kind = 'k269') as detail_269,
+t.col_270 as col_270,
+coalesce(t.amount_271, 0) * 1.07 as amount_271,
+case when t.state_272 in ('A','B','C') then 1 else 0 end as state_flag_272,
+/* legacy */ cast(t.code_273 as varchar(32)) as "Code273",
+(select count(*) from detail d274 where d274.t_id = t.id and d274.kind = 'k274') as detail_274,
+t.col_275 as col_275,
+coalesce(t.amount_276, 0) * 1.07 as amount_276,
+case when t.state_277 in ('A','B','C') then 1 else 0 end as state_flag_277,
+/* legacy */ cast(t.code_278 as varchar(32)) as "Code278",
+(select count(*) from detail d279 where d279.t_id = t.id and d279.kind = 'k279') as detail_279,
+t.col_280 as col_280,
+coalesce(t.amount_281, 0) * 1.07 as amount_281,
+case when t.state_282 in ('A','B','C') then 1 else 0 end as state_flag_282,
+/* legacy */ cast(t.code_283 as varchar(32)) as "Code283",
+(select count(*) from detail d284 where d284.t_id = t.id and d284.kind = 'k284') as detail_284,
+t.col_285 as col_285,
+coalesce(t.amount_286, 0) * 1.07 as amount_286,
+case when t.state_287 in ('A','B','C') then 1 else 0 end as state_flag_287,
+/* legacy */ cast(t.code_288 as varchar(32)) as "Code288",
+(select count(*) from detail d289 where d289.t_id = t.id and d289.kind = 'k289') as detail_289,
+t.col_290 as col_290,
+coalesce(t.amount_291, 0) * 1.07 as amount_291,
+case when t.state_292 in ('A','B','C') then 1 else 0 end as state_flag_292,
+/* legacy */ cast(t.code_293 as varchar(32)) as "Code293",
+(select count(*) from detail d294 where d294.t_id = t.id and d294.kind = 'k294') as detail_294,
+t.col_295 as col_295,
+coalesce(t.amount_296, 0) * 1.07 as amount_296,
+case when t.state_297 in ('A','B','C') then 1 else 0 end as state_flag_297,
+/* legacy */ cast(t.code_298 as varchar(32)) as "Code298",
+(select count(*) from detail d299 where d299.t_id = t.id and d299.kind = 'k299') as detail_299,
+t.col_300 as col_300,
+coalesce(t.amount_301, 0) * 1.07 as amount_301,
+case when t.state_302 in ('A','B','C') then 1 else 0 end as state_flag_302,
+/* legacy */ cast(t.code_303 as varchar(32)) as "Code303",
+(select count(*) from detail d304 where d304.t_id = t.id and d304.kind = 'k304') as detail_304,
+t.col_305 as col_305,
+coalesce(t.amount_306, 0) * 1.07 as amount_306,
+case when t.state_307 in ('A','B','C') then 1 else 0 end as state_flag_307,
+/* legacy */ cast(t.code_308 as varchar(32)) as "Code308",
+(select count(*) from detail d309 where d309.t_id = t.id and d309.kind = 'k309') as detail_309,
+t.col_310 as col_310,
+coalesce(t.amount_311, 0) * 1.07 as amount_311,
+case when t.state_312 in ('A','B','C') then 1 else 0 end as state_flag_312,
+/* legacy */ cast(t.code_313 as varchar(32)) as "Code313",
+(select count(*) from detail d314 where d314.t_id = t.id and d314.kind = 'k314') as detail_314,
+t.col_315 as col_315,
+coalesce(t.amount_316, 0) * 1.07 as amount_316,
+case when t.state_317 in ('A','B','C') then 1 else 0 end as state_flag_317,
+/* legacy */ cast(t.code_318 as varchar(32)) as "Code318",
+(select count(*) from detail d319 where d319.t_id = t.id and d319.kind = 'k319') as detail_319,
+t.col_320 as col_320,
+coalesce(t.amount_321, 0) * 1.07 as amount_321,
+case when t.state_322 in ('A','B','C') then 1 else 0 end as state_flag_322,
+/* legacy */ cast(t.code_323 as varchar(32)) as "Code323",
+(select count(*) from detail d324 where d324.t_id = t.id and d324.kind = 'k324') as detail_324,
+t.col_325 as col_325,
+coalesce(t.amount_326, 0) * 1.07 as amount_326,
+case when t.state_327 in ('A','B','C') then 1 else 0 end as state_flag_327,
+/* legacy */ cast(t.code_328 as varchar(32)) as "Code328",
+(select count(*) from detail d329 where d329.t_id = t.id and d329.kind = 'k329') as detail_329,
+t.col_330 as col_330,
+coalesce(t.amount_331, 0) * 1.07 as amount_331,
+case when t.state_332 in ('A','B','C') then 1 else 0 end as state_flag_332,
+/* legacy */ cast(t.code_333 as varchar(32)) as "Code333",
+(select count(*) from detail d334 where d334.t_id = t.id and d334.kind = 'k334') as detail_334,
+t.col_335 as col_335,
+coalesce(t.amount_336, 0) * 1.07 as amount_336,
+case when t.state_337 in ('A','B','C') then 1 else 0 end as state_flag_337,
+/* legacy */ cast(t.code_338 as varchar(32)) as "Code338",
+(select count(*) from detail d339 where d339.t_id = t.id and d339.kind = 'k339') as detail_339,
+t.col_340 as col_340,
+coalesce(t.amount_341, 0) * 1.07 as amount_341,
+case when t.state_342 in ('A','B','C') then 1 else 0 end as state_flag_342,
+/* legacy */ cast(t.code_343 as varchar(32)) as "Code343",
+(select count(*) from detail d344 where d344.t_id = t.id and d344.kind = 'k344') as detail_344,
+t.col_345 as col_345,
+coalesce(t.amount_346, 0) * 1.07 as amount_346,
+case when t.state_347 in ('A','B','C') then 1 else 0 end as state_flag_347,
+/* legacy */ cast(t.code_348 as varchar(32)) as "Code348",
+(select count(*) from detail d349 where d349.t_id = t.id and d349.kind = 'k349') as detail_349,
+t.col_350 as col_350,
+coalesce(t.amount_351, 0) * 1.07 as amount_351,
+case when t.state_352 in ('A','B','C') then 1 else 0 end as state_flag_352,
+/* legacy */ cast(t.code_353 as varchar(32)) as "Code353",
+(select count(*) from detail d354 where d354.t_id = t.id and d354.kind = 'k354') as detail_354,
+t.col_355 as col_355,
+coalesce(t.amount_356, 0) * 1.07 as amount_356,
+case when t.state_357 in ('A','B','C') then 1 else 0 end as state_flag_357,
+/* legacy */ cast(t.code_358 as varchar(32)) as "Code358",
+(select count(*) from detail d359 where d359.t_id = t.id and d359.kind = 'k359') as detail_359,
+t.col_360 as col_360,
+coalesce(t.amount_361, 0) * 1.07 as amount_361,
+case when t.state_362 in ('A','B','C') then 1 else 0 end as state_flag_362,
+/* legacy */ cast(t.code_363 as varchar(32)) as "Code363",
+(select count(*) from detail d364 where d364.t_id = t.id and d364.kind = 'k364') as detail_364,
+t.col_365 as col_365,
+coalesce(t.amount_366, 0) * 1.07 as amount_366,
+case when t.state_367 in ('A','B','C') then 1 else 0 end as state_flag_367,
+/* legacy */ cast(t.code_368 as varchar(32)) as "Code368",
+(select count(*) from detail d369 where d369.t_id = t.id and d369.kind = 'k369') as detail_369,
+t.col_370 as col_370,
+coalesce(t.amount_371, 0) * 1.07 as amount_371,
+case when t.state_372 in ('A','B','C') then 1 else 0 end as state_flag_372,
+/* legacy */ cast(t.code_373 as varchar(32)) as "Code373",
+(select count(*) from detail d374 where d374.t_id = t.id and d374.kind = 'k374') as detail_374,
+t.col_375 as col_375,
+coalesce(t.amount_376, 0) * 1.07 as amount_376,
+case when t.state_377 in ('A','B','C') then 1 else 0 end as state_flag_377,
+/* legacy */ cast(t.code_378 as varchar(32)) as "Code378",
+(select count(*) from detail d379 where d379.t_id = t.id and d379.kind = 'k379') as detail_379,
+t.col_380 as col_380,
+coalesce(t.amount_381, 0) * 1.07 as amount_381,
+case when t.state_382 in ('A','B','C') then 1 else 0 end as state_flag_382,
+/* legacy */ cast(t.code_383 as varchar(32)) as "Code383",
+(select count(*) from detail d384 where d384.t_id = t.id and d384.kind = 'k384') as detail_384,
+t.col_385 as col_385,
+coalesce(t.amount_386, 0) * 1.07 as amount_386,
+case when t.state_387 in ('A','B','C') then 1 else 0 end as state_flag_387,
+/* legacy */ cast(t.code_388 as varchar(32)) as "Code388",
+(select count(*) from detail d389 where d389.t_id = t.id and d389.kind = 'k389') as detail_389,
+t.col_390 as col_390,
+coalesce(t.amount_391, 0) * 1.07 as amount_391,
+case when t.state_392 in ('A','B','C') then 1 else 0 end as state_flag_392,
+/* legacy */ cast(t.code_393 as varchar(32)) as "Code393",
+(select count(*) from detail d394 where d394.t_id = t.id and d394.kind = 'k394') as detail_394,
+t.col_395 as col_395,
+coalesce(t.amount_396, 0) * 1.07 as amount_396,
+case when t.state_397 in ('A','B','C') then 1 else 0 end as state_flag_397,
+/* legacy */ cast(t.code_398 as varchar(32)) as "Code398",
+(select count(*) from detail d399 where d399.t_id = t.id and d399.kind = 'k399') as detail_399
+from wide_table t
+where t.id in (339564, 993909, 158177, 414003, 682555, 50632, 75955, 861169, 561914, 98703, 383453, 611098, 60817, 953894, 532085, 225128, 39318, 90123, 454711, 438486, 73249, 252354, 95120, 577815, 445141, 61982, 867018, 592922, 129816, 993474, 234084, 661260, 657912, 611317, 993745, 64868, 605137, 613985, 415950, 51999, 231822, 48846, 583706, 900170, 139644, 303678, 439500, 151263, 566951, 123515, 598647, 323467, 587473, 855771, 715132, 189506, 108062, 609852, 598952, 669950, 196998, 390488, 102164, 574352, 746703, 65840, 591784, 62497, 649079, 215964, 520529, 713452, 557550, 448364, 814984, 329408, 488219, 614007, 968299, 475199, 379147, 314329, 260495, 832968, 188500, 732949, 817711, 255954, 85832, 602327, 314835, 550709, 519168, 917649, 360161, 764879, 470637, 301925, 638540, 76757, 123801, 536801, 438434, 172976, 793920, 358672, 159368, 978605, 512715, 442183, 41112, 700676, 81391, 801711, 585185, 600862, 827426, 918006, 858106, 328989, 356645, 729071, 367189, 623242, 520802, 608065, 835602, 478366, 72104, 880771, 98143, 990570, 283052, 497129, 730902, 696415, 68158, 63617, 766677, 735568, 324647, 678564, 606021, 714329, 861851, 467289, 298421, 751439, 404532, 930130, 701134, 363862, 23659, 986342, 484123, 372732, 176212, 640596, 122784, 517675, 61819, 228808, 805551, 301395, 135624, 774231, 259643, 417226, 409941, 961352, 913753, 520626, 84496, 174448, 471008, 421155, 576130, 291336, 926296, 143578, 859078, 451435, 905954, 576948, 291946, 740711, 435470, 376199, 715888, 927144, 398922, 241961, 158253, 87016, 184778, 158648, 243225, 690505, 244671, 12650, 508521, 871465, 617741, 191201, 275510, 295626, 4293, 152753, 439298, 560560, 387191, 639435, 593852, 334089, 999396, 131588, 724036, 900939, 540532, 996383, 647593, 686783, 709048, 775721, 56616, 478826, 943229, 913289, 817858, 998126, 916994, 713635, 836631, 586439, 411440, 417407, 418360, 413265, 108567, 504914, 665101, 419895, 65272, 199869, 70620, 218905, 462031, 170188, 115269, 356573, 629909, 55130, 107353, 245, 594316, 158613, 562686, 106394, 995045, 381273, 643551, 26740, 73732, 916804, 218055, 643899, 394506, 155767, 665227, 264512, 364265, 631536, 381854, 497184, 128810, 120957, 890175, 511777, 488626, 503731, 507338, 327001, 90057, 151119, 107152, 786091, 359280, 776315, 277618, 501872, 869118, 725675, 169281, 541416, 24218, 215184, 997181, 998267, 553919, 379325, 153724, 723589, 569558, 958552, 28357, 794971, 553763, 312570, 674148, 905262, 95432, 730016, 886517, 273800, 543579, 384513, 952379, 175157, 372975, 809436, 233616, 558464, 567875, 816899, 527117, 345679, 667358, 233877, 643017, 850932, 826697, 795159, 894047, 204626, 845235, 251017, 858085, 420149, 775814, 842349, 237754, 209630, 542784, 516720, 372835, 766514, 30388, 29295, 828495, 292992, 495180, 271765, 203052, 726162, 634535, 361005, 468953, 847843, 982538, 758255, 366498, 382349, 84451, 231172, 107120, 237866, 492915, 206262, 354144, 214302, 506099, 654382, 944042, 639907, 881261, 2002, 502765, 953365, 684698, 360718, 838488, 674374, 88897, 875193, 692675, 125729, 953971, 407410, 820305, 746055, 786580, 209002, 501254, 932196, 187194, 455004, 827469, 666729, 348670, 90964, 839725, 992127, 756889, 415067, 485660, 420885, 779462, 992789, 89045, 760007, 166573, 178262, 133210, 28888, 158493, 619512, 948807, 487959, 845679, 687718, 153275, 641282, 866660, 624816, 497400, 689196, 983006, 367429, 163487, 575312, 574920, 137347, 22437, 14935, 838187, 761655, 681234, 107765, 552161, 785904, 978977, 146015, 454883, 914089, 204269, 866287, 916358, 221294, 29354, 264068, 223116, 307198, 525507, 252224, 800777, 614924, 341825, 271964, 570796, 439367, 874717, 137441, 63864, 954223, 775865, 370970, 941311, 480417, 694656, 611686, 854639, 948224, 541864, 441061, 867319, 962301, 920827, 526018, 137116, 557659, 159212, 548937, 535348, 19614, 915204, 461505, 814226, 192003, 638116, 4124, 813736, 837991, 157080, 180719, 148436, 496494, 649175, 760421, 126183, 583507, 64756, 341818, 715477, 543529, 556507, 582424, 505925, 822370, 814209, 111264, 926132, 587514, 59583, 260566, 200600, 290369, 44249, 809775, 102494, 532377, 474141, 589016, 29220, 796911, 937440, 956814, 66448, 464780, 341431, 642283, 530111, 635582, 537041, 209090, 726382, 290651, 474319, 532841, 559191, 846581, 501258, 532417, 987236, 259686, 733184, 548626, 919115, 918529, 987948, 972879, 272203, 967610, 586693, 936122, 989088, 212430, 880804, 469268, 143796, 436876, 127530, 411424, 463595, 331329, 76071, 703758, 252329, 449146, 76673, 223022, 701993, 317488, 822017, 128294, 940601, 814673, 161950, 985143, 750907, 674715, 692330, 383972, 149925, 265403, 925718, 143922, 490457, 230255, 782953, 998773, 98698, 417603, 927920, 510930, 170704, 700274, 872882, 234580, 169310, 740634, 452484, 540652, 423426, 355590, 441741, 205254, 373938, 333999, 96673, 757231, 383730, 20430, 354398, 580964, 480952, 461854, 737308, 18961, 403015, 347601, 542569, 654235, 309807, 537146, 67414, 118332, 963168, 826659, 239657, 918964, 109870, 88145, 278465, 285130, 41512, 949904, 816839, 190371, 283584, 792490, 135849, 859599, 442766, 890858, 955687, 708810, 858762, 991955, 271172, 425668, 156624, 562665, 963822, 539789, 598313, 518639, 734441, 342936, 93808, 292619, 60321, 838429, 721636, 192251, 445978, 938775, 75932, 281987, 983931, 17650, 665259, 92869, 840569, 273209, 87811, 637721, 897821, 233212, 69859, 277297, 904686, 127589, 475817, 12108, 355627, 579930, 438054, 971684, 959895, 280872, 651904, 135503, 45305, 552511, 744004, 250019, 983697, 114769, 169292, 274618, 52827, 189946, 211570, 977532, 327148, 659210, 319822, 556884, 796392, 215872, 304046, 467337, 524381, 704808, 186542, 283664, 363857, 842719, 19046, 262615, 38745, 16092, 19330, 768691, 530217, 577817, 198660, 539215, 497823, 257614, 980045, 468772, 111445, 690299, 858701, 681686, 453172, 688401, 519047, 572425, 875157, 931897, 412181, 531299, 322734, 721150, 225634, 240718, 359352, 208273, 872716, 924769, 741056, 764249, 666871, 146506, 424357, 364435, 57031, 877646, 136125, 14948, 74159, 655831, 776879, 922595, 268010, 451665, 171177, 58093, 88589, 697542, 882135, 399384, 912826, 530520, 703116, 295629, 627865, 253979, 726334, 307295, 47435, 481772, 194356, 165186, 282106, 467481, 3799, 276031, 381830, 344905, 573649, 339250, 256321, 36121, 925252, 324585, 228449, 373906, 191846, 1121, 351622, 400165, 87966, 497700, 292479, 527187, 687885, 210743, 260235, 529254, 813945, 5192, 95265, 277001, 856734, 94114, 150854, 418918, 615306, 43691, 413117, 23587, 314202, 319024, 660257, 244119, 88587, 614029, 554896, 894695, 786999, 162794, 689485, 936170, 750774, 822127, 921794, 625538, 408438, 801439, 341978, 755685, 518197, 156724, 297981, 759333, 648762, 674465, 151784, 45916, 864926, 875865, 749744, 935270, 537900, 657806, 450096, 769500, 735108, 851674, 530099, 146075, 954087, 549200, 789439, 528872, 596094, 875496, 852394, 843766, 16861, 866553, 719818, 612433, 836730, 936200, 745733, 716068, 727006, 674119, 241111, 89226, 32675, 43896, 139559, 668069, 378230, 110013, 394913, 876423, 473313, 585659, 53248, 658262, 19756, 656647, 557260, 713729, 256440, 513063, 276607, 3476, 479146, 836447, 73518, 784614, 977802, 527404, 941472, 561198, 96409, 691326, 551541, 69259, 781953, 772579, 496877, 264445, 848528, 78067, 887236, 278458, 246191, 764764, 793187, 215187, 241945, 775767, 681504, 482702, 517943, 886604, 401144, 80468, 502279, 954694, 716908, 301276, 804227, 49019, 646945, 663532, 673986, 207923, 81236, 628837, 154587, 347890, 266276, 683184, 779320, 726545, 319205, 651324, 595342, 139924, 13075, 505855, 63608, 509397, 281829, 704645, 104354, 725809, 228269, 708531, 513398, 304986, 743306, 541627, 299415, 487235, 488530, 488993, 804436, 124260, 937074, 575749, 208929, 326815, 90025, 981734, 495919, 18355, 303656, 481266, 80179, 859726, 531229, 471284, 281708, 405640, 220031, 961078, 991521, 975738, 220945, 78238, 609718, 94690, 148626, 783797, 549523, 274527, 999021, 377020, 139047, 632675, 860060, 662353, 533458, 293149, 929943, 118151, 737503, 382928, 242624, 522074, 941313, 918705, 509756, 413224, 26041, 166793, 3765, 996105, 515581, 714697, 472657, 425113, 316619, 762507, 147543, 436398, 360669, 394376, 331432, 126783, 881047, 347419, 1826, 340313, 787202, 354705, 879872, 417606, 125873, 985537, 971400, 205250, 747660, 12292, 945362, 775850, 303912, 265513, 390304, 68134, 411985, 409114, 912232, 617797, 80112, 378232, 970369, 448846, 792364, 288522, 895752, 50613, 294270, 106651, 54125, 875222, 694135, 299498, 665808, 981038, 156149, 261436, 278637, 457432, 535784, 330933, 199072, 810742, 391486, 823282, 448526, 927221, 30421, 851405, 798654, 661543, 419475, 957795, 918266, 986395, 581072, 575908, 213318, 754527, 84492, 51880, 978810, 767928, 430846, 472762, 644785, 789230, 145304, 675798, 911715, 300112, 509163, 51357, 956202, 971797, 576831, 133496, 179058, 495121, 435020, 360357, 295433, 312237, 268166, 774932, 774631, 684530, 272808, 425942, 687861, 250259, 315450, 506654, 584395, 701368, 413525, 125560, 175461, 674450, 169510, 78823, 217971, 524923, 949968, 851262, 521222, 577123, 230714, 474991, 950282, 349003, 796130, 471818, 448186, 146378, 574395, 201754, 255943, 95122, 183182, 358567, 582877, 95520, 334798, 250743, 386197, 270908, 848674, 597288, 211962, 930351, 21058, 786073, 912907, 432833, 401435, 433989, 782071, 549631, 220207, 395173, 283368, 354632, 788646, 65075, 522344, 290997, 602178, 377640, 131989, 720113, 527849, 554934, 660212, 828703, 904776, 889856, 226454, 97097, 284186, 940353, 260523, 403242, 419176, 677162, 467517, 452814, 327173, 889910, 853897, 915293, 22870, 133429, 33810, 445855, 743978, 800788, 939206, 843317, 496258, 615700, 513619, 188, 76691, 410540, 975426, 971849, 973248, 865694, 553503, 897018, 490893, 470759, 260535, 821148, 114344, 234672, 161878, 159456, 547741, 715208, 114180, 987225, 865490, 756795, 735056, 678794, 887629, 801952, 938357, 479541, 89133, 578291, 814599, 41468, 1433, 820300, 131756, 243875, 597041, 964607, 39418, 676862, 749755, 318539, 134183, 656905, 264026, 553914, 667200, 458680, 732517, 800949, 117580, 104276, 73770, 314940, 549912, 989374, 611206, 201014, 406934, 273555, 234444, 828886, 630259, 1208, 10970, 563585, 316168, 483070, 292138, 331725, 675887, 880187, 926705, 254131, 498393, 551843, 246173, 573574, 259060, 30704, 431815, 738883, 681208, 322330, 57996, 22846, 203545, 522517, 927831, 707226, 678606, 440419, 85032, 269753, 238909, 699773, 444935, 970102, 388202, 237803, 516889, 35754, 729624, 354473, 753226, 440986, 379920, 715724, 415612, 207702, 7082, 835783, 306301, 775034, 886204, 529404, 70709, 215188, 519775, 210150, 326858, 803060, 859838, 203354, 242021, 487708, 232200, 277896, 797412, 932535, 309260, 114304, 998168, 653889, 519847, 639735, 196413, 940024, 234173, 508615, 437287, 954620, 697612, 59158, 994849, 623696, 153494, 966707, 412573, 56999, 223294, 24777, 625085, 148805, 435563, 54359, 744341, 63057, 193048, 412428, 471484, 941797, 746623, 926505, 329463, 768317, 118705, 83217, 976849, 173680, 345237, 199947, 194524, 684163, 981343, 550291, 782562, 490331, 33443, 326975, 696706, 760614, 397012, 879889, 392046, 347811, 463927, 177483, 114251, 3011, 82043, 293399, 84687, 368540, 440594, 928171, 129718, 588387, 795665, 217478, 398595, 373953, 806075, 861483, 323695, 861938, 842989, 453456, 92024, 51651, 739516, 496464, 205223, 390820, 567835, 964173, 468030, 202403, 339015, 381943, 773136, 940566, 497586, 31754, 662346, 430757, 260061, 851260, 655789, 803910, 424435, 42625, 393812, 36548, 486593, 65620, 842362, 964771, 65016, 269501, 204411, 783588, 65905, 942200, 635035, 355541, 380607, 285543, 351243, 646949, 45703, 274908, 782697, 751448, 723075, 331858, 969124, 289020, 311853, 3955, 756624, 792359, 624499, 960978, 844795, 664777, 992465, 989070, 68506, 25435, 866143, 245227)
+  and t.deleted = false -- soft delete
+order by t.id
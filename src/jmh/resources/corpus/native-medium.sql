@@ -0,0 +1,9 @@
+select o.id as order_id, o.created_at as created_at, c.id as customer_id, c.email as customer_email,
+sum(l.quantity * l.unit_price) as total_amount, count(distinct l.product_id) as product_count,
+case when o.status = 'PAID' then 'closed' when o.status = 'NEW' then 'open' else 'other' end as status_group
+from orders o join customers c on c.id = o.customer_id left join order_lines l on l.order_id = o.id
+left join shipments s on s.order_id = o.id and s.cancelled = false
+where o.created_at >= :from and o.created_at < :to and (c.region = :region or c.vip = true)
+and o.id not in (select r.order_id from refunds r where r.created_at >= :from) -- exclude refunded
+group by o.id, o.created_at, c.id, c.email, o.status having sum(l.quantity * l.unit_price) > :minAmount
+order by total_amount desc, o.created_at limit :limit offset :offset
@@ -0,0 +1 @@
+select t8.id, (select max(m8.value) from metrics m8 where m8.ref_id = t8.id) as max_value from level8 t8 where t8.parent_id in (select t7.id, (select max(m7.value) from metrics m7 where m7.ref_id = t7.id) as max_value from level7 t7 where t7.parent_id in (select t6.id, (select max(m6.value) from metrics m6 where m6.ref_id = t6.id) as max_value from level6 t6 where t6.parent_id in (select t5.id, (select max(m5.value) from metrics m5 where m5.ref_id = t5.id) as max_value from level5 t5 where t5.parent_id in (select t4.id, (select max(m4.value) from metrics m4 where m4.ref_id = t4.id) as max_value from level4 t4 where t4.parent_id in (select t3.id, (select max(m3.value) from metrics m3 where m3.ref_id = t3.id) as max_value from level3 t3 where t3.parent_id in (select t2.id, (select max(m2.value) from metrics m2 where m2.ref_id = t2.id) as max_value from level2 t2 where t2.parent_id in (select t1.id, (select max(m1.value) from metrics m1 where m1.ref_id = t1.id) as max_value from level1 t1 where t1.parent_id in (select t0.id from base_table t0 where t0.flag = 'x,y' and t0.score > 10))))))))
@@ -0,0 +1,27 @@
+package me.kongkiat.octoquery;
+
+import com.intellij.ide.AppLifecycleListener;
+import com.intellij.openapi.progress.ProgressManager;
+import me.kongkiat.octoquery.sql.Cancellation;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.List;
+
+/**
+ * Connects the {@link Cancellation} checkpoints of the SQL classes to progress cancellation as soon as
+ * the IDE starts, so the lexer and formatters are cancellable whichever feature runs them first.
+ * A plugin loaded without a restart gets no frame event, so {@link QueryBudget} also installs it before
+ * its first budgeted query. The command-line formatter installs it itself, since it opens no frame.
+ * Installing again is harmless.
+ */
+public class CancellationInstaller implements AppLifecycleListener {
+
+    @Override
+    public void appFrameCreated(@NotNull List<String> commandLineArgs) {
+        install();
+    }
+
+    public static void install() {
+        Cancellation.install(ProgressManager::checkCanceled);
+    }
+}
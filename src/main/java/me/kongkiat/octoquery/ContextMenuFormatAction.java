@@ -14,7 +14,6 @@ import org.jetbrains.annotations.NotNull;
 
 import java.util.Arrays;
 
-import static me.kongkiat.octoquery.FormatQueryAction.formatQueriesInFile;
 import static me.kongkiat.octoquery.FormatQueryAction.formatSqlFile;
 
 /**
@@ -57,7 +56,7 @@ public class ContextMenuFormatAction extends AnAction {
             formatSqlFile(project, psiFile, editor);
         } else if (psiFile instanceof PsiJavaFile) {
             // Handle Java files with JPA annotations
-            formatQueriesInFile(project, psiFile, editor, false);
+            QueryFormattingService.getInstance(project).formatFile(psiFile, null);
         }
     }
 
@@ -0,0 +1,169 @@
+package me.kongkiat.octoquery;
+
+import com.intellij.openapi.editor.Document;
+import com.intellij.openapi.editor.RangeMarker;
+import com.intellij.openapi.editor.event.DocumentEvent;
+import com.intellij.openapi.editor.event.DocumentListener;
+import com.intellij.openapi.fileEditor.FileDocumentManager;
+import com.intellij.openapi.util.Key;
+import com.intellij.openapi.util.TextRange;
+import com.intellij.openapi.util.UserDataHolderEx;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.psi.PsiAnnotation;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Tracks which parts of a Java document were edited since OctoQuery last formatted it.
+ * Edited regions are kept as range markers on the document, so they follow later edits,
+ * and the save listener only reformats the query annotations that intersect them.
+ *
+ * Registered as an editor factory document listener, so it sees every document change.
+ */
+public class DirtyQueryTracker implements DocumentListener {
+    private static final Key<DirtyRegions> DIRTY_REGIONS = Key.create("octoquery.dirtyRegions");
+
+    /** Above this many separate regions the whole document is considered dirty. */
+    private static final int MAX_REGIONS = 32;
+
+    private static final ThreadLocal<Boolean> SUPPRESSED = ThreadLocal.withInitial(() -> false);
+
+    @Override
+    public void documentChanged(@NotNull DocumentEvent event) {
+        if (SUPPRESSED.get()) return;
+
+        Document document = event.getDocument();
+        VirtualFile file = FileDocumentManager.getInstance().getFile(document);
+        if (file == null || !file.getName().endsWith(".java")) return;
+
+        int start = event.getOffset();
+        markDirty(document, new TextRange(start, start + event.getNewLength()));
+    }
+
+    /**
+     * Records a dirty region on the document.
+     *
+     * @param document The edited document
+     * @param range The region that changed, in current document offsets
+     */
+    public static void markDirty(@NotNull Document document, @NotNull TextRange range) {
+        DirtyRegions regions = ((UserDataHolderEx) document).putUserDataIfAbsent(DIRTY_REGIONS, new DirtyRegions());
+        regions.add(document, range);
+    }
+
+    /**
+     * Removes and returns everything that was marked dirty on the document.
+     * The returned markers keep tracking edits until the caller disposes them with {@link #dispose(List)}.
+     *
+     * @param document The document about to be formatted
+     * @return The dirty markers, an empty list when nothing changed since the last format,
+     *         or null when the whole document has to be treated as dirty
+     */
+    public static @Nullable List<RangeMarker> takeDirtyMarkers(@NotNull Document document) {
+        DirtyRegions regions = document.getUserData(DIRTY_REGIONS);
+        if (regions == null) return List.of();
+        return regions.take();
+    }
+
+    /**
+     * @param annotation A query annotation
+     * @param dirtyMarkers Markers returned by {@link #takeDirtyMarkers(Document)}, null meaning "everything"
+     * @return true if the annotation was touched by one of the edits
+     */
+    public static boolean isDirty(@NotNull PsiAnnotation annotation, @Nullable List<RangeMarker> dirtyMarkers) {
+        if (dirtyMarkers == null) return true;
+        TextRange annotationRange = annotation.getTextRange();
+        for (RangeMarker marker : dirtyMarkers) {
+            if (!marker.isValid() || annotationRange.intersects(marker.getTextRange())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Puts markers that could not be formatted back into the tracker, so the next save retries them.
+     */
+    public static void restore(@NotNull Document document, @Nullable List<RangeMarker> dirtyMarkers) {
+        if (dirtyMarkers == null) {
+            markDirty(document, new TextRange(0, document.getTextLength()));
+            return;
+        }
+        for (RangeMarker marker : dirtyMarkers) {
+            if (marker.isValid()) {
+                markDirty(document, marker.getTextRange());
+            }
+        }
+        dispose(dirtyMarkers);
+    }
+
+    public static void dispose(@Nullable List<RangeMarker> dirtyMarkers) {
+        if (dirtyMarkers == null) return;
+        dirtyMarkers.forEach(RangeMarker::dispose);
+    }
+
+    /**
+     * Runs document modifications made by OctoQuery itself without marking them dirty,
+     * so formatting a query does not schedule that query for formatting again.
+     */
+    public static void runWithoutTracking(@NotNull Runnable runnable) {
+        boolean previous = SUPPRESSED.get();
+        SUPPRESSED.set(true);
+        try {
+            runnable.run();
+        } finally {
+            SUPPRESSED.set(previous);
+        }
+    }
+
+    /**
+     * The set of dirty regions of one document. Overlapping regions are merged on insertion.
+     */
+    private static final class DirtyRegions {
+        private final List<RangeMarker> markers = new ArrayList<>();
+        private boolean wholeDocument;
+
+        synchronized void add(Document document, TextRange range) {
+            if (wholeDocument) return;
+
+            int start = range.getStartOffset();
+            int end = range.getEndOffset();
+            for (int i = markers.size() - 1; i >= 0; i--) {
+                RangeMarker marker = markers.get(i);
+                if (!marker.isValid()) {
+                    markers.remove(i).dispose();
+                } else if (marker.getStartOffset() <= end && start <= marker.getEndOffset()) {
+                    // Overlapping or adjacent: merge into the new region
+                    start = Math.min(start, marker.getStartOffset());
+                    end = Math.max(end, marker.getEndOffset());
+                    markers.remove(i).dispose();
+                }
+            }
+
+            if (markers.size() >= MAX_REGIONS) {
+                markers.forEach(RangeMarker::dispose);
+                markers.clear();
+                wholeDocument = true;
+                return;
+            }
+
+            RangeMarker marker = document.createRangeMarker(start, end);
+            marker.setGreedyToLeft(true);
+            marker.setGreedyToRight(true);
+            markers.add(marker);
+        }
+
+        synchronized @Nullable List<RangeMarker> take() {
+            if (wholeDocument) {
+                wholeDocument = false;
+                return null;
+            }
+            List<RangeMarker> taken = new ArrayList<>(markers);
+            markers.clear();
+            return taken;
+        }
+    }
+}
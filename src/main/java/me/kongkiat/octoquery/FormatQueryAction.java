@@ -1,77 +1,37 @@
 package me.kongkiat.octoquery;
 
+import com.intellij.lang.injection.InjectedLanguageManager;
 import com.intellij.openapi.actionSystem.AnAction;
 import com.intellij.openapi.actionSystem.AnActionEvent;
 import com.intellij.openapi.actionSystem.CommonDataKeys;
-import com.intellij.openapi.command.WriteCommandAction;
-import com.intellij.openapi.editor.Document;
+import com.intellij.openapi.diagnostic.Logger;
 import com.intellij.openapi.editor.Editor;
+import com.intellij.openapi.progress.ProcessCanceledException;
 import com.intellij.openapi.project.Project;
+import com.intellij.openapi.util.Pair;
+import com.intellij.openapi.util.TextRange;
 import com.intellij.psi.*;
 import com.intellij.psi.codeStyle.CodeStyleManager;
 import com.intellij.psi.util.PsiTreeUtil;
 import com.intellij.sql.psi.SqlLanguage;
+import me.kongkiat.octoquery.cache.FormattedQueryCache;
+import me.kongkiat.octoquery.cache.PersistentQueryCache;
+import me.kongkiat.octoquery.index.QueryAnnotationIndex;
+import me.kongkiat.octoquery.index.QuerySite;
+import me.kongkiat.octoquery.layout.QueryLayoutEngine;
+import me.kongkiat.octoquery.metrics.FormattingMetrics;
+import me.kongkiat.octoquery.metrics.Phase;
+import me.kongkiat.octoquery.settings.OctoQuerySettings;
+import me.kongkiat.octoquery.sql.DtoConstructorFormatter;
+import me.kongkiat.octoquery.sql.QueryText;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 public class FormatQueryAction extends AnAction {
-    /**
-     * Main entry point for formatting SQL queries in Java files.
-     * This method finds all @Query and @NativeQuery annotations and formats their SQL content.
-     *
-     * @param project The current IntelliJ project
-     * @param psiFile The Java file to process
-     * @param editor The editor instance (null for bulk formatting)
-     * @param onlyCurrentBlock If true, only format the query at the cursor position
-     */
-    public static void formatQueriesInFile(@NotNull Project project, @NotNull PsiFile psiFile, Editor editor, boolean onlyCurrentBlock) {
-        // Only process Java files
-        if (!(psiFile instanceof PsiJavaFile)) return;
-
-        // Find all query annotations in the file
-        List<PsiAnnotation> allQueries = findAllQueryAnnotations(psiFile);
-        if (allQueries.isEmpty()) return;
-
-        // Determine a target annotation for single-block formatting
-        PsiAnnotation target;
-        if (onlyCurrentBlock && editor != null) {
-            int offset = editor.getCaretModel().getOffset();
-            PsiElement elementAt = psiFile.findElementAt(offset);
-            target = PsiTreeUtil.getParentOfType(elementAt, PsiAnnotation.class);
-        } else {
-            target = null; // Format all queries
-        }
-
-        // Execute formatting within a write command for proper undo support
-        WriteCommandAction.runWriteCommandAction(project, () -> {
-            for (PsiAnnotation queryAnnotation : allQueries) {
-                // Skip if formatting a single block and this is not the target
-                if (onlyCurrentBlock && target != null && !queryAnnotation.equals(target)) continue;
-
-                // Extract the SQL value from the annotation
-                PsiAnnotationMemberValue value = queryAnnotation.findDeclaredAttributeValue("value");
-                if (value == null) continue;
-
-                // Remove surrounding quotes and normalize
-                String rawSql = value.getText().replaceAll("^\"{1,3}|\"{1,3}$", "");
-                boolean isNative = isNativeQuery(queryAnnotation);
-
-                // Format the SQL based on type (native vs. JPQL)
-                String formatted = formatQuery(project, rawSql, isNative);
-
-                // Only update if formatting actually changed the content
-                if (!formatted.trim().equals(rawSql.trim())) {
-                    String newValue = "\"\"\"\n" + formatted.trim() + "\n\"\"\"";
-                    value.replace(JavaPsiFacade.getElementFactory(project)
-                            .createExpressionFromText(newValue, queryAnnotation));
-                }
-            }
-        });
-    }
+    private static final Logger LOG = Logger.getInstance(FormatQueryAction.class);
 
     /**
      * Determines if a query annotation represents a native SQL query or JPQL query.
@@ -95,12 +55,26 @@ public class FormatQueryAction extends AnAction {
     }
 
     /**
-     * Recursively searches through a Java file to find all @Query and @NativeQuery annotations.
+     * Finds all @Query and @NativeQuery annotations in a Java file.
+     *
+     * The candidate offsets come from the {@link QueryAnnotationIndex}, so only the query annotations
+     * themselves are resolved. When the index cannot answer (dumb mode, non-physical files) or is out
+     * of sync with the PSI, the tree is walked instead, skipping annotations whose short name cannot match.
      *
      * @param psiFile The Java file to search
      * @return List of all query annotations found in the file
      */
     public static List<PsiAnnotation> findAllQueryAnnotations(PsiFile psiFile) {
+        return FormattingMetrics.getInstance().time(Phase.FIND_ANNOTATIONS, () -> doFindAllQueryAnnotations(psiFile));
+    }
+
+    private static List<PsiAnnotation> doFindAllQueryAnnotations(PsiFile psiFile) {
+        List<QuerySite> sites = QueryAnnotationIndex.getSites(psiFile);
+        if (sites != null) {
+            List<PsiAnnotation> indexed = findIndexedAnnotations(psiFile, sites);
+            if (indexed != null) return indexed;
+        }
+
         List<PsiAnnotation> list = new ArrayList<>();
 
         // Use recursive visitor to traverse the entire PSI tree
@@ -108,11 +82,7 @@ public class FormatQueryAction extends AnAction {
             @Override
             public void visitAnnotation(@NotNull PsiAnnotation annotation) {
                 super.visitAnnotation(annotation);
-                String qName = annotation.getQualifiedName();
-                if (qName == null) return;
-
-                // Match both @Query and @NativeQuery annotations (including fully qualified names)
-                if (qName.endsWith(".Query") || qName.endsWith(".NativeQuery")) {
+                if (isQueryAnnotation(annotation)) {
                     list.add(annotation);
                 }
             }
@@ -122,7 +92,50 @@ public class FormatQueryAction extends AnAction {
     }
 
     /**
-     * Formats a SQL query using the appropriate formatter based on a query type.
+     * Maps indexed offsets back to annotations.
+     *
+     * @return The query annotations, or null when the index is out of sync with the PSI
+     */
+    private static List<PsiAnnotation> findIndexedAnnotations(PsiFile psiFile, List<QuerySite> sites) {
+        List<PsiAnnotation> list = new ArrayList<>(sites.size());
+        for (QuerySite site : sites) {
+            PsiAnnotation annotation = PsiTreeUtil.getParentOfType(psiFile.findElementAt(site.offset()), PsiAnnotation.class, false);
+            if (annotation == null || annotation.getTextRange().getStartOffset() != site.offset()) return null;
+
+            if (isQueryAnnotation(annotation)) {
+                list.add(annotation);
+            }
+        }
+        return list;
+    }
+
+    /**
+     * Checks whether an annotation is a @Query or @NativeQuery. The short name is checked
+     * syntactically first, so unrelated annotations such as @Param are never resolved.
+     *
+     * @param annotation The annotation to check
+     * @return true for query annotations (including fully qualified names)
+     */
+    public static boolean isQueryAnnotation(PsiAnnotation annotation) {
+        PsiJavaCodeReferenceElement reference = annotation.getNameReferenceElement();
+        if (reference == null) return false;
+        String shortName = reference.getReferenceName();
+        if (!"Query".equals(shortName) && !"NativeQuery".equals(shortName)) return false;
+
+        String qName = annotation.getQualifiedName();
+        if (qName == null) return false;
+
+        // Match both @Query and @NativeQuery annotations (including fully qualified names)
+        return qName.endsWith(".Query") || qName.endsWith(".NativeQuery");
+    }
+
+    /**
+     * Formats a SQL query using the appropriate formatter based on a query type,
+     * or with the built-in {@link QueryLayoutEngine} when fast mode is enabled.
+     * Results are served from the project's {@link FormattedQueryCache} when the same
+     * query was already formatted with the current code style settings, and otherwise from the
+     * {@link PersistentQueryCache} when a previous IDE session formatted it. A query over the
+     * {@link QueryBudget} is returned unchanged, and nothing is cached for it.
      *
      * @param project The current IntelliJ project
      * @param query The SQL/JPQL query to format
@@ -130,7 +143,68 @@ public class FormatQueryAction extends AnAction {
      * @return The formatted query string
      */
     public static String formatQuery(Project project, String query, boolean isNative) {
-        return isNative ? formatWithSqlFormatter(project, query) : formatWithDtoAwareFormatter(project, query);
+        return formatQuery(project, query, isNative, null);
+    }
+
+    /**
+     * Formats a query taken from an annotation value. When the value already carries an injected SQL
+     * fragment with the same text, a copy of that PSI is formatted instead of parsing the query again.
+     *
+     * @param project The current IntelliJ project
+     * @param query The SQL/JPQL query to format
+     * @param isNative true for native SQL, false for JPQL
+     * @param host The annotation value the query was taken from, or null
+     * @return The formatted query, or the query itself if it exceeds the budget or cannot be formatted
+     */
+    public static String formatQuery(Project project, String query, boolean isNative, @Nullable PsiElement host) {
+        FormattedQueryCache cache = FormattedQueryCache.getInstance(project);
+        try {
+            return cache.computeIfAbsent(query, isNative, () -> {
+                // Second level: results from previous IDE sessions, looked up before any PSI work
+                OctoQuerySettings settings = OctoQuerySettings.getInstance();
+                return PersistentQueryCache.getInstance().computeIfAbsent(query, isNative, getFormatterFingerprint(project), () -> {
+                    // Only the actual formatting is budgeted, cache hits stay a plain lookup
+                    String formatted = QueryBudget.run(project, query, host, () -> formatUncached(project, query, isNative, host, settings));
+                    // Skipped or failed, e.g. in dumb mode: keep the query and let a later pass retry it
+                    if (formatted == null) throw new NotFormattedException();
+                    return formatted;
+                });
+            });
+        } catch (NotFormattedException e) {
+            return query;
+        }
+    }
+
+    /**
+     * Thrown out of the caches when a query could not be formatted, so neither cache stores a result for it.
+     */
+    private static final class NotFormattedException extends RuntimeException {
+        NotFormattedException() {
+            super(null, null, false, false);
+        }
+    }
+
+    /**
+     * @param project The current IntelliJ project
+     * @return A description of the settings the formatted text depends on, stable across IDE restarts
+     */
+    public static String getFormatterFingerprint(Project project) {
+        OctoQuerySettings settings = OctoQuerySettings.getInstance();
+        return settings.isFastMode()
+                ? "fast:" + settings.getLayoutOptions()
+                : FormattedQueryCache.getInstance(project).getStyleFingerprint();
+    }
+
+    /**
+     * @return The formatted query, or null if the formatter failed
+     */
+    private static @Nullable String formatUncached(Project project, String query, boolean isNative, @Nullable PsiElement host,
+                                                   OctoQuerySettings settings) {
+        if (settings.isFastMode()) {
+            // The layout engine handles SQL and JPQL (including DTO constructors) the same way
+            return FormattingMetrics.getInstance().time(Phase.LAYOUT, () -> QueryLayoutEngine.format(query, settings.getLayoutOptions()));
+        }
+        return isNative ? formatWithSqlFormatter(project, query, host) : formatWithDtoAwareFormatter(project, query, host);
     }
 
     /**
@@ -139,23 +213,18 @@ public class FormatQueryAction extends AnAction {
      *
      * @param project The current IntelliJ project
      * @param sql The SQL query to format
-     * @return The formatted SQL query
+     * @param host The annotation value holding the query, or null
+     * @return The formatted SQL query, or null if formatting failed
      */
-    private static String formatWithSqlFormatter(Project project, String sql) {
+    private static @Nullable String formatWithSqlFormatter(Project project, String sql, @Nullable PsiElement host) {
         try {
-            // Create a temporary SQL file and apply IntelliJ's SQL formatter
-            PsiFile sqlFile = PsiFileFactory.getInstance(project)
-                    .createFileFromText("temp.sql", SqlLanguage.INSTANCE, sql);
-
-            // Apply formatting using the project's code style settings
-            WriteCommandAction.runWriteCommandAction(project, () -> {
-                CodeStyleManager.getInstance(project).reformat(sqlFile);
-            });
-
-            return sqlFile.getText();
+            return reformatSql(project, sql, host);
+        } catch (ProcessCanceledException e) {
+            throw e;
         } catch (Exception e) {
-            // Return original SQL if formatting fails
-            return sql;
+            // E.g. in dumb mode; the caller keeps the original SQL and nothing is cached
+            LOG.debug("Cannot format SQL", e);
+            return null;
         }
     }
 
@@ -166,270 +235,99 @@ public class FormatQueryAction extends AnAction {
      *
      * @param project The current IntelliJ project
      * @param jpql The JPQL query to format (may contain DTO constructors)
-     * @return The formatted JPQL query with properly formatted DTO constructors
+     * @param host The annotation value holding the query, or null
+     * @return The formatted JPQL query with properly formatted DTO constructors, or null if formatting failed
      */
-    private static String formatWithDtoAwareFormatter(Project project, String jpql) {
+    private static @Nullable String formatWithDtoAwareFormatter(Project project, String jpql, @Nullable PsiElement host) {
         try {
             // Step 1: Find and protect all DTO constructors with unique placeholders
+            FormattingMetrics metrics = FormattingMetrics.getInstance();
             List<String> constructorSnippets = new ArrayList<>();
-            String preprocessed = protectDtoConstructors(jpql, constructorSnippets);
+            String preprocessed = metrics.time(Phase.PROTECT_DTO, () ->
+                    DtoConstructorFormatter.protectDtoConstructors(jpql, constructorSnippets));
 
-            // Step 2: Apply standard SQL formatting to the preprocessed query
-            PsiFile sqlFile = PsiFileFactory.getInstance(project)
-                    .createFileFromText("temp.sql", SqlLanguage.INSTANCE, preprocessed);
-            CodeStyleManager.getInstance(project).reformat(sqlFile);
-            String formatted = sqlFile.getText();
+            // Step 2: Apply standard SQL formatting to the preprocessed query.
+            // Placeholders change the text, so the injected PSI only matches a query without constructors.
+            String sqlFormatted = reformatSql(project, preprocessed, constructorSnippets.isEmpty() ? host : null);
 
             // Step 3: Restore and format the protected DTO constructors
-            formatted = restoreAndFormatConstructors(formatted, constructorSnippets);
+            String formatted = metrics.time(Phase.RESTORE_DTO, () ->
+                    DtoConstructorFormatter.restoreAndFormatConstructors(sqlFormatted, constructorSnippets));
 
             return formatted.trim();
+        } catch (ProcessCanceledException e) {
+            throw e;
         } catch (Exception e) {
-            // Return original JPQL if formatting fails
-            return jpql;
-        }
-    }
-
-    /**
-     * Finds all DTO constructors and replaces them with unique placeholders.
-     * This protects the constructor syntax from being corrupted by the SQL formatter.
-     *
-     * @param jpql The original JPQL query
-     * @param constructorSnippets List to store extracted constructor snippets
-     * @return JPQL with DTO constructors replaced by placeholders
-     */
-    private static String protectDtoConstructors(String jpql, List<String> constructorSnippets) {
-        String result = jpql;
-        int placeholderIndex = 0;
-
-        // Find all "SELECT new ClassName(...)" patterns manually
-        // This approach is more reliable than complex regex for nested parentheses
-        Pattern selectNewPattern = Pattern.compile("(?i)SELECT\\s+new\\s+([a-zA-Z0-9_.]+)\\s*\\(");
-        Matcher selectMatcher = selectNewPattern.matcher(result);
-
-        while (selectMatcher.find()) {
-            int selectStart = selectMatcher.start();
-            int constructorStart = selectMatcher.end() - 1; // Position of opening parenthesis
-            String className = selectMatcher.group(1);
-
-            // Find the matching closing parenthesis for the constructor
-            int constructorEnd = findMatchingParenthesis(result, constructorStart);
-
-            if (constructorEnd != -1) {
-                // Extract the full constructor expression
-                String fullConstructor = result.substring(selectMatcher.start(), constructorEnd + 1);
-
-                // Store the original constructor
-                constructorSnippets.add(fullConstructor);
-
-                // Replace it with a placeholder
-                String placeholder = "SELECT /* DTO_PLACEHOLDER_" + placeholderIndex + "_" + className + " */";
-                result = result.substring(0, selectStart) + placeholder + result.substring(constructorEnd + 1);
-
-                placeholderIndex++;
-
-                // Reset matcher to work on the modified string
-                selectMatcher = selectNewPattern.matcher(result);
-            }
+            // The caller keeps the original JPQL and nothing is cached
+            LOG.debug("Cannot format JPQL", e);
+            return null;
         }
-
-        return result;
     }
 
     /**
-     * Finds the matching closing parenthesis for a given opening parenthesis.
-     * Handles nested parentheses correctly.
-     *
-     * @param str The string to search in
-     * @param openPos Position of the opening parenthesis
-     * @return Position of the matching closing parenthesis, or -1 if not found
+     * Runs the SQL formatter over a copy of the injected SQL fragment of the host, or over a pooled
+     * scratch file when the host has no matching injection.
      */
-    private static int findMatchingParenthesis(String str, int openPos) {
-        if (openPos >= str.length() || str.charAt(openPos) != '(') {
-            return -1;
-        }
-
-        int parenLevel = 1;
-        boolean inString = false;
-        char stringChar = '\0';
-
-        for (int i = openPos + 1; i < str.length(); i++) {
-            char c = str.charAt(i);
-
-            // Handle string literals
-            if (!inString && (c == '\'' || c == '"')) {
-                inString = true;
-                stringChar = c;
-            } else if (inString && c == stringChar) {
-                inString = false;
-            } else if (!inString) {
-                if (c == '(') {
-                    parenLevel++;
-                } else if (c == ')') {
-                    parenLevel--;
-                    if (parenLevel == 0) {
-                        return i; // Found matching parenthesis
-                    }
-                }
-            }
-        }
-
-        return -1; // No matching parenthesis found
+    private static String reformatSql(Project project, String sql, @Nullable PsiElement host) {
+        return FormattingMetrics.getInstance().time(Phase.SQL_REFORMAT, () -> doReformatSql(project, sql, host));
     }
 
-    /**
-     * Restores DTO constructors from placeholders and formats them properly.
-     *
-     * @param formatted The formatted SQL with placeholders
-     * @param constructorSnippets List of original constructor snippets
-     * @return Final formatted SQL with properly formatted DTO constructors
-     */
-    private static String restoreAndFormatConstructors(String formatted, List<String> constructorSnippets) {
-        String result = formatted;
-
-        for (int i = 0; i < constructorSnippets.size(); i++) {
-            String placeholder = "DTO_PLACEHOLDER_" + i;
-            Pattern placeholderPattern = Pattern.compile("/\\* " + placeholder + "_([a-zA-Z0-9_.]+) \\*/");
-            Matcher matcher = placeholderPattern.matcher(result);
-
-            if (matcher.find()) {
-                String className = matcher.group(1);
-                String originalConstructor = constructorSnippets.get(i);
-
-                // Extract parameters from the original constructor
-                // Find the parameters between the outermost parentheses
-                int paramsStart = originalConstructor.indexOf('(');
-                int paramsEnd = findMatchingParenthesis(originalConstructor, paramsStart);
-
-                if (paramsEnd != -1) {
-                    String innerParams = originalConstructor.substring(paramsStart + 1, paramsEnd).trim();
-
-                    // Format constructor parameters with proper indentation
-                    String formattedParams = formatConstructorParameters(innerParams);
-                    String formattedConstructor = "new " + className + "(\n    " + formattedParams + "\n)";
-
-                    // Replace the placeholder with the formatted constructor
-                    result = result.replace(matcher.group(0), formattedConstructor);
-                }
-            }
+    private static String doReformatSql(Project project, String sql, @Nullable PsiElement host) {
+        PsiFile injected = findInjectedSql(project, host, sql);
+        if (injected == null) {
+            return SqlScratchFilePool.getInstance(project).reformat(sql);
         }
 
-        return result;
+        // Reformat a copy: the injected file itself belongs to the Java document
+        PsiFile copy = (PsiFile) injected.copy();
+        CodeStyleManager.getInstance(project).reformat(copy);
+        return copy.getText();
     }
 
     /**
-     * Formats constructor parameters with proper indentation and line breaks.
-     * Handles nested function calls and complex expressions.
-     *
-     * @param params The parameter string from the constructor
-     * @return Formatted parameter string with proper indentation
+     * @return The SQL file injected into the host when its text matches the query, otherwise null
      */
-    private static String formatConstructorParameters(String params) {
-        if (params == null || params.trim().isEmpty()) {
-            return "";
-        }
+    private static @Nullable PsiFile findInjectedSql(Project project, @Nullable PsiElement host, String sql) {
+        if (!(host instanceof PsiLanguageInjectionHost)) return null;
 
-        // Split parameters by top-level commas (respecting nested parentheses)
-        List<String> paramList = splitByTopLevelCommas(params);
+        List<Pair<PsiElement, TextRange>> injectedFiles = InjectedLanguageManager.getInstance(project).getInjectedPsiFiles(host);
+        if (injectedFiles == null || injectedFiles.size() != 1) return null;
 
-        // Format each parameter and join with line breaks
-        StringBuilder formatted = new StringBuilder();
-        for (int i = 0; i < paramList.size(); i++) {
-            String param = paramList.get(i).trim();
-
-            // Add proper indentation
-            formatted.append(param);
-
-            if (i < paramList.size() - 1) {
-                formatted.append(",\n    ");
-            }
-        }
+        // Only plain SQL injections format like the scratch file; JPQL injections use another language
+        if (!(injectedFiles.get(0).getFirst() instanceof PsiFile injected)) return null;
+        if (!injected.getLanguage().isKindOf(SqlLanguage.INSTANCE)) return null;
+        if (!QueryText.equalsIgnoringIndent(injected.getText(), sql)) return null;
 
-        return formatted.toString();
+        return injected;
     }
 
     /**
-     * Splits a string by commas at the top level only.
-     * This method respects nested parentheses and string literals,
-     * ensuring commas inside function calls or subqueries are not used as split points.
+     * Formats SQL script text with IntelliJ's SQL formatter, returning it unchanged if formatting fails.
+     * Bypasses the query caches, which are meant for annotation queries. Must be called inside a read action.
      *
-     * @param str The string to split (typically constructor parameters)
-     * @return List of parameter expressions split by top-level commas
+     * @param project The current IntelliJ project
+     * @param sql One or more SQL statements
+     * @return The formatted SQL
      */
-    private static List<String> splitByTopLevelCommas(String str) {
-        List<String> parts = new ArrayList<>();
-        if (str == null || str.trim().isEmpty()) {
-            return parts;
-        }
-
-        StringBuilder current = new StringBuilder();
-        int parenLevel = 0;
-        boolean inString = false;
-        char stringChar = '\0';
-
-        for (int i = 0; i < str.length(); i++) {
-            char c = str.charAt(i);
-
-            // Handle string literals
-            if (!inString && (c == '\'' || c == '"')) {
-                inString = true;
-                stringChar = c;
-                current.append(c);
-            } else if (inString && c == stringChar) {
-                inString = false;
-                current.append(c);
-            } else if (inString) {
-                current.append(c);
-            } else {
-                // Handle parentheses nesting
-                if (c == '(') {
-                    parenLevel++;
-                    current.append(c);
-                } else if (c == ')') {
-                    parenLevel--;
-                    current.append(c);
-                } else if (c == ',' && parenLevel == 0) {
-                    // Top-level comma - split here
-                    parts.add(current.toString().trim());
-                    current = new StringBuilder();
-                } else {
-                    current.append(c);
-                }
-            }
-        }
-
-        // Add the last part
-        if (!current.isEmpty()) {
-            parts.add(current.toString().trim());
-        }
-
-        return parts;
+    static String formatSqlStatement(Project project, String sql) {
+        String formatted = formatWithSqlFormatter(project, sql, null);
+        return formatted == null ? sql : formatted;
     }
 
     /**
      * Formats the content of standalone SQL files.
      * This method is used when formatting .sql files directly in the editor.
      *
+     * Statements are formatted in parallel in the background and only the changed ones are written
+     * back as targeted document edits, see {@link SqlFileFormatter}.
+     *
      * @param project The current IntelliJ project
      * @param psiFile The SQL file to format
      * @param editor The editor instance containing the file
      */
     public static void formatSqlFile(@NotNull Project project, @NotNull PsiFile psiFile, Editor editor) {
         if (editor == null) return;
-
-        Document document = editor.getDocument();
-        String text = document.getText();
-
-        // Format the SQL using the native SQL formatter
-        String formatted = formatWithSqlFormatter(project, text);
-
-        // Only update if formatting actually changed the content
-        if (formatted.trim().equals(text.trim())) return;
-
-        // Apply the formatted content to the document
-        WriteCommandAction.runWriteCommandAction(project, "Format SQL File", null, () ->
-                document.setText(formatted.trim() + "\n"), psiFile
-        );
+        SqlFileFormatter.format(project, psiFile, editor.getDocument());
     }
 
     /**
@@ -442,8 +340,8 @@ public class FormatQueryAction extends AnAction {
     public void actionPerformed(@NotNull AnActionEvent e) {
         Project project = e.getProject();
         PsiFile psiFile = e.getData(CommonDataKeys.PSI_FILE);
-        Editor editor = e.getData(CommonDataKeys.EDITOR);
         if (project == null || psiFile == null) return;
-        formatQueriesInFile(project, psiFile, editor, false);
+        // Formatting runs in the background and applies its own write command
+        QueryFormattingService.getInstance(project).formatFile(psiFile, null);
     }
 }
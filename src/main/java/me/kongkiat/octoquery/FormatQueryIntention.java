@@ -1,11 +1,11 @@
 package me.kongkiat.octoquery;
 
 import com.intellij.codeInsight.intention.IntentionAction;
-import com.intellij.openapi.command.WriteCommandAction;
 import com.intellij.openapi.editor.Editor;
 import com.intellij.openapi.project.Project;
 import com.intellij.psi.*;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 public class FormatQueryIntention implements IntentionAction {
 
@@ -23,21 +23,13 @@ public class FormatQueryIntention implements IntentionAction {
 
     @Override
     public boolean isAvailable(@NotNull Project project, Editor editor, PsiFile file) {
-        if (!(file instanceof PsiJavaFile)) return false;
-        PsiElement caretElement = file.findElementAt(editor.getCaretModel().getOffset());
-        if (caretElement == null) return false;
-        PsiAnnotation ann = findAnnotationAtOrAbove(caretElement);
-        if (ann == null) return false;
-        String qName = ann.getQualifiedName();
-        if (qName == null) return false;
-        return qName.endsWith(".Query") || qName.endsWith(".NativeQuery");
+        return findQueryAnnotationAtCaret(editor, file) != null;
     }
 
     @Override
     public void invoke(@NotNull Project project, Editor editor, PsiFile file) {
-        WriteCommandAction.runWriteCommandAction(project, () ->
-                FormatQueryAction.formatQueriesInFile(project, file, editor, true)
-        );
+        // Formatting runs in the background and applies its own write command
+        QueryFormattingService.getInstance(project).formatFile(file, editor);
     }
 
     @Override
@@ -45,7 +37,21 @@ public class FormatQueryIntention implements IntentionAction {
         return false;
     }
 
-    private PsiAnnotation findAnnotationAtOrAbove(PsiElement element) {
+    /**
+     * @return The @Query or @NativeQuery annotation enclosing the caret, or null
+     */
+    public static @Nullable PsiAnnotation findQueryAnnotationAtCaret(Editor editor, PsiFile file) {
+        if (editor == null || !(file instanceof PsiJavaFile)) return null;
+        PsiElement caretElement = file.findElementAt(editor.getCaretModel().getOffset());
+        if (caretElement == null) return null;
+        PsiAnnotation ann = findAnnotationAtOrAbove(caretElement);
+        if (ann == null) return null;
+        String qName = ann.getQualifiedName();
+        if (qName == null) return null;
+        return qName.endsWith(".Query") || qName.endsWith(".NativeQuery") ? ann : null;
+    }
+
+    private static PsiAnnotation findAnnotationAtOrAbove(PsiElement element) {
         PsiElement cur = element;
         while (cur != null && !(cur instanceof PsiAnnotation)) {
             cur = cur.getParent();
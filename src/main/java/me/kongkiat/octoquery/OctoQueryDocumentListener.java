@@ -1,54 +1,51 @@
 package me.kongkiat.octoquery;
 
-import com.intellij.openapi.application.ApplicationManager;
-import com.intellij.openapi.command.WriteCommandAction;
 import com.intellij.openapi.editor.Document;
+import com.intellij.openapi.editor.RangeMarker;
 import com.intellij.openapi.fileEditor.FileDocumentManager;
 import com.intellij.openapi.fileEditor.FileDocumentManagerListener;
 import com.intellij.openapi.project.Project;
-import com.intellij.openapi.project.ProjectManager;
+import com.intellij.openapi.project.ProjectLocator;
 import com.intellij.openapi.vfs.VirtualFile;
-import com.intellij.psi.*;
+import me.kongkiat.octoquery.cache.CleanFileStamp;
 import org.jetbrains.annotations.NotNull;
 
 import java.util.List;
 
 public class OctoQueryDocumentListener implements FileDocumentManagerListener {
 
+    /**
+     * Queues the query annotations touched since the previous successful format.
+     * Annotations outside the edited regions are left alone, so save cost follows the size of the edit
+     * rather than the number of queries in the file.
+     *
+     * A file whose query annotations are still as the last pass left them is skipped with a
+     * {@link CleanFileStamp} check, a syntactic scan of the document that resolves no PSI.
+     *
+     * The owning project's {@link QueryFormattingService} merges saves that arrive together
+     * and formats them in one background pass followed by a single write command.
+     */
     @Override
     public void beforeDocumentSaving(@NotNull Document document) {
         VirtualFile file = FileDocumentManager.getInstance().getFile(document);
         if (file == null || !file.getName().endsWith(".java")) return;
 
-        Project[] projects = ProjectManager.getInstance().getOpenProjects();
-        for (Project project : projects) {
-            PsiFile psiFile = PsiDocumentManager.getInstance(project).getPsiFile(document);
-            if (!(psiFile instanceof PsiJavaFile)) continue;
-
-            ApplicationManager.getApplication().invokeLater(() -> {
-                PsiDocumentManager.getInstance(project).performLaterWhenAllCommitted(() -> {
-                    WriteCommandAction.runWriteCommandAction(project, () -> {
-                        try {
-                            List<PsiAnnotation> queries = FormatQueryAction.findAllQueryAnnotations(psiFile);
-                            for (PsiAnnotation ann : queries) {
-                                PsiAnnotationMemberValue val = ann.findDeclaredAttributeValue("value");
-                                if (val == null) continue;
-
-                                String rawSql = val.getText().replaceAll("^\"{1,3}|\"{1,3}$", "");
-                                boolean isNative = FormatQueryAction.isNativeQuery(ann);
-                                String formatted = FormatQueryAction.formatQuery(project, rawSql, isNative);
-
-                                if (!formatted.trim().equals(rawSql.trim())) {
-                                    String newValue = "\"\"\"\n" + formatted.trim() + "\n\"\"\"";
-                                    val.replace(JavaPsiFacade.getElementFactory(project)
-                                            .createExpressionFromText(newValue, ann));
-                                }
-                            }
-                        } catch (Exception ignored) {
-                        }
-                    });
-                });
-            });
+        List<RangeMarker> dirtyMarkers = DirtyQueryTracker.takeDirtyMarkers(document);
+        if (dirtyMarkers != null && dirtyMarkers.isEmpty()) return; // Nothing edited since the last format
+
+        Project project = ProjectLocator.getInstance().guessProjectForFile(file);
+        if (project == null || project.isDisposed()) {
+            // No open project owns the document, keep the regions for the next save
+            DirtyQueryTracker.restore(document, dirtyMarkers);
+            return;
+        }
+
+        // Edits outside the query annotations, or undone since the last pass, leave nothing to format
+        if (CleanFileStamp.isClean(project, file, document)) {
+            DirtyQueryTracker.dispose(dirtyMarkers);
+            return;
         }
+
+        QueryFormattingService.getInstance(project).formatSaved(document, dirtyMarkers);
     }
 }
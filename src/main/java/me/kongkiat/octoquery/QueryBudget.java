@@ -0,0 +1,116 @@
+package me.kongkiat.octoquery;
+
+import com.intellij.concurrency.SensitiveProgressWrapper;
+import com.intellij.openapi.editor.Document;
+import com.intellij.openapi.progress.EmptyProgressIndicator;
+import com.intellij.openapi.progress.ProcessCanceledException;
+import com.intellij.openapi.progress.ProgressIndicator;
+import com.intellij.openapi.progress.ProgressManager;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.util.Ref;
+import com.intellij.psi.*;
+import com.intellij.util.concurrency.AppExecutorUtil;
+import me.kongkiat.octoquery.settings.OctoQuerySettings;
+import me.kongkiat.octoquery.sql.Cancellation;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+/**
+ * Size and time budget for the processing of one query.
+ *
+ * A query longer than the configured size is not processed at all. Any other query runs under its own
+ * progress indicator, which is cancelled once the time budget has passed; the {@link Cancellation}
+ * checkpoints of the SQL classes, connected by {@link CancellationInstaller}, and the platform's own
+ * checks inside the SQL formatter then abort the work. Skipped queries are left as written and reported
+ * through {@link SkippedQueryReporter}.
+ */
+public final class QueryBudget {
+    /** Length of the query excerpt naming a query without a source location. */
+    private static final int EXCERPT_LENGTH = 40;
+
+    static {
+        // The application listener misses plugins installed or updated without a restart
+        CancellationInstaller.install();
+    }
+
+    private QueryBudget() {
+    }
+
+    /**
+     * @return true if the query is longer than the configured maximum and must not be processed
+     */
+    public static boolean isOversized(@NotNull String query) {
+        return query.length() > OctoQuerySettings.getInstance().getMaxQueryLength();
+    }
+
+    /**
+     * Runs the processing of one query within the configured size and time budget.
+     * Cancellation of the calling task is propagated as usual.
+     *
+     * @param project The current project
+     * @param query The query being processed
+     * @param host The annotation value holding the query, used to name it in the report, or null
+     * @param body The processing
+     * @return The result of the body, or null if the query was skipped and reported
+     */
+    public static <T> @Nullable T run(@NotNull Project project, @NotNull String query, @Nullable PsiElement host,
+                                      @NotNull Supplier<T> body) {
+        OctoQuerySettings settings = OctoQuerySettings.getInstance();
+        if (isOversized(query)) {
+            SkippedQueryReporter.getInstance(project).report(key(query), describe(query, host),
+                    query.length() + " characters, limit " + settings.getMaxQueryLength());
+            return null;
+        }
+        int budgetMillis = settings.getQueryTimeBudgetMillis();
+        if (budgetMillis <= 0) return body.get();
+
+        // A wrapper follows the cancellation of the calling task, but cancelling it leaves the caller running
+        ProgressIndicator parent = ProgressManager.getGlobalProgressIndicator();
+        ProgressIndicator indicator = parent == null ? new EmptyProgressIndicator() : new SensitiveProgressWrapper(parent);
+        AtomicBoolean expired = new AtomicBoolean();
+        ScheduledFuture<?> timer = AppExecutorUtil.getAppScheduledExecutorService().schedule(() -> {
+            expired.set(true);
+            indicator.cancel();
+        }, budgetMillis, TimeUnit.MILLISECONDS);
+
+        Ref<T> result = new Ref<>();
+        try {
+            ProgressManager.getInstance().executeProcessUnderProgress(() -> result.set(body.get()), indicator);
+            return result.get();
+        } catch (ProcessCanceledException e) {
+            if (!expired.get() || parent != null && parent.isCanceled()) throw e;
+            SkippedQueryReporter.getInstance(project).report(key(query), describe(query, host),
+                    "took longer than " + budgetMillis + " ms");
+            return null;
+        } finally {
+            timer.cancel(false);
+        }
+    }
+
+    /**
+     * @return A key identifying the query text for {@link SkippedQueryReporter}, without keeping the text
+     */
+    private static long key(String query) {
+        return (long) query.hashCode() << 32 | query.length();
+    }
+
+    /**
+     * @return "File.java:line" for a query in a source file, otherwise the start of the query
+     */
+    private static String describe(String query, @Nullable PsiElement host) {
+        PsiFile file = host == null || !host.isValid() ? null : host.getContainingFile();
+        if (file != null) {
+            Document document = PsiDocumentManager.getInstance(file.getProject()).getDocument(file);
+            int offset = host.getTextOffset();
+            if (document == null || offset > document.getTextLength()) return file.getName();
+            return file.getName() + ":" + (document.getLineNumber(offset) + 1);
+        }
+        String excerpt = query.strip().replaceAll("\\s+", " ");
+        return excerpt.length() <= EXCERPT_LENGTH ? excerpt : excerpt.substring(0, EXCERPT_LENGTH) + "...";
+    }
+}
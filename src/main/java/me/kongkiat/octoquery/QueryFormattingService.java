@@ -0,0 +1,325 @@
+package me.kongkiat.octoquery;
+
+import com.intellij.openapi.Disposable;
+import com.intellij.openapi.application.ModalityState;
+import com.intellij.openapi.application.ReadAction;
+import com.intellij.openapi.command.WriteCommandAction;
+import com.intellij.openapi.components.Service;
+import com.intellij.openapi.diagnostic.Logger;
+import com.intellij.openapi.editor.Document;
+import com.intellij.openapi.editor.Editor;
+import com.intellij.openapi.editor.RangeMarker;
+import com.intellij.openapi.fileEditor.FileDocumentManager;
+import com.intellij.openapi.progress.ProcessCanceledException;
+import com.intellij.openapi.progress.ProgressManager;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.util.TextRange;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.psi.*;
+import com.intellij.psi.util.PsiTreeUtil;
+import com.intellij.util.concurrency.AppExecutorUtil;
+import com.intellij.util.ui.update.MergingUpdateQueue;
+import com.intellij.util.ui.update.Update;
+import me.kongkiat.octoquery.cache.CleanFileStamp;
+import me.kongkiat.octoquery.metrics.FormattingMetrics;
+import me.kongkiat.octoquery.metrics.Phase;
+import me.kongkiat.octoquery.settings.OctoQuerySettings;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs every formatting pass over the query annotations of a project's Java files.
+ *
+ * The actions, the intention and saves only request a scope for a document; the scopes of one document
+ * are merged in a per-document registry until a pass takes them, and a document is in at most one pass
+ * at a time. A request arriving while its document is being formatted waits in the registry and is taken
+ * by the next pass, so concurrent triggers on one file never format it twice in parallel.
+ *
+ * Saves arriving within {@link #MERGING_TIME_SPAN_MS} of each other are merged into one pass, so a
+ * "Save All" over hundreds of files costs one background read action and one write command. Passes run
+ * as non-blocking read actions on a bounded executor; documents are resolved to PSI inside the pass and
+ * again for the write command, and rewrites hold their values through smart pointers, so no PSI is
+ * carried from the background thread to the EDT. After a pass, each document it left clean is recorded
+ * in its {@link CleanFileStamp}, which lets later saves skip the file.
+ */
+@Service(Service.Level.PROJECT)
+public final class QueryFormattingService implements Disposable {
+    private static final Logger LOG = Logger.getInstance(QueryFormattingService.class);
+    private static final int MERGING_TIME_SPAN_MS = 300;
+
+    private final Project project;
+    private final ExecutorService executor;
+    private final MergingUpdateQueue saveQueue;
+
+    /** Scopes requested per document and not yet taken by a pass. */
+    private final ConcurrentMap<Document, Scope> requested = new ConcurrentHashMap<>();
+    /** Documents whose pass is computing or applying. */
+    private final Set<Document> running = ConcurrentHashMap.newKeySet();
+
+    /**
+     * The part of a document to format: the query annotations intersecting the markers,
+     * or every query annotation when the marker list is null.
+     */
+    private record Scope(@Nullable List<RangeMarker> markers) {
+        static final Scope WHOLE_DOCUMENT = new Scope(null);
+
+        static Scope union(Scope a, Scope b) {
+            if (a.markers == null) {
+                DirtyQueryTracker.dispose(b.markers);
+                return a;
+            }
+            if (b.markers == null) {
+                DirtyQueryTracker.dispose(a.markers);
+                return b;
+            }
+            List<RangeMarker> markers = new ArrayList<>(a.markers);
+            markers.addAll(b.markers);
+            return new Scope(markers);
+        }
+
+        boolean isCoveredBy(TextRange range, int documentLength) {
+            if (markers == null) return range.getStartOffset() == 0 && range.getEndOffset() >= documentLength;
+            return markers.stream().allMatch(marker -> !marker.isValid() || range.contains(marker.getTextRange()));
+        }
+    }
+
+    /**
+     * The outcome of a pass over one document.
+     *
+     * @param stamp The document modification stamp the rewrites were computed at
+     * @param rewrites The rewrites of the queries whose formatting changed
+     */
+    private record DocumentPass(long stamp, List<QueryRewrite> rewrites) {
+    }
+
+    public QueryFormattingService(Project project) {
+        this.project = project;
+        int threads = Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+        this.executor = AppExecutorUtil.createBoundedApplicationPoolExecutor("OctoQuery Formatting", threads);
+        // Runs on a pooled thread; only the final write command touches the EDT
+        this.saveQueue = new MergingUpdateQueue("OctoQuery Save Formatting", MERGING_TIME_SPAN_MS, true,
+                MergingUpdateQueue.ANY_COMPONENT, this, null, false);
+    }
+
+    public static QueryFormattingService getInstance(@NotNull Project project) {
+        return project.getService(QueryFormattingService.class);
+    }
+
+    /**
+     * Formats the query annotations of a Java file in the background.
+     *
+     * @param psiFile The Java file to process
+     * @param caretEditor The editor whose caret selects the only query to format, or null to format them all
+     */
+    public void formatFile(@NotNull PsiFile psiFile, @Nullable Editor caretEditor) {
+        if (!(psiFile instanceof PsiJavaFile)) return;
+        Document document = PsiDocumentManager.getInstance(project).getDocument(psiFile);
+        if (document == null) return;
+
+        Scope scope = Scope.WHOLE_DOCUMENT;
+        if (caretEditor != null) {
+            // The caret is read here, the editor must not be touched from the background thread
+            PsiElement elementAt = psiFile.findElementAt(caretEditor.getCaretModel().getOffset());
+            PsiAnnotation target = PsiTreeUtil.getParentOfType(elementAt, PsiAnnotation.class);
+            if (target != null && FormatQueryAction.isQueryAnnotation(target)) {
+                TextRange range = target.getTextRange();
+                scope = new Scope(new ArrayList<>(List.of(document.createRangeMarker(range.getStartOffset(), range.getEndOffset()))));
+            }
+        }
+        request(document, scope);
+        drain();
+    }
+
+    /**
+     * Queues the dirty regions of a saved document. Saves within the merging window share one pass.
+     *
+     * @param document The saved document
+     * @param dirtyMarkers Markers from {@link DirtyQueryTracker#takeDirtyMarkers(Document)}, null meaning "everything"
+     */
+    public void formatSaved(@NotNull Document document, @Nullable List<RangeMarker> dirtyMarkers) {
+        request(document, new Scope(dirtyMarkers == null ? null : new ArrayList<>(dirtyMarkers)));
+        // The same update identity makes all saves in the merging window collapse into one flush
+        saveQueue.queue(Update.create(this, this::drain));
+    }
+
+    /**
+     * Formats the query annotations intersecting a range synchronously, from inside the code formatter's
+     * write action. Each query stays within the {@link QueryBudget}, and the whole file shares one time
+     * budget of the same length: once it is used up, the remaining queries are reported as skipped.
+     * Requested scopes that this pass covers completely are dropped instead of being formatted again.
+     *
+     * @param file The Java file being reformatted
+     * @param range The formatted range
+     * @return The formatted range, adjusted for the length change of the rewritten queries
+     */
+    public @NotNull TextRange formatDuringReformat(@NotNull PsiJavaFile file, @NotNull TextRange range) {
+        // Only the query annotations touched by the formatted range
+        List<PsiAnnotation> targets = FormatQueryAction.findAllQueryAnnotations(file).stream()
+                .filter(annotation -> annotation.getTextRange().intersects(range))
+                .toList();
+        if (targets.isEmpty()) return range;
+
+        int[] bounds = {range.getStartOffset(), range.getEndOffset()};
+        PsiElementFactory factory = JavaPsiFacade.getElementFactory(project);
+        FormattingMetrics metrics = FormattingMetrics.getInstance();
+        int budgetMillis = OctoQuerySettings.getInstance().getQueryTimeBudgetMillis();
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(budgetMillis);
+        boolean[] complete = {true};
+        DirtyQueryTracker.runWithoutTracking(() -> {
+            // Targets are in text order; PSI offsets of later ones follow the earlier replacements
+            for (int i = 0; i < targets.size(); i++) {
+                PsiAnnotation ann = targets.get(i);
+                if (budgetMillis > 0 && System.nanoTime() - deadline > 0) {
+                    int remaining = targets.size() - i;
+                    long key = file.getViewProvider().getVirtualFile().getPath().hashCode();
+                    SkippedQueryReporter.getInstance(project).report(key, file.getName(),
+                            remaining + (remaining == 1 ? " query" : " queries") + " left after " + budgetMillis + " ms");
+                    complete[0] = false;
+                    break;
+                }
+                try {
+                    // Extract and format the SQL value
+                    PsiAnnotationMemberValue val = ann.findDeclaredAttributeValue("value");
+                    if (val == null) continue;
+
+                    String newValue = QueryRewrite.formatValue(project, val, FormatQueryAction.isNativeQuery(ann));
+                    if (newValue == null) continue;
+
+                    // The formatter holds the document blocked for PSI changes, so unlike QueryRewrite.apply
+                    // this replaces the literal through the PSI. Update and grow the range by the length change
+                    int oldLength = val.getTextLength();
+                    long start = System.nanoTime();
+                    PsiElement replaced = val.replace(factory.createExpressionFromText(newValue, ann));
+                    metrics.record(Phase.REPLACE, start);
+                    metrics.recordRewritten();
+                    TextRange replacedRange = replaced.getTextRange();
+                    bounds[0] = Math.min(bounds[0], replacedRange.getStartOffset());
+                    bounds[1] = Math.max(bounds[1] + replacedRange.getLength() - oldLength, replacedRange.getEndOffset());
+                } catch (ProcessCanceledException ex) {
+                    throw ex;
+                } catch (Exception ex) {
+                    // One broken query must not stop the others
+                    LOG.warn("Cannot format query in " + file.getName(), ex);
+                }
+            }
+        });
+
+        TextRange formatted = new TextRange(bounds[0], bounds[1]);
+        Document document = PsiDocumentManager.getInstance(project).getDocument(file);
+        if (complete[0] && document != null) {
+            int length = file.getTextLength();
+            requested.computeIfPresent(document, (d, scope) -> {
+                if (!scope.isCoveredBy(formatted, length)) return scope;
+                DirtyQueryTracker.dispose(scope.markers());
+                return null;
+            });
+        }
+        return formatted;
+    }
+
+    private void request(Document document, Scope scope) {
+        requested.merge(document, scope, Scope::union);
+    }
+
+    /**
+     * Starts one pass over every requested document that is not being formatted already.
+     * Lock-free: a document is claimed by adding it to {@link #running}, and a pass that finishes
+     * drains again, so a scope requested meanwhile is never left behind.
+     */
+    private void drain() {
+        Map<Document, Scope> batch = new LinkedHashMap<>();
+        for (Document document : requested.keySet()) {
+            if (!running.add(document)) continue;
+            Scope scope = requested.remove(document);
+            if (scope != null) {
+                batch.put(document, scope);
+            } else {
+                running.remove(document);
+            }
+        }
+        if (batch.isEmpty()) return;
+
+        ReadAction.nonBlocking(() -> computeRewrites(batch))
+                .withDocumentsCommitted(project)
+                .expireWith(this)
+                .finishOnUiThread(ModalityState.nonModal(), this::applyRewrites)
+                .submit(executor)
+                .onSuccess(rewrites -> batch.values().forEach(scope -> DirtyQueryTracker.dispose(scope.markers())))
+                // Keep the regions dirty so the next save retries them
+                .onError(error -> batch.forEach((document, scope) -> DirtyQueryTracker.restore(document, scope.markers())))
+                .onProcessed(rewrites -> finish(batch));
+    }
+
+    private void finish(Map<Document, Scope> batch) {
+        running.removeAll(batch.keySet());
+        if (!requested.isEmpty() && !project.isDisposed()) {
+            drain();
+        }
+    }
+
+    private Map<Document, DocumentPass> computeRewrites(Map<Document, Scope> batch) {
+        PsiDocumentManager documentManager = PsiDocumentManager.getInstance(project);
+        Map<Document, DocumentPass> passes = new LinkedHashMap<>();
+
+        for (Map.Entry<Document, Scope> entry : batch.entrySet()) {
+            ProgressManager.checkCanceled();
+            PsiFile psiFile = documentManager.getPsiFile(entry.getKey());
+            if (!(psiFile instanceof PsiJavaFile) || !psiFile.isValid()) continue;
+
+            List<RangeMarker> markers = entry.getValue().markers();
+            List<PsiAnnotation> queries = FormatQueryAction.findAllQueryAnnotations(psiFile).stream()
+                    .filter(annotation -> DirtyQueryTracker.isDirty(annotation, markers))
+                    .toList();
+            passes.put(entry.getKey(), new DocumentPass(entry.getKey().getModificationStamp(), QueryRewrite.compute(project, queries)));
+        }
+
+        return passes;
+    }
+
+    private void applyRewrites(Map<Document, DocumentPass> passes) {
+        // Only documents left untouched since their pass was computed can be recorded as clean afterwards
+        FileDocumentManager fileDocumentManager = FileDocumentManager.getInstance();
+        PsiDocumentManager documentManager = PsiDocumentManager.getInstance(project);
+        List<Document> unchanged = new ArrayList<>();
+        List<PsiFile> files = new ArrayList<>();
+        List<QueryRewrite> all = new ArrayList<>();
+        passes.forEach((document, pass) -> {
+            if (document.getModificationStamp() == pass.stamp()) unchanged.add(document);
+            if (pass.rewrites().isEmpty()) return;
+            all.addAll(pass.rewrites());
+            // Files are resolved again on the EDT for the undo scope of the command
+            PsiFile psiFile = documentManager.getPsiFile(document);
+            if (psiFile != null) files.add(psiFile);
+        });
+
+        int[] applied = {0};
+        if (!all.isEmpty()) {
+            WriteCommandAction.runWriteCommandAction(project, "Format SQL Query", null, () ->
+                    DirtyQueryTracker.runWithoutTracking(() -> applied[0] = QueryRewrite.apply(project, all)),
+                    files.toArray(PsiFile.EMPTY_ARRAY));
+        }
+
+        for (Document document : unchanged) {
+            VirtualFile file = fileDocumentManager.getFile(document);
+            if (file != null && (applied[0] == all.size() || passes.get(document).rewrites().isEmpty())) {
+                CleanFileStamp.record(project, file, document);
+            }
+        }
+    }
+
+    @Override
+    public void dispose() {
+        requested.values().forEach(scope -> DirtyQueryTracker.dispose(scope.markers()));
+        requested.clear();
+    }
+}
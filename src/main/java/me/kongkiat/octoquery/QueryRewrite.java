@@ -0,0 +1,144 @@
+package me.kongkiat.octoquery;
+
+import com.intellij.openapi.editor.Document;
+import com.intellij.openapi.progress.ProgressManager;
+import com.intellij.openapi.project.Project;
+import com.intellij.psi.*;
+import me.kongkiat.octoquery.metrics.FormattingMetrics;
+import me.kongkiat.octoquery.metrics.Phase;
+import me.kongkiat.octoquery.sql.QueryText;
+import me.kongkiat.octoquery.sql.TextDiff;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A formatted replacement for the value of one query annotation.
+ * Rewrites are computed under a read action (possibly on a background thread) and applied later
+ * in a short write action. The value is held through a smart pointer so it survives unrelated edits.
+ *
+ * @param value Pointer to the annotation value to replace
+ * @param oldText The literal text the rewrite was computed from
+ * @param newText The replacement text block
+ */
+public record QueryRewrite(@NotNull SmartPsiElementPointer<PsiAnnotationMemberValue> value,
+                           @NotNull String oldText,
+                           @NotNull String newText) {
+
+    /**
+     * Formats the given query annotations and returns the rewrites for those that changed.
+     * Must be called inside a read action.
+     *
+     * @param project The current IntelliJ project
+     * @param annotations The query annotations to format
+     * @return Rewrites for every annotation whose formatted text differs from the current one
+     */
+    public static List<QueryRewrite> compute(@NotNull Project project, @NotNull List<PsiAnnotation> annotations) {
+        List<QueryRewrite> rewrites = new ArrayList<>();
+        SmartPointerManager pointerManager = SmartPointerManager.getInstance(project);
+
+        for (PsiAnnotation annotation : annotations) {
+            ProgressManager.checkCanceled();
+
+            // Extract the SQL value from the annotation
+            PsiAnnotationMemberValue value = annotation.findDeclaredAttributeValue("value");
+            if (value == null) continue;
+
+            String newText = formatValue(project, value, FormatQueryAction.isNativeQuery(annotation));
+            if (newText != null) {
+                rewrites.add(new QueryRewrite(pointerManager.createSmartPsiElementPointer(value), value.getText(), newText));
+            }
+        }
+
+        return rewrites;
+    }
+
+    /**
+     * Formats the query held by an annotation value. Must be called inside a read action.
+     *
+     * @param project The current IntelliJ project
+     * @param value The annotation value holding the query literal
+     * @param isNative true for native SQL, false for JPQL
+     * @return The replacement text block, or null if formatting does not change the query
+     */
+    public static @Nullable String formatValue(@NotNull Project project, @NotNull PsiAnnotationMemberValue value, boolean isNative) {
+        String rawSql = QueryText.stripLiteralQuotes(value.getText());
+        FormattingMetrics.getInstance().recordQuerySize(rawSql.length());
+        String formatted = FormatQueryAction.formatQuery(project, rawSql, isNative, value);
+
+        // Only rewrite if formatting actually changed the content
+        if (formatted.trim().equals(rawSql.trim())) {
+            FormattingMetrics.getInstance().recordSkipped();
+            return null;
+        }
+        return "\"\"\"\n" + formatted.trim() + "\n\"\"\"";
+    }
+
+    /**
+     * Applies rewrites computed by {@link #compute(Project, List)}. Must be called inside a write action.
+     * Values that were deleted or edited since the rewrite was computed are skipped.
+     *
+     * Only the characters that differ between the old and the new literal are written, as document edits
+     * computed by {@link TextDiff}, so a re-indented query costs a few whitespace edits, a small reparse
+     * and a small undo entry instead of a replaced literal subtree.
+     *
+     * @param project The current IntelliJ project
+     * @param rewrites The rewrites to apply
+     * @return The number of annotation values actually replaced
+     */
+    public static int apply(@NotNull Project project, @NotNull List<QueryRewrite> rewrites) {
+        PsiDocumentManager documentManager = PsiDocumentManager.getInstance(project);
+        FormattingMetrics metrics = FormattingMetrics.getInstance();
+
+        // Resolve every value before the first edit, while the PSI still matches the documents
+        Map<Document, List<Located>> byDocument = new LinkedHashMap<>();
+        for (QueryRewrite rewrite : rewrites) {
+            PsiAnnotationMemberValue value = rewrite.value().getElement();
+            Document document = value == null ? null : documentManager.getDocument(value.getContainingFile());
+            if (document != null && !documentManager.isCommitted(document)) {
+                documentManager.commitDocument(document);
+                value = rewrite.value().getElement();
+            }
+            if (document == null || value == null || !value.isValid() || !rewrite.oldText().equals(value.getText())) {
+                metrics.recordSkipped();
+                continue;
+            }
+            byDocument.computeIfAbsent(document, d -> new ArrayList<>())
+                    .add(new Located(value.getTextRange().getStartOffset(), rewrite));
+        }
+
+        int applied = 0;
+        for (Map.Entry<Document, List<Located>> entry : byDocument.entrySet()) {
+            Document document = entry.getKey();
+            List<Located> located = entry.getValue();
+            // Back to front, so the offsets of the values still to edit stay valid
+            located.sort(Comparator.comparingInt(Located::offset).reversed());
+
+            long start = System.nanoTime();
+            for (Located value : located) {
+                List<TextDiff.Edit> edits = TextDiff.edits(value.rewrite().oldText(), value.rewrite().newText());
+                for (int i = edits.size() - 1; i >= 0; i--) {
+                    TextDiff.Edit edit = edits.get(i);
+                    document.replaceString(value.offset() + edit.start(), value.offset() + edit.end(), edit.text());
+                }
+                metrics.recordRewritten();
+                applied++;
+            }
+            documentManager.commitDocument(document);
+            metrics.record(Phase.REPLACE, start);
+        }
+
+        return applied;
+    }
+
+    /**
+     * A rewrite together with the document offset of its value.
+     */
+    private record Located(int offset, QueryRewrite rewrite) {
+    }
+}
@@ -0,0 +1,155 @@
+package me.kongkiat.octoquery;
+
+import com.intellij.notification.NotificationAction;
+import com.intellij.notification.NotificationGroupManager;
+import com.intellij.notification.NotificationType;
+import com.intellij.openapi.Disposable;
+import com.intellij.openapi.components.Service;
+import com.intellij.openapi.options.ShowSettingsUtil;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.util.Disposer;
+import com.intellij.util.containers.ContainerUtil;
+import com.intellij.util.ui.update.MergingUpdateQueue;
+import com.intellij.util.ui.update.Update;
+import me.kongkiat.octoquery.metrics.FormattingMetrics;
+import me.kongkiat.octoquery.settings.OctoQueryConfigurable;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Collects the queries skipped by {@link QueryBudget} and tells the user about them.
+ *
+ * Skips reported within {@link #MERGING_TIME_SPAN_MS} of each other, typically by one save or one
+ * "Format All", are listed in a single notification. A query is notified once per session: later
+ * passes that skip it again are only counted. The most recent skips are kept for the
+ * "OctoQuery Diagnostics" tool window, and listeners such as the command-line formatter see every skip.
+ */
+@Service(Service.Level.PROJECT)
+public final class SkippedQueryReporter implements Disposable {
+    private static final int MERGING_TIME_SPAN_MS = 1000;
+    /** Queries listed by name in one notification. */
+    private static final int MAX_LISTED = 10;
+    /** Skips kept for the diagnostics view. */
+    private static final int MAX_RECENT = 50;
+    /** Keys of already notified skips that are remembered; the oldest are forgotten first. */
+    private static final int MAX_NOTIFIED = 1000;
+
+    /**
+     * @param location "File.java:line" or the start of the query
+     * @param reason Why the query was skipped
+     */
+    public record Skip(String location, String reason) {
+        @Override
+        public String toString() {
+            return location + " (" + reason + ")";
+        }
+    }
+
+    private final Project project;
+    private final MergingUpdateQueue queue;
+    private final List<Consumer<Skip>> listeners = ContainerUtil.createLockFreeCopyOnWriteList();
+
+    /** Skips not notified yet, guarded by {@link #recent}. */
+    private final List<Skip> pending = new ArrayList<>();
+    /** The latest skips, newest last, guarded by itself. */
+    private final Deque<Skip> recent = new ArrayDeque<>();
+    /** Keys of the skips notified so far, guarded by {@link #recent}. */
+    private final Set<Long> notified = Collections.newSetFromMap(new LinkedHashMap<>() {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, Boolean> eldest) {
+            return size() > MAX_NOTIFIED;
+        }
+    });
+
+    public SkippedQueryReporter(Project project) {
+        this.project = project;
+        this.queue = new MergingUpdateQueue("OctoQuery Skipped Queries", MERGING_TIME_SPAN_MS, true,
+                MergingUpdateQueue.ANY_COMPONENT, this, null, false);
+    }
+
+    public static SkippedQueryReporter getInstance(@NotNull Project project) {
+        return project.getService(SkippedQueryReporter.class);
+    }
+
+    /**
+     * Records a skipped query; it is notified together with the other skips of the same burst,
+     * unless a skip with the same key and reason was notified before.
+     *
+     * @param key Identifies what was skipped, such as a hash of the query text
+     * @param location "File.java:line" or the start of the query
+     * @param reason Why the query was skipped
+     */
+    public void report(long key, @NotNull String location, @NotNull String reason) {
+        FormattingMetrics.getInstance().recordOverBudget();
+        Skip skip = new Skip(location, reason);
+        listeners.forEach(listener -> listener.accept(skip));
+        synchronized (recent) {
+            if (!notified.add(31 * key + reason.hashCode())) return;
+            pending.add(skip);
+            recent.addLast(skip);
+            if (recent.size() > MAX_RECENT) recent.removeFirst();
+        }
+        queue.queue(Update.create(this, this::notifyPending));
+    }
+
+    /**
+     * Calls a listener on the reporting thread for every skip, including those already notified.
+     *
+     * @param listener Receives the skips
+     * @param parentDisposable Removes the listener when disposed
+     */
+    public void addListener(@NotNull Consumer<Skip> listener, @NotNull Disposable parentDisposable) {
+        listeners.add(listener);
+        Disposer.register(parentDisposable, () -> listeners.remove(listener));
+    }
+
+    /**
+     * @return The latest skipped queries, oldest first
+     */
+    public List<Skip> getRecent() {
+        synchronized (recent) {
+            return new ArrayList<>(recent);
+        }
+    }
+
+    private void notifyPending() {
+        List<Skip> skips;
+        synchronized (recent) {
+            if (pending.isEmpty()) return;
+            skips = new ArrayList<>(pending);
+            pending.clear();
+        }
+
+        StringBuilder content = new StringBuilder("Left as written because they exceed the query budget:");
+        for (int i = 0; i < Math.min(skips.size(), MAX_LISTED); i++) {
+            content.append("<br>").append(escape(skips.get(i).toString()));
+        }
+        if (skips.size() > MAX_LISTED) {
+            content.append("<br>and ").append(skips.size() - MAX_LISTED).append(" more");
+        }
+
+        String title = skips.size() == 1 ? "1 query skipped" : skips.size() + " queries skipped";
+        NotificationGroupManager.getInstance().getNotificationGroup("OctoQuery")
+                .createNotification(title, content.toString(), NotificationType.WARNING)
+                .addAction(NotificationAction.createSimpleExpiring("Configure budget...", () ->
+                        ShowSettingsUtil.getInstance().showSettingsDialog(project, OctoQueryConfigurable.class)))
+                .notify(project);
+    }
+
+    private static String escape(String text) {
+        return text.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;");
+    }
+
+    @Override
+    public void dispose() {
+    }
+}
@@ -0,0 +1,202 @@
+package me.kongkiat.octoquery;
+
+import com.intellij.notification.NotificationGroupManager;
+import com.intellij.notification.NotificationType;
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.application.ModalityState;
+import com.intellij.openapi.application.ReadAction;
+import com.intellij.openapi.command.WriteCommandAction;
+import com.intellij.openapi.diagnostic.Logger;
+import com.intellij.openapi.editor.Document;
+import com.intellij.openapi.progress.ProcessCanceledException;
+import com.intellij.openapi.progress.ProgressIndicator;
+import com.intellij.openapi.progress.Task;
+import com.intellij.openapi.project.Project;
+import com.intellij.psi.PsiFile;
+import com.intellij.util.DocumentUtil;
+import com.intellij.util.concurrency.AppExecutorUtil;
+import me.kongkiat.octoquery.sql.SqlScript;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Formats standalone .sql files statement by statement.
+ *
+ * The script is split on top-level semicolons with the {@link SqlScript} lexer, and runs of statements
+ * are formatted as chunks in parallel background read actions. Only statements whose text changes are
+ * written back, as targeted document edits in one undoable command, so markers, folding and the caret
+ * outside the edited statements survive and multi-megabyte migration scripts never block the EDT.
+ */
+final class SqlFileFormatter {
+    private static final Logger LOG = Logger.getInstance(SqlFileFormatter.class);
+    /** Upper bound for the text of one chunk; large enough to amortize the scratch-file reparse. */
+    private static final int CHUNK_CHARS = 32 * 1024;
+    /** Above this many edits the document is updated in bulk mode. */
+    private static final int BULK_EDITS = 100;
+
+    private record Edit(int start, int end, String text) {
+    }
+
+    /**
+     * @param edits The edits of the statements whose formatting changed
+     * @param chunks The number of chunks the script was formatted in
+     * @param skippedChunks The number of chunks left unchanged because formatting them failed
+     */
+    private record Result(List<Edit> edits, int chunks, int skippedChunks) {
+    }
+
+    private SqlFileFormatter() {
+    }
+
+    static void format(@NotNull Project project, @NotNull PsiFile psiFile, @NotNull Document document) {
+        new Task.Backgroundable(project, "Formatting " + psiFile.getName(), true) {
+            @Override
+            public void run(@NotNull ProgressIndicator indicator) {
+                // Stamp first: a change in between makes the result stale instead of misplaced
+                long stamp = document.getModificationStamp();
+                CharSequence text = ReadAction.compute(document::getImmutableCharSequence);
+                Result result = computeEdits(project, text, indicator);
+                if (result.skippedChunks() > 0) {
+                    notify(project, result.skippedChunks() + " of " + result.chunks() + " parts of " + psiFile.getName()
+                            + " could not be formatted and were left unchanged; see the IDE log for details");
+                }
+                if (result.edits().isEmpty()) return;
+
+                ApplicationManager.getApplication().invokeLater(() -> {
+                    if (document.getModificationStamp() != stamp) {
+                        notify(project, psiFile.getName() + " changed while it was being formatted; format it again");
+                        return;
+                    }
+                    WriteCommandAction.runWriteCommandAction(project, "Format SQL File", null, () ->
+                            applyEdits(document, result.edits()), psiFile);
+                }, ModalityState.defaultModalityState(), project.getDisposed());
+            }
+        }.queue();
+    }
+
+    private static void notify(Project project, String content) {
+        NotificationGroupManager.getInstance().getNotificationGroup("OctoQuery")
+                .createNotification(content, NotificationType.WARNING)
+                .notify(project);
+    }
+
+    private static Result computeEdits(Project project, CharSequence text, ProgressIndicator indicator) {
+        indicator.setIndeterminate(false);
+        indicator.setText("Splitting statements...");
+        List<SqlScript.Statement> statements = SqlScript.statements(text);
+        List<List<SqlScript.Statement>> chunks = chunk(statements);
+
+        indicator.setText("Formatting " + statements.size() + " statements...");
+        int threads = Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+        ExecutorService pool = AppExecutorUtil.createBoundedApplicationPoolExecutor("OctoQuery SQL File", threads);
+        AtomicInteger processed = new AtomicInteger();
+
+        List<Future<List<Edit>>> results = new ArrayList<>(chunks.size());
+        for (List<SqlScript.Statement> chunk : chunks) {
+            results.add(ReadAction.nonBlocking(() -> {
+                        List<Edit> edits = formatChunk(project, text, chunk);
+                        indicator.setFraction((double) processed.incrementAndGet() / chunks.size());
+                        return edits;
+                    })
+                    .wrapProgress(indicator)
+                    .expireWith(project)
+                    .submit(pool));
+        }
+
+        List<Edit> edits = new ArrayList<>();
+        int skipped = 0;
+        for (Future<List<Edit>> result : results) {
+            indicator.checkCanceled();
+            try {
+                edits.addAll(result.get());
+            } catch (CancellationException e) {
+                indicator.checkCanceled();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new ProcessCanceledException(e);
+            } catch (ExecutionException e) {
+                // A chunk the formatter cannot handle stays as it is
+                LOG.warn("Cannot format a part of the SQL script", e.getCause());
+                skipped++;
+            }
+        }
+        return new Result(edits, chunks.size(), skipped);
+    }
+
+    /**
+     * Groups consecutive statements into chunks of at most {@link #CHUNK_CHARS} characters;
+     * a single larger statement forms a chunk of its own.
+     */
+    private static List<List<SqlScript.Statement>> chunk(List<SqlScript.Statement> statements) {
+        List<List<SqlScript.Statement>> chunks = new ArrayList<>();
+        List<SqlScript.Statement> current = new ArrayList<>();
+        int chars = 0;
+        for (SqlScript.Statement statement : statements) {
+            int length = statement.end() - statement.start();
+            if (!current.isEmpty() && chars + length > CHUNK_CHARS) {
+                chunks.add(current);
+                current = new ArrayList<>();
+                chars = 0;
+            }
+            current.add(statement);
+            chars += length;
+        }
+        if (!current.isEmpty()) chunks.add(current);
+        return chunks;
+    }
+
+    /**
+     * Formats a chunk in one scratch file and splits the result again. When the formatter merged or split
+     * statements the chunk is formatted statement by statement instead.
+     */
+    private static List<Edit> formatChunk(Project project, CharSequence text, List<SqlScript.Statement> chunk) {
+        StringBuilder script = new StringBuilder();
+        for (SqlScript.Statement statement : chunk) {
+            script.append(text, statement.start(), statement.end());
+            // A trailing line comment would swallow the separator
+            int lastLine = script.lastIndexOf("\n") + 1;
+            script.append(script.indexOf("--", lastLine) >= 0 ? "\n;\n\n" : ";\n\n");
+        }
+
+        List<String> formatted = SqlScript.split(FormatQueryAction.formatSqlStatement(project, script.toString()));
+        if (formatted.size() != chunk.size()) {
+            formatted = new ArrayList<>(chunk.size());
+            for (SqlScript.Statement statement : chunk) {
+                formatted.add(FormatQueryAction.formatSqlStatement(project, text.subSequence(statement.start(), statement.end()).toString()).strip());
+            }
+        }
+
+        List<Edit> edits = new ArrayList<>();
+        for (int i = 0; i < chunk.size(); i++) {
+            SqlScript.Statement statement = chunk.get(i);
+            String original = text.subSequence(statement.start(), statement.end()).toString();
+            String replacement = formatted.get(i);
+            if (!replacement.isEmpty() && !replacement.equals(original)) {
+                edits.add(new Edit(statement.start(), statement.end(), replacement));
+            }
+        }
+        return edits;
+    }
+
+    private static void applyEdits(Document document, List<Edit> edits) {
+        // Back to front so the offsets of the remaining edits stay valid
+        Runnable apply = () -> {
+            for (int i = edits.size() - 1; i >= 0; i--) {
+                Edit edit = edits.get(i);
+                document.replaceString(edit.start(), edit.end(), edit.text());
+            }
+        };
+        if (edits.size() > BULK_EDITS) {
+            DocumentUtil.executeInBulk(document, apply);
+        } else {
+            apply.run();
+        }
+    }
+}
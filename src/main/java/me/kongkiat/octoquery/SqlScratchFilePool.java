@@ -0,0 +1,62 @@
+package me.kongkiat.octoquery;
+
+import com.intellij.openapi.components.Service;
+import com.intellij.openapi.project.Project;
+import com.intellij.psi.PsiFile;
+import com.intellij.psi.PsiFileFactory;
+import com.intellij.psi.codeStyle.CodeStyleManager;
+import com.intellij.psi.text.BlockSupport;
+import com.intellij.sql.psi.SqlLanguage;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Pool of non-physical scratch SQL files used to format queries that have no injected SQL PSI.
+ * A pooled file is reset with a reparse of its whole range instead of allocating a new
+ * light file and view provider for every query.
+ *
+ * Each file is used by one thread at a time, so several background read actions can format in parallel.
+ */
+@Service(Service.Level.PROJECT)
+public final class SqlScratchFilePool {
+    /** Maximum number of idle scratch files kept per project. */
+    private static final int MAX_POOLED = 8;
+
+    private final Project project;
+    private final ConcurrentLinkedQueue<PsiFile> pool = new ConcurrentLinkedQueue<>();
+
+    public SqlScratchFilePool(Project project) {
+        this.project = project;
+    }
+
+    public static SqlScratchFilePool getInstance(@NotNull Project project) {
+        return project.getService(SqlScratchFilePool.class);
+    }
+
+    /**
+     * Formats SQL with the project's code style settings in a pooled scratch file.
+     * The scratch file is not physical, so no write action is needed and this can run in a background read action.
+     *
+     * @param sql The SQL to format
+     * @return The formatted SQL
+     */
+    public String reformat(@NotNull String sql) {
+        PsiFile file = pool.poll();
+        if (file == null || !file.isValid()) {
+            file = PsiFileFactory.getInstance(project).createFileFromText("temp.sql", SqlLanguage.INSTANCE, sql);
+        } else {
+            BlockSupport.getInstance(project).reparseRange(file, 0, file.getTextLength(), sql);
+        }
+
+        try {
+            CodeStyleManager.getInstance(project).reformat(file);
+            return file.getText();
+        } finally {
+            // The next user replaces the whole text, so a file left half-formatted by a cancellation is still reusable
+            if (pool.size() < MAX_POOLED) {
+                pool.offer(file);
+            }
+        }
+    }
+}
@@ -0,0 +1,206 @@
+package me.kongkiat.octoquery.actions;
+
+import com.intellij.notification.NotificationGroupManager;
+import com.intellij.notification.NotificationType;
+import com.intellij.openapi.actionSystem.ActionUpdateThread;
+import com.intellij.openapi.actionSystem.AnAction;
+import com.intellij.openapi.actionSystem.AnActionEvent;
+import com.intellij.openapi.actionSystem.CommonDataKeys;
+import com.intellij.openapi.actionSystem.LangDataKeys;
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.application.ModalityState;
+import com.intellij.openapi.application.ReadAction;
+import com.intellij.openapi.command.WriteCommandAction;
+import com.intellij.openapi.diagnostic.Logger;
+import com.intellij.openapi.module.Module;
+import com.intellij.openapi.progress.ProcessCanceledException;
+import com.intellij.openapi.progress.ProgressIndicator;
+import com.intellij.openapi.progress.Task;
+import com.intellij.openapi.project.DumbService;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.psi.PsiFile;
+import com.intellij.psi.PsiJavaFile;
+import com.intellij.psi.PsiManager;
+import com.intellij.psi.impl.cache.CacheManager;
+import com.intellij.psi.search.GlobalSearchScope;
+import com.intellij.psi.search.GlobalSearchScopesCore;
+import com.intellij.psi.search.UsageSearchContext;
+import com.intellij.util.concurrency.AppExecutorUtil;
+import me.kongkiat.octoquery.DirtyQueryTracker;
+import me.kongkiat.octoquery.FormatQueryAction;
+import me.kongkiat.octoquery.QueryRewrite;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Formats every @Query and @NativeQuery in the selected project, module or directories.
+ *
+ * The formatted text is computed in parallel non-blocking read actions on a bounded pool behind
+ * a cancellable background progress indicator, then applied in a few batched write commands,
+ * so a whole monorepo can be normalised in one pass without freezing the IDE.
+ *
+ * Trigger: Code menu or the project view context menu
+ */
+public class FormatAllQueriesAction extends AnAction {
+    private static final Logger LOG = Logger.getInstance(FormatAllQueriesAction.class);
+    /** Number of files whose rewrites are applied in one write command. */
+    private static final int FILES_PER_WRITE_COMMAND = 50;
+
+    public FormatAllQueriesAction() {
+        super("Format All JPA Queries");
+    }
+
+    @Override
+    public void actionPerformed(@NotNull AnActionEvent e) {
+        Project project = e.getProject();
+        if (project == null) return;
+
+        GlobalSearchScope scope = getScope(e, project);
+        new Task.Backgroundable(project, "Formatting JPA queries in " + scope.getDisplayName(), true) {
+            @Override
+            public void run(@NotNull ProgressIndicator indicator) {
+                formatAll(project, scope, indicator);
+            }
+        }.queue();
+    }
+
+    /**
+     * Resolves the scope to format from the action context: the selected module, the selected
+     * files and directories, or the whole project when nothing is selected.
+     */
+    static GlobalSearchScope getScope(AnActionEvent e, Project project) {
+        Module module = e.getData(LangDataKeys.MODULE_CONTEXT);
+        if (module != null) {
+            return module.getModuleScope();
+        }
+
+        VirtualFile[] selection = e.getData(CommonDataKeys.VIRTUAL_FILE_ARRAY);
+        if (selection != null && selection.length > 0) {
+            List<GlobalSearchScope> scopes = new ArrayList<>();
+            List<VirtualFile> files = new ArrayList<>();
+            for (VirtualFile file : selection) {
+                if (file.isDirectory()) {
+                    scopes.add(GlobalSearchScopesCore.directoryScope(project, file, true));
+                } else {
+                    files.add(file);
+                }
+            }
+            if (!files.isEmpty()) {
+                scopes.add(GlobalSearchScope.filesScope(project, files));
+            }
+            return GlobalSearchScope.union(scopes);
+        }
+
+        return GlobalSearchScope.projectScope(project);
+    }
+
+    private void formatAll(Project project, GlobalSearchScope scope, ProgressIndicator indicator) {
+        indicator.setIndeterminate(false);
+        indicator.setText("Searching for query annotations...");
+
+        List<VirtualFile> candidates = findCandidateFiles(project, scope);
+
+        // Compute formatted text in parallel read actions on a bounded pool
+        indicator.setText("Formatting queries in " + candidates.size() + " files...");
+        int threads = Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+        ExecutorService pool = AppExecutorUtil.createBoundedApplicationPoolExecutor("OctoQuery Format All", threads);
+        AtomicInteger processed = new AtomicInteger();
+
+        List<Future<List<QueryRewrite>>> results = new ArrayList<>(candidates.size());
+        for (VirtualFile file : candidates) {
+            results.add(ReadAction.nonBlocking(() -> {
+                        List<QueryRewrite> rewrites = computeRewrites(project, file);
+                        indicator.setFraction((double) processed.incrementAndGet() / candidates.size());
+                        return rewrites;
+                    })
+                    .inSmartMode(project)
+                    .wrapProgress(indicator)
+                    .expireWith(project)
+                    .submit(pool));
+        }
+
+        List<List<QueryRewrite>> pending = new ArrayList<>();
+        int failed = 0;
+        for (int i = 0; i < results.size(); i++) {
+            indicator.checkCanceled();
+            try {
+                List<QueryRewrite> rewrites = results.get(i).get();
+                if (!rewrites.isEmpty()) {
+                    pending.add(rewrites);
+                }
+            } catch (CancellationException ex) {
+                indicator.checkCanceled();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new ProcessCanceledException(ex);
+            } catch (ExecutionException ex) {
+                // A single broken file must not abort the whole pass
+                LOG.warn("Cannot format the queries of " + candidates.get(i).getPath(), ex.getCause());
+                failed++;
+            }
+        }
+
+        // Apply the results in a few batched write commands
+        indicator.setText("Applying formatted queries...");
+        AtomicInteger applied = new AtomicInteger();
+        for (int from = 0; from < pending.size(); from += FILES_PER_WRITE_COMMAND) {
+            indicator.checkCanceled();
+            List<QueryRewrite> batch = pending.subList(from, Math.min(from + FILES_PER_WRITE_COMMAND, pending.size()))
+                    .stream().flatMap(List::stream).toList();
+            ApplicationManager.getApplication().invokeAndWait(() ->
+                    WriteCommandAction.runWriteCommandAction(project, "Format JPA Queries", null, () ->
+                            DirtyQueryTracker.runWithoutTracking(() -> applied.addAndGet(QueryRewrite.apply(project, batch)))
+                    ), ModalityState.defaultModalityState());
+        }
+
+        String message = "Formatted " + applied.get() + " queries in " + pending.size() + " of " + candidates.size() + " files";
+        if (failed > 0) {
+            message += "; " + failed + (failed == 1 ? " file" : " files") + " could not be formatted, see the IDE log";
+        }
+        NotificationGroupManager.getInstance().getNotificationGroup("OctoQuery")
+                .createNotification(message, failed > 0 ? NotificationType.WARNING : NotificationType.INFORMATION)
+                .notify(project);
+    }
+
+    /**
+     * Cheap pre-filter through the word index: only files mentioning Query or NativeQuery need to be parsed.
+     */
+    static List<VirtualFile> findCandidateFiles(Project project, GlobalSearchScope scope) {
+        return DumbService.getInstance(project).runReadActionInSmartMode(() -> {
+            CacheManager cacheManager = CacheManager.getInstance(project);
+            Set<VirtualFile> files = new LinkedHashSet<>();
+            for (String word : List.of("Query", "NativeQuery")) {
+                files.addAll(Arrays.asList(cacheManager.getVirtualFilesWithWord(word, UsageSearchContext.IN_CODE, scope, true)));
+            }
+            return new ArrayList<>(files);
+        });
+    }
+
+    private static List<QueryRewrite> computeRewrites(Project project, VirtualFile file) {
+        if (!file.isValid()) return List.of();
+        PsiFile psiFile = PsiManager.getInstance(project).findFile(file);
+        if (!(psiFile instanceof PsiJavaFile)) return List.of();
+        return QueryRewrite.compute(project, FormatQueryAction.findAllQueryAnnotations(psiFile));
+    }
+
+    @Override
+    public void update(@NotNull AnActionEvent e) {
+        e.getPresentation().setEnabledAndVisible(e.getProject() != null);
+    }
+
+    @Override
+    public @NotNull ActionUpdateThread getActionUpdateThread() {
+        return ActionUpdateThread.BGT;
+    }
+}
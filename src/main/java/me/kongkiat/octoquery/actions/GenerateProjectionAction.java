@@ -1,25 +1,37 @@
 package me.kongkiat.octoquery.actions;
 
+import com.intellij.ide.highlighter.JavaFileType;
 import com.intellij.ide.util.PackageChooserDialog;
 import com.intellij.openapi.actionSystem.ActionUpdateThread;
 import com.intellij.openapi.actionSystem.AnAction;
 import com.intellij.openapi.actionSystem.AnActionEvent;
 import com.intellij.openapi.actionSystem.CommonDataKeys;
-import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.application.ModalityState;
+import com.intellij.openapi.application.ReadAction;
+import com.intellij.openapi.command.WriteCommandAction;
 import com.intellij.openapi.editor.Editor;
 import com.intellij.openapi.project.Project;
 import com.intellij.openapi.ui.Messages;
 import com.intellij.psi.JavaPsiFacade;
 import com.intellij.psi.PsiDirectory;
 import com.intellij.psi.PsiFile;
+import com.intellij.psi.PsiFileFactory;
 import com.intellij.psi.PsiPackage;
+import com.intellij.psi.codeStyle.CodeStyleManager;
+import com.intellij.psi.codeStyle.JavaCodeStyleManager;
+import com.intellij.util.concurrency.AppExecutorUtil;
+import me.kongkiat.octoquery.QueryBudget;
+import me.kongkiat.octoquery.entity.ProjectionTypeResolver;
+import me.kongkiat.octoquery.sql.ProjectionFieldExtractor;
+import me.kongkiat.octoquery.sql.SqlLexer;
+import me.kongkiat.octoquery.sql.SqlTokens;
 import org.jetbrains.annotations.NotNull;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.Optional;
 
 /**
  * Action for generating Java projection interfaces from SQL SELECT statements.
@@ -62,22 +74,48 @@ public class GenerateProjectionAction extends AnAction {
             return;
         }
 
-        // Extract the SELECT clause from the selected SQL
-        String selectClause = extractSelectClause(selectedText);
-        if (selectClause == null) {
+        // Tokenize the selection once; every extraction step below works on the same token stream.
+        // This runs on the EDT, so a pathological selection is abandoned once it exceeds the query budget
+        Optional<SelectClause> extracted = QueryBudget.run(project, selectedText, null, () -> {
+            SqlTokens tokens = SqlLexer.tokenize(selectedText);
+
+            // Extract the SELECT clause from the selected SQL
+            SqlTokens.Range selectClause = ProjectionFieldExtractor.extractSelectClause(tokens);
+            return selectClause == null ? Optional.empty() : Optional.of(new SelectClause(tokens, selectClause));
+        });
+        if (extracted == null) {
+            Messages.showErrorDialog(project, "The selected SQL is too large or too complex to analyze within the query budget.",
+                    "Query Budget Exceeded");
+            return;
+        }
+        if (extracted.isEmpty()) {
             Messages.showErrorDialog(project, "No SELECT clause found in the selected SQL.", "Invalid SQL");
             return;
         }
 
-        // Extract column aliases from the SELECT clause
-        List<String> aliases = extractAliases(selectClause);
+        // Resolving the types against the entity model may scan the whole project on first use, so it runs
+        // in a background read action and the dialogs continue on the EDT
+        SelectClause select = extracted.get();
+        ReadAction.nonBlocking(() -> ProjectionTypeResolver.resolve(project, select.tokens(), select.range()))
+                .inSmartMode(project)
+                .expireWith(project)
+                .finishOnUiThread(ModalityState.defaultModalityState(), getters -> generate(project, psiFile, getters))
+                .submit(AppExecutorUtil.getAppExecutorService());
+    }
 
-        // If no AS aliases found, try to extract from DTO constructor
-        if (aliases.isEmpty()) {
-            aliases = extractDtoConstructorFields(selectedText);
-        }
+    /**
+     * The tokens of the selected SQL and the range of its SELECT clause.
+     */
+    private record SelectClause(SqlTokens tokens, SqlTokens.Range range) {
+    }
 
-        if (aliases.isEmpty()) {
+    /**
+     * Asks for the interface name and package, then creates the interface.
+     *
+     * @param getters Column aliases mapped to fully qualified getter types
+     */
+    private void generate(Project project, PsiFile psiFile, Map<String, String> getters) {
+        if (getters.isEmpty()) {
             Messages.showWarningDialog(project,
                     "No column aliases or DTO constructor fields found in the selected SQL.",
                     "No Fields Found");
@@ -104,354 +142,13 @@ public class GenerateProjectionAction extends AnAction {
 
         // Generate interface code with the appropriate package declaration
         String packageName = getPackageName(selectedDirectory);
-        String interfaceCode = buildInterfaceCode(interfaceName.trim(), aliases, packageName);
+        String interfaceCode = buildInterfaceCode(interfaceName.trim(), getters, packageName);
 
         // Create the Java file using write action
         createJavaFile(project, selectedDirectory, interfaceName.trim(), interfaceCode);
     }
 
-    /**
-     * Extracts the SELECT clause from a SQL statement.
-     * This method handles nested subqueries and string literals correctly.
-     *
-     * @param sql The complete SQL statement
-     * @return The content between SELECT and FROM keywords, or null if no SELECT found
-     */
-    private String extractSelectClause(String sql) {
-        // Normalize SQL by removing newlines and extra spaces for easier processing
-        String normalizedSql = sql.replaceAll("\\s+", " ").trim();
-
-        // Find the first SELECT keyword (case-insensitive)
-        int selectIndex = -1;
-        Pattern selectPattern = Pattern.compile("(?i)\\bSELECT\\b");
-        Matcher selectMatcher = selectPattern.matcher(normalizedSql);
-        if (selectMatcher.find()) {
-            selectIndex = selectMatcher.start();
-        }
-
-        if (selectIndex == -1) {
-            return null; // No SELECT clause found
-        }
-
-        // Find the first top-level FROM keyword after SELECT
-        int fromIndex = findTopLevelFrom(normalizedSql, selectIndex + 6);
-        if (fromIndex == -1) {
-            // If no FROM found, return everything after SELECT
-            return normalizedSql.substring(selectIndex + 6);
-        }
-
-        // Return the content between SELECT and FROM
-        return normalizedSql.substring(selectIndex + 6, fromIndex).trim();
-    }
-
-    /**
-     * Finds the first top-level FROM keyword in a SQL string.
-     * This method properly handles nested subqueries and string literals.
-     *
-     * @param sql The SQL string to search
-     * @param startPos Position to start searching from (after SELECT)
-     * @return Position of the top-level FROM keyword, or -1 if not found
-     */
-    private int findTopLevelFrom(String sql, int startPos) {
-        int parenLevel = 0; // Track nesting level of parentheses
-        boolean inString = false; // Track if we're inside a string literal
-        char stringChar = '\0'; // The type of string delimiter (single or double quote)
-
-        for (int i = startPos; i < sql.length(); i++) {
-            char c = sql.charAt(i);
-
-            // Handle string literals - ignore everything inside them
-            if (!inString && (c == '\'' || c == '"')) {
-                inString = true;
-                stringChar = c;
-            } else if (inString && c == stringChar) {
-                inString = false;
-                continue;
-            }
-
-            // Only process when not inside strings
-            if (!inString) {
-                if (c == '(') {
-                    parenLevel++; // Enter nested level
-                } else if (c == ')') {
-                    parenLevel--; // Exit nested level
-                }
-
-                // Look for FROM keyword when not in nested parentheses
-                if (parenLevel == 0 && Character.toUpperCase(c) == 'F' && i + 3 < sql.length()) {
-                    String potential = sql.substring(i, i + 4).toUpperCase();
-                    if ("FROM".equals(potential)) {
-                        // Ensure it's a standalone word, not part of another identifier
-                        boolean prevIsWordChar = i > 0 && Character.isLetterOrDigit(sql.charAt(i - 1));
-                        boolean nextIsWordChar = i + 4 < sql.length() && Character.isLetterOrDigit(sql.charAt(i + 4));
-
-                        if (!prevIsWordChar && !nextIsWordChar) {
-                            return i; // Found top-level FROM
-                        }
-                    }
-                }
-            }
-        }
-
-        return -1; // No top-level FROM found
-    }
-
-    /**
-     * Extracts column aliases from a SELECT clause.
-     * This method handles both quoted and unquoted aliases and properly ignores
-     * CAST expressions and nested subqueries.
-     *
-     * @param selectClause The SELECT clause content (between SELECT and FROM)
-     * @return List of unique column aliases found in the SELECT list
-     */
-    private List<String> extractAliases(String selectClause) {
-        List<String> aliases = new ArrayList<>();
-
-        // Split SELECT clause by commas at the top level (respecting nested parentheses and strings)
-        List<String> columnExpressions = splitByTopLevelCommas(selectClause);
-
-        // Regex patterns to match both unquoted and quoted aliases
-        Pattern unquotedPattern = Pattern.compile("(?i)\\bAS\\s+([A-Za-z0-9_]+)(?!\\s*\\()");
-        Pattern quotedPattern = Pattern.compile("(?i)\\bAS\\s+([\"'])([^\"]+|[^']+?)\\1(?!\\s*\\()");
-
-        for (String expression : columnExpressions) {
-            // Remove SQL comments first
-            String cleanedExpression = removeComments(expression).trim();
-
-            // Try to find quoted aliases first (more specific pattern)
-            Matcher quotedMatcher = quotedPattern.matcher(cleanedExpression);
-            String lastAlias = null;
-
-            while (quotedMatcher.find()) {
-                // Ensure this AS is not followed by a parenthesis (which would indicate CAST)
-                int matchEnd = quotedMatcher.end();
-                if (matchEnd < cleanedExpression.length() && cleanedExpression.charAt(matchEnd) == '(') {
-                    continue; // Skip CAST expressions like "CAST(column AS type)"
-                }
-
-                // Group 2 contains the content inside quotes
-                lastAlias = quotedMatcher.group(2);
-            }
-
-            // If no quoted alias found, try unquoted aliases
-            if (lastAlias == null) {
-                Matcher unquotedMatcher = unquotedPattern.matcher(cleanedExpression);
-                while (unquotedMatcher.find()) {
-                    // Ensure this AS is not followed by a parenthesis
-                    int matchEnd = unquotedMatcher.end();
-                    if (matchEnd < cleanedExpression.length() && cleanedExpression.charAt(matchEnd) == '(') {
-                        continue; // Skip CAST expressions
-                    }
-                    lastAlias = unquotedMatcher.group(1);
-                }
-            }
-
-            // Add unique aliases to the result list
-            if (lastAlias != null && !aliases.contains(lastAlias)) {
-                aliases.add(lastAlias);
-            }
-        }
-
-        return aliases;
-    }
-
-    /**
-     * Splits a string by commas at the top level only.
-     * This method respects nested parentheses and string literals,
-     * ensuring commas inside function calls or subqueries are not used as split points.
-     *
-     * @param str The string to split (typically a SELECT clause)
-     * @return List of column expressions split by top-level commas
-     */
-    private List<String> splitByTopLevelCommas(String str) {
-        List<String> parts = new ArrayList<>();
-        StringBuilder current = new StringBuilder();
-        int parenLevel = 0; // Track nested parentheses
-        boolean inString = false; // Track string literals
-        char stringChar = '\0'; // String delimiter type
-
-        for (int i = 0; i < str.length(); i++) {
-            char c = str.charAt(i);
-
-            // Handle string literals - treat everything inside as literal text
-            if (!inString && (c == '\'' || c == '"')) {
-                inString = true;
-                stringChar = c;
-                current.append(c);
-            } else if (inString && c == stringChar) {
-                inString = false;
-                current.append(c);
-            } else if (inString) {
-                current.append(c);
-            } else {
-                // Handle parentheses nesting
-                if (c == '(') {
-                    parenLevel++;
-                    current.append(c);
-                } else if (c == ')') {
-                    parenLevel--;
-                    current.append(c);
-                } else if (c == ',' && parenLevel == 0) {
-                    // Found a top-level comma - split here
-                    parts.add(current.toString().trim());
-                    current = new StringBuilder();
-                } else {
-                    current.append(c);
-                }
-            }
-        }
-
-        // Add the last part (after the final comma)
-        if (!current.isEmpty()) {
-            parts.add(current.toString().trim());
-        }
-
-        return parts;
-    }
-
-    /**
-     * Removes SQL comments from a string.
-     * This method handles both single-line comments (starting with --)
-     * and multi-line comments (enclosed in /* ... *​/).
-     *
-     * @param str the input string that may contain SQL comments
-     * @return the string with all comments removed
-     */
-    private String removeComments(String str) {
-        // Remove single-line comments (--)
-        String result = str.replaceAll("--.*?(?=\\n|$)", "");
-
-        // Remove multi-line comments (/* */)
-        result = result.replaceAll("/\\*.*?\\*/", "");
-
-        return result;
-    }
-
-    /**
-     * Finds the matching closing parenthesis for a given opening parenthesis.
-     * Handles nested parentheses correctly.
-     *
-     * @param str The string to search in
-     * @param openPos Position of the opening parenthesis
-     * @return Position of the matching closing parenthesis, or -1 if not found
-     */
-    private int findMatchingParenthesis(String str, int openPos) {
-        if (openPos >= str.length() || str.charAt(openPos) != '(') {
-            return -1;
-        }
-
-        int parenLevel = 1;
-        boolean inString = false;
-        char stringChar = '\0';
-
-        for (int i = openPos + 1; i < str.length(); i++) {
-            char c = str.charAt(i);
-
-            // Handle string literals
-            if (!inString && (c == '\'' || c == '"')) {
-                inString = true;
-                stringChar = c;
-            } else if (inString && c == stringChar) {
-                inString = false;
-            } else if (!inString) {
-                if (c == '(') {
-                    parenLevel++;
-                } else if (c == ')') {
-                    parenLevel--;
-                    if (parenLevel == 0) {
-                        return i; // Found matching parenthesis
-                    }
-                }
-            }
-        }
-
-        return -1; // No matching parenthesis found
-    }
-
-    /**
-     * Extracts field names from DTO constructor syntax.
-     * This method parses "new ClassName(field1, field2, ...)" patterns
-     * and returns a list of field names for interface generation.
-     *
-     * @param sql The SQL text that may contain DTO constructor
-     * @return List of field names extracted from DTO constructor, or empty list if none found
-     */
-    private List<String> extractDtoConstructorFields(String sql) {
-        List<String> fields = new ArrayList<>();
-
-        // Pattern to match DTO constructor: "new ClassName(...)"
-        Pattern constructorPattern = Pattern.compile("(?i)new\\s+([a-zA-Z0-9_.]+)\\s*\\(");
-        Matcher constructorMatcher = constructorPattern.matcher(sql);
-
-        while (constructorMatcher.find()) {
-            int constructorStart = constructorMatcher.end() - 1; // Position of opening parenthesis
-            int constructorEnd = findMatchingParenthesis(sql, constructorStart);
-
-            if (constructorEnd != -1) {
-                // Extract the parameters inside the constructor
-                String params = sql.substring(constructorStart + 1, constructorEnd).trim();
-
-                // Split parameters by top-level commas (respecting nested parentheses and strings)
-                List<String> paramList = splitByTopLevelCommas(params);
-
-                // Process each parameter to extract field names
-                for (String param : paramList) {
-                    String cleanedParam = removeComments(param).trim();
-                    String fieldName = extractFieldNameFromExpression(cleanedParam);
-
-                    if (fieldName != null && !fieldName.isEmpty() && !fields.contains(fieldName)) {
-                        fields.add(fieldName);
-                    }
-                }
-            }
-        }
-
-        return fields;
-    }
-
-    /**
-     * Extracts field name from a parameter expression.
-     * Handles various formats like "table.column", "alias.column", "column", etc.
-     *
-     * @param expression The parameter expression from DTO constructor
-     * @return Field name suitable for getter method generation
-     */
-    private String extractFieldNameFromExpression(String expression) {
-        if (expression == null || expression.trim().isEmpty()) {
-            return null;
-        }
-
-        // Remove function calls, literals, and complex expressions
-        String cleaned = expression.trim();
-
-        // Skip if it's a literal value (number, string)
-        if (cleaned.matches("^'.*'$") || cleaned.matches("^\".*\"$") || cleaned.matches("^\\d+(\\.\\d+)?$")) {
-            return null;
-        }
-
-        // Handle table.column or alias.column format
-        if (cleaned.contains(".")) {
-            String[] parts = cleaned.split("\\.");
-            if (parts.length >= 2) {
-                return parts[parts.length - 1]; // Get the last part after the last dot
-            }
-        }
-
-        // Handle function calls like "FUNCTION(table.column)" - extract from inside
-        if (cleaned.contains("(") && cleaned.contains(")")) {
-            int openParen = cleaned.lastIndexOf('(');
-            int closeParen = cleaned.lastIndexOf(')');
-            if (openParen < closeParen) {
-                String innerExpression = cleaned.substring(openParen + 1, closeParen).trim();
-                return extractFieldNameFromExpression(innerExpression);
-            }
-        }
-
-        // Return the cleaned expression as field name if no special handling
-        return cleaned;
-    }
-
-    private String capitalize(String alias) {
+    static String capitalize(String alias) {
         if (alias == null || alias.isEmpty()) {
             return alias;
         }
@@ -482,7 +179,7 @@ public class GenerateProjectionAction extends AnAction {
         return directories.length > 0 ? directories[0] : currentDirectory;
     }
 
-    private String getPackageName(PsiDirectory directory) {
+    static String getPackageName(PsiDirectory directory) {
         JavaPsiFacade psiFacade = JavaPsiFacade.getInstance(directory.getProject());
         PsiPackage psiPackage = psiFacade.findPackage(directory.getVirtualFile().getPath());
 
@@ -494,7 +191,7 @@ public class GenerateProjectionAction extends AnAction {
         return constructPackageName(directory);
     }
 
-    private String constructPackageName(PsiDirectory directory) {
+    private static String constructPackageName(PsiDirectory directory) {
         List<String> packageParts = new ArrayList<>();
         PsiDirectory current = directory;
 
@@ -514,7 +211,7 @@ public class GenerateProjectionAction extends AnAction {
         return String.join(".", packageParts);
     }
 
-    private boolean isSourceRoot(PsiDirectory directory) {
+    private static boolean isSourceRoot(PsiDirectory directory) {
         String name = directory.getName();
         if ("java".equals(name)) {
             PsiDirectory parent = directory.getParentDirectory();
@@ -527,7 +224,8 @@ public class GenerateProjectionAction extends AnAction {
     }
 
     private void createJavaFile(Project project, PsiDirectory directory, String interfaceName, String interfaceCode) {
-        ApplicationManager.getApplication().runWriteAction(() -> {
+        // A command, so the PSI changes of adding and reformatting the file can be undone
+        WriteCommandAction.runWriteCommandAction(project, "Generate Projection Interface", null, () -> {
             try {
                 String fileName = interfaceName + ".java";
 
@@ -550,13 +248,8 @@ public class GenerateProjectionAction extends AnAction {
                     existingFile.delete();
                 }
 
-                // Create a new file using PsiDirectory
-                PsiFile newFile = directory.createFile(fileName);
-
-                // Set file content
-                com.intellij.psi.codeStyle.CodeStyleManager.getInstance(project).reformat(newFile);
-                newFile.getVirtualFile().setWritable(true);
-                com.intellij.openapi.vfs.VfsUtil.saveText(newFile.getVirtualFile(), interfaceCode);
+                // Create the file and import the fully qualified getter types
+                PsiFile newFile = createInterfaceFile(project, directory, fileName, interfaceCode);
 
                 // Open the file in the editor
                 com.intellij.openapi.fileEditor.FileEditorManager.getInstance(project).openFile(newFile.getVirtualFile(), true);
@@ -571,16 +264,29 @@ public class GenerateProjectionAction extends AnAction {
         });
     }
 
+    /**
+     * Adds a generated interface to a directory, replacing fully qualified type names with imports
+     * and applying the project code style. Must be called inside a write action.
+     *
+     * @return The file added to the directory
+     */
+    static PsiFile createInterfaceFile(Project project, PsiDirectory directory, String fileName, String interfaceCode) {
+        PsiFile file = PsiFileFactory.getInstance(project).createFileFromText(fileName, JavaFileType.INSTANCE, interfaceCode);
+        PsiFile added = (PsiFile) directory.add(file);
+        JavaCodeStyleManager.getInstance(project).shortenClassReferences(added);
+        return (PsiFile) CodeStyleManager.getInstance(project).reformat(added);
+    }
+
     /**
      * Builds the complete Java interface code from extracted aliases.
-     * This method creates a proper Java interface with getter methods for each column alias.
+     * This method creates a proper Java interface with a typed getter method for each column alias.
      *
      * @param interfaceName The name of the interface to create
-     * @param aliases List of column aliases from the SQL query
+     * @param getters Column aliases from the SQL query mapped to fully qualified getter types
      * @param packageName The package name for the interface (maybe empty)
      * @return Complete Java interface source code as a string
      */
-    private String buildInterfaceCode(String interfaceName, List<String> aliases, String packageName) {
+    static String buildInterfaceCode(String interfaceName, Map<String, String> getters, String packageName) {
         StringBuilder sb = new StringBuilder();
 
         // Add package declaration if package exists
@@ -592,9 +298,9 @@ public class GenerateProjectionAction extends AnAction {
         sb.append("public interface ").append(interfaceName).append(" {\n");
 
         // Generate getter method for each alias
-        for (String alias : aliases) {
-            String methodName = "get" + capitalize(alias);
-            sb.append("    Object ").append(methodName).append("();\n");
+        for (Map.Entry<String, String> getter : getters.entrySet()) {
+            String methodName = "get" + capitalize(getter.getKey());
+            sb.append("    ").append(getter.getValue()).append(' ').append(methodName).append("();\n");
         }
 
         sb.append("}");
@@ -0,0 +1,312 @@
+package me.kongkiat.octoquery.actions;
+
+import com.intellij.notification.NotificationGroupManager;
+import com.intellij.notification.NotificationType;
+import com.intellij.openapi.actionSystem.ActionUpdateThread;
+import com.intellij.openapi.actionSystem.AnAction;
+import com.intellij.openapi.actionSystem.AnActionEvent;
+import com.intellij.openapi.application.ReadAction;
+import com.intellij.openapi.command.WriteCommandAction;
+import com.intellij.openapi.diagnostic.Logger;
+import com.intellij.openapi.progress.ProcessCanceledException;
+import com.intellij.openapi.progress.ProgressIndicator;
+import com.intellij.openapi.progress.ProgressManager;
+import com.intellij.openapi.progress.Task;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.psi.*;
+import com.intellij.psi.search.GlobalSearchScope;
+import com.intellij.psi.util.PsiTreeUtil;
+import com.intellij.util.concurrency.AppExecutorUtil;
+import me.kongkiat.octoquery.FormatQueryAction;
+import me.kongkiat.octoquery.QueryBudget;
+import me.kongkiat.octoquery.entity.ProjectionTypeResolver;
+import me.kongkiat.octoquery.sql.ProjectionFieldExtractor;
+import me.kongkiat.octoquery.sql.QueryText;
+import me.kongkiat.octoquery.sql.SqlLexer;
+import me.kongkiat.octoquery.sql.SqlTokens;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Generates projection interfaces for every @Query in the selected repository, package or module.
+ *
+ * Select-list fields are extracted in parallel non-blocking read actions, interface names are
+ * proposed from the repository method names, and after a single review dialog all interfaces
+ * are created in one write command.
+ *
+ * Trigger: project view context menu or the Code menu
+ */
+public class GenerateProjectionsAction extends AnAction {
+    private static final Logger LOG = Logger.getInstance(GenerateProjectionsAction.class);
+
+    /** Verbs of Spring Data query methods that do not belong in a projection name. */
+    private static final List<String> METHOD_PREFIXES = List.of(
+            "find", "get", "read", "query", "search", "stream", "load", "fetch", "list");
+    /** Subject modifiers that may follow the verb, e.g. findAllActiveUsers or findTop10Orders. */
+    private static final List<String> SUBJECT_MODIFIERS = List.of("All", "Distinct", "First", "Top");
+
+    public GenerateProjectionsAction() {
+        super("Generate Projection Interfaces for All Queries");
+    }
+
+    @Override
+    public void actionPerformed(@NotNull AnActionEvent e) {
+        Project project = e.getProject();
+        if (project == null) return;
+
+        GlobalSearchScope scope = FormatAllQueriesAction.getScope(e, project);
+        new Task.Backgroundable(project, "Extracting projection fields in " + scope.getDisplayName(), true) {
+            private Candidates candidates = new Candidates(List.of(), 0);
+
+            @Override
+            public void run(@NotNull ProgressIndicator indicator) {
+                candidates = collectCandidates(project, scope, indicator);
+            }
+
+            @Override
+            public void onSuccess() {
+                reviewAndGenerate(project, candidates);
+            }
+        }.queue();
+    }
+
+    /**
+     * @param found The projections proposed for the queries
+     * @param failedFiles The number of files skipped because extracting their fields failed
+     */
+    private record Candidates(List<ProjectionCandidate> found, int failedFiles) {
+    }
+
+    private static Candidates collectCandidates(Project project, GlobalSearchScope scope, ProgressIndicator indicator) {
+        indicator.setIndeterminate(false);
+        indicator.setText("Searching for query annotations...");
+        List<VirtualFile> files = FormatAllQueriesAction.findCandidateFiles(project, scope);
+
+        // Extract the fields of each file in parallel read actions on a bounded pool
+        indicator.setText("Extracting projection fields from " + files.size() + " files...");
+        int threads = Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+        ExecutorService pool = AppExecutorUtil.createBoundedApplicationPoolExecutor("OctoQuery Projections", threads);
+        AtomicInteger processed = new AtomicInteger();
+
+        List<Future<List<ProjectionCandidate>>> results = new ArrayList<>(files.size());
+        for (VirtualFile file : files) {
+            results.add(ReadAction.nonBlocking(() -> {
+                        List<ProjectionCandidate> found = extractCandidates(project, file);
+                        indicator.setFraction((double) processed.incrementAndGet() / files.size());
+                        return found;
+                    })
+                    .inSmartMode(project)
+                    .wrapProgress(indicator)
+                    .expireWith(project)
+                    .submit(pool));
+        }
+
+        List<ProjectionCandidate> candidates = new ArrayList<>();
+        int failed = 0;
+        for (int i = 0; i < results.size(); i++) {
+            indicator.checkCanceled();
+            try {
+                candidates.addAll(results.get(i).get());
+            } catch (CancellationException ex) {
+                indicator.checkCanceled();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new ProcessCanceledException(ex);
+            } catch (ExecutionException ex) {
+                // A single broken file must not abort the whole pass
+                LOG.warn("Cannot extract projection fields from " + files.get(i).getPath(), ex.getCause());
+                failed++;
+            }
+        }
+        return new Candidates(deduplicateNames(candidates), failed);
+    }
+
+    private static List<ProjectionCandidate> extractCandidates(Project project, VirtualFile file) {
+        if (!file.isValid()) return List.of();
+        PsiFile psiFile = PsiManager.getInstance(project).findFile(file);
+        if (!(psiFile instanceof PsiJavaFile) || psiFile.getContainingDirectory() == null) return List.of();
+
+        List<ProjectionCandidate> candidates = new ArrayList<>();
+        for (PsiAnnotation annotation : FormatQueryAction.findAllQueryAnnotations(psiFile)) {
+            ProgressManager.checkCanceled();
+            PsiMethod method = PsiTreeUtil.getParentOfType(annotation, PsiMethod.class);
+            PsiAnnotationMemberValue value = annotation.findDeclaredAttributeValue("value");
+            if (method == null || method.getContainingClass() == null || value == null) continue;
+
+            String query = queryText(value);
+            Map<String, String> getters = QueryBudget.run(project, query, value, () -> {
+                SqlTokens tokens = SqlLexer.tokenize(query);
+                SqlTokens.Range selectClause = ProjectionFieldExtractor.extractSelectClause(tokens);
+                // Resolved against the shared entity model, so each entity class is only scanned once per pass
+                return selectClause == null ? Map.<String, String>of() : ProjectionTypeResolver.resolve(project, tokens, selectClause);
+            });
+            // Over-budget queries, entity selects and queries without named columns have nothing to project
+            if (getters == null || getters.isEmpty()) continue;
+
+            String name = projectionName(method.getName());
+            candidates.add(new ProjectionCandidate(name, method.getName(), method.getContainingClass().getName(),
+                    psiFile.getContainingDirectory(), getters, psiFile.getContainingDirectory().findFile(name + ".java") != null));
+        }
+        return candidates;
+    }
+
+    private static String queryText(PsiAnnotationMemberValue value) {
+        // Prefer the compile-time value so escapes and text block indentation are resolved
+        if (value instanceof PsiLiteralExpression literal && literal.getValue() instanceof String text) {
+            return text;
+        }
+        return QueryText.stripLiteralQuotes(value.getText());
+    }
+
+    /**
+     * Derives a projection name from a repository method name, e.g. {@code findActiveUsersByTeam}
+     * becomes {@code ActiveUsersProjection}.
+     */
+    static String projectionName(String methodName) {
+        String subject = methodName;
+        for (String prefix : METHOD_PREFIXES) {
+            if (startsWithWord(subject, prefix)) {
+                subject = subject.substring(prefix.length());
+                break;
+            }
+        }
+        for (String modifier : SUBJECT_MODIFIERS) {
+            if (startsWithWord(subject, modifier)) {
+                subject = subject.substring(modifier.length());
+                // Limiting expressions such as Top10
+                while (!subject.isEmpty() && Character.isDigit(subject.charAt(0))) subject = subject.substring(1);
+                break;
+            }
+        }
+
+        // Drop the criteria part: findUsersByEmailAndStatus -> Users
+        int by = indexOfWord(subject, "By");
+        if (by >= 0) {
+            subject = subject.substring(0, by);
+        }
+        if (subject.isEmpty()) {
+            subject = methodName;
+        }
+
+        String name = GenerateProjectionAction.capitalize(subject);
+        return name.endsWith("Projection") || name.endsWith("View") ? name : name + "Projection";
+    }
+
+    /**
+     * @return true if {@code text} starts with {@code word} followed by the end or an upper-case camel-case hump
+     */
+    private static boolean startsWithWord(String text, String word) {
+        return text.startsWith(word) && isHump(text, word.length());
+    }
+
+    private static int indexOfWord(String text, String word) {
+        for (int i = text.indexOf(word); i >= 0; i = text.indexOf(word, i + 1)) {
+            if (isHump(text, i + word.length())) return i;
+        }
+        return -1;
+    }
+
+    private static boolean isHump(String text, int index) {
+        return index == text.length() || Character.isUpperCase(text.charAt(index)) || Character.isDigit(text.charAt(index));
+    }
+
+    /**
+     * Overloaded or similar methods propose the same name; number the duplicates per directory.
+     */
+    private static List<ProjectionCandidate> deduplicateNames(List<ProjectionCandidate> candidates) {
+        Map<String, Integer> seen = new HashMap<>();
+        List<ProjectionCandidate> result = new ArrayList<>(candidates.size());
+        for (ProjectionCandidate candidate : candidates) {
+            String key = candidate.directory().getVirtualFile().getPath() + "/" + candidate.interfaceName();
+            int count = seen.merge(key, 1, Integer::sum);
+            result.add(count == 1 ? candidate : candidate.withInterfaceName(candidate.interfaceName() + count));
+        }
+        return result;
+    }
+
+    private static void reviewAndGenerate(Project project, Candidates collected) {
+        List<ProjectionCandidate> candidates = collected.found();
+        if (candidates.isEmpty()) {
+            notify(project, "No queries with column aliases or DTO constructor fields found"
+                    + failedFiles(collected.failedFiles()), NotificationType.WARNING);
+            return;
+        }
+
+        ProjectionReviewDialog dialog = new ProjectionReviewDialog(project, candidates);
+        if (!dialog.showAndGet()) return;
+        List<ProjectionCandidate> selected = dialog.getSelectedCandidates();
+        if (selected.isEmpty()) return;
+
+        PsiDirectory targetDirectory = findPackageDirectory(project, dialog.getTargetPackage());
+        if (dialog.getTargetPackage() != null && targetDirectory == null) {
+            notify(project, "Package " + dialog.getTargetPackage() + " not found", NotificationType.ERROR);
+            return;
+        }
+
+        List<String> skipped = new ArrayList<>();
+        AtomicInteger created = new AtomicInteger();
+        WriteCommandAction.writeCommandAction(project).withName("Generate Projection Interfaces").run(() -> {
+            for (ProjectionCandidate candidate : selected) {
+                PsiDirectory directory = targetDirectory != null ? targetDirectory : candidate.directory();
+                String fileName = candidate.interfaceName() + ".java";
+                if (!directory.isValid() || directory.findFile(fileName) != null) {
+                    // Existing files are never overwritten in batch mode
+                    skipped.add(candidate.interfaceName());
+                    continue;
+                }
+
+                String code = GenerateProjectionAction.buildInterfaceCode(candidate.interfaceName(), candidate.getters(),
+                        GenerateProjectionAction.getPackageName(directory));
+                GenerateProjectionAction.createInterfaceFile(project, directory, fileName, code);
+                created.incrementAndGet();
+            }
+        });
+
+        String message = "Generated " + created.get() + " projection interfaces";
+        if (!skipped.isEmpty()) {
+            message += ", skipped existing " + String.join(", ", skipped);
+        }
+        message += failedFiles(collected.failedFiles());
+        notify(project, message, collected.failedFiles() > 0 ? NotificationType.WARNING : NotificationType.INFORMATION);
+    }
+
+    private static String failedFiles(int count) {
+        if (count == 0) return "";
+        return "; " + count + (count == 1 ? " file" : " files") + " could not be analyzed, see the IDE log";
+    }
+
+    private static @Nullable PsiDirectory findPackageDirectory(Project project, @Nullable String packageName) {
+        if (packageName == null) return null;
+        PsiPackage psiPackage = JavaPsiFacade.getInstance(project).findPackage(packageName);
+        if (psiPackage == null) return null;
+        PsiDirectory[] directories = psiPackage.getDirectories(GlobalSearchScope.projectScope(project));
+        return directories.length > 0 ? directories[0] : null;
+    }
+
+    private static void notify(Project project, String message, NotificationType type) {
+        NotificationGroupManager.getInstance().getNotificationGroup("OctoQuery")
+                .createNotification(message, type)
+                .notify(project);
+    }
+
+    @Override
+    public void update(@NotNull AnActionEvent e) {
+        e.getPresentation().setEnabledAndVisible(e.getProject() != null);
+    }
+
+    @Override
+    public @NotNull ActionUpdateThread getActionUpdateThread() {
+        return ActionUpdateThread.BGT;
+    }
+}
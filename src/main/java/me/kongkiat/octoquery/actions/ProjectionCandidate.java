@@ -0,0 +1,28 @@
+package me.kongkiat.octoquery.actions;
+
+import com.intellij.psi.PsiDirectory;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Map;
+
+/**
+ * A projection interface proposed for one repository query by {@link GenerateProjectionsAction}.
+ *
+ * @param interfaceName The proposed interface name, derived from the method name
+ * @param methodName The repository method the query belongs to
+ * @param ownerName The simple name of the repository interface
+ * @param directory The directory of the repository, the default location of the interface
+ * @param getters The select-list fields mapped to their resolved getter types
+ * @param exists true if a file with the proposed name already exists in the directory
+ */
+record ProjectionCandidate(@NotNull String interfaceName,
+                           @NotNull String methodName,
+                           @NotNull String ownerName,
+                           @NotNull PsiDirectory directory,
+                           @NotNull Map<String, String> getters,
+                           boolean exists) {
+
+    ProjectionCandidate withInterfaceName(@NotNull String name) {
+        return new ProjectionCandidate(name, methodName, ownerName, directory, getters, exists);
+    }
+}
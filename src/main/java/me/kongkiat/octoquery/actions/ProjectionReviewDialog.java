@@ -0,0 +1,182 @@
+package me.kongkiat.octoquery.actions;
+
+import com.intellij.ide.util.PackageChooserDialog;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.ui.DialogWrapper;
+import com.intellij.openapi.ui.TextFieldWithBrowseButton;
+import com.intellij.openapi.ui.ValidationInfo;
+import com.intellij.openapi.util.text.StringUtil;
+import com.intellij.psi.PsiNameHelper;
+import com.intellij.psi.PsiPackage;
+import com.intellij.ui.components.JBLabel;
+import com.intellij.ui.components.JBScrollPane;
+import com.intellij.ui.table.JBTable;
+import com.intellij.util.ui.JBUI;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import javax.swing.*;
+import javax.swing.table.AbstractTableModel;
+import java.awt.*;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Single review step of the batch projection generation: lists every proposed interface with its
+ * source method and fields, lets the user untick or rename entries and pick a common target package.
+ */
+class ProjectionReviewDialog extends DialogWrapper {
+    private final Project project;
+    private final CandidateTableModel model;
+    private final TextFieldWithBrowseButton packageField = new TextFieldWithBrowseButton();
+
+    ProjectionReviewDialog(@NotNull Project project, @NotNull List<ProjectionCandidate> candidates) {
+        super(project, true);
+        this.project = project;
+        this.model = new CandidateTableModel(candidates);
+        setTitle("Generate Projection Interfaces");
+        setOKButtonText("Generate");
+        init();
+    }
+
+    @Override
+    protected @Nullable JComponent createCenterPanel() {
+        JBTable table = new JBTable(model);
+        table.getColumnModel().getColumn(0).setMaxWidth(JBUI.scale(40));
+        table.setStriped(true);
+
+        packageField.addActionListener(e -> {
+            PackageChooserDialog chooser = new PackageChooserDialog("Select Package for Projection Interfaces", project);
+            if (!packageField.getText().isBlank()) {
+                chooser.selectPackage(packageField.getText().trim());
+            }
+            chooser.show();
+            PsiPackage selected = chooser.getSelectedPackage();
+            if (selected != null) {
+                packageField.setText(selected.getQualifiedName());
+            }
+        });
+
+        JPanel packagePanel = new JPanel(new BorderLayout(JBUI.scale(8), 0));
+        packagePanel.add(new JBLabel("Target package (empty: next to each repository):"), BorderLayout.WEST);
+        packagePanel.add(packageField, BorderLayout.CENTER);
+
+        JPanel panel = new JPanel(new BorderLayout(0, JBUI.scale(8)));
+        panel.add(new JBScrollPane(table), BorderLayout.CENTER);
+        panel.add(packagePanel, BorderLayout.SOUTH);
+        panel.setPreferredSize(JBUI.size(800, 450));
+        return panel;
+    }
+
+    @Override
+    protected @Nullable ValidationInfo doValidate() {
+        PsiNameHelper nameHelper = PsiNameHelper.getInstance(project);
+        Set<String> names = new HashSet<>();
+        for (int row = 0; row < model.rows.size(); row++) {
+            if (!model.selected[row]) continue;
+            String name = model.rows.get(row).interfaceName();
+            if (!nameHelper.isIdentifier(name)) {
+                return new ValidationInfo("'" + name + "' is not a valid interface name");
+            }
+            if (!names.add(name)) {
+                return new ValidationInfo("Interface name '" + name + "' is used more than once");
+            }
+        }
+        String packageName = packageField.getText().trim();
+        if (!packageName.isEmpty() && !nameHelper.isQualifiedName(packageName)) {
+            return new ValidationInfo("'" + packageName + "' is not a valid package name", packageField);
+        }
+        return null;
+    }
+
+    /**
+     * @return The ticked candidates with the names as edited by the user
+     */
+    List<ProjectionCandidate> getSelectedCandidates() {
+        List<ProjectionCandidate> result = new ArrayList<>();
+        for (int row = 0; row < model.rows.size(); row++) {
+            if (model.selected[row]) {
+                result.add(model.rows.get(row));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @return The common target package, or null to create each interface next to its repository
+     */
+    @Nullable String getTargetPackage() {
+        return StringUtil.nullize(packageField.getText().trim());
+    }
+
+    private static final class CandidateTableModel extends AbstractTableModel {
+        private static final String[] COLUMNS = {"", "Interface", "Repository method", "Fields"};
+        /** Package prefixes of type names, shown as e.g. {@code List<Order>} for readability. */
+        private static final Pattern PACKAGE_QUALIFIER = Pattern.compile("\\b[a-z_][\\w]*\\.");
+
+        private final List<ProjectionCandidate> rows;
+        private final boolean[] selected;
+
+        CandidateTableModel(List<ProjectionCandidate> candidates) {
+            this.rows = new ArrayList<>(candidates);
+            this.selected = new boolean[candidates.size()];
+            for (int i = 0; i < selected.length; i++) {
+                // Existing files are not overwritten, so they start unticked
+                selected[i] = !candidates.get(i).exists();
+            }
+        }
+
+        @Override
+        public int getRowCount() {
+            return rows.size();
+        }
+
+        @Override
+        public int getColumnCount() {
+            return COLUMNS.length;
+        }
+
+        @Override
+        public String getColumnName(int column) {
+            return COLUMNS[column];
+        }
+
+        @Override
+        public Class<?> getColumnClass(int column) {
+            return column == 0 ? Boolean.class : String.class;
+        }
+
+        @Override
+        public boolean isCellEditable(int row, int column) {
+            return column <= 1;
+        }
+
+        @Override
+        public Object getValueAt(int row, int column) {
+            ProjectionCandidate candidate = rows.get(row);
+            return switch (column) {
+                case 0 -> selected[row];
+                case 1 -> candidate.interfaceName() + (candidate.exists() ? " (exists)" : "");
+                case 2 -> candidate.ownerName() + "." + candidate.methodName() + "()";
+                default -> candidate.getters().entrySet().stream()
+                        .map(getter -> getter.getKey() + ": " + PACKAGE_QUALIFIER.matcher(getter.getValue()).replaceAll(""))
+                        .collect(Collectors.joining(", "));
+            };
+        }
+
+        @Override
+        public void setValueAt(Object value, int row, int column) {
+            if (column == 0) {
+                selected[row] = (Boolean) value;
+            } else if (column == 1) {
+                String name = StringUtil.trimEnd(value.toString().trim(), " (exists)");
+                rows.set(row, rows.get(row).withInterfaceName(name));
+            }
+            fireTableRowsUpdated(row, row);
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package me.kongkiat.octoquery.cache;
+
+import com.intellij.openapi.diagnostic.Logger;
+import com.intellij.openapi.editor.Document;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.openapi.vfs.VirtualFileWithId;
+import com.intellij.openapi.vfs.newvfs.FileAttribute;
+import me.kongkiat.octoquery.FormatQueryAction;
+import me.kongkiat.octoquery.index.QueryAnnotationScanner;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+/**
+ * Remembers, per file, the state in which OctoQuery last left its query annotations, so a save can
+ * skip a file that is already clean without building PSI.
+ *
+ * The state is a VFS file attribute holding a hash of the text of the query annotations
+ * ({@link QueryAnnotationScanner#hashSites}), next to a hash of the formatter settings. Checking a file
+ * is one attribute read plus a syntactic scan of the document: no PSI is built, but the scan is linear
+ * in the file length. A document modification stamp cannot shortcut it, since a save only gets here
+ * after an edit, and every edit changes the stamp.
+ */
+public final class CleanFileStamp {
+    private static final Logger LOG = Logger.getInstance(CleanFileStamp.class);
+    private static final FileAttribute ATTRIBUTE = new FileAttribute("octoquery.cleanFileStamp", 2, true);
+
+    private record State(long sitesHash, int fingerprint) {
+    }
+
+    private CleanFileStamp() {
+    }
+
+    /**
+     * @param project The project owning the file
+     * @param file The saved file
+     * @param document Its document
+     * @return true if the query annotations are exactly as the last successful pass left them,
+     *         with the same formatter settings
+     */
+    public static boolean isClean(@NotNull Project project, @NotNull VirtualFile file, @NotNull Document document) {
+        State state = read(file);
+        if (state == null || state.fingerprint() != fingerprint(project)) return false;
+        return QueryAnnotationScanner.hashSites(document.getImmutableCharSequence()) == state.sitesHash();
+    }
+
+    /**
+     * Records the current document as clean, after a pass that formatted or checked its queries.
+     *
+     * @param project The project owning the file
+     * @param file The formatted file
+     * @param document Its document, as left by the pass
+     */
+    public static void record(@NotNull Project project, @NotNull VirtualFile file, @NotNull Document document) {
+        if (!(file instanceof VirtualFileWithId)) return;
+        long sitesHash = QueryAnnotationScanner.hashSites(document.getImmutableCharSequence());
+        write(file, new State(sitesHash, fingerprint(project)));
+    }
+
+    private static int fingerprint(Project project) {
+        return FormatQueryAction.getFormatterFingerprint(project).hashCode();
+    }
+
+    private static @Nullable State read(VirtualFile file) {
+        if (!(file instanceof VirtualFileWithId)) return null;
+        try (DataInputStream in = ATTRIBUTE.readFileAttribute(file)) {
+            if (in == null) return null;
+            return new State(in.readLong(), in.readInt());
+        } catch (IOException e) {
+            LOG.debug("Cannot read the clean stamp of " + file, e);
+            return null;
+        }
+    }
+
+    private static void write(VirtualFile file, State state) {
+        try (DataOutputStream out = ATTRIBUTE.writeFileAttribute(file)) {
+            out.writeLong(state.sitesHash());
+            out.writeInt(state.fingerprint());
+        } catch (IOException e) {
+            // The file is simply formatted again on its next save
+            LOG.debug("Cannot write the clean stamp of " + file, e);
+        }
+    }
+}
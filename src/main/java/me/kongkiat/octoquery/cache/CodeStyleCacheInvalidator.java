@@ -0,0 +1,23 @@
+package me.kongkiat.octoquery.cache;
+
+import com.intellij.openapi.project.Project;
+import com.intellij.psi.codeStyle.CodeStyleSettingsChangeEvent;
+import com.intellij.psi.codeStyle.CodeStyleSettingsListener;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Drops the formatted query cache whenever the project's code style settings change,
+ * so cached results never outlive the settings they were formatted with.
+ */
+public class CodeStyleCacheInvalidator implements CodeStyleSettingsListener {
+    private final Project project;
+
+    public CodeStyleCacheInvalidator(@NotNull Project project) {
+        this.project = project;
+    }
+
+    @Override
+    public void codeStyleSettingsChanged(@NotNull CodeStyleSettingsChangeEvent event) {
+        FormattedQueryCache.getInstance(project).invalidate();
+    }
+}
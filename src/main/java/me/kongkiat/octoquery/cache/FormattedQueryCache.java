@@ -0,0 +1,195 @@
+package me.kongkiat.octoquery.cache;
+
+import com.intellij.application.options.CodeStyle;
+import com.intellij.openapi.components.Service;
+import com.intellij.openapi.diagnostic.Logger;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.util.JDOMUtil;
+import com.intellij.psi.codeStyle.CodeStyleSettings;
+import com.intellij.util.io.DigestUtil;
+import org.jdom.Element;
+import org.jetbrains.annotations.NotNull;
+
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * In-memory, size-bounded LRU cache of formatted query text.
+ * Entries are addressed by the raw query text, the native/JPQL flag and the
+ * modification count of the project's code style settings, so a hit can be
+ * returned without building a scratch SQL file or running the formatter.
+ *
+ * The cache is dropped whenever the code style settings change
+ * (see {@link CodeStyleCacheInvalidator}).
+ */
+@Service(Service.Level.PROJECT)
+public final class FormattedQueryCache {
+    private static final Logger LOG = Logger.getInstance(FormattedQueryCache.class);
+
+    /** Maximum number of formatted queries kept per project. */
+    private static final int MAX_ENTRIES = 2048;
+
+    private final Project project;
+    private final Map<Key, String> entries = new LinkedHashMap<>(256, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Key, String> eldest) {
+            return size() > MAX_ENTRIES;
+        }
+    };
+
+    private volatile Fingerprint fingerprint;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    public FormattedQueryCache(@NotNull Project project) {
+        this.project = project;
+    }
+
+    public static FormattedQueryCache getInstance(@NotNull Project project) {
+        return project.getService(FormattedQueryCache.class);
+    }
+
+    /**
+     * Returns the cached formatted text for the query, or computes it with the given formatter
+     * and stores the result.
+     *
+     * @param query The raw SQL/JPQL query text
+     * @param isNative true for native SQL, false for JPQL
+     * @param formatter Computes the formatted text on a cache miss
+     * @return The formatted query string
+     */
+    public String computeIfAbsent(@NotNull String query, boolean isNative, @NotNull Supplier<String> formatter) {
+        Key key = new Key(query, isNative, settingsVersion());
+
+        String cached;
+        synchronized (entries) {
+            cached = entries.get(key);
+        }
+        if (cached != null) {
+            hits.incrementAndGet();
+            return cached;
+        }
+
+        // Format outside the lock, concurrent misses on the same key simply compute twice
+        misses.incrementAndGet();
+        String formatted = formatter.get();
+        synchronized (entries) {
+            entries.put(key, formatted);
+        }
+        return formatted;
+    }
+
+    /**
+     * Drops every cached entry. Called when code style settings change.
+     */
+    public void invalidate() {
+        int dropped;
+        synchronized (entries) {
+            dropped = entries.size();
+            entries.clear();
+        }
+        LOG.debug("Formatted query cache invalidated (" + dropped + " entries dropped), " + getStatistics());
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    /**
+     * @return The ratio of lookups answered from the cache, between 0.0 and 1.0
+     */
+    public double getHitRate() {
+        long h = hits.get();
+        long total = h + misses.get();
+        return total == 0 ? 0.0 : (double) h / total;
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    /**
+     * @return A short human-readable summary of the cache effectiveness
+     */
+    public String getStatistics() {
+        return String.format("hits=%d, misses=%d, hitRate=%.1f%%, size=%d/%d",
+                getHits(), getMisses(), getHitRate() * 100, size(), MAX_ENTRIES);
+    }
+
+    /**
+     * A digest of the project's code style settings that, unlike the modification count,
+     * stays the same across IDE restarts. Used to key the {@link PersistentQueryCache}.
+     * Recomputed only when the settings change.
+     *
+     * @return The SHA-256 of the serialized code style settings
+     */
+    public String getStyleFingerprint() {
+        CodeStyleSettings settings = CodeStyle.getSettings(project);
+        long version = settings.getModificationTracker().getModificationCount();
+        Fingerprint current = fingerprint;
+        if (current != null && current.settingsVersion() == version) return current.digest();
+
+        String digest;
+        try {
+            Element element = new Element("code_scheme");
+            settings.writeExternal(element);
+            digest = DigestUtil.sha256Hex(JDOMUtil.write(element).getBytes(StandardCharsets.UTF_8));
+        } catch (Exception e) {
+            // Never matches a stored entry, so the persistent cache is simply bypassed
+            LOG.debug("Cannot serialize code style settings", e);
+            digest = "unstable:" + System.identityHashCode(settings) + ":" + version;
+        }
+        fingerprint = new Fingerprint(version, digest);
+        return digest;
+    }
+
+    private record Fingerprint(long settingsVersion, String digest) {
+    }
+
+    private long settingsVersion() {
+        return CodeStyle.getSettings(project).getModificationTracker().getModificationCount();
+    }
+
+    /**
+     * Content-addressed cache key. The hash is computed once since keys are looked up
+     * with queries that can be tens of kilobytes long.
+     */
+    private static final class Key {
+        private final String query;
+        private final boolean isNative;
+        private final long settingsVersion;
+        private final int hash;
+
+        Key(String query, boolean isNative, long settingsVersion) {
+            this.query = query;
+            this.isNative = isNative;
+            this.settingsVersion = settingsVersion;
+            this.hash = 31 * (31 * query.hashCode() + Boolean.hashCode(isNative)) + Long.hashCode(settingsVersion);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key other)) return false;
+            return hash == other.hash
+                    && isNative == other.isNative
+                    && settingsVersion == other.settingsVersion
+                    && query.equals(other.query);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
@@ -0,0 +1,302 @@
+package me.kongkiat.octoquery.cache;
+
+import com.intellij.ide.plugins.IdeaPluginDescriptor;
+import com.intellij.ide.plugins.PluginManagerCore;
+import com.intellij.openapi.Disposable;
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.application.PathManager;
+import com.intellij.openapi.components.Service;
+import com.intellij.openapi.diagnostic.Logger;
+import com.intellij.openapi.extensions.PluginId;
+import com.intellij.util.concurrency.AppExecutorUtil;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+/**
+ * Formatted query cache that survives IDE restarts.
+ *
+ * Entries live in an append-only log under {@code <system dir>/octoquery}. Each record is a
+ * 128-bit truncated SHA-256 of (raw query, native flag, code style fingerprint, plugin version)
+ * followed by the UTF-8 formatted text. Callers only look up an in-memory copy of the log; loading,
+ * appending and compaction run on a single background writer, so no caller ever waits for the disk.
+ * Until the log has been loaded, lookups simply miss. When the log grows beyond {@link #MAX_FILE_BYTES},
+ * it is compacted to the most recently written half.
+ *
+ * Any I/O failure disables the cache for the session, formatting then simply runs uncached.
+ */
+@Service(Service.Level.APP)
+public final class PersistentQueryCache implements Disposable {
+    private static final Logger LOG = Logger.getInstance(PersistentQueryCache.class);
+
+    private static final int MAGIC = 0x4F514331; // "OQC1"
+    /** The whole live log is also held in memory, so this bounds the heap use too. */
+    private static final long MAX_FILE_BYTES = 16L * 1024 * 1024;
+    private static final int MAX_VALUE_BYTES = 1024 * 1024;
+    /** Key (two longs) plus value length. */
+    private static final int RECORD_HEADER_BYTES = 20;
+
+    private static final ThreadLocal<MessageDigest> SHA_256 = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    });
+
+    private final Path file;
+    private final String pluginVersion;
+    /** Single thread owning the file; the fields after {@link #disabled} are only touched from it. */
+    private final ExecutorService writer = AppExecutorUtil.createBoundedApplicationPoolExecutor("OctoQuery Query Cache", 1);
+    private final AtomicBoolean loadScheduled = new AtomicBoolean();
+    /** Formatted text of every live record, plus values whose append is still queued. */
+    private final Map<Key, String> values = new ConcurrentHashMap<>();
+    private volatile boolean disabled;
+
+    private final Map<Key, Record> records = new HashMap<>();
+    private FileChannel channel;
+    /** Length of the intact prefix of the log found by {@link #loadIndex()}. */
+    private long validLength;
+
+    private record Key(long high, long low) {
+    }
+
+    private record Record(long offset, int length) {
+    }
+
+    public PersistentQueryCache() {
+        this.file = PathManager.getSystemDir().resolve("octoquery").resolve("formatted-queries.log");
+        this.pluginVersion = pluginVersion();
+    }
+
+    public static PersistentQueryCache getInstance() {
+        return ApplicationManager.getApplication().getService(PersistentQueryCache.class);
+    }
+
+    /**
+     * Returns the stored formatted text, or computes it and queues it for storing.
+     *
+     * @param query The raw SQL/JPQL query text
+     * @param isNative true for native SQL, false for JPQL
+     * @param styleFingerprint Stable description of the settings the formatter depends on
+     * @param formatter Computes the formatted text on a miss; nothing is stored if it throws
+     * @return The formatted query string
+     */
+    public String computeIfAbsent(@NotNull String query, boolean isNative, @NotNull String styleFingerprint,
+                                  @NotNull Supplier<String> formatter) {
+        if (disabled) return formatter.get();
+        if (loadScheduled.compareAndSet(false, true)) {
+            writer.execute(this::load);
+        }
+
+        Key key = key(query, isNative, styleFingerprint);
+        String stored = values.get(key);
+        if (stored != null) return stored;
+
+        String formatted = formatter.get();
+        values.put(key, formatted);
+        writer.execute(() -> append(key, formatted));
+        return formatted;
+    }
+
+    private Key key(String query, boolean isNative, String styleFingerprint) {
+        MessageDigest digest = SHA_256.get();
+        digest.reset();
+        digest.update(query.getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) (isNative ? 1 : 0));
+        digest.update(styleFingerprint.getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) 0);
+        digest.update(pluginVersion.getBytes(StandardCharsets.UTF_8));
+        ByteBuffer hash = ByteBuffer.wrap(digest.digest());
+        return new Key(hash.getLong(), hash.getLong());
+    }
+
+    /**
+     * Opens the log and copies its records into memory. Runs on the writer before any append.
+     */
+    private void load() {
+        try {
+            Files.createDirectories(file.getParent());
+            if (Files.exists(file) && !loadIndex()) {
+                Files.delete(file);
+                records.clear();
+                validLength = 0;
+            }
+            channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            // Drop a partially written tail record
+            channel.truncate(validLength);
+            if (channel.size() == 0) {
+                channel.write(ByteBuffer.allocate(4).putInt(MAGIC).flip(), 0);
+            }
+        } catch (IOException e) {
+            disable("open", e);
+        }
+    }
+
+    private void append(Key key, String formatted) {
+        if (disabled || channel == null) return;
+        byte[] value = formatted.getBytes(StandardCharsets.UTF_8);
+        if (value.length > MAX_VALUE_BYTES) {
+            values.remove(key);
+            return;
+        }
+
+        try {
+            long offset = channel.size();
+            ByteBuffer record = ByteBuffer.allocate(RECORD_HEADER_BYTES + value.length);
+            record.putLong(key.high()).putLong(key.low()).putInt(value.length).put(value).flip();
+            while (record.hasRemaining()) {
+                channel.write(record, offset + record.position());
+            }
+            records.put(key, new Record(offset, value.length));
+            // A compaction queued before this append may have evicted the value
+            values.putIfAbsent(key, formatted);
+
+            if (channel.size() > MAX_FILE_BYTES) {
+                compact();
+            }
+        } catch (IOException e) {
+            disable("write", e);
+        }
+    }
+
+    /**
+     * Scans the log, building the record index and the in-memory values.
+     *
+     * @return false if the file has an unknown format and must be recreated
+     */
+    private boolean loadIndex() throws IOException {
+        records.clear();
+        validLength = 0;
+        Map<Key, String> loaded = new HashMap<>();
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), 64 * 1024))) {
+            if (in.readInt() != MAGIC) return false;
+            long offset = 4;
+            validLength = offset;
+            while (true) {
+                long high;
+                try {
+                    high = in.readLong();
+                } catch (EOFException e) {
+                    break;
+                }
+                long low = in.readLong();
+                int length = in.readInt();
+                if (length < 0 || length > MAX_VALUE_BYTES) break;
+                byte[] value = in.readNBytes(length);
+                if (value.length < length) break;
+
+                // Later records win over earlier ones with the same key
+                Key key = new Key(high, low);
+                records.put(key, new Record(offset, length));
+                loaded.put(key, new String(value, StandardCharsets.UTF_8));
+                offset += RECORD_HEADER_BYTES + length;
+                validLength = offset;
+            }
+        } catch (EOFException e) {
+            // Truncated tail, everything before validLength is intact
+        }
+        // Values computed while the log was loading are newer
+        loaded.forEach(values::putIfAbsent);
+        return true;
+    }
+
+    /**
+     * Rewrites the log keeping only the newest live records, up to half of the size limit,
+     * and drops the other values from memory.
+     */
+    private void compact() throws IOException {
+        List<Map.Entry<Key, Record>> newestFirst = new ArrayList<>(records.entrySet());
+        newestFirst.sort(Comparator.comparingLong((Map.Entry<Key, Record> entry) -> entry.getValue().offset()).reversed());
+
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        Map<Key, Record> kept = new HashMap<>();
+        List<Map.Entry<Key, Record>> survivors = new ArrayList<>();
+        long budget = MAX_FILE_BYTES / 2;
+        for (Map.Entry<Key, Record> entry : newestFirst) {
+            budget -= RECORD_HEADER_BYTES + entry.getValue().length();
+            if (budget < 0) break;
+            survivors.add(entry);
+        }
+        // Keep the original write order so the next compaction still drops the oldest entries
+        survivors.sort(Comparator.comparingLong(entry -> entry.getValue().offset()));
+
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp), 64 * 1024))) {
+            out.writeInt(MAGIC);
+            long offset = 4;
+            for (Map.Entry<Key, Record> entry : survivors) {
+                Record record = entry.getValue();
+                ByteBuffer buffer = ByteBuffer.allocate(RECORD_HEADER_BYTES + record.length());
+                readFully(record.offset(), buffer);
+                out.write(buffer.array());
+                kept.put(entry.getKey(), new Record(offset, record.length()));
+                offset += buffer.capacity();
+            }
+        }
+
+        channel.close();
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        records.clear();
+        records.putAll(kept);
+        values.keySet().retainAll(kept.keySet());
+        LOG.debug("Compacted persistent query cache to " + kept.size() + " entries");
+    }
+
+    private void readFully(long position, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new EOFException("Unexpected end of " + file);
+            }
+        }
+    }
+
+    private void disable(String operation, IOException e) {
+        LOG.warn("Persistent query cache disabled after failed " + operation + " of " + file, e);
+        disabled = true;
+        records.clear();
+        values.clear();
+    }
+
+    private static String pluginVersion() {
+        IdeaPluginDescriptor plugin = PluginManagerCore.getPlugin(PluginId.getId("me.kongkiat.octoquery"));
+        return plugin == null ? "unknown" : plugin.getVersion();
+    }
+
+    @Override
+    public void dispose() {
+        // Queued appends go first; an append cut short by the IDE exiting is dropped on the next load
+        writer.execute(() -> {
+            if (channel == null) return;
+            try {
+                channel.close();
+                channel = null;
+            } catch (IOException e) {
+                LOG.debug(e);
+            }
+        });
+    }
+}
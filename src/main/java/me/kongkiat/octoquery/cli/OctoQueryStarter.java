@@ -0,0 +1,326 @@
+package me.kongkiat.octoquery.cli;
+
+import com.intellij.ide.highlighter.JavaFileType;
+import com.intellij.ide.impl.OpenProjectTask;
+import com.intellij.openapi.Disposable;
+import com.intellij.openapi.application.ApplicationStarter;
+import com.intellij.openapi.application.ReadAction;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.project.ProjectManager;
+import com.intellij.openapi.project.ex.ProjectManagerEx;
+import com.intellij.openapi.util.Disposer;
+import com.intellij.openapi.util.text.StringUtil;
+import com.intellij.psi.*;
+import com.intellij.psi.util.PsiTreeUtil;
+import com.intellij.util.diff.Diff;
+import com.intellij.util.diff.FilesTooBigForDiffException;
+import me.kongkiat.octoquery.CancellationInstaller;
+import me.kongkiat.octoquery.QueryBudget;
+import me.kongkiat.octoquery.QueryRewrite;
+import me.kongkiat.octoquery.SkippedQueryReporter;
+import me.kongkiat.octoquery.index.QueryAnnotationScanner;
+import me.kongkiat.octoquery.index.QuerySite;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Headless entry point for formatting queries in CI.
+ *
+ * Usage: {@code idea octoquery format|check [--check] [--threads <n>] [--project <dir>] <paths...>}
+ *
+ * "format" rewrites the files in place, "check" (or "format --check") only prints a diff
+ * for every file that is not formatted and exits with status 1. Files are pre-filtered with
+ * {@link QueryAnnotationScanner}, so only files that contain query annotations are parsed,
+ * and those are processed in parallel read actions.
+ *
+ * Code style comes from the project given with {@code --project}, or else from the nearest directory
+ * above the first path that has an {@code .idea} directory; that project is opened for the run. Without
+ * one, the default project's code style is used. Queries over the {@link QueryBudget} are left as written
+ * and listed at the end; "check" fails when there are any, since they were not checked.
+ */
+public class OctoQueryStarter implements ApplicationStarter {
+    private static final String USAGE = "Usage: octoquery format|check [--check] [--threads <n>] [--project <dir>] <paths...>";
+
+    private static final int EXIT_OK = 0;
+    private static final int EXIT_UNFORMATTED = 1;
+    private static final int EXIT_ERROR = 2;
+
+    @Override
+    public int getRequiredModality() {
+        return NOT_IN_EDT;
+    }
+
+    @Override
+    public void main(@NotNull List<String> args) {
+        // No IDE frame is opened, so the app lifecycle listener never installs the checkpoints
+        CancellationInstaller.install();
+        System.exit(run(args.subList(1, args.size()), System.out, System.err));
+    }
+
+    private static int run(List<String> args, PrintStream out, PrintStream err) {
+        if (args.isEmpty() || !(args.get(0).equals("format") || args.get(0).equals("check"))) {
+            err.println(USAGE);
+            return EXIT_ERROR;
+        }
+
+        boolean check = args.get(0).equals("check");
+        int threads = Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+        Path projectDir = null;
+        List<Path> roots = new ArrayList<>();
+        for (int i = 1; i < args.size(); i++) {
+            String arg = args.get(i);
+            if (arg.equals("--check")) {
+                check = true;
+            } else if (arg.equals("--threads") && i + 1 < args.size()) {
+                try {
+                    threads = Math.max(1, Integer.parseInt(args.get(++i)));
+                } catch (NumberFormatException e) {
+                    err.println("Invalid thread count: " + args.get(i));
+                    return EXIT_ERROR;
+                }
+            } else if (arg.equals("--project") && i + 1 < args.size()) {
+                projectDir = Path.of(args.get(++i)).toAbsolutePath().normalize();
+            } else if (arg.startsWith("--")) {
+                err.println("Unknown option: " + arg);
+                err.println(USAGE);
+                return EXIT_ERROR;
+            } else {
+                roots.add(Path.of(arg).toAbsolutePath().normalize());
+            }
+        }
+        if (roots.isEmpty()) {
+            err.println(USAGE);
+            return EXIT_ERROR;
+        }
+
+        long start = System.nanoTime();
+        List<Path> files;
+        try {
+            files = collectJavaFiles(roots);
+        } catch (IOException e) {
+            err.println("Cannot list files: " + e.getMessage());
+            return EXIT_ERROR;
+        }
+
+        if (projectDir == null) projectDir = findProjectDir(roots.get(0));
+        Project project;
+        if (projectDir == null) {
+            err.println("No .idea directory found above " + roots.get(0) + ", using the default code style");
+            project = ProjectManager.getInstance().getDefaultProject();
+        } else {
+            project = ProjectManagerEx.getInstanceEx().openProject(projectDir, OpenProjectTask.build());
+            if (project == null) {
+                err.println("Cannot open the project in " + projectDir);
+                return EXIT_ERROR;
+            }
+        }
+
+        // Every skip is collected; the reporter itself only notifies a query once per session
+        List<SkippedQueryReporter.Skip> skipped = Collections.synchronizedList(new ArrayList<>());
+        Disposable listening = Disposer.newDisposable();
+        SkippedQueryReporter.getInstance(project).addListener(skipped::add, listening);
+        try {
+            return process(project, files, check, threads, start, skipped, out, err);
+        } finally {
+            Disposer.dispose(listening);
+            if (!project.isDefault()) ProjectManager.getInstance().closeAndDispose(project);
+        }
+    }
+
+    private static int process(Project project, List<Path> files, boolean check, int threads, long start,
+                               List<SkippedQueryReporter.Skip> skipped, PrintStream out, PrintStream err) {
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        List<Future<FileResult>> futures = new ArrayList<>(files.size());
+        for (Path file : files) {
+            futures.add(pool.submit(() -> processFile(project, file)));
+        }
+
+        int scanned = 0;
+        int withQueries = 0;
+        int unformatted = 0;
+        int failed = 0;
+        try {
+            for (Future<FileResult> future : futures) {
+                FileResult result;
+                try {
+                    result = future.get();
+                } catch (ExecutionException e) {
+                    failed++;
+                    err.println("Failed: " + e.getCause());
+                    continue;
+                }
+                scanned++;
+                if (result.queries() == 0) continue;
+
+                withQueries++;
+                out.printf("%6d ms  %3d queries  %s%n", result.millis(), result.queries(), result.file());
+                if (result.formatted() == null) continue;
+
+                unformatted++;
+                if (check) {
+                    out.print(diff(result.file(), result.original(), result.formatted()));
+                } else {
+                    try {
+                        Files.writeString(result.file(), result.formatted(), StandardCharsets.UTF_8);
+                    } catch (IOException e) {
+                        failed++;
+                        err.println("Cannot write " + result.file() + ": " + e.getMessage());
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return EXIT_ERROR;
+        } finally {
+            pool.shutdownNow();
+        }
+
+        long millis = (System.nanoTime() - start) / 1_000_000;
+        out.printf("Scanned %d files, %d with queries, %d %s in %d ms on %d threads%n",
+                scanned, withQueries, unformatted, check ? "not formatted" : "reformatted", millis, threads);
+        if (!skipped.isEmpty()) {
+            out.printf("%d %s over the query budget, left as written and not %s:%n", skipped.size(),
+                    skipped.size() == 1 ? "query" : "queries", check ? "checked" : "formatted");
+            synchronized (skipped) {
+                skipped.forEach(skip -> out.println("  " + skip));
+            }
+        }
+
+        if (failed > 0) return EXIT_ERROR;
+        return check && (unformatted > 0 || !skipped.isEmpty()) ? EXIT_UNFORMATTED : EXIT_OK;
+    }
+
+    /**
+     * @return The nearest directory at or above the path that holds an IntelliJ project, or null
+     */
+    private static @Nullable Path findProjectDir(Path path) {
+        for (Path dir = Files.isDirectory(path) ? path : path.getParent(); dir != null; dir = dir.getParent()) {
+            if (Files.isDirectory(dir.resolve(".idea"))) return dir;
+        }
+        return null;
+    }
+
+    /**
+     * Result of formatting one file.
+     *
+     * @param original The original file content, only kept when the file changed
+     * @param formatted The new file content, or null when the file is already formatted
+     */
+    private record FileResult(Path file, String original, String formatted, int queries, long millis) {
+    }
+
+    private static FileResult processFile(Project project, Path file) throws IOException {
+        long start = System.nanoTime();
+        String original = Files.readString(file, StandardCharsets.UTF_8);
+
+        // PSI works on \n separators; the scanner offsets are taken from the same text
+        String text = StringUtil.convertLineSeparators(original);
+        List<QuerySite> sites = QueryAnnotationScanner.scan(text);
+        if (sites.isEmpty()) {
+            return new FileResult(file, null, null, 0, 0);
+        }
+
+        String formatted = ReadAction.compute(() -> formatText(project, file.getFileName().toString(), text, sites));
+        if (formatted != null && original.contains("\r\n")) {
+            formatted = StringUtil.convertLineSeparators(formatted, "\r\n");
+        }
+        // Only keep the original text when a diff may be needed, 20k files must not stay in memory
+        return new FileResult(file, formatted == null ? null : original, formatted, sites.size(),
+                (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /**
+     * Formats the query literals of one file by splicing the rewrites into its text.
+     * The Java PSI is only read, so no write action or document is involved.
+     *
+     * @return The formatted text, or null when nothing changed
+     */
+    private static String formatText(Project project, String name, String text, List<QuerySite> sites) {
+        PsiFile psiFile = PsiFileFactory.getInstance(project).createFileFromText(name, JavaFileType.INSTANCE, text);
+        StringBuilder result = new StringBuilder(text);
+        boolean changed = false;
+
+        // Splice from the end so earlier offsets stay valid
+        for (int i = sites.size() - 1; i >= 0; i--) {
+            QuerySite site = sites.get(i);
+            PsiAnnotation annotation = PsiTreeUtil.getParentOfType(psiFile.findElementAt(site.offset()), PsiAnnotation.class, false);
+            if (annotation == null) continue;
+            PsiAnnotationMemberValue value = annotation.findDeclaredAttributeValue("value");
+            if (value == null) continue;
+
+            String newText = QueryRewrite.formatValue(project, value, site.nativeQuery());
+            if (newText != null) {
+                result.replace(value.getTextRange().getStartOffset(), value.getTextRange().getEndOffset(), newText);
+                changed = true;
+            }
+        }
+
+        return changed ? result.toString() : null;
+    }
+
+    private static List<Path> collectJavaFiles(List<Path> roots) throws IOException {
+        List<Path> files = new ArrayList<>();
+        for (Path root : roots) {
+            Files.walkFileTree(root, new SimpleFileVisitor<>() {
+                @Override
+                public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
+                    // Skip VCS metadata and other hidden directories
+                    String name = dir.getFileName() == null ? "" : dir.getFileName().toString();
+                    return !dir.equals(root) && name.startsWith(".") ? FileVisitResult.SKIP_SUBTREE : FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                    if (attrs.isRegularFile() && file.getFileName().toString().endsWith(".java")) {
+                        files.add(file);
+                    }
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+        }
+        return files;
+    }
+
+    /**
+     * Builds a unified-style line diff between the original and formatted file.
+     */
+    private static String diff(Path file, String original, String formatted) {
+        String[] before = StringUtil.convertLineSeparators(original).split("\n", -1);
+        String[] after = StringUtil.convertLineSeparators(formatted).split("\n", -1);
+        StringBuilder diff = new StringBuilder();
+        diff.append("--- ").append(file).append('\n');
+        diff.append("+++ ").append(file).append(" (formatted)\n");
+
+        try {
+            for (Diff.Change change = Diff.buildChanges(before, after); change != null; change = change.link) {
+                diff.append("@@ -").append(change.line0 + 1).append(',').append(change.deleted)
+                        .append(" +").append(change.line1 + 1).append(',').append(change.inserted).append(" @@\n");
+                for (int i = 0; i < change.deleted; i++) {
+                    diff.append('-').append(before[change.line0 + i]).append('\n');
+                }
+                for (int i = 0; i < change.inserted; i++) {
+                    diff.append('+').append(after[change.line1 + i]).append('\n');
+                }
+            }
+        } catch (FilesTooBigForDiffException e) {
+            diff.append("(file too large to diff)\n");
+        }
+        return diff.toString();
+    }
+}
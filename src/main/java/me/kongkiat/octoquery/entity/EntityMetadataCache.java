@@ -0,0 +1,189 @@
+package me.kongkiat.octoquery.entity;
+
+import com.intellij.codeInsight.AnnotationUtil;
+import com.intellij.lang.java.JavaLanguage;
+import com.intellij.openapi.components.Service;
+import com.intellij.openapi.project.Project;
+import com.intellij.psi.*;
+import com.intellij.psi.search.GlobalSearchScope;
+import com.intellij.psi.search.searches.AnnotatedElementsSearch;
+import com.intellij.psi.util.CachedValue;
+import com.intellij.psi.util.CachedValueProvider;
+import com.intellij.psi.util.CachedValuesManager;
+import com.intellij.psi.util.PsiModificationTracker;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Project-level model of the JPA entities: entity and table names, and the persistent attributes
+ * of every entity, embeddable and mapped superclass, with their declared types.
+ *
+ * The whole model is held in a {@link CachedValue} that is dropped on any Java PSI modification,
+ * so resolving the fields of many queries against a large domain model scans the entity classes
+ * once instead of once per query. Entity lookup tables are built on first use and attributes
+ * are collected lazily per class. Must be used inside a read action in smart mode.
+ */
+@Service(Service.Level.PROJECT)
+public final class EntityMetadataCache {
+    private static final List<String> ENTITY_ANNOTATIONS = List.of("jakarta.persistence.Entity", "javax.persistence.Entity");
+    private static final List<String> TABLE_ANNOTATIONS = List.of("jakarta.persistence.Table", "javax.persistence.Table");
+    private static final List<String> TRANSIENT_ANNOTATIONS = List.of("jakarta.persistence.Transient", "javax.persistence.Transient");
+    private static final List<String> COLUMN_ANNOTATIONS = List.of(
+            "jakarta.persistence.Column", "javax.persistence.Column", "jakarta.persistence.JoinColumn", "javax.persistence.JoinColumn");
+
+    private final Project project;
+    private final CachedValue<Model> model;
+
+    /**
+     * Persistent attributes of one class.
+     *
+     * @param types Attribute name to declared type
+     * @param columns Lower-case column name (explicit or the default snake_case one) to attribute name
+     */
+    private record ClassMetadata(Map<String, PsiType> types, Map<String, String> columns) {
+    }
+
+    /**
+     * Entity lookup tables, keyed by lower-case names.
+     */
+    private record Entities(Map<String, PsiClass> byName, Map<String, PsiClass> byTable) {
+    }
+
+    private final class Model {
+        private volatile Entities entities;
+        private final Map<PsiClass, ClassMetadata> classes = new ConcurrentHashMap<>();
+
+        Entities entities() {
+            Entities result = entities;
+            if (result == null) {
+                result = scanEntities();
+                entities = result;
+            }
+            return result;
+        }
+    }
+
+    public EntityMetadataCache(Project project) {
+        this.project = project;
+        this.model = CachedValuesManager.getManager(project).createCachedValue(() -> CachedValueProvider.Result.create(
+                new Model(), PsiModificationTracker.getInstance(project).forLanguage(JavaLanguage.INSTANCE)), false);
+    }
+
+    public static EntityMetadataCache getInstance(@NotNull Project project) {
+        return project.getService(EntityMetadataCache.class);
+    }
+
+    /**
+     * @param name A JPQL entity name ({@code @Entity(name)} or the simple class name) or a fully qualified class name
+     * @return The entity class, or null if unknown
+     */
+    public @Nullable PsiClass findEntity(@NotNull String name) {
+        PsiClass entity = model.getValue().entities().byName().get(name.toLowerCase(Locale.ROOT));
+        if (entity == null && name.indexOf('.') > 0) {
+            entity = JavaPsiFacade.getInstance(project).findClass(name, GlobalSearchScope.allScope(project));
+        }
+        return entity;
+    }
+
+    /**
+     * @param table A table name as written in native SQL, optionally schema-qualified
+     * @return The entity mapped to the table, or null if unknown
+     */
+    public @Nullable PsiClass findEntityByTable(@NotNull String table) {
+        String name = table.substring(table.lastIndexOf('.') + 1);
+        return model.getValue().entities().byTable().get(name.toLowerCase(Locale.ROOT));
+    }
+
+    /**
+     * Finds a persistent attribute by its name or, for native queries, by its column name.
+     *
+     * @param owner An entity, embeddable or mapped superclass
+     * @param name The attribute or column name
+     * @return The declared type of the attribute, or null if the class has no such attribute
+     */
+    public @Nullable PsiType findAttributeType(@NotNull PsiClass owner, @NotNull String name) {
+        ClassMetadata metadata = model.getValue().classes.computeIfAbsent(owner, EntityMetadataCache::collectAttributes);
+        PsiType type = metadata.types().get(name);
+        if (type != null) return type;
+
+        String attribute = metadata.columns().get(name.toLowerCase(Locale.ROOT));
+        return attribute == null ? null : metadata.types().get(attribute);
+    }
+
+    private Entities scanEntities() {
+        Map<String, PsiClass> byName = new HashMap<>();
+        Map<String, PsiClass> byTable = new HashMap<>();
+        JavaPsiFacade facade = JavaPsiFacade.getInstance(project);
+
+        for (String annotationName : ENTITY_ANNOTATIONS) {
+            PsiClass annotationClass = facade.findClass(annotationName, GlobalSearchScope.allScope(project));
+            if (annotationClass == null) continue;
+
+            for (PsiClass entity : AnnotatedElementsSearch.searchPsiClasses(annotationClass, GlobalSearchScope.projectScope(project)).findAll()) {
+                if (entity.getName() == null) continue;
+                PsiAnnotation annotation = entity.getAnnotation(annotationName);
+                String entityName = annotation == null ? null : AnnotationUtil.getStringAttributeValue(annotation, "name");
+                byName.putIfAbsent((entityName == null || entityName.isEmpty() ? entity.getName() : entityName).toLowerCase(Locale.ROOT), entity);
+
+                PsiAnnotation table = AnnotationUtil.findAnnotation(entity, TABLE_ANNOTATIONS);
+                String tableName = table == null ? null : AnnotationUtil.getStringAttributeValue(table, "name");
+                if (tableName != null && !tableName.isEmpty()) {
+                    byTable.putIfAbsent(tableName.toLowerCase(Locale.ROOT), entity);
+                } else {
+                    // Default and Spring Boot physical naming
+                    byTable.putIfAbsent(entity.getName().toLowerCase(Locale.ROOT), entity);
+                    byTable.putIfAbsent(snakeCase(entity.getName()), entity);
+                }
+            }
+        }
+        return new Entities(byName, byTable);
+    }
+
+    private static ClassMetadata collectAttributes(PsiClass owner) {
+        Map<String, PsiType> types = new HashMap<>();
+        Map<String, String> columns = new HashMap<>();
+
+        // Mapped superclasses contribute their fields; the subclass wins on name clashes
+        for (PsiClass current = owner; current != null && !CommonClassNames.JAVA_LANG_OBJECT.equals(current.getQualifiedName());
+             current = current.getSuperClass()) {
+            for (PsiField field : current.getFields()) {
+                if (field.hasModifierProperty(PsiModifier.STATIC) || field.hasModifierProperty(PsiModifier.TRANSIENT)
+                        || AnnotationUtil.isAnnotated(field, TRANSIENT_ANNOTATIONS, 0)) {
+                    continue;
+                }
+                String name = field.getName();
+                if (types.putIfAbsent(name, field.getType()) != null) continue;
+
+                PsiAnnotation column = AnnotationUtil.findAnnotation(field, COLUMN_ANNOTATIONS);
+                String columnName = column == null ? null : AnnotationUtil.getStringAttributeValue(column, "name");
+                if (columnName != null && !columnName.isEmpty()) {
+                    columns.putIfAbsent(columnName.toLowerCase(Locale.ROOT), name);
+                }
+                columns.putIfAbsent(snakeCase(name), name);
+                columns.putIfAbsent(name.toLowerCase(Locale.ROOT), name);
+            }
+        }
+        return new ClassMetadata(types, columns);
+    }
+
+    /**
+     * @return The lower-case snake_case form of a camel-case name, e.g. {@code firstName} becomes {@code first_name}
+     */
+    private static String snakeCase(String name) {
+        StringBuilder result = new StringBuilder(name.length() + 4);
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            if (Character.isUpperCase(c) && i > 0) {
+                result.append('_');
+            }
+            result.append(Character.toLowerCase(c));
+        }
+        return result.toString();
+    }
+}
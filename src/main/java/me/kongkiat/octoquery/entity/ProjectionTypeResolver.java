@@ -0,0 +1,206 @@
+package me.kongkiat.octoquery.entity;
+
+import com.intellij.openapi.project.DumbService;
+import com.intellij.openapi.project.IndexNotReadyException;
+import com.intellij.openapi.project.Project;
+import com.intellij.psi.*;
+import com.intellij.psi.util.PsiUtil;
+import me.kongkiat.octoquery.sql.ProjectionField;
+import me.kongkiat.octoquery.sql.ProjectionFieldExtractor;
+import me.kongkiat.octoquery.sql.SqlTokens;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Resolves the Java types of projection fields against the JPA entity model.
+ *
+ * The FROM clause maps aliases to entities (JPQL), tables (native SQL) or join paths, and each
+ * selected {@code alias.path} is walked attribute by attribute through the {@link EntityMetadataCache}.
+ * Primitive types are boxed because projection getters return null for null columns. Fields that
+ * cannot be resolved fall back to {@code java.lang.Object}. Must be called inside a read action.
+ */
+public final class ProjectionTypeResolver {
+    private static final String OBJECT = CommonClassNames.JAVA_LANG_OBJECT;
+
+    /** Functions whose result has the type of their argument. */
+    private static final Set<String> SAME_TYPE_FUNCTIONS = Set.of("MIN", "MAX", "COALESCE", "NULLIF", "ABS");
+    /** Functions that always return a string. */
+    private static final Set<String> STRING_FUNCTIONS = Set.of(
+            "UPPER", "LOWER", "TRIM", "LTRIM", "RTRIM", "CONCAT", "SUBSTRING", "SUBSTR", "STR");
+
+    /** Bounds the recursion through join paths such as {@code JOIN a.b b JOIN b.c c}. */
+    private static final int MAX_JOIN_DEPTH = 16;
+
+    private ProjectionTypeResolver() {
+    }
+
+    /**
+     * Extracts the projection fields of a SELECT statement and resolves their types.
+     *
+     * @param project The current project
+     * @param tokens The tokenized SQL or JPQL statement
+     * @param selectClause The SELECT clause range
+     * @return Field name to canonical type text, in select-list order; empty if the statement has no named fields
+     */
+    public static Map<String, String> resolve(@NotNull Project project, @NotNull SqlTokens tokens, @NotNull SqlTokens.Range selectClause) {
+        List<ProjectionField> fields = ProjectionFieldExtractor.extractProjectionFields(tokens, selectClause);
+        Map<String, String> types = new LinkedHashMap<>();
+        if (fields.isEmpty()) return types;
+
+        if (DumbService.isDumb(project)) {
+            fields.forEach(field -> types.put(field.name(), OBJECT));
+            return types;
+        }
+
+        try {
+            Context context = new Context(project, ProjectionFieldExtractor.extractFromSources(tokens, selectClause));
+            for (ProjectionField field : fields) {
+                types.put(field.name(), context.typeText(field));
+            }
+        } catch (IndexNotReadyException e) {
+            fields.forEach(field -> types.putIfAbsent(field.name(), OBJECT));
+        }
+        return types;
+    }
+
+    /**
+     * Resolves the types of plain {@code alias.attribute} paths, such as ORDER BY columns, against the FROM clause.
+     *
+     * @param project The current project
+     * @param tokens The tokenized SQL or JPQL statement
+     * @param selectClause The SELECT clause range, locating the FROM clause
+     * @param paths The paths to resolve
+     * @return Path to canonical boxed type text, in the given order
+     */
+    public static Map<String, String> resolvePaths(@NotNull Project project, @NotNull SqlTokens tokens,
+                                                   @NotNull SqlTokens.Range selectClause, @NotNull List<String> paths) {
+        Map<String, String> types = new LinkedHashMap<>();
+        if (DumbService.isDumb(project)) {
+            paths.forEach(path -> types.put(path, OBJECT));
+            return types;
+        }
+
+        try {
+            Context context = new Context(project, ProjectionFieldExtractor.extractFromSources(tokens, selectClause));
+            for (String path : paths) {
+                types.put(path, context.typeText(new ProjectionField(path, path.replace("\"", "").replace("`", ""), null)));
+            }
+        } catch (IndexNotReadyException e) {
+            paths.forEach(path -> types.putIfAbsent(path, OBJECT));
+        }
+        return types;
+    }
+
+    private static final class Context {
+        private final EntityMetadataCache entities;
+        private final PsiElementFactory factory;
+        private final Map<String, String> sources;
+        private final Map<String, PsiType> aliasTypes = new HashMap<>();
+
+        Context(Project project, Map<String, String> sources) {
+            this.entities = EntityMetadataCache.getInstance(project);
+            this.factory = JavaPsiFacade.getElementFactory(project);
+            this.sources = sources;
+        }
+
+        String typeText(ProjectionField field) {
+            PsiType type = field.path() == null ? null : pathType(field.path(), 0);
+            if (field.function() != null) {
+                return functionType(field.function(), type);
+            }
+            return type == null ? OBJECT : boxed(type);
+        }
+
+        /**
+         * Walks {@code alias.attribute...}; a path without a known alias is resolved against the only FROM source.
+         */
+        private @Nullable PsiType pathType(String path, int depth) {
+            String[] segments = path.split("\\.");
+            int first = 1;
+            PsiType type = aliasType(segments[0], depth);
+            if (type == null && sources.size() == 1) {
+                type = aliasType(sources.keySet().iterator().next(), depth);
+                first = 0;
+            }
+
+            for (int i = first; i < segments.length && type != null; i++) {
+                PsiClass owner = PsiUtil.resolveClassInClassTypeOnly(type);
+                type = owner == null ? null : entities.findAttributeType(owner, segments[i]);
+            }
+            return type;
+        }
+
+        /**
+         * @return The type an alias ranges over: its entity, or the element type of a joined association
+         */
+        private @Nullable PsiType aliasType(String alias, int depth) {
+            String key = alias.toLowerCase(Locale.ROOT);
+            if (aliasTypes.containsKey(key)) return aliasTypes.get(key);
+            String source = sources.get(key);
+            if (source == null || depth > MAX_JOIN_DEPTH) return null;
+
+            // Guard against self-referencing joins while this alias is being resolved
+            aliasTypes.put(key, null);
+            PsiType type;
+            int dot = source.indexOf('.');
+            if (dot > 0 && sources.containsKey(source.substring(0, dot).toLowerCase(Locale.ROOT))) {
+                // JOIN alias.association: a collection ranges over its elements
+                PsiType association = pathType(source, depth + 1);
+                PsiType element = association == null ? null : PsiUtil.extractIterableTypeParameter(association, false);
+                type = element != null ? element : association;
+            } else {
+                PsiClass entity = entities.findEntity(source);
+                if (entity == null) {
+                    entity = entities.findEntityByTable(source);
+                }
+                type = entity == null ? null : factory.createType(entity);
+            }
+            aliasTypes.put(key, type);
+            return type;
+        }
+
+        private String functionType(String function, @Nullable PsiType argument) {
+            String argumentType = argument == null ? null : boxed(argument);
+            return switch (function) {
+                case "COUNT" -> CommonClassNames.JAVA_LANG_LONG;
+                case "AVG" -> CommonClassNames.JAVA_LANG_DOUBLE;
+                case "LENGTH", "LOCATE" -> CommonClassNames.JAVA_LANG_INTEGER;
+                case "SUM" -> sumType(argumentType);
+                default -> {
+                    if (STRING_FUNCTIONS.contains(function)) yield CommonClassNames.JAVA_LANG_STRING;
+                    if (SAME_TYPE_FUNCTIONS.contains(function) && argumentType != null) yield argumentType;
+                    yield OBJECT;
+                }
+            };
+        }
+
+        /**
+         * JPA: SUM of integral types is Long, of floating types Double, and BigInteger/BigDecimal keep their type.
+         */
+        private static String sumType(@Nullable String argumentType) {
+            if (argumentType == null) return OBJECT;
+            return switch (argumentType) {
+                case CommonClassNames.JAVA_LANG_INTEGER, CommonClassNames.JAVA_LANG_LONG,
+                     CommonClassNames.JAVA_LANG_SHORT, CommonClassNames.JAVA_LANG_BYTE -> CommonClassNames.JAVA_LANG_LONG;
+                case CommonClassNames.JAVA_LANG_FLOAT, CommonClassNames.JAVA_LANG_DOUBLE -> CommonClassNames.JAVA_LANG_DOUBLE;
+                case "java.math.BigInteger", "java.math.BigDecimal" -> argumentType;
+                default -> OBJECT;
+            };
+        }
+
+        private static String boxed(PsiType type) {
+            if (type instanceof PsiPrimitiveType primitive) {
+                String boxed = primitive.getBoxedTypeName();
+                return boxed == null ? OBJECT : boxed;
+            }
+            return type.getCanonicalText();
+        }
+    }
+}
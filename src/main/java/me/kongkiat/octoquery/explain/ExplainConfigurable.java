@@ -0,0 +1,123 @@
+package me.kongkiat.octoquery.explain;
+
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.fileChooser.FileChooserDescriptorFactory;
+import com.intellij.openapi.options.Configurable;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.ui.TextFieldWithBrowseButton;
+import com.intellij.ui.DocumentAdapter;
+import com.intellij.ui.components.JBCheckBox;
+import com.intellij.ui.components.JBPasswordField;
+import com.intellij.ui.components.JBTextField;
+import com.intellij.util.ui.FormBuilder;
+import org.jetbrains.annotations.Nls;
+import org.jetbrains.annotations.NotNull;
+
+import javax.swing.*;
+import javax.swing.event.DocumentEvent;
+import java.util.Objects;
+
+/**
+ * Settings page for {@link ExplainSettings}, below the OctoQuery page.
+ */
+public class ExplainConfigurable implements Configurable {
+    private final Project project;
+    private JBTextField jdbcUrl;
+    private JBTextField username;
+    private JBPasswordField password;
+    private TextFieldWithBrowseButton migrationsPath;
+    private JBCheckBox applyMigrations;
+    private JBCheckBox analyze;
+    /** Whether the password field was edited; the stored password is never loaded into the form. */
+    private boolean passwordChanged;
+
+    public ExplainConfigurable(@NotNull Project project) {
+        this.project = project;
+    }
+
+    @Override
+    public @Nls String getDisplayName() {
+        return "EXPLAIN Datasource";
+    }
+
+    @Override
+    public JComponent createComponent() {
+        jdbcUrl = new JBTextField();
+        username = new JBTextField();
+        password = new JBPasswordField();
+        password.getDocument().addDocumentListener(new DocumentAdapter() {
+            @Override
+            protected void textChanged(@NotNull DocumentEvent e) {
+                passwordChanged = true;
+            }
+        });
+        migrationsPath = new TextFieldWithBrowseButton();
+        migrationsPath.addBrowseFolderListener(project, FileChooserDescriptorFactory.createSingleFolderDescriptor()
+                .withTitle("Flyway Migrations Directory"));
+        applyMigrations = new JBCheckBox("Apply Flyway migrations before EXPLAIN (rolled back; PostgreSQL or in-memory H2 only)");
+        analyze = new JBCheckBox("Use EXPLAIN ANALYZE (executes the query)");
+        return FormBuilder.createFormBuilder()
+                .addLabeledComponent("JDBC URL:", jdbcUrl)
+                .addLabeledComponent("User:", username)
+                .addLabeledComponent("Password:", password)
+                .addLabeledComponent("Migrations directory:", migrationsPath)
+                .addComponent(applyMigrations)
+                .addComponent(analyze)
+                .addComponentFillVertically(new JPanel(), 0)
+                .getPanel();
+    }
+
+    @Override
+    public boolean isModified() {
+        ExplainSettings.State state = ExplainSettings.getInstance(project).getState();
+        return passwordChanged
+                || !Objects.equals(jdbcUrl.getText().strip(), state.jdbcUrl)
+                || !Objects.equals(username.getText().strip(), state.username)
+                || !Objects.equals(migrationsPath.getText().strip(), state.migrationsPath)
+                || applyMigrations.isSelected() != state.applyMigrations
+                || analyze.isSelected() != state.analyze;
+    }
+
+    @Override
+    public void apply() {
+        ExplainSettings settings = ExplainSettings.getInstance(project);
+        ExplainSettings.State state = settings.getState();
+        state.jdbcUrl = jdbcUrl.getText().strip();
+        state.username = username.getText().strip();
+        state.migrationsPath = migrationsPath.getText().strip();
+        state.applyMigrations = applyMigrations.isSelected();
+        state.analyze = analyze.isSelected();
+
+        if (passwordChanged) {
+            String url = state.jdbcUrl;
+            String user = state.username;
+            String secret = new String(password.getPassword());
+            // The password safe may hit the OS keychain
+            ApplicationManager.getApplication().executeOnPooledThread(
+                    () -> settings.setPassword(url, user, secret.isEmpty() ? null : secret));
+            passwordChanged = false;
+        }
+    }
+
+    @Override
+    public void reset() {
+        ExplainSettings.State state = ExplainSettings.getInstance(project).getState();
+        jdbcUrl.setText(state.jdbcUrl);
+        username.setText(state.username);
+        migrationsPath.setText(state.migrationsPath);
+        applyMigrations.setSelected(state.applyMigrations);
+        analyze.setSelected(state.analyze);
+        password.setText("");
+        passwordChanged = false;
+    }
+
+    @Override
+    public void disposeUIResources() {
+        jdbcUrl = null;
+        username = null;
+        password = null;
+        migrationsPath = null;
+        applyMigrations = null;
+        analyze = null;
+    }
+}
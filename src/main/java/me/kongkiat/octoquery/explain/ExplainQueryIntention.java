@@ -0,0 +1,116 @@
+package me.kongkiat.octoquery.explain;
+
+import com.intellij.codeInsight.intention.IntentionAction;
+import com.intellij.notification.NotificationGroupManager;
+import com.intellij.notification.NotificationType;
+import com.intellij.openapi.editor.Editor;
+import com.intellij.openapi.progress.ProgressIndicator;
+import com.intellij.openapi.progress.Task;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.wm.ToolWindow;
+import com.intellij.openapi.wm.ToolWindowManager;
+import com.intellij.psi.*;
+import com.intellij.psi.util.PsiTreeUtil;
+import me.kongkiat.octoquery.FormatQueryAction;
+import me.kongkiat.octoquery.FormatQueryIntention;
+import me.kongkiat.octoquery.sql.JdbcStatement;
+import me.kongkiat.octoquery.sql.QueryText;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.util.List;
+
+/**
+ * Runs EXPLAIN for the native query under the caret against the datasource from {@link ExplainSettings}
+ * and shows the plan in the "OctoQuery Explain" tool window.
+ *
+ * Parameters are bound with placeholder values derived from the method signature ({@link PlaceholderValues}).
+ * JPQL queries are not offered: turning them into SQL needs the Hibernate translator of the application.
+ */
+public class ExplainQueryIntention implements IntentionAction {
+
+    @NotNull
+    @Override
+    public String getText() {
+        return "Explain query plan (OctoQuery)";
+    }
+
+    @NotNull
+    @Override
+    public String getFamilyName() {
+        return "OctoQuery";
+    }
+
+    @Override
+    public boolean isAvailable(@NotNull Project project, Editor editor, PsiFile file) {
+        PsiAnnotation annotation = FormatQueryIntention.findQueryAnnotationAtCaret(editor, file);
+        return annotation != null && FormatQueryAction.isNativeQuery(annotation) && queryText(annotation) != null;
+    }
+
+    @Override
+    public void invoke(@NotNull Project project, Editor editor, PsiFile file) {
+        PsiAnnotation annotation = FormatQueryIntention.findQueryAnnotationAtCaret(editor, file);
+        if (annotation == null) return;
+        String query = queryText(annotation);
+        if (query == null) return;
+
+        JdbcStatement statement = JdbcStatement.from(query);
+        List<Object> values = PlaceholderValues.forParameters(PsiTreeUtil.getParentOfType(annotation, PsiMethod.class), statement.parameters());
+        ExplainSettings settings = ExplainSettings.getInstance(project);
+        ExplainSettings.State state = settings.getState();
+
+        new Task.Backgroundable(project, "Explaining query", true) {
+            private ExplainRunner.Result result;
+            private String error;
+
+            @Override
+            public void run(@NotNull ProgressIndicator indicator) {
+                Path migrations = state.applyMigrations ? migrationsDirectory(project, state.migrationsPath) : null;
+                ExplainRunner.Target target = new ExplainRunner.Target(state.jdbcUrl, state.username, settings.getPassword(),
+                        migrations, state.analyze);
+                try {
+                    result = ExplainRunner.run(target, statement, values);
+                } catch (SQLException | IOException e) {
+                    error = e.getMessage();
+                }
+            }
+
+            @Override
+            public void onSuccess() {
+                if (result == null) {
+                    NotificationGroupManager.getInstance().getNotificationGroup("OctoQuery")
+                            .createNotification("EXPLAIN failed: " + error, NotificationType.ERROR)
+                            .notify(project);
+                    return;
+                }
+                ExplainView.getInstance(project).show(result);
+                ToolWindow toolWindow = ToolWindowManager.getInstance(project).getToolWindow(ExplainToolWindowFactory.ID);
+                if (toolWindow != null) toolWindow.activate(null);
+            }
+        }.queue();
+    }
+
+    @Override
+    public boolean startInWriteAction() {
+        return false;
+    }
+
+    private static @Nullable String queryText(PsiAnnotation annotation) {
+        PsiAnnotationMemberValue value = annotation.findDeclaredAttributeValue("value");
+        if (value == null) return null;
+        // Prefer the compile-time value so escapes, concatenations and text block indentation are resolved
+        Object constant = JavaPsiFacade.getInstance(annotation.getProject()).getConstantEvaluationHelper().computeConstantExpression(value);
+        if (constant instanceof String text) return text;
+        return value instanceof PsiLiteralExpression ? QueryText.stripLiteralQuotes(value.getText()) : null;
+    }
+
+    private static @Nullable Path migrationsDirectory(Project project, String migrationsPath) {
+        if (migrationsPath == null || migrationsPath.isBlank()) return null;
+        Path path = Path.of(migrationsPath);
+        String basePath = project.getBasePath();
+        return path.isAbsolute() || basePath == null ? path : Path.of(basePath).resolve(path);
+    }
+}
@@ -0,0 +1,363 @@
+package me.kongkiat.octoquery.explain;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.intellij.openapi.diagnostic.Logger;
+import com.intellij.openapi.progress.ProgressIndicator;
+import com.intellij.openapi.progress.ProgressManager;
+import com.intellij.util.concurrency.AppExecutorUtil;
+import me.kongkiat.octoquery.sql.JdbcStatement;
+import me.kongkiat.octoquery.sql.SqlScript;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.Driver;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Properties;
+import java.util.ServiceLoader;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Runs EXPLAIN for a native query over plain JDBC and turns the answer into a {@link PlanNode} tree.
+ *
+ * Supported databases are H2 (text plans with the access path of every table) and PostgreSQL (JSON plans
+ * with costs and row estimates). Everything happens in one transaction that is always rolled back, so
+ * statements executed by EXPLAIN ANALYZE leave no trace. Migrations applied beforehand only leave no trace
+ * where DDL cannot outlive the run: PostgreSQL DDL is transactional, and an in-memory H2 database disappears
+ * with its connection. H2 commits DDL implicitly, so migrations are refused for file and server H2 URLs
+ * and for in-memory databases kept open with {@code DB_CLOSE_DELAY=-1}.
+ *
+ * JDBC calls do not check for cancellation, so the running statement is cancelled through the driver
+ * when the progress indicator of the calling thread is cancelled.
+ *
+ * Must not be called on the EDT.
+ */
+final class ExplainRunner {
+    private static final Logger LOG = Logger.getInstance(ExplainRunner.class);
+    private static final int CANCEL_POLL_MS = 100;
+    /** Flyway versioned migrations: V1__init.sql, V1.2__users.sql, V2_1__orders.sql. */
+    private static final Pattern VERSIONED = Pattern.compile("V(\\d+(?:[._]\\d+)*)__.*\\.sql");
+    /** Flyway repeatable migrations, applied after all versioned ones. */
+    private static final Pattern REPEATABLE = Pattern.compile("R__.*\\.sql");
+    /** Comments H2 puts below every table of a plan, e.g. {@code /* public.users.tableScan *}{@code /}. */
+    private static final Pattern H2_COMMENT = Pattern.compile("/\\*\\s*(.*?)\\s*\\*/");
+
+    enum Dialect {
+        H2, POSTGRESQL;
+
+        static @Nullable Dialect of(String jdbcUrl) {
+            if (jdbcUrl.startsWith("jdbc:h2:")) return H2;
+            if (jdbcUrl.startsWith("jdbc:postgresql:")) return POSTGRESQL;
+            return null;
+        }
+    }
+
+    /**
+     * @param jdbcUrl The datasource URL
+     * @param username The user name
+     * @param password The password, or null
+     * @param migrations The migrations directory to apply first, or null
+     * @param analyze true for EXPLAIN ANALYZE
+     */
+    record Target(@NotNull String jdbcUrl, @NotNull String username, @Nullable String password,
+                  @Nullable Path migrations, boolean analyze) {
+    }
+
+    /**
+     * @param sql The statement that was explained
+     * @param plan The root of the plan
+     * @param migrationsApplied The number of migration scripts applied before
+     * @param elapsedMillis Wall time of the whole run
+     */
+    record Result(@NotNull String sql, @NotNull PlanNode plan, int migrationsApplied, long elapsedMillis) {
+    }
+
+    private ExplainRunner() {
+    }
+
+    static Result run(@NotNull Target target, @NotNull JdbcStatement statement, @NotNull List<Object> values)
+            throws SQLException, IOException {
+        long start = System.currentTimeMillis();
+        Dialect dialect = Dialect.of(target.jdbcUrl());
+        if (dialect == null) {
+            throw new SQLException("EXPLAIN preview supports H2 and PostgreSQL JDBC URLs, not " + target.jdbcUrl());
+        }
+        if (target.migrations() != null && dialect == Dialect.H2 && !isDisposableH2(target.jdbcUrl())) {
+            throw new SQLException("Migrations can only be applied to an in-memory H2 database without DB_CLOSE_DELAY=-1: "
+                    + "H2 commits DDL implicitly, so they would stay in " + target.jdbcUrl());
+        }
+
+        try (Connection connection = connect(target)) {
+            connection.setAutoCommit(false);
+            try {
+                int applied = target.migrations() == null ? 0 : applyMigrations(connection, target.migrations());
+                PlanNode plan = dialect == Dialect.POSTGRESQL
+                        ? explainPostgres(connection, statement, values, target.analyze())
+                        : explainH2(connection, statement, values, target.analyze());
+                return new Result(statement.sql(), plan, applied, System.currentTimeMillis() - start);
+            } catch (SQLException e) {
+                // A statement cancelled through the driver fails; report the cancellation instead
+                ProgressManager.checkCanceled();
+                throw e;
+            } finally {
+                connection.rollback();
+            }
+        }
+    }
+
+    /**
+     * @return true for an in-memory H2 URL whose database is dropped when the connection closes
+     */
+    private static boolean isDisposableH2(String jdbcUrl) {
+        String url = jdbcUrl.toUpperCase(Locale.ROOT);
+        return url.startsWith("JDBC:H2:MEM:") && !url.replace(" ", "").contains(";DB_CLOSE_DELAY=-1");
+    }
+
+    /**
+     * Cancels a running statement through the driver once the progress indicator of the calling thread
+     * is cancelled.
+     */
+    private static final class StatementCanceller implements AutoCloseable {
+        private final @Nullable ScheduledFuture<?> watcher;
+
+        StatementCanceller(Statement statement) {
+            ProgressIndicator indicator = ProgressManager.getInstance().getProgressIndicator();
+            AtomicBoolean cancelled = new AtomicBoolean();
+            watcher = indicator == null ? null : AppExecutorUtil.getAppScheduledExecutorService().scheduleWithFixedDelay(() -> {
+                if (!indicator.isCanceled() || !cancelled.compareAndSet(false, true)) return;
+                try {
+                    statement.cancel();
+                } catch (SQLException e) {
+                    LOG.debug("Cannot cancel the EXPLAIN statement", e);
+                }
+            }, CANCEL_POLL_MS, CANCEL_POLL_MS, TimeUnit.MILLISECONDS);
+        }
+
+        @Override
+        public void close() {
+            if (watcher != null) watcher.cancel(false);
+        }
+    }
+
+    private static Connection connect(Target target) throws SQLException {
+        Properties properties = new Properties();
+        properties.setProperty("user", target.username());
+        if (target.password() != null) {
+            properties.setProperty("password", target.password());
+        }
+
+        // DriverManager only sees drivers of the system class loader, the bundled ones live in the plugin's
+        for (Driver driver : ServiceLoader.load(Driver.class, ExplainRunner.class.getClassLoader())) {
+            if (driver.acceptsURL(target.jdbcUrl())) {
+                Connection connection = driver.connect(target.jdbcUrl(), properties);
+                if (connection != null) return connection;
+            }
+        }
+        throw new SQLException("No JDBC driver found for " + target.jdbcUrl());
+    }
+
+    private static int applyMigrations(Connection connection, Path directory) throws SQLException, IOException {
+        List<Path> scripts = migrationScripts(directory);
+        try (Statement statement = connection.createStatement(); StatementCanceller ignored = new StatementCanceller(statement)) {
+            for (Path script : scripts) {
+                ProgressManager.checkCanceled();
+                for (String sql : SqlScript.split(Files.readString(script, StandardCharsets.UTF_8))) {
+                    try {
+                        statement.execute(sql);
+                    } catch (SQLException e) {
+                        throw new SQLException("Migration " + script.getFileName() + " failed: " + e.getMessage(), e);
+                    }
+                }
+            }
+        }
+        return scripts.size();
+    }
+
+    /**
+     * @return Versioned migrations in version order, then repeatable migrations by name, as Flyway applies them
+     */
+    static List<Path> migrationScripts(Path directory) throws IOException {
+        if (!Files.isDirectory(directory)) {
+            throw new IOException("Migrations directory not found: " + directory);
+        }
+        List<Path> versioned = new ArrayList<>();
+        List<Path> repeatable = new ArrayList<>();
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.filter(Files::isRegularFile).forEach(file -> {
+                String name = file.getFileName().toString();
+                if (VERSIONED.matcher(name).matches()) {
+                    versioned.add(file);
+                } else if (REPEATABLE.matcher(name).matches()) {
+                    repeatable.add(file);
+                }
+            });
+        }
+        versioned.sort(Comparator.comparing(ExplainRunner::version, ExplainRunner::compareVersions));
+        repeatable.sort(Comparator.comparing(file -> file.getFileName().toString()));
+        versioned.addAll(repeatable);
+        return versioned;
+    }
+
+    private static long[] version(Path file) {
+        Matcher matcher = VERSIONED.matcher(file.getFileName().toString());
+        if (!matcher.matches()) return new long[0];
+        String[] parts = matcher.group(1).split("[._]");
+        long[] version = new long[parts.length];
+        for (int i = 0; i < parts.length; i++) {
+            version[i] = Long.parseLong(parts[i]);
+        }
+        return version;
+    }
+
+    private static int compareVersions(long[] first, long[] second) {
+        for (int i = 0; i < Math.max(first.length, second.length); i++) {
+            long a = i < first.length ? first[i] : 0;
+            long b = i < second.length ? second[i] : 0;
+            if (a != b) return Long.compare(a, b);
+        }
+        return 0;
+    }
+
+    private static PreparedStatement prepare(Connection connection, String sql, List<Object> values) throws SQLException {
+        PreparedStatement statement = connection.prepareStatement(sql);
+        for (int i = 0; i < values.size(); i++) {
+            statement.setObject(i + 1, values.get(i));
+        }
+        return statement;
+    }
+
+    private static PlanNode explainPostgres(Connection connection, JdbcStatement statement, List<Object> values, boolean analyze)
+            throws SQLException {
+        String sql = "EXPLAIN (FORMAT JSON" + (analyze ? ", ANALYZE" : "") + ") " + statement.sql();
+        try (PreparedStatement explain = prepare(connection, sql, values);
+             StatementCanceller ignored = new StatementCanceller(explain);
+             ResultSet result = explain.executeQuery()) {
+            if (!result.next()) throw new SQLException("EXPLAIN returned no plan");
+            JsonArray plans = JsonParser.parseString(result.getString(1)).getAsJsonArray();
+            return postgresNode(plans.get(0).getAsJsonObject().getAsJsonObject("Plan"));
+        }
+    }
+
+    private static PlanNode postgresNode(JsonObject node) {
+        List<PlanNode> children = new ArrayList<>();
+        JsonArray plans = node.getAsJsonArray("Plans");
+        if (plans != null) {
+            for (JsonElement child : plans) {
+                children.add(postgresNode(child.getAsJsonObject()));
+            }
+        }
+
+        List<String> details = new ArrayList<>();
+        for (String key : List.of("Join Type", "Index Name", "Index Cond", "Hash Cond", "Merge Cond", "Filter", "Sort Key")) {
+            JsonElement value = node.get(key);
+            if (value != null && !value.isJsonNull()) {
+                details.add(key + ": " + (value.isJsonArray() ? joinArray(value.getAsJsonArray()) : value.getAsString()));
+            }
+        }
+
+        String relation = string(node, "Relation Name");
+        String alias = string(node, "Alias");
+        if (relation != null && alias != null && !alias.equals(relation)) {
+            relation += " " + alias;
+        }
+        return new PlanNode(node.get("Node Type").getAsString(), relation, details.isEmpty() ? null : String.join(", ", details),
+                number(node, "Total Cost"), number(node, "Plan Rows"), number(node, "Actual Rows"), children);
+    }
+
+    private static String joinArray(JsonArray array) {
+        List<String> items = new ArrayList<>();
+        array.forEach(item -> items.add(item.getAsString()));
+        return String.join(", ", items);
+    }
+
+    private static @Nullable String string(JsonObject node, String key) {
+        JsonElement value = node.get(key);
+        return value == null || value.isJsonNull() ? null : value.getAsString();
+    }
+
+    private static @Nullable Double number(JsonObject node, String key) {
+        JsonElement value = node.get(key);
+        return value == null || value.isJsonNull() ? null : value.getAsDouble();
+    }
+
+    /**
+     * H2 answers with the optimized statement text; every table is followed by a comment naming its access
+     * path ({@code schema.table.tableScan} or {@code schema.index: condition}) and, with ANALYZE, its scan count.
+     */
+    private static PlanNode explainH2(Connection connection, JdbcStatement statement, List<Object> values, boolean analyze)
+            throws SQLException {
+        String sql = "EXPLAIN " + (analyze ? "ANALYZE " : "") + statement.sql();
+        StringBuilder text = new StringBuilder();
+        try (PreparedStatement explain = prepare(connection, sql, values);
+             StatementCanceller ignored = new StatementCanceller(explain);
+             ResultSet result = explain.executeQuery()) {
+            while (result.next()) {
+                text.append(result.getString(1)).append('\n');
+            }
+        }
+
+        List<PlanNode> scans = new ArrayList<>();
+        String table = null;
+        for (String line : text.toString().split("\n")) {
+            String trimmed = line.strip();
+            Matcher comment = H2_COMMENT.matcher(trimmed);
+            if (!trimmed.startsWith("/*") || !comment.find()) {
+                String upper = trimmed.toUpperCase(Locale.ROOT);
+                int join = upper.indexOf("JOIN ");
+                if (upper.startsWith("FROM ")) {
+                    table = trimmed.substring(5);
+                } else if (join >= 0) {
+                    table = trimmed.substring(join + 5);
+                } else if (table != null && !trimmed.isEmpty() && !upper.startsWith("ON ")
+                        && !upper.startsWith("WHERE") && !upper.startsWith("GROUP") && !upper.startsWith("ORDER")) {
+                    // Further tables of a comma-separated FROM list
+                    table = trimmed.endsWith(",") ? trimmed.substring(0, trimmed.length() - 1) : trimmed;
+                }
+                continue;
+            }
+
+            String access = comment.group(1);
+            if (access.startsWith("scanCount:") && !scans.isEmpty()) {
+                PlanNode last = scans.removeLast();
+                Double rows = parseDouble(access.substring("scanCount:".length()).strip());
+                scans.add(new PlanNode(last.operation(), last.relation(), last.detail(), null, null, rows, last.children()));
+            } else if (access.endsWith(".tableScan")) {
+                scans.add(new PlanNode("Table Scan", unquote(table), null, null, null, null, List.of()));
+            } else if (access.contains(":") || access.contains(".")) {
+                scans.add(new PlanNode("Index Scan", unquote(table), access, null, null, null, List.of()));
+            }
+        }
+        return new PlanNode("H2 Plan", null, null, null, null, null, scans);
+    }
+
+    private static @Nullable String unquote(@Nullable String table) {
+        return table == null ? null : table.replace("\"", "").strip();
+    }
+
+    private static @Nullable Double parseDouble(String text) {
+        try {
+            return Double.parseDouble(text);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package me.kongkiat.octoquery.explain;
+
+import com.intellij.credentialStore.CredentialAttributes;
+import com.intellij.credentialStore.CredentialAttributesKt;
+import com.intellij.ide.passwordSafe.PasswordSafe;
+import com.intellij.openapi.components.PersistentStateComponent;
+import com.intellij.openapi.components.Service;
+import com.intellij.openapi.components.State;
+import com.intellij.openapi.components.Storage;
+import com.intellij.openapi.components.StoragePathMacros;
+import com.intellij.openapi.project.Project;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Per-project datasource used by the EXPLAIN preview, edited in Settings | Tools | OctoQuery | EXPLAIN Datasource.
+ *
+ * Stored in the workspace file because the connection is local to each developer. The password is kept
+ * in the IDE password safe, keyed by the JDBC URL and user name.
+ */
+@Service(Service.Level.PROJECT)
+@State(name = "OctoQueryExplainSettings", storages = @Storage(StoragePathMacros.WORKSPACE_FILE))
+public final class ExplainSettings implements PersistentStateComponent<ExplainSettings.State> {
+
+    public static class State {
+        /** An in-memory H2 database in PostgreSQL mode, built from the migrations on every run. */
+        public String jdbcUrl = "jdbc:h2:mem:octoquery;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE";
+        public String username = "sa";
+        /** Directory of Flyway-style V*.sql / R__*.sql migrations, relative to the project root or absolute. */
+        public String migrationsPath = "src/main/resources/db/migration";
+        /** Apply the migrations inside the EXPLAIN transaction, which is always rolled back. PostgreSQL or in-memory H2 only. */
+        public boolean applyMigrations = true;
+        /** Run EXPLAIN ANALYZE, which executes the query. */
+        public boolean analyze = false;
+    }
+
+    private State state = new State();
+
+    public static ExplainSettings getInstance(@NotNull Project project) {
+        return project.getService(ExplainSettings.class);
+    }
+
+    @Override
+    public @NotNull State getState() {
+        return state;
+    }
+
+    @Override
+    public void loadState(@NotNull State state) {
+        this.state = state;
+    }
+
+    /**
+     * Reads the password from the password safe. May block, so call it off the EDT where possible.
+     */
+    public @Nullable String getPassword() {
+        return PasswordSafe.getInstance().getPassword(credentialAttributes(state.jdbcUrl, state.username));
+    }
+
+    public void setPassword(@NotNull String jdbcUrl, @NotNull String username, @Nullable String password) {
+        PasswordSafe.getInstance().setPassword(credentialAttributes(jdbcUrl, username), password);
+    }
+
+    private static CredentialAttributes credentialAttributes(String jdbcUrl, String username) {
+        return new CredentialAttributes(CredentialAttributesKt.generateServiceName("OctoQuery EXPLAIN", jdbcUrl), username);
+    }
+}
@@ -0,0 +1,22 @@
+package me.kongkiat.octoquery.explain;
+
+import com.intellij.openapi.project.DumbAware;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.wm.ToolWindow;
+import com.intellij.openapi.wm.ToolWindowFactory;
+import com.intellij.ui.content.Content;
+import com.intellij.ui.content.ContentFactory;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * "OctoQuery Explain" tool window, showing the last plan produced by {@link ExplainQueryIntention}.
+ */
+public class ExplainToolWindowFactory implements ToolWindowFactory, DumbAware {
+    public static final String ID = "OctoQuery Explain";
+
+    @Override
+    public void createToolWindowContent(@NotNull Project project, @NotNull ToolWindow toolWindow) {
+        Content content = ContentFactory.getInstance().createContent(ExplainView.getInstance(project).getComponent(), "", false);
+        toolWindow.getContentManager().addContent(content);
+    }
+}
@@ -0,0 +1,88 @@
+package me.kongkiat.octoquery.explain;
+
+import com.intellij.openapi.components.Service;
+import com.intellij.openapi.project.Project;
+import com.intellij.ui.ColoredTreeCellRenderer;
+import com.intellij.ui.SimpleTextAttributes;
+import com.intellij.ui.components.JBLabel;
+import com.intellij.ui.components.JBScrollPane;
+import com.intellij.ui.treeStructure.Tree;
+import com.intellij.util.ui.JBUI;
+import com.intellij.util.ui.tree.TreeUtil;
+import org.jetbrains.annotations.NotNull;
+
+import javax.swing.*;
+import javax.swing.tree.DefaultMutableTreeNode;
+import javax.swing.tree.DefaultTreeModel;
+import java.awt.*;
+
+/**
+ * Content of the "OctoQuery Explain" tool window: the statement that was explained and its plan tree.
+ * Full table scans are shown in red so they stand out in large plans.
+ */
+@Service(Service.Level.PROJECT)
+public final class ExplainView {
+    private final JBLabel header = new JBLabel("Use \"Explain query plan\" on a native @Query to show its plan here");
+    private final Tree tree = new Tree(new DefaultTreeModel(null));
+    private final JPanel panel = new JPanel(new BorderLayout());
+
+    public ExplainView() {
+        header.setBorder(JBUI.Borders.empty(4, 8));
+        header.setCopyable(true);
+        tree.setRootVisible(true);
+        tree.setCellRenderer(new PlanRenderer());
+        panel.add(header, BorderLayout.NORTH);
+        panel.add(new JBScrollPane(tree), BorderLayout.CENTER);
+    }
+
+    public static ExplainView getInstance(@NotNull Project project) {
+        return project.getService(ExplainView.class);
+    }
+
+    JComponent getComponent() {
+        return panel;
+    }
+
+    /**
+     * Shows a plan. Must be called on the EDT.
+     */
+    void show(@NotNull ExplainRunner.Result result) {
+        String migrations = result.migrationsApplied() > 0 ? ", " + result.migrationsApplied() + " migrations applied" : "";
+        header.setText("<html><code>" + escape(result.sql()) + "</code><br>" + result.elapsedMillis() + " ms" + migrations + "</html>");
+        tree.setModel(new DefaultTreeModel(toTreeNode(result.plan())));
+        TreeUtil.expandAll(tree);
+    }
+
+    private static DefaultMutableTreeNode toTreeNode(PlanNode plan) {
+        DefaultMutableTreeNode node = new DefaultMutableTreeNode(plan);
+        for (PlanNode child : plan.children()) {
+            node.add(toTreeNode(child));
+        }
+        return node;
+    }
+
+    private static String escape(String text) {
+        return text.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;").replace("\n", "<br>");
+    }
+
+    private static final class PlanRenderer extends ColoredTreeCellRenderer {
+        @Override
+        public void customizeCellRenderer(@NotNull JTree tree, Object value, boolean selected, boolean expanded,
+                                          boolean leaf, int row, boolean hasFocus) {
+            if (!(value instanceof DefaultMutableTreeNode node) || !(node.getUserObject() instanceof PlanNode plan)) return;
+
+            append(plan.operation(), plan.isSequentialScan() ? SimpleTextAttributes.ERROR_ATTRIBUTES : SimpleTextAttributes.REGULAR_BOLD_ATTRIBUTES);
+            if (plan.relation() != null) {
+                append(" on " + plan.relation(), SimpleTextAttributes.REGULAR_ATTRIBUTES);
+            }
+            StringBuilder numbers = new StringBuilder();
+            if (plan.totalCost() != null) numbers.append("  cost=").append(String.format("%.2f", plan.totalCost()));
+            if (plan.estimatedRows() != null) numbers.append("  rows=").append(Math.round(plan.estimatedRows()));
+            if (plan.actualRows() != null) numbers.append("  actual rows=").append(Math.round(plan.actualRows()));
+            append(numbers.toString(), SimpleTextAttributes.GRAYED_ATTRIBUTES);
+            if (plan.detail() != null) {
+                append("  " + plan.detail(), SimpleTextAttributes.GRAY_ITALIC_ATTRIBUTES);
+            }
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package me.kongkiat.octoquery.explain;
+
+import com.intellij.psi.*;
+import com.intellij.psi.util.PsiUtil;
+import com.intellij.psi.util.TypeConversionUtil;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.sql.Date;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Picks a harmless bind value for every parameter of a query, based on the repository method signature.
+ *
+ * The values only have to make the statement valid for the planner: strings become {@code "x"}, numbers
+ * {@code 1}, dates the start of 2000 and enums their first constant. Parameters that cannot be typed are
+ * bound as null, which every database accepts for EXPLAIN.
+ */
+final class PlaceholderValues {
+    /** Special parameters Spring Data consumes itself; they are never bound into the query. */
+    private static final Set<String> NON_BINDABLE = Set.of(
+            "org.springframework.data.domain.Pageable",
+            "org.springframework.data.domain.Sort",
+            "org.springframework.data.domain.Limit",
+            "org.springframework.data.domain.ScrollPosition",
+            "org.springframework.data.domain.KeysetScrollPosition",
+            "org.springframework.data.domain.OffsetScrollPosition");
+
+    private PlaceholderValues() {
+    }
+
+    /**
+     * @param method The repository method declaring the query, or null
+     * @param parameters The parameter names from {@link me.kongkiat.octoquery.sql.JdbcStatement}
+     * @return One value per parameter, in placeholder order
+     */
+    static List<Object> forParameters(@Nullable PsiMethod method, @NotNull List<String> parameters) {
+        List<PsiParameter> bindable = new ArrayList<>();
+        if (method != null) {
+            for (PsiParameter parameter : method.getParameterList().getParameters()) {
+                PsiClass type = PsiUtil.resolveClassInClassTypeOnly(parameter.getType());
+                if (type == null || !NON_BINDABLE.contains(type.getQualifiedName())) {
+                    bindable.add(parameter);
+                }
+            }
+        }
+
+        List<Object> values = new ArrayList<>(parameters.size());
+        for (String name : parameters) {
+            PsiParameter parameter = findParameter(bindable, name);
+            values.add(parameter == null ? null : valueFor(parameter.getType()));
+        }
+        return values;
+    }
+
+    private static @Nullable PsiParameter findParameter(List<PsiParameter> parameters, String name) {
+        if (name.isEmpty()) return null;
+        if (Character.isDigit(name.charAt(0))) {
+            int index = Integer.parseInt(name) - 1;
+            return index >= 0 && index < parameters.size() ? parameters.get(index) : null;
+        }
+        for (PsiParameter parameter : parameters) {
+            if (name.equals(boundName(parameter))) return parameter;
+        }
+        return null;
+    }
+
+    /**
+     * @return The value of {@code @Param}, or the parameter name when compiled with {@code -parameters}
+     */
+    private static String boundName(PsiParameter parameter) {
+        for (PsiAnnotation annotation : parameter.getAnnotations()) {
+            String qName = annotation.getQualifiedName();
+            if (qName != null && qName.endsWith(".Param")
+                    && annotation.findAttributeValue("value") instanceof PsiLiteralExpression literal
+                    && literal.getValue() instanceof String value) {
+                return value;
+            }
+        }
+        return parameter.getName();
+    }
+
+    private static @Nullable Object valueFor(PsiType type) {
+        if (type instanceof PsiArrayType array) {
+            return valueFor(array.getComponentType());
+        }
+        if (type instanceof PsiPrimitiveType primitive) {
+            return switch (primitive.getName()) {
+                case "int", "short", "byte" -> 1;
+                case "long" -> 1L;
+                case "double", "float" -> 1.0;
+                case "boolean" -> true;
+                case "char" -> "x";
+                default -> null;
+            };
+        }
+        if (!(type instanceof PsiClassType classType)) return null;
+
+        PsiClass psiClass = classType.resolve();
+        if (psiClass == null) return null;
+        if (psiClass.isEnum()) {
+            for (PsiField field : psiClass.getFields()) {
+                if (field instanceof PsiEnumConstant) return field.getName();
+            }
+            return null;
+        }
+
+        // Collections are expanded by Spring Data; a single element keeps the statement valid
+        PsiType element = PsiUtil.extractIterableTypeParameter(type, false);
+        if (element != null) {
+            return valueFor(element);
+        }
+
+        String qName = psiClass.getQualifiedName();
+        if (qName == null) return null;
+        return switch (qName) {
+            case "java.lang.String", "java.lang.CharSequence" -> "x";
+            case "java.lang.Integer", "java.lang.Short", "java.lang.Byte" -> 1;
+            case "java.lang.Long" -> 1L;
+            case "java.lang.Double", "java.lang.Float" -> 1.0;
+            case "java.math.BigDecimal" -> BigDecimal.ONE;
+            case "java.math.BigInteger" -> BigInteger.ONE;
+            case "java.lang.Boolean" -> true;
+            case "java.lang.Character" -> "x";
+            case "java.time.LocalDate", "java.sql.Date" -> Date.valueOf("2000-01-01");
+            case "java.time.LocalDateTime", "java.time.Instant", "java.time.OffsetDateTime", "java.time.ZonedDateTime",
+                 "java.util.Date", "java.sql.Timestamp" -> Timestamp.valueOf("2000-01-01 00:00:00");
+            case "java.time.LocalTime", "java.sql.Time" -> Time.valueOf("00:00:00");
+            case "java.util.UUID" -> new UUID(0, 1);
+            default -> TypeConversionUtil.isNumericType(type) ? 1 : null;
+        };
+    }
+}
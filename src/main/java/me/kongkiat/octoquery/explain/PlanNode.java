@@ -0,0 +1,33 @@
+package me.kongkiat.octoquery.explain;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.List;
+
+/**
+ * One node of a query plan, as far as the database reports it.
+ *
+ * @param operation The plan operation, e.g. {@code Seq Scan} or {@code Index Scan}
+ * @param relation The table the node reads, if any
+ * @param detail Extra information such as the index or filter used
+ * @param totalCost The estimated total cost, or null if the database does not report costs
+ * @param estimatedRows The estimated number of rows, or null
+ * @param actualRows The number of rows actually produced (EXPLAIN ANALYZE only), or null
+ * @param children The input nodes
+ */
+public record PlanNode(@NotNull String operation,
+                       @Nullable String relation,
+                       @Nullable String detail,
+                       @Nullable Double totalCost,
+                       @Nullable Double estimatedRows,
+                       @Nullable Double actualRows,
+                       @NotNull List<PlanNode> children) {
+
+    /**
+     * @return true for full table scans, the nodes worth a second look before review
+     */
+    public boolean isSequentialScan() {
+        return operation.equals("Seq Scan") || operation.equals("Parallel Seq Scan") || operation.equals("Table Scan");
+    }
+}
@@ -0,0 +1,110 @@
+package me.kongkiat.octoquery.index;
+
+import com.intellij.ide.highlighter.JavaFileType;
+import com.intellij.openapi.project.IndexNotReadyException;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.psi.PsiFile;
+import com.intellij.util.indexing.DefaultFileTypeSpecificInputFilter;
+import com.intellij.util.indexing.FileBasedIndex;
+import com.intellij.util.indexing.FileContent;
+import com.intellij.util.indexing.ID;
+import com.intellij.util.indexing.SingleEntryFileBasedIndexExtension;
+import com.intellij.util.indexing.SingleEntryIndexer;
+import com.intellij.util.io.DataExternalizer;
+import com.intellij.util.io.DataInputOutputUtil;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * File-based index that stores, for every Java file, the offsets of its @Query and @NativeQuery
+ * annotations and whether each one is native.
+ *
+ * The index is filled by {@link QueryAnnotationScanner}, so building it never resolves references.
+ * Files without query annotations store no value at all.
+ */
+public class QueryAnnotationIndex extends SingleEntryFileBasedIndexExtension<List<QuerySite>> {
+    public static final ID<Integer, List<QuerySite>> NAME = ID.create("me.kongkiat.octoquery.QueryAnnotationIndex");
+
+    @Override
+    public @NotNull ID<Integer, List<QuerySite>> getName() {
+        return NAME;
+    }
+
+    @Override
+    public @NotNull SingleEntryIndexer<List<QuerySite>> getIndexer() {
+        return new SingleEntryIndexer<>(false) {
+            @Override
+            protected @Nullable List<QuerySite> computeValue(@NotNull FileContent inputData) {
+                List<QuerySite> sites = QueryAnnotationScanner.scan(inputData.getContentAsText());
+                return sites.isEmpty() ? null : sites;
+            }
+        };
+    }
+
+    @Override
+    public @NotNull DataExternalizer<List<QuerySite>> getValueExternalizer() {
+        return new DataExternalizer<>() {
+            @Override
+            public void save(@NotNull DataOutput out, List<QuerySite> sites) throws IOException {
+                DataInputOutputUtil.writeINT(out, sites.size());
+                int previous = 0;
+                for (QuerySite site : sites) {
+                    // Offsets are ascending, so the deltas stay small
+                    DataInputOutputUtil.writeINT(out, site.offset() - previous);
+                    out.writeBoolean(site.nativeQuery());
+                    previous = site.offset();
+                }
+            }
+
+            @Override
+            public List<QuerySite> read(@NotNull DataInput in) throws IOException {
+                int size = DataInputOutputUtil.readINT(in);
+                List<QuerySite> sites = new ArrayList<>(size);
+                int offset = 0;
+                for (int i = 0; i < size; i++) {
+                    offset += DataInputOutputUtil.readINT(in);
+                    sites.add(new QuerySite(offset, in.readBoolean()));
+                }
+                return sites;
+            }
+        };
+    }
+
+    @Override
+    public int getVersion() {
+        return 2;
+    }
+
+    @Override
+    public @NotNull FileBasedIndex.InputFilter getInputFilter() {
+        return new DefaultFileTypeSpecificInputFilter(JavaFileType.INSTANCE);
+    }
+
+    /**
+     * Looks up the query annotation sites of a file. Must be called inside a read action.
+     *
+     * @param psiFile A Java file
+     * @return The indexed sites, an empty list when the file has no query annotations,
+     *         or null when the index cannot answer (dumb mode, or a non-physical file)
+     */
+    public static @Nullable List<QuerySite> getSites(@NotNull PsiFile psiFile) {
+        VirtualFile file = psiFile.getViewProvider().getVirtualFile();
+        Project project = psiFile.getProject();
+        if (!psiFile.isPhysical() || !file.isInLocalFileSystem()) return null;
+
+        try {
+            Map<Integer, List<QuerySite>> data = FileBasedIndex.getInstance().getFileData(NAME, file, project);
+            return data.isEmpty() ? List.of() : data.values().iterator().next();
+        } catch (IndexNotReadyException e) {
+            return null;
+        }
+    }
+}
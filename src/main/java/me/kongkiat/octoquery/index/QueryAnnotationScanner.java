@@ -0,0 +1,279 @@
+package me.kongkiat.octoquery.index;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Purely syntactic scanner that finds @Query and @NativeQuery annotations in Java source text
+ * without building PSI or resolving anything.
+ *
+ * Every annotation whose short name is Query or NativeQuery is a candidate, whether it is written
+ * fully qualified, imported or declared in the same package; the IDE resolves the candidates with
+ * {@code FormatQueryAction.isQueryAnnotation}. Imports are not consulted, since a same-package
+ * annotation needs none. Comments, string literals, text blocks and character literals are skipped.
+ *
+ * This class has no IntelliJ Platform dependencies; it is used by {@link QueryAnnotationIndex}
+ * and by the command-line formatter.
+ */
+public final class QueryAnnotationScanner {
+    private static final String QUERY = "Query";
+    private static final String NATIVE_QUERY = "NativeQuery";
+
+    private QueryAnnotationScanner() {
+    }
+
+    /**
+     * Finds the query annotation sites in a Java file.
+     *
+     * @param text The Java source text
+     * @return The annotation sites in text order, empty if the file has none
+     */
+    public static List<QuerySite> scan(CharSequence text) {
+        if (!contains(text, QUERY)) return List.of();
+
+        List<QuerySite> sites = new ArrayList<>();
+
+        int length = text.length();
+        int i = 0;
+        while (i < length) {
+            char c = text.charAt(i);
+            if (c == '/' && i + 1 < length && text.charAt(i + 1) == '/') {
+                i = skipLineComment(text, i);
+            } else if (c == '/' && i + 1 < length && text.charAt(i + 1) == '*') {
+                i = skipBlockComment(text, i);
+            } else if (c == '"') {
+                i = skipStringOrTextBlock(text, i);
+            } else if (c == '\'') {
+                i = skipCharLiteral(text, i);
+            } else if (c == '@') {
+                i = readAnnotation(text, i, sites);
+            } else if (Character.isJavaIdentifierStart(c)) {
+                i = skipIdentifier(text, i);
+            } else {
+                i++;
+            }
+        }
+        return sites;
+    }
+
+    /**
+     * Hashes the text of every query annotation, so a file whose queries are unchanged since a previous
+     * pass can be recognized without building PSI. Offsets are not hashed: edits elsewhere in the file
+     * keep the hash, any edit inside a query annotation changes it.
+     *
+     * @param text The Java source text
+     * @return A 64-bit hash of the query annotations in text order
+     */
+    public static long hashSites(CharSequence text) {
+        long hash = 1125899906842597L;
+        for (QuerySite site : scan(text)) {
+            int end = annotationEnd(text, site.offset());
+            for (int i = site.offset(); i < end; i++) {
+                hash = 31 * hash + text.charAt(i);
+            }
+            hash = 31 * hash + (site.nativeQuery() ? 1 : 2);
+        }
+        return hash;
+    }
+
+    /**
+     * @return The end of the annotation starting at {@code at}: after its closing parenthesis, or after its name
+     */
+    private static int annotationEnd(CharSequence text, int at) {
+        int i = skipWhitespace(text, at + 1);
+        while (i < text.length() && (Character.isJavaIdentifierPart(text.charAt(i)) || text.charAt(i) == '.')) i++;
+        int open = skipWhitespaceAndComments(text, i);
+        if (open < text.length() && text.charAt(open) == '(') {
+            return Math.min(text.length(), findClosingParen(text, open) + 1);
+        }
+        return i;
+    }
+
+    /**
+     * Reads an annotation starting at the {@code @} character and records it when its short name is
+     * Query or NativeQuery.
+     *
+     * @return The position to continue scanning from
+     */
+    private static int readAnnotation(CharSequence text, int at, List<QuerySite> sites) {
+        int i = skipWhitespace(text, at + 1);
+        if (i >= text.length() || !Character.isJavaIdentifierStart(text.charAt(i))) return at + 1;
+
+        // Read a possibly qualified name: a.b.Query
+        StringBuilder name = new StringBuilder();
+        while (true) {
+            int end = skipIdentifier(text, i);
+            name.append(text, i, end);
+            int next = skipWhitespace(text, end);
+            if (next < text.length() && text.charAt(next) == '.') {
+                int segment = skipWhitespace(text, next + 1);
+                if (segment < text.length() && Character.isJavaIdentifierStart(text.charAt(segment))) {
+                    name.append('.');
+                    i = segment;
+                    continue;
+                }
+            }
+            i = end;
+            break;
+        }
+
+        String written = name.toString();
+        boolean isNativeAnnotation = written.equals(NATIVE_QUERY) || written.endsWith("." + NATIVE_QUERY);
+        boolean isQueryAnnotation = written.equals(QUERY) || written.endsWith("." + QUERY);
+        if (!isNativeAnnotation && !isQueryAnnotation) return i;
+
+        boolean nativeQuery = isNativeAnnotation;
+        int open = skipWhitespaceAndComments(text, i);
+        if (open < text.length() && text.charAt(open) == '(') {
+            int close = findClosingParen(text, open);
+            nativeQuery |= hasNativeQueryTrue(text, open + 1, close);
+        }
+
+        sites.add(new QuerySite(at, nativeQuery));
+        // Continue inside the arguments so nested annotations are still found
+        return i;
+    }
+
+    /**
+     * Looks for {@code nativeQuery = true} among the top-level annotation arguments.
+     */
+    private static boolean hasNativeQueryTrue(CharSequence text, int from, int to) {
+        int depth = 0;
+        int i = from;
+        while (i < to) {
+            char c = text.charAt(i);
+            if (c == '"') {
+                i = skipStringOrTextBlock(text, i);
+            } else if (c == '\'') {
+                i = skipCharLiteral(text, i);
+            } else if (c == '/' && i + 1 < to && (text.charAt(i + 1) == '/' || text.charAt(i + 1) == '*')) {
+                i = text.charAt(i + 1) == '/' ? skipLineComment(text, i) : skipBlockComment(text, i);
+            } else if (c == '(' || c == '{') {
+                depth++;
+                i++;
+            } else if (c == ')' || c == '}') {
+                depth--;
+                i++;
+            } else if (depth == 0 && Character.isJavaIdentifierStart(c)) {
+                int end = skipIdentifier(text, i);
+                if (end - i == 11 && regionMatches(text, i, "nativeQuery")) {
+                    int eq = skipWhitespaceAndComments(text, end);
+                    if (eq < to && text.charAt(eq) == '=') {
+                        int value = skipWhitespaceAndComments(text, eq + 1);
+                        return regionMatches(text, value, "true")
+                                && (value + 4 >= text.length() || !Character.isJavaIdentifierPart(text.charAt(value + 4)));
+                    }
+                }
+                i = end;
+            } else {
+                i++;
+            }
+        }
+        return false;
+    }
+
+    private static int findClosingParen(CharSequence text, int open) {
+        int depth = 0;
+        int i = open;
+        while (i < text.length()) {
+            char c = text.charAt(i);
+            if (c == '"') {
+                i = skipStringOrTextBlock(text, i);
+                continue;
+            } else if (c == '\'') {
+                i = skipCharLiteral(text, i);
+                continue;
+            } else if (c == '/' && i + 1 < text.length() && (text.charAt(i + 1) == '/' || text.charAt(i + 1) == '*')) {
+                i = text.charAt(i + 1) == '/' ? skipLineComment(text, i) : skipBlockComment(text, i);
+                continue;
+            } else if (c == '(') {
+                depth++;
+            } else if (c == ')' && --depth == 0) {
+                return i;
+            }
+            i++;
+        }
+        return text.length();
+    }
+
+    private static int skipStringOrTextBlock(CharSequence text, int start) {
+        boolean textBlock = regionMatches(text, start, "\"\"\"");
+        int i = start + (textBlock ? 3 : 1);
+        while (i < text.length()) {
+            char c = text.charAt(i);
+            if (c == '\\') {
+                i += 2;
+            } else if (textBlock && regionMatches(text, i, "\"\"\"")) {
+                return i + 3;
+            } else if (!textBlock && (c == '"' || c == '\n')) {
+                return i + 1;
+            } else {
+                i++;
+            }
+        }
+        return text.length();
+    }
+
+    private static int skipCharLiteral(CharSequence text, int start) {
+        int i = start + 1;
+        while (i < text.length()) {
+            char c = text.charAt(i);
+            if (c == '\\') {
+                i += 2;
+            } else if (c == '\'' || c == '\n') {
+                return i + 1;
+            } else {
+                i++;
+            }
+        }
+        return text.length();
+    }
+
+    private static int skipLineComment(CharSequence text, int start) {
+        int i = start + 2;
+        while (i < text.length() && text.charAt(i) != '\n') i++;
+        return i;
+    }
+
+    private static int skipBlockComment(CharSequence text, int start) {
+        int i = start + 2;
+        while (i + 1 < text.length() && !(text.charAt(i) == '*' && text.charAt(i + 1) == '/')) i++;
+        return Math.min(i + 2, text.length());
+    }
+
+    private static int skipIdentifier(CharSequence text, int start) {
+        int i = start;
+        while (i < text.length() && Character.isJavaIdentifierPart(text.charAt(i))) i++;
+        return i;
+    }
+
+    private static int skipWhitespace(CharSequence text, int start) {
+        int i = start;
+        while (i < text.length() && Character.isWhitespace(text.charAt(i))) i++;
+        return i;
+    }
+
+    private static int skipWhitespaceAndComments(CharSequence text, int start) {
+        int i = skipWhitespace(text, start);
+        while (i + 1 < text.length() && text.charAt(i) == '/' && (text.charAt(i + 1) == '/' || text.charAt(i + 1) == '*')) {
+            i = skipWhitespace(text, text.charAt(i + 1) == '/' ? skipLineComment(text, i) : skipBlockComment(text, i));
+        }
+        return i;
+    }
+
+    private static boolean contains(CharSequence text, String word) {
+        int last = text.length() - word.length();
+        for (int i = 0; i <= last; i++) {
+            if (text.charAt(i) == word.charAt(0) && regionMatches(text, i, word)) return true;
+        }
+        return false;
+    }
+
+    private static boolean regionMatches(CharSequence text, int offset, String other) {
+        if (offset < 0 || offset + other.length() > text.length()) return false;
+        for (int i = 0; i < other.length(); i++) {
+            if (text.charAt(offset + i) != other.charAt(i)) return false;
+        }
+        return true;
+    }
+}
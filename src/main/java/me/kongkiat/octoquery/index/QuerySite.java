@@ -0,0 +1,10 @@
+package me.kongkiat.octoquery.index;
+
+/**
+ * Location of a candidate @Query/@NativeQuery annotation in a Java file.
+ *
+ * @param offset Offset of the annotation's {@code @} character
+ * @param nativeQuery true for @NativeQuery or @Query(nativeQuery = true)
+ */
+public record QuerySite(int offset, boolean nativeQuery) {
+}
@@ -0,0 +1,86 @@
+package me.kongkiat.octoquery.inspection;
+
+import com.intellij.codeInspection.AbstractBaseJavaLocalInspectionTool;
+import com.intellij.codeInspection.LocalQuickFix;
+import com.intellij.codeInspection.ProblemDescriptor;
+import com.intellij.codeInspection.ProblemHighlightType;
+import com.intellij.codeInspection.ProblemsHolder;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.util.TextRange;
+import com.intellij.psi.*;
+import me.kongkiat.octoquery.FormatQueryAction;
+import me.kongkiat.octoquery.QueryBudget;
+import me.kongkiat.octoquery.sql.QueryPerformanceAnalyzer;
+import me.kongkiat.octoquery.sql.QueryText;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Flags index-defeating shapes in @Query and @NativeQuery strings: {@code SELECT *} in native queries,
+ * leading-wildcard LIKE patterns, functions around columns in WHERE/ON predicates and OR chains across
+ * columns. Leading wildcards come with a quick fix that removes them.
+ *
+ * The query is analyzed as written in the source literal, so problem ranges map one to one onto the
+ * literal text; the analysis itself is done by {@link QueryPerformanceAnalyzer}.
+ */
+public class QueryPerformanceInspection extends AbstractBaseJavaLocalInspectionTool {
+
+    @Override
+    public @NotNull PsiElementVisitor buildVisitor(@NotNull ProblemsHolder holder, boolean isOnTheFly) {
+        return new JavaElementVisitor() {
+            @Override
+            public void visitAnnotation(@NotNull PsiAnnotation annotation) {
+                if (!FormatQueryAction.isQueryAnnotation(annotation)) return;
+                PsiAnnotationMemberValue value = annotation.findDeclaredAttributeValue("value");
+                if (!(value instanceof PsiLiteralExpression literal)) return;
+
+                String literalText = literal.getText();
+                String query = QueryText.stripLiteralQuotes(literalText);
+                // Highlighting is cancelled by the daemon anyway; an oversized query is just not analyzed
+                if (QueryBudget.isOversized(query)) return;
+                int contentOffset = literalText.indexOf(query);
+                boolean isNative = FormatQueryAction.isNativeQuery(annotation);
+
+                for (QueryPerformanceAnalyzer.Issue issue : QueryPerformanceAnalyzer.analyze(query, isNative)) {
+                    TextRange range = new TextRange(contentOffset + issue.start(), contentOffset + issue.end());
+                    LocalQuickFix[] fixes = issue.hasFix()
+                            ? new LocalQuickFix[]{new RemoveTextFix(contentOffset + issue.removeStart(), contentOffset + issue.removeEnd(),
+                                    query.substring(issue.removeStart(), issue.removeEnd()))}
+                            : LocalQuickFix.EMPTY_ARRAY;
+                    holder.registerProblem(literal, issue.message(), ProblemHighlightType.GENERIC_ERROR_OR_WARNING, range, fixes);
+                }
+            }
+        };
+    }
+
+    /**
+     * Removes the leading wildcard of a LIKE pattern from the query literal.
+     * The text to remove is checked again before applying, so a stale fix does nothing.
+     */
+    private static final class RemoveTextFix implements LocalQuickFix {
+        private final int start;
+        private final int end;
+        private final String expected;
+
+        RemoveTextFix(int start, int end, String expected) {
+            this.start = start;
+            this.end = end;
+            this.expected = expected;
+        }
+
+        @Override
+        public @NotNull String getFamilyName() {
+            return "Remove leading LIKE wildcard";
+        }
+
+        @Override
+        public void applyFix(@NotNull Project project, @NotNull ProblemDescriptor descriptor) {
+            PsiElement literal = descriptor.getPsiElement();
+            if (!(literal instanceof PsiLiteralExpression)) return;
+            String text = literal.getText();
+            if (end > text.length() || !text.substring(start, end).equals(expected)) return;
+
+            String fixed = text.substring(0, start) + text.substring(end);
+            literal.replace(JavaPsiFacade.getElementFactory(project).createExpressionFromText(fixed, literal));
+        }
+    }
+}
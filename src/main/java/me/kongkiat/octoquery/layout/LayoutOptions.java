@@ -0,0 +1,14 @@
+package me.kongkiat.octoquery.layout;
+
+/**
+ * Settings of the {@link QueryLayoutEngine}.
+ *
+ * @param indent Indentation of subqueries and DTO constructor arguments
+ * @param conditionIndent Indentation of AND/OR lines relative to their clause
+ * @param uppercaseKeywords true to write lower-case or upper-case SQL keywords in upper case
+ *                          (mixed-case words are left alone, they are usually entity names)
+ */
+public record LayoutOptions(int indent, int conditionIndent, boolean uppercaseKeywords) {
+
+    public static final LayoutOptions DEFAULT = new LayoutOptions(4, 2, true);
+}
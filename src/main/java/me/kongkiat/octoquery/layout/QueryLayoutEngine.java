@@ -0,0 +1,295 @@
+package me.kongkiat.octoquery.layout;
+
+import me.kongkiat.octoquery.sql.Cancellation;
+import me.kongkiat.octoquery.sql.SqlLexer;
+import me.kongkiat.octoquery.sql.SqlTokenType;
+import me.kongkiat.octoquery.sql.SqlTokens;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Lays out SQL and JPQL queries in a single pass over the token stream, without PSI or a formatting model.
+ *
+ * Rules:
+ * - every top-level clause (SELECT, FROM, JOIN, WHERE, GROUP BY, ORDER BY, ...) starts a new line
+ * - AND/OR conditions of a clause go on their own line, indented below it (BETWEEN ... AND stays inline)
+ * - subqueries are indented inside their parentheses
+ * - JPQL DTO constructors ({@code SELECT new Dto(...)}) get one argument per line
+ *
+ * Everything else is kept as written: tokens that touch in the source stay touching
+ * (so {@code %:name%} and {@code a::int} survive) and other whitespace collapses to one space.
+ *
+ * This package has no IntelliJ Platform dependencies so it can run outside the IDE.
+ */
+public final class QueryLayoutEngine {
+
+    /** Keywords that start a new line wherever they appear in a query. */
+    private static final Set<String> CLAUSES = Set.of(
+            "SELECT", "FROM", "WHERE", "HAVING", "LIMIT", "OFFSET", "FETCH", "UNION", "INTERSECT", "EXCEPT",
+            "SET", "VALUES", "RETURNING", "WINDOW");
+
+    /** Words that turn a following JOIN into a clause of their own. */
+    private static final Set<String> JOIN_MODIFIERS = Set.of("LEFT", "RIGHT", "INNER", "OUTER", "FULL", "CROSS", "NATURAL");
+
+    /** Keywords written in upper case when {@link LayoutOptions#uppercaseKeywords()} is set. */
+    private static final Set<String> KEYWORDS = Set.of(
+            "SELECT", "DISTINCT", "FROM", "WHERE", "AND", "OR", "NOT", "IN", "IS", "NULL", "LIKE", "ILIKE", "BETWEEN",
+            "AS", "ON", "JOIN", "BY", "HAVING", "LIMIT", "OFFSET", "UNION", "ALL", "INTERSECT", "EXCEPT", "CASE",
+            "WHEN", "THEN", "ELSE", "END", "ASC", "DESC", "EXISTS", "INSERT", "INTO", "VALUES", "UPDATE", "DELETE",
+            "RETURNING", "WITH", "TRUE", "FALSE");
+
+    private enum Kind {
+        /** Top level or a subquery: clauses and conditions are broken into lines. */
+        QUERY,
+        /** Arguments of a DTO constructor: one argument per line. */
+        DTO,
+        /** Any other parentheses: laid out inline. */
+        PLAIN
+    }
+
+    private static final class Frame {
+        final Kind kind;
+        /** Indentation of the frame's own lines. */
+        final int indent;
+        /** Indentation of the line that opened the frame, used for its closing parenthesis. */
+        final int closeIndent;
+        boolean started;
+        boolean between;
+        boolean dtoPending;
+
+        Frame(Kind kind, int indent, int closeIndent) {
+            this.kind = kind;
+            this.indent = indent;
+            this.closeIndent = closeIndent;
+        }
+    }
+
+    private QueryLayoutEngine() {
+    }
+
+    /**
+     * Lays out a query.
+     *
+     * @param query The SQL or JPQL query
+     * @param options Layout settings
+     * @return The formatted query without leading or trailing whitespace
+     */
+    public static String format(String query, LayoutOptions options) {
+        SqlTokens tokens = SqlLexer.tokenize(query);
+        Output out = new Output(query.length() + query.length() / 4);
+        Deque<Frame> frames = new ArrayDeque<>();
+        Frame frame = new Frame(Kind.QUERY, 0, 0);
+        boolean hadSpace = false;
+
+        for (int i = 0; i < tokens.size(); i++) {
+            Cancellation.check(i);
+            SqlTokenType type = tokens.type(i);
+            if (type == SqlTokenType.WHITESPACE) {
+                hadSpace = true;
+                continue;
+            }
+            boolean space = hadSpace;
+            hadSpace = false;
+
+            switch (type) {
+                case LINE_COMMENT -> {
+                    out.append(tokens.text(i).stripTrailing(), type, space);
+                    // The next token must not end up inside the comment
+                    out.newLine(frame.indent);
+                }
+                case LPAREN -> {
+                    Kind kind = frame.kind == Kind.QUERY && frame.dtoPending ? Kind.DTO
+                            : startsQuery(tokens, i) ? Kind.QUERY : Kind.PLAIN;
+                    frame.dtoPending = false;
+                    frame.started = true;
+                    out.append("(", type, space);
+
+                    frames.push(frame);
+                    if (kind == Kind.PLAIN) {
+                        frame = new Frame(kind, frame.indent, frame.indent);
+                    } else {
+                        int lineIndent = out.lineIndent();
+                        frame = new Frame(kind, lineIndent + options.indent(), lineIndent);
+                        out.newLine(frame.indent);
+                    }
+                }
+                case RPAREN -> {
+                    if (frames.isEmpty()) {
+                        // Unbalanced, keep it where it is
+                        out.append(")", type, space);
+                        continue;
+                    }
+                    Frame closed = frame;
+                    frame = frames.pop();
+                    if (closed.kind != Kind.PLAIN) {
+                        out.newLine(closed.closeIndent);
+                    }
+                    out.append(")", type, space);
+                }
+                case COMMA -> {
+                    out.append(",", type, space);
+                    if (frame.kind == Kind.DTO) {
+                        out.newLine(frame.indent);
+                    }
+                }
+                case SEMICOLON -> {
+                    out.append(";", type, space);
+                    frame.started = false;
+                    out.newLine(frame.indent);
+                }
+                case WORD -> {
+                    String word = tokens.text(i);
+                    String upper = word.toUpperCase(Locale.ROOT);
+                    layoutWord(tokens, i, upper, frame, out, options);
+                    out.append(keywordCase(tokens, i, word, upper, options), type, space);
+                }
+                default -> out.append(tokens.text(i), type, space);
+            }
+            frame.started = true;
+        }
+
+        return out.toString();
+    }
+
+    /**
+     * Applies the line-breaking rules that a word triggers before it is written.
+     */
+    private static void layoutWord(SqlTokens tokens, int i, String upper, Frame frame, Output out, LayoutOptions options) {
+        if (frame.kind != Kind.QUERY || tokens.is(tokens.previousSignificant(i), SqlTokenType.DOT)) return;
+
+        if (isClauseStart(tokens, i, upper)) {
+            if (frame.started) {
+                out.newLine(frame.indent);
+            }
+            frame.between = false;
+        } else if (upper.equals("BETWEEN")) {
+            frame.between = true;
+        } else if (upper.equals("AND") && frame.between) {
+            frame.between = false;
+        } else if ((upper.equals("AND") || upper.equals("OR")) && frame.started) {
+            out.newLine(frame.indent + options.conditionIndent());
+        } else if (upper.equals("NEW")) {
+            int previous = tokens.previousSignificant(i);
+            frame.dtoPending = tokens.isKeyword(previous, "SELECT") || tokens.isKeyword(previous, "DISTINCT");
+        }
+    }
+
+    private static boolean isClauseStart(SqlTokens tokens, int i, String word) {
+        int next = tokens.nextSignificant(i);
+
+        if (word.equals("GROUP") || word.equals("ORDER")) {
+            return tokens.isKeyword(next, "BY");
+        }
+        if (word.equals("JOIN")) {
+            int previous = tokens.previousSignificant(i);
+            return previous < 0 || !tokens.is(previous, SqlTokenType.WORD)
+                    || !JOIN_MODIFIERS.contains(tokens.text(previous).toUpperCase(Locale.ROOT));
+        }
+        if (JOIN_MODIFIERS.contains(word)) {
+            int previous = tokens.previousSignificant(i);
+            boolean modified = previous >= 0 && tokens.is(previous, SqlTokenType.WORD)
+                    && JOIN_MODIFIERS.contains(tokens.text(previous).toUpperCase(Locale.ROOT));
+            return !modified && isJoinAhead(tokens, next);
+        }
+        if (word.equals("FETCH")) {
+            // JPQL JOIN FETCH stays on its join line; only FETCH FIRST/NEXT starts a clause
+            return !tokens.isKeyword(tokens.previousSignificant(i), "JOIN");
+        }
+        if (word.equals("FROM")) {
+            // IS [NOT] DISTINCT FROM is an operator
+            return !tokens.isKeyword(tokens.previousSignificant(i), "DISTINCT");
+        }
+        return CLAUSES.contains(word);
+    }
+
+    private static boolean isJoinAhead(SqlTokens tokens, int from) {
+        int i = from;
+        while (i < tokens.size() && tokens.is(i, SqlTokenType.WORD)
+                && JOIN_MODIFIERS.contains(tokens.text(i).toUpperCase(Locale.ROOT))) {
+            i = tokens.nextSignificant(i);
+        }
+        return tokens.isKeyword(i, "JOIN");
+    }
+
+    /**
+     * @return true if the parenthesis at {@code i} encloses a subquery
+     */
+    private static boolean startsQuery(SqlTokens tokens, int i) {
+        int next = tokens.nextSignificant(i);
+        return tokens.isKeyword(next, "SELECT") || tokens.isKeyword(next, "WITH");
+    }
+
+    private static String keywordCase(SqlTokens tokens, int i, String text, String upper, LayoutOptions options) {
+        if (!options.uppercaseKeywords()) return text;
+
+        boolean uniformCase = text.equals(upper) || text.equals(text.toLowerCase(Locale.ROOT));
+        if (!uniformCase || tokens.is(tokens.previousSignificant(i), SqlTokenType.DOT)) return text;
+
+        if (KEYWORDS.contains(upper)) return upper;
+        // Words that are only keywords in their compound form
+        if ((upper.equals("GROUP") || upper.equals("ORDER")) && tokens.isKeyword(tokens.nextSignificant(i), "BY")) return upper;
+        if (JOIN_MODIFIERS.contains(upper) && isJoinAhead(tokens, tokens.nextSignificant(i))) return upper;
+        return text;
+    }
+
+    /**
+     * Output buffer that tracks the current line so breaks can be inserted or re-indented cheaply.
+     */
+    private static final class Output {
+        private final StringBuilder text;
+        private int lineStart;
+        private int lineIndent;
+        private boolean atLineStart = true;
+        private SqlTokenType lastType;
+
+        Output(int capacity) {
+            text = new StringBuilder(capacity);
+        }
+
+        int lineIndent() {
+            return lineIndent;
+        }
+
+        /**
+         * Starts a new line, or re-indents the current one if nothing was written on it yet.
+         */
+        void newLine(int indent) {
+            if (atLineStart) {
+                text.setLength(lineStart);
+            } else {
+                int end = text.length();
+                while (end > 0 && text.charAt(end - 1) == ' ') end--;
+                text.setLength(end);
+                text.append('\n');
+                lineStart = text.length();
+            }
+            text.repeat(' ', indent);
+            lineIndent = indent;
+            atLineStart = true;
+        }
+
+        void append(String token, SqlTokenType type, boolean spaceInSource) {
+            if (!atLineStart && needsSpace(type, spaceInSource)) {
+                text.append(' ');
+            }
+            text.append(token);
+            atLineStart = false;
+            lastType = type;
+        }
+
+        private boolean needsSpace(SqlTokenType type, boolean spaceInSource) {
+            if (type == SqlTokenType.COMMA || type == SqlTokenType.RPAREN || type == SqlTokenType.DOT) return false;
+            if (lastType == SqlTokenType.LPAREN || lastType == SqlTokenType.DOT) return false;
+            if (lastType == SqlTokenType.COMMA) return true;
+            return spaceInSource;
+        }
+
+        @Override
+        public String toString() {
+            return text.toString().strip();
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package me.kongkiat.octoquery.metrics;
+
+import com.intellij.openapi.fileChooser.FileChooserFactory;
+import com.intellij.openapi.fileChooser.FileSaverDescriptor;
+import com.intellij.openapi.ide.CopyPasteManager;
+import com.intellij.openapi.project.DumbAware;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.ui.Messages;
+import com.intellij.openapi.vfs.VirtualFileWrapper;
+import com.intellij.openapi.wm.ToolWindow;
+import com.intellij.openapi.wm.ToolWindowFactory;
+import com.intellij.ui.components.JBScrollPane;
+import com.intellij.ui.components.JBTextArea;
+import com.intellij.ui.content.Content;
+import com.intellij.ui.content.ContentFactory;
+import com.intellij.util.ui.JBUI;
+import me.kongkiat.octoquery.SkippedQueryReporter;
+import me.kongkiat.octoquery.cache.FormattedQueryCache;
+import org.jetbrains.annotations.NotNull;
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.datatransfer.StringSelection;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+
+/**
+ * "OctoQuery Diagnostics" tool window: a plain-text table of the {@link FormattingMetrics}
+ * with buttons to refresh, reset, copy or export the numbers as JSON.
+ */
+public class DiagnosticsToolWindowFactory implements ToolWindowFactory, DumbAware {
+
+    @Override
+    public void createToolWindowContent(@NotNull Project project, @NotNull ToolWindow toolWindow) {
+        JBTextArea text = new JBTextArea();
+        text.setEditable(false);
+        text.setFont(JBUI.Fonts.create(Font.MONOSPACED, 12));
+
+        FormattingMetrics metrics = FormattingMetrics.getInstance();
+        Runnable refresh = () -> text.setText(render(project, metrics));
+
+        JButton refreshButton = new JButton("Refresh");
+        refreshButton.addActionListener(e -> refresh.run());
+        JButton resetButton = new JButton("Reset");
+        resetButton.addActionListener(e -> {
+            metrics.reset();
+            refresh.run();
+        });
+        JButton copyButton = new JButton("Copy JSON");
+        copyButton.addActionListener(e -> CopyPasteManager.getInstance().setContents(new StringSelection(metrics.toJson(project))));
+        JButton exportButton = new JButton("Export JSON...");
+        exportButton.addActionListener(e -> export(project, metrics));
+
+        JPanel buttons = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        buttons.add(refreshButton);
+        buttons.add(resetButton);
+        buttons.add(copyButton);
+        buttons.add(exportButton);
+
+        JPanel panel = new JPanel(new BorderLayout());
+        panel.add(buttons, BorderLayout.NORTH);
+        panel.add(new JBScrollPane(text), BorderLayout.CENTER);
+        refresh.run();
+
+        Content content = ContentFactory.getInstance().createContent(panel, "", false);
+        toolWindow.getContentManager().addContent(content);
+    }
+
+    private static String render(Project project, FormattingMetrics metrics) {
+        StringBuilder out = new StringBuilder();
+        out.append(String.format("%-30s %8s %10s %10s %10s %10s%n", "Phase (µs)", "count", "p50", "p95", "p99", "max"));
+        for (Phase phase : Phase.values()) {
+            SampleHistogram.Snapshot s = metrics.getLatency(phase);
+            out.append(String.format("%-30s %8d %10d %10d %10d %10d%n",
+                    phase.id(), s.count(), s.p50() / 1000, s.p95() / 1000, s.p99() / 1000, s.max() / 1000));
+        }
+        SampleHistogram.Snapshot sizes = metrics.getQuerySizes();
+        out.append(String.format("%-30s %8d %10d %10d %10d %10d%n",
+                "query size (chars)", sizes.count(), sizes.p50(), sizes.p95(), sizes.p99(), sizes.max()));
+        out.append('\n');
+        out.append("Queries rewritten: ").append(metrics.getRewritten())
+                .append(", skipped: ").append(metrics.getSkipped())
+                .append(", over budget: ").append(metrics.getOverBudget()).append('\n');
+        List<SkippedQueryReporter.Skip> overBudget = SkippedQueryReporter.getInstance(project).getRecent();
+        for (int i = overBudget.size() - 1; i >= 0; i--) {
+            out.append("  skipped ").append(overBudget.get(i)).append('\n');
+        }
+        out.append("Formatted query cache: ").append(FormattedQueryCache.getInstance(project).getStatistics()).append('\n');
+        return out.toString();
+    }
+
+    private static void export(Project project, FormattingMetrics metrics) {
+        FileSaverDescriptor descriptor = new FileSaverDescriptor("Export OctoQuery Metrics", "Save the formatting metrics as JSON", "json");
+        VirtualFileWrapper target = FileChooserFactory.getInstance()
+                .createSaveFileDialog(descriptor, project)
+                .save("octoquery-metrics.json");
+        if (target == null) return;
+
+        try {
+            Files.writeString(target.getFile().toPath(), metrics.toJson(project), StandardCharsets.UTF_8);
+        } catch (IOException ex) {
+            Messages.showErrorDialog(project, "Cannot write " + target.getFile() + ": " + ex.getMessage(), "Export OctoQuery Metrics");
+        }
+    }
+}
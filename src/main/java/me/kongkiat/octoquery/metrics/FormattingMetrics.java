@@ -0,0 +1,150 @@
+package me.kongkiat.octoquery.metrics;
+
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.components.Service;
+import com.intellij.openapi.project.Project;
+import me.kongkiat.octoquery.cache.FormattedQueryCache;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.time.Instant;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Application-wide timings and counters of the formatting pipeline, shown in the
+ * "OctoQuery Diagnostics" tool window and exportable as JSON for slowness reports.
+ *
+ * Recording costs two {@link System#nanoTime()} calls and a short synchronized section per phase.
+ */
+@Service(Service.Level.APP)
+public final class FormattingMetrics {
+    private final Map<Phase, SampleHistogram> latencies = new EnumMap<>(Phase.class);
+    private final SampleHistogram querySizes = new SampleHistogram();
+    private final AtomicLong rewritten = new AtomicLong();
+    private final AtomicLong skipped = new AtomicLong();
+    private final AtomicLong overBudget = new AtomicLong();
+    private volatile Instant since = Instant.now();
+
+    public FormattingMetrics() {
+        for (Phase phase : Phase.values()) {
+            latencies.put(phase, new SampleHistogram());
+        }
+    }
+
+    public static FormattingMetrics getInstance() {
+        return ApplicationManager.getApplication().getService(FormattingMetrics.class);
+    }
+
+    /**
+     * Runs and times one phase.
+     */
+    public <T> T time(@NotNull Phase phase, @NotNull Supplier<T> body) {
+        long start = System.nanoTime();
+        try {
+            return body.get();
+        } finally {
+            latencies.get(phase).record(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Records a phase that started at {@code startNanos}, as returned by {@link System#nanoTime()}.
+     */
+    public void record(@NotNull Phase phase, long startNanos) {
+        latencies.get(phase).record(System.nanoTime() - startNanos);
+    }
+
+    public void recordQuerySize(int length) {
+        querySizes.record(length);
+    }
+
+    /** A query value was replaced with its formatted text. */
+    public void recordRewritten() {
+        rewritten.incrementAndGet();
+    }
+
+    /** A query was already formatted, or changed before its rewrite could be applied. */
+    public void recordSkipped() {
+        skipped.incrementAndGet();
+    }
+
+    /** A query was left unformatted because it exceeded the size or time budget. */
+    public void recordOverBudget() {
+        overBudget.incrementAndGet();
+    }
+
+    public void reset() {
+        latencies.values().forEach(SampleHistogram::reset);
+        querySizes.reset();
+        rewritten.set(0);
+        skipped.set(0);
+        overBudget.set(0);
+        since = Instant.now();
+    }
+
+    public SampleHistogram.Snapshot getLatency(@NotNull Phase phase) {
+        return latencies.get(phase).snapshot();
+    }
+
+    public SampleHistogram.Snapshot getQuerySizes() {
+        return querySizes.snapshot();
+    }
+
+    public long getRewritten() {
+        return rewritten.get();
+    }
+
+    public long getSkipped() {
+        return skipped.get();
+    }
+
+    public long getOverBudget() {
+        return overBudget.get();
+    }
+
+    /**
+     * Serializes the current metrics. Latencies are in microseconds, sizes in characters.
+     *
+     * @param project Project whose formatted query cache statistics are included, or null
+     * @return The metrics as a JSON object
+     */
+    public String toJson(@Nullable Project project) {
+        StringBuilder json = new StringBuilder(1024);
+        json.append("{\n  \"since\": \"").append(since).append("\",\n");
+        json.append("  \"exportedAt\": \"").append(Instant.now()).append("\",\n");
+        json.append("  \"phases\": {\n");
+        Phase[] phases = Phase.values();
+        for (int i = 0; i < phases.length; i++) {
+            json.append("    \"").append(phases[i].id()).append("\": ");
+            appendSnapshot(json, getLatency(phases[i]), 1000);
+            json.append(i < phases.length - 1 ? ",\n" : "\n");
+        }
+        json.append("  },\n  \"querySizeChars\": ");
+        appendSnapshot(json, getQuerySizes(), 1);
+        json.append(",\n  \"queries\": {\"rewritten\": ").append(getRewritten())
+                .append(", \"skipped\": ").append(getSkipped())
+                .append(", \"overBudget\": ").append(getOverBudget()).append('}');
+
+        if (project != null) {
+            FormattedQueryCache cache = FormattedQueryCache.getInstance(project);
+            json.append(",\n  \"cache\": {\"hits\": ").append(cache.getHits())
+                    .append(", \"misses\": ").append(cache.getMisses())
+                    .append(", \"hitRate\": ").append(String.format(Locale.ROOT, "%.4f", cache.getHitRate()))
+                    .append(", \"size\": ").append(cache.size()).append('}');
+        }
+        return json.append("\n}\n").toString();
+    }
+
+    private static void appendSnapshot(StringBuilder json, SampleHistogram.Snapshot snapshot, long divisor) {
+        json.append("{\"count\": ").append(snapshot.count())
+                .append(", \"mean\": ").append(snapshot.mean() / divisor)
+                .append(", \"p50\": ").append(snapshot.p50() / divisor)
+                .append(", \"p95\": ").append(snapshot.p95() / divisor)
+                .append(", \"p99\": ").append(snapshot.p99() / divisor)
+                .append(", \"max\": ").append(snapshot.max() / divisor).append('}');
+    }
+}
@@ -0,0 +1,26 @@
+package me.kongkiat.octoquery.metrics;
+
+/**
+ * Timed phases of the query formatting pipeline.
+ */
+public enum Phase {
+    FIND_ANNOTATIONS("findAllQueryAnnotations"),
+    PROTECT_DTO("protectDtoConstructors"),
+    SQL_REFORMAT("sqlReformat"),
+    RESTORE_DTO("restoreAndFormatConstructors"),
+    LAYOUT("layoutEngine"),
+    REPLACE("valueReplace");
+
+    private final String id;
+
+    Phase(String id) {
+        this.id = id;
+    }
+
+    /**
+     * @return The name used in the diagnostics view and the JSON export
+     */
+    public String id() {
+        return id;
+    }
+}
@@ -0,0 +1,54 @@
+package me.kongkiat.octoquery.metrics;
+
+import java.util.Arrays;
+
+/**
+ * Thread-safe recorder of long samples (latencies in nanoseconds, query sizes in characters).
+ *
+ * Count, total and maximum cover every sample; percentiles are computed from a ring buffer
+ * holding the most recent {@link #RESERVOIR_SIZE} samples, so memory stays constant.
+ */
+public final class SampleHistogram {
+    static final int RESERVOIR_SIZE = 1024;
+
+    private final long[] reservoir = new long[RESERVOIR_SIZE];
+    private long count;
+    private long total;
+    private long max;
+
+    public synchronized void record(long value) {
+        reservoir[(int) (count % RESERVOIR_SIZE)] = value;
+        count++;
+        total += value;
+        max = Math.max(max, value);
+    }
+
+    public synchronized void reset() {
+        count = 0;
+        total = 0;
+        max = 0;
+    }
+
+    /**
+     * @return An immutable view of the current statistics
+     */
+    public synchronized Snapshot snapshot() {
+        int size = (int) Math.min(count, RESERVOIR_SIZE);
+        long[] sorted = Arrays.copyOf(reservoir, size);
+        Arrays.sort(sorted);
+        return new Snapshot(count, total, max,
+                percentile(sorted, 0.50), percentile(sorted, 0.95), percentile(sorted, 0.99));
+    }
+
+    private static long percentile(long[] sorted, double quantile) {
+        if (sorted.length == 0) return 0;
+        int index = (int) Math.ceil(quantile * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(index, sorted.length - 1))];
+    }
+
+    public record Snapshot(long count, long total, long max, long p50, long p95, long p99) {
+        public long mean() {
+            return count == 0 ? 0 : total / count;
+        }
+    }
+}
@@ -0,0 +1,170 @@
+package me.kongkiat.octoquery.pagination;
+
+import com.intellij.codeInsight.intention.IntentionAction;
+import com.intellij.openapi.command.WriteCommandAction;
+import com.intellij.openapi.editor.Editor;
+import com.intellij.openapi.project.Project;
+import com.intellij.psi.*;
+import com.intellij.psi.codeStyle.JavaCodeStyleManager;
+import com.intellij.psi.util.PsiTreeUtil;
+import com.intellij.psi.util.PsiUtil;
+import me.kongkiat.octoquery.FormatQueryAction;
+import me.kongkiat.octoquery.FormatQueryIntention;
+import me.kongkiat.octoquery.entity.ProjectionTypeResolver;
+import me.kongkiat.octoquery.sql.KeysetPagination;
+import me.kongkiat.octoquery.sql.ProjectionFieldExtractor;
+import me.kongkiat.octoquery.sql.QueryText;
+import me.kongkiat.octoquery.sql.SqlLexer;
+import me.kongkiat.octoquery.sql.SqlTokens;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Converts an OFFSET-paginated @Query or @NativeQuery into keyset (seek) pagination and updates the
+ * repository method to match: the {@code Pageable} and OFFSET parameters are replaced by one
+ * {@code last...} parameter per sort key plus a limit, and {@code Page}/{@code Slice} results become
+ * {@code List}, since a keyset page has no total count.
+ *
+ * Available when the query has a top-level ORDER BY and the method takes a {@code Pageable} or the
+ * query ends in an OFFSET clause. The query rewrite itself is done by {@link KeysetPagination}.
+ */
+public class KeysetPaginationIntention implements IntentionAction {
+    private static final String PAGEABLE = "org.springframework.data.domain.Pageable";
+    private static final String LIMIT = "org.springframework.data.domain.Limit";
+    private static final String PARAM = "org.springframework.data.repository.query.Param";
+
+    @NotNull
+    @Override
+    public String getText() {
+        return "Convert to keyset pagination (OctoQuery)";
+    }
+
+    @NotNull
+    @Override
+    public String getFamilyName() {
+        return "OctoQuery";
+    }
+
+    @Override
+    public boolean isAvailable(@NotNull Project project, Editor editor, PsiFile file) {
+        PsiAnnotation annotation = FormatQueryIntention.findQueryAnnotationAtCaret(editor, file);
+        if (annotation == null || !(annotation.findDeclaredAttributeValue("value") instanceof PsiLiteralExpression literal)) return false;
+        PsiMethod method = PsiTreeUtil.getParentOfType(annotation, PsiMethod.class);
+        if (method == null) return false;
+
+        KeysetPagination keyset = KeysetPagination.rewrite(QueryText.stripLiteralQuotes(literal.getText()), FormatQueryAction.isNativeQuery(annotation));
+        return keyset != null && (keyset.offsetParameter() != null || findParameter(method, PAGEABLE) != null);
+    }
+
+    @Override
+    public void invoke(@NotNull Project project, Editor editor, PsiFile file) {
+        PsiAnnotation annotation = FormatQueryIntention.findQueryAnnotationAtCaret(editor, file);
+        if (annotation == null || !(annotation.findDeclaredAttributeValue("value") instanceof PsiLiteralExpression literal)) return;
+        PsiMethod method = PsiTreeUtil.getParentOfType(annotation, PsiMethod.class);
+        if (method == null) return;
+
+        String query = QueryText.stripLiteralQuotes(literal.getText());
+        boolean isNative = FormatQueryAction.isNativeQuery(annotation);
+        KeysetPagination keyset = KeysetPagination.rewrite(query, isNative);
+        if (keyset == null) return;
+
+        // Key types come from the entity model, resolved against the FROM clause of the original query
+        SqlTokens tokens = SqlLexer.tokenize(query);
+        SqlTokens.Range selectClause = ProjectionFieldExtractor.extractSelectClause(tokens);
+        List<String> paths = keyset.keys().stream().map(KeysetPagination.Key::path).toList();
+        Map<String, String> types = selectClause == null ? Map.of() : ProjectionTypeResolver.resolvePaths(project, tokens, selectClause, paths);
+        String formatted = FormatQueryAction.formatQuery(project, keyset.query(), isNative, literal);
+
+        WriteCommandAction.writeCommandAction(project, file).withName("Convert to Keyset Pagination").run(() -> {
+            PsiElementFactory factory = JavaPsiFacade.getElementFactory(project);
+            literal.replace(factory.createExpressionFromText("\"\"\"\n" + formatted.trim() + "\n\"\"\"", literal));
+            updateSignature(method, keyset, types, isNative, factory);
+            JavaCodeStyleManager.getInstance(project).shortenClassReferences(method);
+        });
+    }
+
+    @Override
+    public boolean startInWriteAction() {
+        return false;
+    }
+
+    private static void updateSignature(PsiMethod method, KeysetPagination keyset, Map<String, String> types,
+                                        boolean isNative, PsiElementFactory factory) {
+        PsiParameterList parameters = method.getParameterList();
+        PsiParameter pageable = findParameter(method, PAGEABLE);
+        if (pageable != null) pageable.delete();
+        if (keyset.offsetParameter() != null) {
+            PsiParameter offset = findBoundParameter(method, keyset.offsetParameter());
+            if (offset != null) offset.delete();
+        }
+
+        for (KeysetPagination.Key key : keyset.keys()) {
+            if (findBoundParameter(method, key.parameter()) != null) continue;
+            String type = types.getOrDefault(key.path(), CommonClassNames.JAVA_LANG_OBJECT);
+            parameters.add(factory.createParameterFromText(
+                    "@" + PARAM + "(\"" + key.parameter() + "\") " + type + " " + key.parameter(), method));
+        }
+
+        if (keyset.limitAdded()) {
+            parameters.add(factory.createParameterFromText(
+                    "@" + PARAM + "(\"" + keyset.limitParameter() + "\") int " + keyset.limitParameter(), method));
+        } else if (!isNative && keyset.limitParameter() == null && findParameter(method, LIMIT) == null) {
+            // JPQL has no portable LIMIT; Spring Data applies a Limit argument to the query
+            parameters.add(factory.createParameterFromText(LIMIT + " limit", method));
+        }
+
+        // A keyset page has no total count: Page<T> and Slice<T> become List<T>
+        PsiTypeElement returnType = method.getReturnTypeElement();
+        if (returnType != null && returnType.getType() instanceof PsiClassType classType) {
+            PsiClass resultClass = classType.resolve();
+            String qName = resultClass == null ? null : resultClass.getQualifiedName();
+            if (("org.springframework.data.domain.Page".equals(qName) || "org.springframework.data.domain.Slice".equals(qName))
+                    && classType.getParameterCount() == 1) {
+                String element = classType.getParameters()[0].getCanonicalText();
+                returnType.replace(factory.createTypeElementFromText(CommonClassNames.JAVA_UTIL_LIST + "<" + element + ">", method));
+                removeCountQuery(method);
+            }
+        }
+    }
+
+    private static void removeCountQuery(PsiMethod method) {
+        for (PsiAnnotation annotation : method.getModifierList().getAnnotations()) {
+            if (!FormatQueryAction.isQueryAnnotation(annotation)) continue;
+            for (String name : List.of("countQuery", "countProjection", "countName")) {
+                PsiNameValuePair attribute = findAttribute(annotation, name);
+                if (attribute != null) attribute.delete();
+            }
+        }
+    }
+
+    private static @Nullable PsiNameValuePair findAttribute(PsiAnnotation annotation, String name) {
+        for (PsiNameValuePair pair : annotation.getParameterList().getAttributes()) {
+            if (name.equals(pair.getName())) return pair;
+        }
+        return null;
+    }
+
+    private static @Nullable PsiParameter findParameter(PsiMethod method, String typeName) {
+        for (PsiParameter parameter : method.getParameterList().getParameters()) {
+            PsiClass type = PsiUtil.resolveClassInClassTypeOnly(parameter.getType());
+            if (type != null && typeName.equals(type.getQualifiedName())) return parameter;
+        }
+        return null;
+    }
+
+    /**
+     * @return The parameter bound to a named query parameter, through {@code @Param} or its own name
+     */
+    private static @Nullable PsiParameter findBoundParameter(PsiMethod method, String name) {
+        for (PsiParameter parameter : method.getParameterList().getParameters()) {
+            PsiAnnotation param = parameter.getAnnotation(PARAM);
+            String bound = param != null && param.findAttributeValue("value") instanceof PsiLiteralExpression literal
+                    && literal.getValue() instanceof String value ? value : parameter.getName();
+            if (name.equals(bound)) return parameter;
+        }
+        return null;
+    }
+}
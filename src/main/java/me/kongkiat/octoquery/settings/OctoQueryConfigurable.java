@@ -0,0 +1,80 @@
+package me.kongkiat.octoquery.settings;
+
+import com.intellij.openapi.options.Configurable;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.project.ProjectManager;
+import com.intellij.ui.JBIntSpinner;
+import com.intellij.ui.components.JBCheckBox;
+import com.intellij.util.ui.FormBuilder;
+import me.kongkiat.octoquery.cache.FormattedQueryCache;
+import org.jetbrains.annotations.Nls;
+
+import javax.swing.*;
+
+/**
+ * Settings page for {@link OctoQuerySettings}.
+ */
+public class OctoQueryConfigurable implements Configurable {
+    private JBCheckBox fastMode;
+    private JBCheckBox uppercaseKeywords;
+    private JBIntSpinner maxQueryLength;
+    private JBIntSpinner queryTimeBudget;
+
+    @Override
+    public @Nls String getDisplayName() {
+        return "OctoQuery";
+    }
+
+    @Override
+    public JComponent createComponent() {
+        fastMode = new JBCheckBox("Fast mode: format with the built-in layout engine instead of the SQL code style");
+        uppercaseKeywords = new JBCheckBox("Upper-case SQL keywords in fast mode");
+        maxQueryLength = new JBIntSpinner(100_000, 1_000, 10_000_000, 1_000);
+        queryTimeBudget = new JBIntSpinner(2000, 0, 60_000, 100);
+        return FormBuilder.createFormBuilder()
+                .addComponent(fastMode)
+                .addComponent(uppercaseKeywords)
+                .addLabeledComponent("Skip queries longer than (characters):", maxQueryLength)
+                .addLabeledComponent("Time budget per query (ms, 0 = unlimited):", queryTimeBudget)
+                .addComponentFillVertically(new JPanel(), 0)
+                .getPanel();
+    }
+
+    @Override
+    public boolean isModified() {
+        OctoQuerySettings.State state = OctoQuerySettings.getInstance().getState();
+        return fastMode.isSelected() != state.fastMode || uppercaseKeywords.isSelected() != state.uppercaseKeywords
+                || maxQueryLength.getNumber() != state.maxQueryLength || queryTimeBudget.getNumber() != state.queryTimeBudgetMillis;
+    }
+
+    @Override
+    public void apply() {
+        OctoQuerySettings.State state = OctoQuerySettings.getInstance().getState();
+        state.fastMode = fastMode.isSelected();
+        state.uppercaseKeywords = uppercaseKeywords.isSelected();
+        state.maxQueryLength = maxQueryLength.getNumber();
+        state.queryTimeBudgetMillis = queryTimeBudget.getNumber();
+
+        // Cached results were produced by the previous formatter
+        for (Project project : ProjectManager.getInstance().getOpenProjects()) {
+            FormattedQueryCache.getInstance(project).invalidate();
+        }
+    }
+
+    @Override
+    public void reset() {
+        OctoQuerySettings.State state = OctoQuerySettings.getInstance().getState();
+        fastMode.setSelected(state.fastMode);
+        uppercaseKeywords.setSelected(state.uppercaseKeywords);
+        maxQueryLength.setNumber(state.maxQueryLength);
+        queryTimeBudget.setNumber(state.queryTimeBudgetMillis);
+    }
+
+    @Override
+    public void disposeUIResources() {
+        fastMode = null;
+        uppercaseKeywords = null;
+        maxQueryLength = null;
+        queryTimeBudget = null;
+    }
+}
@@ -0,0 +1,63 @@
+package me.kongkiat.octoquery.settings;
+
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.components.PersistentStateComponent;
+import com.intellij.openapi.components.Service;
+import com.intellij.openapi.components.State;
+import com.intellij.openapi.components.Storage;
+import me.kongkiat.octoquery.layout.LayoutOptions;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Application-wide OctoQuery settings, edited in Settings | Tools | OctoQuery.
+ */
+@Service(Service.Level.APP)
+@State(name = "OctoQuerySettings", storages = @Storage("octoquery.xml"))
+public final class OctoQuerySettings implements PersistentStateComponent<OctoQuerySettings.State> {
+
+    public static class State {
+        /** Format with the built-in layout engine instead of IntelliJ's SQL formatter. */
+        public boolean fastMode = false;
+        /** Upper-case SQL keywords in fast mode. */
+        public boolean uppercaseKeywords = true;
+        /** Queries longer than this many characters are left as written. */
+        public int maxQueryLength = 100_000;
+        /** Processing of one query is abandoned after this many milliseconds; 0 disables the limit. */
+        public int queryTimeBudgetMillis = 2000;
+    }
+
+    private State state = new State();
+
+    public static OctoQuerySettings getInstance() {
+        return ApplicationManager.getApplication().getService(OctoQuerySettings.class);
+    }
+
+    @Override
+    public @NotNull State getState() {
+        return state;
+    }
+
+    @Override
+    public void loadState(@NotNull State state) {
+        this.state = state;
+    }
+
+    public boolean isFastMode() {
+        return state.fastMode;
+    }
+
+    public int getMaxQueryLength() {
+        return state.maxQueryLength;
+    }
+
+    public int getQueryTimeBudgetMillis() {
+        return state.queryTimeBudgetMillis;
+    }
+
+    /**
+     * @return Layout settings for the built-in layout engine
+     */
+    public LayoutOptions getLayoutOptions() {
+        return new LayoutOptions(LayoutOptions.DEFAULT.indent(), LayoutOptions.DEFAULT.conditionIndent(), state.uppercaseKeywords);
+    }
+}
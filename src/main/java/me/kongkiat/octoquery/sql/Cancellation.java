@@ -0,0 +1,41 @@
+package me.kongkiat.octoquery.sql;
+
+/**
+ * Cooperative cancellation checkpoint for the long loops of the SQL classes.
+ *
+ * The SQL classes have no IntelliJ Platform dependencies, so the check is a hook: inside the IDE it is
+ * {@code ProgressManager.checkCanceled()}, which throws when the running task or its time budget is
+ * cancelled; outside the IDE (benchmarks, tools) it does nothing.
+ */
+public final class Cancellation {
+    /** Loops call {@link #check()} once every this many iterations; a power of two minus one, used as a mask. */
+    public static final int INTERVAL_MASK = 0x3FF;
+
+    private static volatile Runnable check = () -> {
+    };
+
+    private Cancellation() {
+    }
+
+    /**
+     * @param checkpoint Throws an unchecked exception to abort the running computation
+     */
+    public static void install(Runnable checkpoint) {
+        check = checkpoint;
+    }
+
+    public static void check() {
+        check.run();
+    }
+
+    /**
+     * Checks every {@link #INTERVAL_MASK} + 1 iterations, keeping tight loops cheap.
+     *
+     * @param iteration The loop counter
+     */
+    public static void check(int iteration) {
+        if ((iteration & INTERVAL_MASK) == 0) {
+            check.run();
+        }
+    }
+}
@@ -0,0 +1,199 @@
+package me.kongkiat.octoquery.sql;
+
+import java.util.List;
+
+/**
+ * Protects JPQL DTO constructor expressions ({@code SELECT new com.example.Dto(...)}) from the SQL formatter
+ * and restores them afterwards with one constructor argument per line.
+ *
+ * This class has no IntelliJ Platform dependencies so it can be benchmarked and reused outside the IDE.
+ */
+public final class DtoConstructorFormatter {
+    private static final String PLACEHOLDER_START = "/* DTO_PLACEHOLDER_";
+    private static final String PLACEHOLDER_END = " */";
+
+    private DtoConstructorFormatter() {
+    }
+
+    /**
+     * Finds all DTO constructors and replaces them with unique placeholders.
+     * This protects the constructor syntax from being corrupted by the SQL formatter.
+     * The query is tokenized once and the output is built in a single forward pass,
+     * so string literals and comments containing "SELECT new" are never mistaken for constructors.
+     *
+     * @param jpql The original JPQL query
+     * @param constructorSnippets List to store extracted constructor snippets
+     * @return JPQL with DTO constructors replaced by placeholders
+     */
+    public static String protectDtoConstructors(String jpql, List<String> constructorSnippets) {
+        SqlTokens tokens = SqlLexer.tokenize(jpql);
+        StringBuilder result = null;
+        int copiedUpTo = 0;
+
+        // Find all "SELECT new ClassName(...)" sequences in the token stream
+        for (int i = 0; i < tokens.size(); i++) {
+            Cancellation.check(i);
+            if (!tokens.isKeyword(i, "SELECT")) continue;
+
+            int newKeyword = tokens.nextSignificant(i);
+            if (!tokens.isKeyword(newKeyword, "new")) continue;
+
+            int classNameEnd = skipQualifiedName(tokens, tokens.nextSignificant(newKeyword));
+            if (classNameEnd == -1) continue;
+
+            int openParen = tokens.nextSignificant(classNameEnd - 1);
+            if (!tokens.is(openParen, SqlTokenType.LPAREN)) continue;
+
+            // Find the matching closing parenthesis for the constructor
+            int closeParen = tokens.matchingParen(openParen);
+            if (closeParen == -1) continue;
+
+            String className = tokens.text(tokens.nextSignificant(newKeyword), classNameEnd);
+            String placeholder = "SELECT " + PLACEHOLDER_START + constructorSnippets.size() + "_" + className + PLACEHOLDER_END;
+
+            // Store the original constructor and replace it with a placeholder
+            constructorSnippets.add(jpql.substring(tokens.start(i), tokens.end(closeParen)));
+            if (result == null) {
+                result = new StringBuilder(jpql.length());
+            }
+            result.append(jpql, copiedUpTo, tokens.start(i)).append(placeholder);
+            copiedUpTo = tokens.end(closeParen);
+
+            i = closeParen;
+        }
+
+        if (result == null) {
+            return jpql;
+        }
+        return result.append(jpql, copiedUpTo, jpql.length()).toString();
+    }
+
+    /**
+     * Skips a dotted class name such as {@code com.example.UserDto} starting at the given token.
+     *
+     * @param tokens The token stream
+     * @param from Index of the first name segment
+     * @return Index of the token right after the name, or -1 if no name starts at {@code from}
+     */
+    private static int skipQualifiedName(SqlTokens tokens, int from) {
+        if (!tokens.is(from, SqlTokenType.WORD)) return -1;
+        int i = from + 1;
+        while (tokens.is(i, SqlTokenType.DOT) && tokens.is(i + 1, SqlTokenType.WORD)) {
+            i += 2;
+        }
+        return i;
+    }
+
+    /**
+     * Restores DTO constructors from placeholders and formats them properly.
+     * The formatted query is scanned once for placeholder comments and the output is spliced
+     * into a single StringBuilder, so the cost stays linear in the number of constructors.
+     *
+     * @param formatted The formatted SQL with placeholders
+     * @param constructorSnippets List of original constructor snippets
+     * @return Final formatted SQL with properly formatted DTO constructors
+     */
+    public static String restoreAndFormatConstructors(String formatted, List<String> constructorSnippets) {
+        if (constructorSnippets.isEmpty()) return formatted;
+
+        StringBuilder result = null;
+        int copiedUpTo = 0;
+
+        int at = formatted.indexOf(PLACEHOLDER_START);
+        while (at != -1) {
+            Cancellation.check();
+            int indexStart = at + PLACEHOLDER_START.length();
+            int commentEnd = formatted.indexOf(PLACEHOLDER_END, indexStart);
+            if (commentEnd == -1) break;
+
+            // Placeholder body: <index>_<className>
+            int indexEnd = indexStart;
+            while (indexEnd < commentEnd && Character.isDigit(formatted.charAt(indexEnd))) indexEnd++;
+            String constructor = null;
+            if (indexEnd > indexStart && indexEnd < commentEnd && formatted.charAt(indexEnd) == '_') {
+                int index = Integer.parseInt(formatted, indexStart, indexEnd, 10);
+                String className = formatted.substring(indexEnd + 1, commentEnd);
+                if (index < constructorSnippets.size() && isClassName(className)) {
+                    constructor = formatConstructor(className, constructorSnippets.get(index));
+                }
+            }
+
+            int next = commentEnd + PLACEHOLDER_END.length();
+            if (constructor != null) {
+                // Replace the placeholder with the formatted constructor
+                if (result == null) {
+                    result = new StringBuilder(formatted.length() + formatted.length() / 2);
+                }
+                result.append(formatted, copiedUpTo, at).append(constructor);
+                copiedUpTo = next;
+            }
+            at = formatted.indexOf(PLACEHOLDER_START, next);
+        }
+
+        if (result == null) {
+            return formatted;
+        }
+        return result.append(formatted, copiedUpTo, formatted.length()).toString();
+    }
+
+    /**
+     * Formats one protected constructor snippet.
+     *
+     * @return The formatted constructor, or null if the snippet has no balanced parameter list
+     */
+    private static String formatConstructor(String className, String snippet) {
+        SqlTokens constructor = SqlLexer.tokenize(snippet);
+
+        // Find the parameters between the outermost parentheses
+        int paramsStart = firstToken(constructor, SqlTokenType.LPAREN);
+        int paramsEnd = paramsStart == -1 ? -1 : constructor.matchingParen(paramsStart);
+        if (paramsEnd == -1) return null;
+
+        // Format constructor parameters with proper indentation
+        String formattedParams = formatConstructorParameters(constructor, paramsStart, paramsEnd);
+        return "new " + className + "(\n    " + formattedParams + "\n)";
+    }
+
+    private static boolean isClassName(String text) {
+        if (text.isEmpty()) return false;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            boolean valid = (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') || c == '_' || c == '.';
+            if (!valid) return false;
+        }
+        return true;
+    }
+
+    private static int firstToken(SqlTokens tokens, SqlTokenType type) {
+        for (int i = 0; i < tokens.size(); i++) {
+            if (tokens.is(i, type)) return i;
+        }
+        return -1;
+    }
+
+    /**
+     * Formats constructor parameters with proper indentation and line breaks.
+     * Parameters are split at the constructor's own commas only, so nested function calls,
+     * subqueries and string literals stay intact.
+     *
+     * @param tokens The tokenized constructor expression
+     * @param openParen Index of the constructor's opening parenthesis
+     * @param closeParen Index of the matching closing parenthesis
+     * @return Formatted parameter string with proper indentation
+     */
+    private static String formatConstructorParameters(SqlTokens tokens, int openParen, int closeParen) {
+        List<SqlTokens.Range> paramList = tokens.splitByCommas(openParen + 1, closeParen, tokens.depth(openParen) + 1);
+
+        // Format each parameter and join with line breaks
+        StringBuilder formatted = new StringBuilder();
+        for (int i = 0; i < paramList.size(); i++) {
+            formatted.append(tokens.text(paramList.get(i)));
+
+            if (i < paramList.size() - 1) {
+                formatted.append(",\n    ");
+            }
+        }
+
+        return formatted.toString();
+    }
+}
@@ -0,0 +1,52 @@
+package me.kongkiat.octoquery.sql;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A native query rewritten for plain JDBC: every Spring Data bind parameter is replaced by {@code ?}.
+ *
+ * Named parameters keep their name ({@code :status} becomes {@code status}), ordinal parameters their
+ * index ({@code ?2} and {@code $2} become {@code 2}), bare {@code ?} placeholders are numbered in order
+ * and SpEL expressions get an empty name. A parameter written directly after IN gets parentheses,
+ * since Spring Data would have expanded it into a list.
+ *
+ * This class has no IntelliJ Platform dependencies so it can run outside the IDE.
+ *
+ * @param sql The JDBC statement text
+ * @param parameters The parameter names in placeholder order
+ */
+public record JdbcStatement(String sql, List<String> parameters) {
+
+    /**
+     * Rewrites a native query for JDBC.
+     *
+     * @param query The native SQL query as written in the annotation
+     * @return The statement and its parameters
+     */
+    public static JdbcStatement from(String query) {
+        SqlTokens tokens = SqlLexer.tokenize(query);
+        StringBuilder sql = new StringBuilder(query.length());
+        List<String> parameters = new ArrayList<>();
+        int copied = 0;
+        int positional = 0;
+
+        for (int i = 0; i < tokens.size(); i++) {
+            if (!tokens.is(i, SqlTokenType.PARAMETER)) continue;
+            sql.append(query, copied, tokens.start(i));
+            copied = tokens.end(i);
+
+            String text = tokens.text(i);
+            if (text.startsWith(":#{") || text.startsWith("?#{")) {
+                parameters.add("");
+            } else if (text.equals("?")) {
+                parameters.add(String.valueOf(++positional));
+            } else {
+                parameters.add(text.substring(1));
+            }
+            sql.append(tokens.isKeyword(tokens.previousSignificant(i), "IN") ? "(?)" : "?");
+        }
+        sql.append(query, copied, query.length());
+        return new JdbcStatement(sql.toString().strip(), List.copyOf(parameters));
+    }
+}
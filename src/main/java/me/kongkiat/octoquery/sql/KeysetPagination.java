@@ -0,0 +1,314 @@
+package me.kongkiat.octoquery.sql;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Rewrites an OFFSET-paginated query into keyset (seek) form.
+ *
+ * {@code ... ORDER BY u.created_at DESC LIMIT :size OFFSET :offset} becomes
+ * {@code ... WHERE (u.created_at, u.id) < (:lastCreatedAt, :lastId) ORDER BY u.created_at DESC, u.id DESC LIMIT :size}:
+ * the ORDER BY columns, completed with {@code id} as a unique tie-breaker, are compared against the key
+ * of the last row of the previous page, so the database seeks in the index instead of reading and
+ * discarding every skipped row. Mixed sort directions are expanded into the equivalent OR chain.
+ *
+ * Native queries without a LIMIT get {@code LIMIT :limit}; JPQL queries are left without one so the
+ * caller can pass a Spring Data {@code Limit}. Queries with positional parameters, set operations,
+ * GROUP BY or ORDER BY items other than plain columns are not rewritten.
+ *
+ * This class has no IntelliJ Platform dependencies so it can run outside the IDE.
+ *
+ * @param query The rewritten query
+ * @param keys The sort keys, each with the parameter holding its value from the last row
+ * @param limitParameter The name of the LIMIT bind parameter, or null when the limit is a literal or absent
+ * @param limitAdded true when {@code LIMIT :limit} was added to a native query that had none
+ * @param offsetParameter The name of the removed OFFSET bind parameter, or null
+ */
+public record KeysetPagination(String query, List<Key> keys, String limitParameter, boolean limitAdded, String offsetParameter) {
+    /** Parameter added to native queries without a LIMIT. */
+    public static final String LIMIT_PARAMETER = "limit";
+
+    /**
+     * @param path The sort column as written, e.g. {@code u.createdAt}
+     * @param parameter The bind parameter name for its value in the last row, e.g. {@code lastCreatedAt}
+     * @param descending true for DESC
+     */
+    public record Key(String path, String parameter, boolean descending) {
+    }
+
+    private record Edit(int start, int end, String text) {
+    }
+
+    /**
+     * @param query The query as written in the annotation
+     * @param isNative true for native SQL, false for JPQL
+     * @return The keyset form, or null if the query has no top-level ORDER BY or cannot be rewritten safely
+     */
+    public static KeysetPagination rewrite(String query, boolean isNative) {
+        SqlTokens tokens = SqlLexer.tokenize(query);
+        SqlTokens.Range selectClause = ProjectionFieldExtractor.extractSelectClause(tokens);
+        if (selectClause == null || selectClause.from() == 0 || tokens.depth(selectClause.from() - 1) != 0) return null;
+
+        Set<String> parameterNames = new HashSet<>();
+        int statementEnd = tokens.size();
+        for (int i = 0; i < tokens.size(); i++) {
+            if (tokens.is(i, SqlTokenType.PARAMETER)) {
+                String text = tokens.text(i);
+                // Added named parameters cannot be mixed with positional ones
+                if (!text.startsWith(":")) return null;
+                parameterNames.add(text.substring(1));
+            } else if (tokens.depth(i) == 0 && (tokens.isKeyword(i, "UNION") || tokens.isKeyword(i, "INTERSECT")
+                    || tokens.isKeyword(i, "EXCEPT") || tokens.isKeyword(i, "GROUP"))) {
+                return null;
+            } else if (tokens.is(i, SqlTokenType.SEMICOLON) && statementEnd == tokens.size()) {
+                statementEnd = i;
+            }
+        }
+
+        int order = findOrderBy(tokens, selectClause.to(), statementEnd);
+        if (order < 0) return null;
+        int orderItemsStart = tokens.nextSignificant(tokens.nextSignificant(order));
+        int orderEnd = orderItemsStart;
+        while (orderEnd < statementEnd && !isPaginationKeyword(tokens, orderEnd)
+                && !(tokens.depth(orderEnd) == 0 && tokens.isKeyword(orderEnd, "FOR"))) {
+            orderEnd++;
+        }
+
+        // ORDER BY items: plain column paths with an optional direction
+        List<Key> keys = new ArrayList<>();
+        int lastItemEnd = -1;
+        for (SqlTokens.Range item : tokens.splitByCommas(orderItemsStart, orderEnd, 0)) {
+            List<Integer> significant = significantTokens(tokens, item);
+            boolean descending = false;
+            int pathEnd = significant.size();
+            int last = significant.getLast();
+            if (tokens.isKeyword(last, "DESC") || tokens.isKeyword(last, "ASC")) {
+                descending = tokens.isKeyword(last, "DESC");
+                pathEnd--;
+            }
+            String path = path(tokens, significant.subList(0, pathEnd));
+            if (path == null) return null;
+            keys.add(new Key(path, null, descending));
+            lastItemEnd = tokens.end(last);
+        }
+        if (keys.isEmpty()) return null;
+
+        List<Edit> edits = new ArrayList<>();
+        String separator = separatorBefore(tokens, order);
+
+        // A unique tie-breaker makes the seek exact when sort values repeat
+        boolean hasId = keys.stream().anyMatch(key -> lastSegment(key.path()).equalsIgnoreCase("id"));
+        if (!hasId) {
+            String first = keys.getFirst().path();
+            int dot = first.lastIndexOf('.');
+            String idPath = dot > 0 ? first.substring(0, dot + 1) + "id" : "id";
+            boolean descending = keys.getLast().descending();
+            keys.add(new Key(idPath, null, descending));
+            edits.add(new Edit(lastItemEnd, lastItemEnd, ", " + idPath + (descending ? " DESC" : "")));
+        }
+
+        List<Key> named = new ArrayList<>(keys.size());
+        for (Key key : keys) {
+            String parameter = uniqueName("last" + capitalize(camelCase(lastSegment(key.path()))), parameterNames);
+            named.add(new Key(key.path(), parameter, key.descending()));
+        }
+
+        // Pagination tail: LIMIT n [OFFSET m] | LIMIT m, n | OFFSET m [ROWS] [FETCH FIRST n ROWS ONLY]
+        String limit = null;
+        String offset = null;
+        boolean fetch = false;
+        int tailStart = -1;
+        int tailEnd = -1;
+        for (int i = orderEnd; i < statementEnd; i = tokens.nextSignificant(i)) {
+            if (tailStart < 0) tailStart = tokens.start(i);
+            if (tokens.isKeyword(i, "LIMIT")) {
+                i = tokens.nextSignificant(i);
+                if (!isValue(tokens, i)) return null;
+                limit = tokens.text(i);
+                int comma = tokens.nextSignificant(i);
+                if (tokens.is(comma, SqlTokenType.COMMA)) {
+                    i = tokens.nextSignificant(comma);
+                    if (!isValue(tokens, i)) return null;
+                    offset = limit;
+                    limit = tokens.text(i);
+                }
+            } else if (tokens.isKeyword(i, "OFFSET")) {
+                i = tokens.nextSignificant(i);
+                if (!isValue(tokens, i)) return null;
+                offset = tokens.text(i);
+                int rows = tokens.nextSignificant(i);
+                if (tokens.isKeyword(rows, "ROW") || tokens.isKeyword(rows, "ROWS")) i = rows;
+            } else if (tokens.isKeyword(i, "FETCH")) {
+                i = tokens.nextSignificant(tokens.nextSignificant(i));
+                if (!isValue(tokens, i)) return null;
+                limit = tokens.text(i);
+                fetch = true;
+                i = tokens.nextSignificant(tokens.nextSignificant(i));
+                if (!tokens.isKeyword(i, "ONLY")) return null;
+            } else {
+                return null;
+            }
+            tailEnd = tokens.end(i);
+        }
+
+        boolean limitAdded = false;
+        String clause = null;
+        if (limit != null) {
+            clause = fetch ? "FETCH FIRST " + limit + " ROWS ONLY" : "LIMIT " + limit;
+        } else if (isNative) {
+            limit = ":" + uniqueName(LIMIT_PARAMETER, parameterNames);
+            limitAdded = true;
+            clause = "LIMIT " + limit;
+        }
+        if (tailStart >= 0 && clause != null) {
+            edits.add(new Edit(tailStart, tailEnd, clause));
+        } else if (tailStart >= 0) {
+            // A lone OFFSET in JPQL: drop it with the whitespace before it
+            edits.add(new Edit(tokens.end(tokens.previousSignificant(orderEnd)), tailEnd, ""));
+        } else if (clause != null) {
+            int end = tokens.end(tokens.previousSignificant(statementEnd));
+            edits.add(new Edit(end, end, separator + clause));
+        }
+
+        // Seek predicate, ANDed with an existing WHERE condition
+        String predicate = predicate(named);
+        int where = tokens.findKeyword("WHERE", selectClause.to(), order, 0);
+        int conditionEnd = tokens.end(tokens.previousSignificant(order));
+        if (where >= 0) {
+            int conditionStart = tokens.nextSignificant(where);
+            if (tokens.findKeyword("OR", conditionStart, order, 0) >= 0) {
+                edits.add(new Edit(tokens.start(conditionStart), tokens.start(conditionStart), "("));
+                edits.add(new Edit(conditionEnd, conditionEnd, ")"));
+            }
+            edits.add(new Edit(conditionEnd, conditionEnd, separator + "AND " + predicate));
+        } else {
+            edits.add(new Edit(conditionEnd, conditionEnd, separator + "WHERE " + predicate));
+        }
+
+        return new KeysetPagination(apply(query, edits), List.copyOf(named), parameterName(limit), limitAdded, parameterName(offset));
+    }
+
+    private static int findOrderBy(SqlTokens tokens, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (tokens.depth(i) == 0 && tokens.isKeyword(i, "ORDER") && tokens.isKeyword(tokens.nextSignificant(i), "BY")) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static boolean isPaginationKeyword(SqlTokens tokens, int i) {
+        return tokens.depth(i) == 0
+                && (tokens.isKeyword(i, "LIMIT") || tokens.isKeyword(i, "OFFSET") || tokens.isKeyword(i, "FETCH"));
+    }
+
+    private static boolean isValue(SqlTokens tokens, int i) {
+        return tokens.is(i, SqlTokenType.PARAMETER) || tokens.is(i, SqlTokenType.NUMBER);
+    }
+
+    private static List<Integer> significantTokens(SqlTokens tokens, SqlTokens.Range range) {
+        List<Integer> significant = new ArrayList<>();
+        for (int i = range.from(); i < range.to(); i++) {
+            if (tokens.isSignificant(i)) significant.add(i);
+        }
+        return significant;
+    }
+
+    /**
+     * @return The text of a dotted column path, or null if the tokens spell anything else
+     */
+    private static String path(SqlTokens tokens, List<Integer> indexes) {
+        if (indexes.size() % 2 == 0) return null;
+        StringBuilder path = new StringBuilder();
+        for (int n = 0; n < indexes.size(); n++) {
+            int i = indexes.get(n);
+            boolean name = tokens.is(i, SqlTokenType.WORD) || tokens.is(i, SqlTokenType.QUOTED_IDENTIFIER);
+            if (n % 2 == 0 ? !name : !tokens.is(i, SqlTokenType.DOT)) return null;
+            path.append(tokens.text(i));
+        }
+        return path.toString();
+    }
+
+    /**
+     * @return The whitespace that precedes the token, or a single space if it does not span lines
+     */
+    private static String separatorBefore(SqlTokens tokens, int index) {
+        int previous = tokens.previousSignificant(index);
+        if (previous < 0) return " ";
+        String gap = tokens.text(previous + 1, index);
+        int newline = gap.lastIndexOf('\n');
+        return newline >= 0 ? gap.substring(newline) : " ";
+    }
+
+    /**
+     * Builds {@code (a, b) > (:lastA, :lastB)} when all keys share one direction, otherwise
+     * {@code (a > :lastA OR (a = :lastA AND b < :lastB))}.
+     */
+    private static String predicate(List<Key> keys) {
+        boolean descending = keys.getFirst().descending();
+        if (keys.stream().allMatch(key -> key.descending() == descending)) {
+            String operator = descending ? " < " : " > ";
+            if (keys.size() == 1) return keys.getFirst().path() + operator + ":" + keys.getFirst().parameter();
+            List<String> columns = keys.stream().map(Key::path).toList();
+            List<String> values = keys.stream().map(key -> ":" + key.parameter()).toList();
+            return "(" + String.join(", ", columns) + ")" + operator + "(" + String.join(", ", values) + ")";
+        }
+
+        List<String> alternatives = new ArrayList<>();
+        for (int i = 0; i < keys.size(); i++) {
+            List<String> terms = new ArrayList<>();
+            for (int j = 0; j < i; j++) {
+                terms.add(keys.get(j).path() + " = :" + keys.get(j).parameter());
+            }
+            Key key = keys.get(i);
+            terms.add(key.path() + (key.descending() ? " < :" : " > :") + key.parameter());
+            alternatives.add(terms.size() == 1 ? terms.getFirst() : "(" + String.join(" AND ", terms) + ")");
+        }
+        return "(" + String.join(" OR ", alternatives) + ")";
+    }
+
+    private static String apply(String query, List<Edit> edits) {
+        StringBuilder result = new StringBuilder(query);
+        // Back to front so earlier offsets stay valid; insertions at one offset keep their order
+        List<Edit> sorted = new ArrayList<>(edits.reversed());
+        sorted.sort(Comparator.comparingInt(Edit::start).reversed());
+        for (Edit edit : sorted) {
+            result.replace(edit.start(), edit.end(), edit.text());
+        }
+        return result.toString();
+    }
+
+    private static String parameterName(String value) {
+        return value != null && value.startsWith(":") ? value.substring(1) : null;
+    }
+
+    private static String lastSegment(String path) {
+        String segment = path.substring(path.lastIndexOf('.') + 1);
+        return segment.replace("\"", "").replace("`", "");
+    }
+
+    private static String camelCase(String name) {
+        if (name.indexOf('_') < 0) return name;
+        StringBuilder camel = new StringBuilder();
+        for (String part : name.toLowerCase(Locale.ROOT).split("_")) {
+            camel.append(camel.isEmpty() ? part : capitalize(part));
+        }
+        return camel.toString();
+    }
+
+    private static String capitalize(String name) {
+        return name.isEmpty() ? name : Character.toUpperCase(name.charAt(0)) + name.substring(1);
+    }
+
+    private static String uniqueName(String name, Set<String> taken) {
+        String unique = name;
+        for (int n = 2; !taken.add(unique); n++) {
+            unique = name + n;
+        }
+        return unique;
+    }
+}
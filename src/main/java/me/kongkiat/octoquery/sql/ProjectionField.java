@@ -0,0 +1,13 @@
+package me.kongkiat.octoquery.sql;
+
+/**
+ * One field of a projection together with the expression it is selected from,
+ * as far as it can be described without resolving anything.
+ *
+ * @param name The field name, from an AS alias or a DTO constructor argument
+ * @param path The dotted path the value comes from, e.g. {@code u.address.city}, or the path inside
+ *             the function call; null for literals, arithmetic and other expressions
+ * @param function The upper-case name of the function wrapping the path, e.g. {@code COUNT}, or null
+ */
+public record ProjectionField(String name, String path, String function) {
+}
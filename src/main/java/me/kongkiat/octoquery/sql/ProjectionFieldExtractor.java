@@ -0,0 +1,382 @@
+package me.kongkiat.octoquery.sql;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Extracts projection field names from a tokenized SELECT statement, either from
+ * {@code AS} aliases or from the arguments of a DTO constructor expression.
+ *
+ * This class has no IntelliJ Platform dependencies so it can be benchmarked and reused outside the IDE.
+ */
+public final class ProjectionFieldExtractor {
+    /** Keywords that end the FROM clause when found at its nesting level. */
+    private static final List<String> FROM_CLAUSE_END = List.of(
+            "WHERE", "GROUP", "ORDER", "HAVING", "UNION", "INTERSECT", "EXCEPT", "LIMIT", "OFFSET", "FETCH", "WINDOW");
+    /** Join syntax inside the FROM clause that is never a source or an alias. */
+    private static final List<String> FROM_KEYWORDS = List.of(
+            "JOIN", "LEFT", "RIGHT", "INNER", "OUTER", "FULL", "CROSS", "NATURAL", "FETCH", "ON", "WITH", "AS", "LATERAL");
+
+    private ProjectionFieldExtractor() {
+    }
+
+    /**
+     * Extracts the SELECT clause from a SQL statement.
+     * Nested subqueries, string literals and comments are handled by the token stream.
+     *
+     * @param tokens The tokenized SQL statement
+     * @return The token range between SELECT and the first FROM at the same nesting level
+     *         (or the end of the statement), or null if no SELECT found
+     */
+    public static SqlTokens.Range extractSelectClause(SqlTokens tokens) {
+        // Find the first SELECT keyword (case-insensitive)
+        int selectIndex = -1;
+        for (int i = 0; i < tokens.size(); i++) {
+            if (tokens.isKeyword(i, "SELECT")) {
+                selectIndex = i;
+                break;
+            }
+        }
+
+        if (selectIndex == -1) {
+            return null; // No SELECT clause found
+        }
+
+        // Find the first FROM keyword at the same nesting level as SELECT
+        int fromIndex = tokens.findKeyword("FROM", selectIndex + 1, tokens.size(), tokens.depth(selectIndex));
+        if (fromIndex == -1) {
+            // If no FROM found, return everything after SELECT
+            return new SqlTokens.Range(selectIndex + 1, tokens.size());
+        }
+
+        // Return the content between SELECT and FROM
+        return new SqlTokens.Range(selectIndex + 1, fromIndex);
+    }
+
+    /**
+     * Extracts column aliases from a SELECT clause.
+     * This method handles both quoted and unquoted aliases. Only an AS found at the top level
+     * of a column expression counts, so CAST(x AS type) and nested subqueries are ignored.
+     *
+     * @param tokens The tokenized SQL statement
+     * @param selectClause The SELECT clause range (between SELECT and FROM)
+     * @return List of unique column aliases found in the SELECT list
+     */
+    public static List<String> extractAliases(SqlTokens tokens, SqlTokens.Range selectClause) {
+        List<String> aliases = new ArrayList<>();
+        if (selectClause.isEmpty()) {
+            return aliases;
+        }
+
+        // Split SELECT clause by commas at the top level (respecting nested parentheses and strings)
+        int depth = tokens.depth(selectClause.from());
+        List<SqlTokens.Range> columnExpressions = tokens.splitByCommas(selectClause.from(), selectClause.to(), depth);
+
+        for (SqlTokens.Range expression : columnExpressions) {
+            int as = findAliasKeyword(tokens, expression, depth);
+            if (as == -1) continue;
+            String lastAlias = tokens.unquotedText(tokens.nextSignificant(as));
+
+            // Add unique aliases to the result list
+            if (!lastAlias.isEmpty() && !aliases.contains(lastAlias)) {
+                aliases.add(lastAlias);
+            }
+        }
+
+        return aliases;
+    }
+
+    /**
+     * Finds the AS keyword that introduces the alias of a column expression.
+     *
+     * @return The index of the last top-level AS followed by a usable alias, or -1 if there is none
+     */
+    private static int findAliasKeyword(SqlTokens tokens, SqlTokens.Range expression, int depth) {
+        int last = -1;
+        for (int i = expression.from(); i < expression.to(); i++) {
+            if (tokens.depth(i) != depth || !tokens.isKeyword(i, "AS")) continue;
+
+            // The alias is the next token: an identifier, a quoted identifier or a string
+            int aliasIndex = tokens.nextSignificant(i);
+            if (aliasIndex >= expression.to()) continue;
+            SqlTokenType type = tokens.type(aliasIndex);
+            if (type != SqlTokenType.WORD && type != SqlTokenType.QUOTED_IDENTIFIER && type != SqlTokenType.STRING) {
+                continue;
+            }
+
+            // Ensure the alias is not followed by a parenthesis (which would indicate a type or function)
+            if (tokens.is(tokens.nextSignificant(aliasIndex), SqlTokenType.LPAREN)) continue;
+
+            last = i;
+        }
+        return last;
+    }
+
+    /**
+     * Extracts field names from DTO constructor syntax.
+     * This method parses "new ClassName(field1, field2, ...)" patterns
+     * and returns a list of field names for interface generation.
+     *
+     * @param tokens The tokenized SQL text that may contain DTO constructor
+     * @return List of field names extracted from DTO constructor, or empty list if none found
+     */
+    public static List<String> extractDtoConstructorFields(SqlTokens tokens) {
+        List<String> fields = new ArrayList<>();
+
+        // Process each parameter to extract field names
+        for (SqlTokens.Range param : dtoConstructorArguments(tokens)) {
+            String fieldName = extractFieldNameFromExpression(tokens, param);
+
+            if (fieldName != null && !fieldName.isEmpty() && !fields.contains(fieldName)) {
+                fields.add(fieldName);
+            }
+        }
+
+        return fields;
+    }
+
+    /**
+     * @return The argument ranges of every "new ClassName(...)" expression, in source order
+     */
+    private static List<SqlTokens.Range> dtoConstructorArguments(SqlTokens tokens) {
+        List<SqlTokens.Range> arguments = new ArrayList<>();
+
+        for (int i = 0; i < tokens.size(); i++) {
+            Cancellation.check(i);
+            // Match DTO constructor: "new ClassName(...)"
+            if (!tokens.isKeyword(i, "new")) continue;
+
+            int nameIndex = tokens.nextSignificant(i);
+            if (!tokens.is(nameIndex, SqlTokenType.WORD)) continue;
+            while (tokens.is(nameIndex + 1, SqlTokenType.DOT) && tokens.is(nameIndex + 2, SqlTokenType.WORD)) {
+                nameIndex += 2;
+            }
+
+            int constructorStart = tokens.nextSignificant(nameIndex);
+            if (!tokens.is(constructorStart, SqlTokenType.LPAREN)) continue;
+            int constructorEnd = tokens.matchingParen(constructorStart);
+            if (constructorEnd == -1) continue;
+
+            // Split parameters by top-level commas (respecting nested parentheses and strings)
+            arguments.addAll(tokens.splitByCommas(constructorStart + 1, constructorEnd, tokens.depth(constructorStart) + 1));
+        }
+
+        return arguments;
+    }
+
+    /**
+     * Extracts the projection fields of a SELECT statement together with their source expressions:
+     * the AS aliases of the select list or, when there are none, the DTO constructor arguments.
+     * Field names are the same as those of {@link #extractAliases} and {@link #extractDtoConstructorFields}.
+     *
+     * @param tokens The tokenized SQL statement
+     * @param selectClause The SELECT clause range
+     * @return The unique fields in select-list order
+     */
+    public static List<ProjectionField> extractProjectionFields(SqlTokens tokens, SqlTokens.Range selectClause) {
+        List<ProjectionField> fields = new ArrayList<>();
+        List<String> names = new ArrayList<>();
+
+        if (!selectClause.isEmpty()) {
+            int depth = tokens.depth(selectClause.from());
+            for (SqlTokens.Range expression : tokens.splitByCommas(selectClause.from(), selectClause.to(), depth)) {
+                int as = findAliasKeyword(tokens, expression, depth);
+                if (as == -1) continue;
+                String alias = tokens.unquotedText(tokens.nextSignificant(as));
+                if (!alias.isEmpty() && !names.contains(alias)) {
+                    names.add(alias);
+                    fields.add(describeExpression(tokens, alias, new SqlTokens.Range(expression.from(), as)));
+                }
+            }
+        }
+
+        if (fields.isEmpty()) {
+            for (SqlTokens.Range param : dtoConstructorArguments(tokens)) {
+                String name = extractFieldNameFromExpression(tokens, param);
+                if (name != null && !name.isEmpty() && !names.contains(name)) {
+                    names.add(name);
+                    fields.add(describeExpression(tokens, name, param));
+                }
+            }
+        }
+
+        return fields;
+    }
+
+    /**
+     * Describes the source of a select expression: either a plain path such as {@code u.name},
+     * or a single function call over a path such as {@code COUNT(DISTINCT o.id)}.
+     */
+    private static ProjectionField describeExpression(SqlTokens tokens, String name, SqlTokens.Range expression) {
+        int first = expression.from();
+        while (first < expression.to() && !tokens.isSignificant(first)) first++;
+        int last = expression.to() - 1;
+        while (last > first && !tokens.isSignificant(last)) last--;
+        if (first >= expression.to()) {
+            return new ProjectionField(name, null, null);
+        }
+
+        int open = tokens.nextSignificant(first);
+        if (tokens.is(first, SqlTokenType.WORD) && tokens.is(open, SqlTokenType.LPAREN) && tokens.matchingParen(open) == last) {
+            String function = tokens.text(first).toUpperCase(Locale.ROOT);
+            List<SqlTokens.Range> arguments = tokens.splitByCommas(open + 1, last, tokens.depth(open) + 1);
+            String path = arguments.isEmpty() ? null : simplePath(tokens, arguments.getFirst());
+            return new ProjectionField(name, path, function);
+        }
+        return new ProjectionField(name, simplePath(tokens, expression), null);
+    }
+
+    /**
+     * @return The dotted path spelled by the range ({@code alias.attribute...}, optionally after DISTINCT),
+     *         or null if the range holds anything else
+     */
+    private static String simplePath(SqlTokens tokens, SqlTokens.Range range) {
+        StringBuilder path = new StringBuilder();
+        boolean expectName = true;
+        for (int i = range.from(); i < range.to(); i++) {
+            if (!tokens.isSignificant(i)) continue;
+            if (path.isEmpty() && tokens.isKeyword(i, "DISTINCT")) continue;
+
+            SqlTokenType type = tokens.type(i);
+            if (expectName && (type == SqlTokenType.WORD || type == SqlTokenType.QUOTED_IDENTIFIER)) {
+                path.append(tokens.unquotedText(i));
+            } else if (!expectName && type == SqlTokenType.DOT) {
+                path.append('.');
+            } else {
+                return null;
+            }
+            expectName = !expectName;
+        }
+        return path.isEmpty() || expectName ? null : path.toString();
+    }
+
+    /**
+     * Maps the identification variables declared in the FROM clause that follows a select clause to what
+     * they range over: an entity or table name ({@code User}, {@code public.users}) or a join path
+     * ({@code o.items}). Aliases are lower-cased because JPQL identification variables are case-insensitive;
+     * a source without an alias is registered under its own lower-cased last name segment.
+     *
+     * @param tokens The tokenized SQL statement
+     * @param selectClause The SELECT clause range as returned by {@link #extractSelectClause}
+     * @return Alias to source, in declaration order; empty if there is no FROM clause
+     */
+    public static Map<String, String> extractFromSources(SqlTokens tokens, SqlTokens.Range selectClause) {
+        Map<String, String> sources = new LinkedHashMap<>();
+        int from = selectClause.to();
+        if (!tokens.isKeyword(from, "FROM")) return sources;
+
+        int depth = tokens.depth(from);
+        boolean expectSource = true;
+        for (int i = tokens.nextSignificant(from); i < tokens.size(); i = tokens.nextSignificant(i)) {
+            if (tokens.depth(i) != depth) continue;
+            if (isFromClauseEnd(tokens, i)) break;
+
+            if (tokens.is(i, SqlTokenType.RPAREN)) {
+                // The end of an enclosing subquery, or a derived table whose alias is not resolvable
+                if (tokens.matchingParen(i) < from) break;
+                expectSource = false;
+            } else if (tokens.is(i, SqlTokenType.COMMA) || tokens.isKeyword(i, "JOIN")) {
+                expectSource = true;
+            } else if (tokens.isKeyword(i, "ON") || tokens.isKeyword(i, "WITH")) {
+                expectSource = false;
+            } else if (expectSource && !isFromKeyword(tokens, i)
+                    && (tokens.is(i, SqlTokenType.WORD) || tokens.is(i, SqlTokenType.QUOTED_IDENTIFIER))) {
+                // Source path: Entity, schema.table or alias.association
+                StringBuilder source = new StringBuilder(tokens.unquotedText(i));
+                String lastSegment = source.toString();
+                while (tokens.is(i + 1, SqlTokenType.DOT)
+                        && (tokens.is(i + 2, SqlTokenType.WORD) || tokens.is(i + 2, SqlTokenType.QUOTED_IDENTIFIER))) {
+                    lastSegment = tokens.unquotedText(i + 2);
+                    source.append('.').append(lastSegment);
+                    i += 2;
+                }
+
+                int alias = tokens.nextSignificant(i);
+                if (tokens.isKeyword(alias, "AS")) {
+                    alias = tokens.nextSignificant(alias);
+                }
+                String name = lastSegment;
+                if ((tokens.is(alias, SqlTokenType.WORD) || tokens.is(alias, SqlTokenType.QUOTED_IDENTIFIER))
+                        && !isFromKeyword(tokens, alias) && !isFromClauseEnd(tokens, alias)) {
+                    name = tokens.unquotedText(alias);
+                    i = alias;
+                }
+                sources.putIfAbsent(name.toLowerCase(Locale.ROOT), source.toString());
+                expectSource = false;
+            }
+        }
+        return sources;
+    }
+
+    private static boolean isFromClauseEnd(SqlTokens tokens, int i) {
+        for (String keyword : FROM_CLAUSE_END) {
+            if (tokens.isKeyword(i, keyword)) {
+                // JOIN FETCH is a join, FETCH FIRST ends the clause
+                return !keyword.equals("FETCH") || !tokens.isKeyword(tokens.previousSignificant(i), "JOIN");
+            }
+        }
+        return tokens.is(i, SqlTokenType.SEMICOLON);
+    }
+
+    private static boolean isFromKeyword(SqlTokens tokens, int i) {
+        for (String keyword : FROM_KEYWORDS) {
+            if (tokens.isKeyword(i, keyword)) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Extracts field name from a parameter expression.
+     * Handles various formats like "table.column", "alias.column", "column",
+     * and function calls such as "UPPER(u.name)" or "COALESCE(u.nickname, '')".
+     *
+     * @param tokens The tokenized SQL text
+     * @param expression The parameter expression from DTO constructor
+     * @return Field name suitable for getter method generation, or null for literals and other unnamed expressions
+     */
+    private static String extractFieldNameFromExpression(SqlTokens tokens, SqlTokens.Range expression) {
+        int first = expression.from();
+        while (first < expression.to() && !tokens.isSignificant(first)) first++;
+        if (first >= expression.to()) {
+            return null;
+        }
+
+        // Skip if it's a literal value (number, string)
+        int afterFirst = tokens.nextSignificant(first);
+        SqlTokenType firstType = tokens.type(first);
+        if (afterFirst >= expression.to() && (firstType == SqlTokenType.STRING
+                || firstType == SqlTokenType.QUOTED_IDENTIFIER || firstType == SqlTokenType.NUMBER)) {
+            return null;
+        }
+
+        // Handle function calls like "FUNCTION(table.column)" - extract from the innermost call's first argument
+        int lastOpen = -1;
+        int lastDot = -1;
+        for (int i = first; i < expression.to(); i++) {
+            if (tokens.is(i, SqlTokenType.LPAREN)) {
+                lastOpen = i;
+            } else if (tokens.is(i, SqlTokenType.DOT)) {
+                lastDot = i;
+            }
+        }
+        if (lastOpen != -1 && tokens.matchingParen(lastOpen) != -1) {
+            List<SqlTokens.Range> arguments =
+                    tokens.splitByCommas(lastOpen + 1, tokens.matchingParen(lastOpen), tokens.depth(lastOpen) + 1);
+            return arguments.isEmpty() ? null : extractFieldNameFromExpression(tokens, arguments.getFirst());
+        }
+
+        // Handle table.column or alias.column format - take the last part after the last dot
+        if (lastDot != -1) {
+            int field = tokens.nextSignificant(lastDot);
+            if (field < expression.to()) {
+                return tokens.unquotedText(field);
+            }
+        }
+
+        // Use a plain identifier as field name; anything else (operators, "*", subqueries) has no usable name
+        return afterFirst >= expression.to() && firstType == SqlTokenType.WORD ? tokens.text(first) : null;
+    }
+}
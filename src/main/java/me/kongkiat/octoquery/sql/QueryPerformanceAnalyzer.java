@@ -0,0 +1,298 @@
+package me.kongkiat.octoquery.sql;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Finds query shapes that keep the database from using an index and usually end in a full table scan:
+ * {@code SELECT *}, LIKE patterns with a leading wildcard, functions wrapped around columns in
+ * WHERE/ON predicates, and OR chains that compare different columns.
+ *
+ * Works on the token stream only, so it needs no schema and no dialect. Offsets in the reported
+ * issues are character offsets into the analyzed text.
+ *
+ * This class has no IntelliJ Platform dependencies so it can run outside the IDE.
+ */
+public final class QueryPerformanceAnalyzer {
+
+    public enum Kind {
+        SELECT_STAR,
+        LEADING_WILDCARD,
+        FUNCTION_ON_COLUMN,
+        OR_ACROSS_COLUMNS
+    }
+
+    /**
+     * One finding.
+     *
+     * @param kind The pattern found
+     * @param start Start offset of the text to highlight
+     * @param end End offset of the text to highlight
+     * @param message Explanation shown to the user
+     * @param removeStart Start offset of text whose removal fixes the issue, or -1 if there is no automatic fix
+     * @param removeEnd End offset of that text
+     */
+    public record Issue(Kind kind, int start, int end, String message, int removeStart, int removeEnd) {
+        public boolean hasFix() {
+            return removeStart >= 0;
+        }
+    }
+
+    /** Functions that hide a column from a plain index when applied to it in a predicate. */
+    private static final Set<String> COLUMN_FUNCTIONS = Set.of(
+            "LOWER", "UPPER", "TRIM", "LTRIM", "RTRIM", "DATE", "YEAR", "MONTH", "DAY", "SUBSTRING", "SUBSTR",
+            "COALESCE", "IFNULL", "NVL", "ISNULL", "TO_CHAR", "TO_DATE", "DATE_TRUNC", "DATE_FORMAT", "CONCAT",
+            "LENGTH", "ABS", "ROUND", "FLOOR", "CEIL", "STR");
+
+    /** Keywords that end a WHERE or ON predicate at its own nesting level. */
+    private static final Set<String> PREDICATE_END = Set.of(
+            "WHERE", "GROUP", "ORDER", "HAVING", "LIMIT", "OFFSET", "FETCH", "UNION", "INTERSECT", "EXCEPT",
+            "RETURNING", "WINDOW", "FOR", "JOIN", "LEFT", "RIGHT", "INNER", "OUTER", "FULL", "CROSS", "NATURAL");
+
+    /** Words that compare a value and therefore make the operand on their left a predicate operand. */
+    private static final Set<String> COMPARISON_WORDS = Set.of("LIKE", "ILIKE", "IN", "BETWEEN", "IS", "NOT");
+
+    private static final Set<String> COMPARISON_OPERATORS = Set.of("=", "<>", "!=", "<", ">", "<=", ">=");
+
+    private QueryPerformanceAnalyzer() {
+    }
+
+    /**
+     * Analyzes a query.
+     *
+     * @param query The SQL or JPQL text
+     * @param isNative true for native SQL; {@code SELECT *} is only reported there
+     * @return The issues found, in source order per kind
+     */
+    public static List<Issue> analyze(String query, boolean isNative) {
+        SqlTokens tokens = SqlLexer.tokenize(query);
+        List<Issue> issues = new ArrayList<>();
+
+        for (int i = 0; i < tokens.size(); i++) {
+            if (tokens.is(i, SqlTokenType.WORD)) {
+                if (isNative && tokens.isKeyword(i, "SELECT")) {
+                    findSelectStar(tokens, i, issues);
+                } else if (tokens.isKeyword(i, "LIKE") || tokens.isKeyword(i, "ILIKE")) {
+                    findLeadingWildcard(tokens, i, issues);
+                } else if (tokens.isKeyword(i, "WHERE") || tokens.isKeyword(i, "ON")) {
+                    int end = predicateEnd(tokens, i);
+                    findFunctionsOnColumns(tokens, i + 1, end, issues);
+                    findOrAcrossColumns(tokens, i + 1, end, tokens.depth(i), issues);
+                }
+            }
+        }
+        // Predicates of subqueries are visited both on their own and as part of the enclosing predicate
+        return List.copyOf(new LinkedHashSet<>(issues));
+    }
+
+    private static void findSelectStar(SqlTokens tokens, int select, List<Issue> issues) {
+        // EXISTS (SELECT * ...) never reads the columns
+        int open = tokens.previousSignificant(select);
+        if (tokens.is(open, SqlTokenType.LPAREN) && tokens.isKeyword(tokens.previousSignificant(open), "EXISTS")) return;
+
+        int depth = tokens.depth(select);
+        for (int i = tokens.nextSignificant(select); i < tokens.size(); i = tokens.nextSignificant(i)) {
+            if (tokens.depth(i) < depth || (tokens.depth(i) == depth && tokens.isKeyword(i, "FROM"))) return;
+            if (tokens.depth(i) != depth || !isOperator(tokens, i, "*")) continue;
+
+            int previous = tokens.previousSignificant(i);
+            if (previous == select || tokens.is(previous, SqlTokenType.COMMA) || tokens.is(previous, SqlTokenType.DOT)
+                    || tokens.isKeyword(previous, "DISTINCT")) {
+                int start = tokens.is(previous, SqlTokenType.DOT) ? tokens.previousSignificant(previous) : i;
+                issues.add(new Issue(Kind.SELECT_STAR, tokens.start(start), tokens.end(i),
+                        "SELECT * reads every column, which rules out index-only scans and breaks when columns are added; "
+                                + "list the columns the caller needs", -1, -1));
+            }
+        }
+    }
+
+    private static void findLeadingWildcard(SqlTokens tokens, int like, List<Issue> issues) {
+        int pattern = tokens.nextSignificant(like);
+        // LOWER(CONCAT('%', :name, '%')) and similar case-folding wrappers
+        while ((tokens.isKeyword(pattern, "LOWER") || tokens.isKeyword(pattern, "UPPER"))
+                && tokens.is(tokens.nextSignificant(pattern), SqlTokenType.LPAREN)) {
+            pattern = tokens.nextSignificant(tokens.nextSignificant(pattern));
+        }
+        if (pattern >= tokens.size()) return;
+        String message = "A LIKE pattern that starts with a wildcard cannot use a B-tree index and scans every row; "
+                + "match a prefix, or use a full-text or trigram index";
+
+        if (tokens.is(pattern, SqlTokenType.STRING) && tokens.text(pattern).startsWith("'%")) {
+            int after = tokens.nextSignificant(pattern);
+            if (tokens.text(pattern).equals("'%'") && isOperator(tokens, after, "||")) {
+                // '%' || :name: drop the wildcard and the concatenation
+                int value = tokens.nextSignificant(after);
+                issues.add(new Issue(Kind.LEADING_WILDCARD, tokens.start(pattern), tokens.end(after), message,
+                        tokens.start(pattern), value < tokens.size() ? tokens.start(value) : tokens.end(after)));
+            } else if (tokens.text(pattern).equals("'%'")) {
+                // Matches everything; removing the wildcard would change the meaning
+                issues.add(new Issue(Kind.LEADING_WILDCARD, tokens.start(pattern), tokens.end(pattern), message, -1, -1));
+            } else {
+                // '%text': drop the % after the quote
+                issues.add(new Issue(Kind.LEADING_WILDCARD, tokens.start(pattern), tokens.end(pattern), message,
+                        tokens.start(pattern) + 1, tokens.start(pattern) + 2));
+            }
+        } else if (isOperator(tokens, pattern, "%") && tokens.is(tokens.nextSignificant(pattern), SqlTokenType.PARAMETER)) {
+            // Spring Data JPQL shorthand: LIKE %:name%
+            issues.add(new Issue(Kind.LEADING_WILDCARD, tokens.start(pattern), tokens.end(tokens.nextSignificant(pattern)),
+                    message, tokens.start(pattern), tokens.end(pattern)));
+        } else if (tokens.isKeyword(pattern, "CONCAT") && tokens.is(tokens.nextSignificant(pattern), SqlTokenType.LPAREN)) {
+            int open = tokens.nextSignificant(pattern);
+            int close = tokens.matchingParen(open);
+            if (close == -1) return;
+            List<SqlTokens.Range> arguments = tokens.splitByCommas(open + 1, close, tokens.depth(open) + 1);
+            if (arguments.size() < 2) return;
+            int first = firstSignificant(tokens, arguments.get(0));
+            if (first < 0 || !tokens.text(first).equals("'%'")) return;
+            // CONCAT('%', :name, ...): drop the first argument
+            int second = firstSignificant(tokens, arguments.get(1));
+            issues.add(new Issue(Kind.LEADING_WILDCARD, tokens.start(first), tokens.end(first), message,
+                    tokens.start(first), tokens.start(second)));
+        }
+    }
+
+    /**
+     * @return The index of the first token after a WHERE or ON keyword that no longer belongs to its predicate
+     */
+    private static int predicateEnd(SqlTokens tokens, int keyword) {
+        int depth = tokens.depth(keyword);
+        for (int i = keyword + 1; i < tokens.size(); i++) {
+            if (tokens.depth(i) < depth || tokens.is(i, SqlTokenType.SEMICOLON)) return i;
+            if (tokens.depth(i) == depth && tokens.is(i, SqlTokenType.WORD)
+                    && PREDICATE_END.contains(tokens.text(i).toUpperCase(Locale.ROOT))) {
+                return i;
+            }
+        }
+        return tokens.size();
+    }
+
+    private static void findFunctionsOnColumns(SqlTokens tokens, int from, int to, List<Issue> issues) {
+        for (int i = from; i < to; i++) {
+            if (!tokens.is(i, SqlTokenType.WORD)) continue;
+            String name = tokens.text(i).toUpperCase(Locale.ROOT);
+            if (!COLUMN_FUNCTIONS.contains(name)) continue;
+
+            int open = tokens.nextSignificant(i);
+            if (!tokens.is(open, SqlTokenType.LPAREN) || tokens.matchingParen(open) == -1) continue;
+            int close = tokens.matchingParen(open);
+            List<SqlTokens.Range> arguments = tokens.splitByCommas(open + 1, close, tokens.depth(open) + 1);
+            if (arguments.isEmpty()) continue;
+
+            String column = columnPath(tokens, arguments.getFirst());
+            if (column == null || !isComparisonOperand(tokens, i, close)) continue;
+            issues.add(new Issue(Kind.FUNCTION_ON_COLUMN, tokens.start(i), tokens.end(close),
+                    name + "(" + column + ") in a predicate hides the column from its index, so every row is evaluated; "
+                            + "compare the bare column (e.g. with a range or normalized value) or add a matching function-based index",
+                    -1, -1));
+        }
+    }
+
+    private static void findOrAcrossColumns(SqlTokens tokens, int from, int to, int depth, List<Issue> issues) {
+        // The predicate itself, then every parenthesized condition group inside it
+        checkOrChain(tokens, from, to, depth, issues);
+        for (int i = from; i < to; i++) {
+            if (!tokens.is(i, SqlTokenType.LPAREN) || tokens.matchingParen(i) == -1) continue;
+            int previous = tokens.previousSignificant(i);
+            boolean call = tokens.is(previous, SqlTokenType.WORD) && !tokens.isKeyword(previous, "AND")
+                    && !tokens.isKeyword(previous, "OR") && !tokens.isKeyword(previous, "NOT");
+            if (call || tokens.isKeyword(tokens.nextSignificant(i), "SELECT")) continue;
+            checkOrChain(tokens, i + 1, tokens.matchingParen(i), tokens.depth(i) + 1, issues);
+        }
+    }
+
+    /**
+     * Reports an OR chain at one nesting level when its operands compare at least two different columns.
+     * Operands that start with a parameter, such as the optional-filter idiom {@code :p IS NULL OR col = :p},
+     * or with a nested group, do not count.
+     */
+    private static void checkOrChain(SqlTokens tokens, int from, int to, int depth, List<Issue> issues) {
+        int firstOr = -1;
+        int operandStart = from;
+        Set<String> columns = new LinkedHashSet<>();
+        for (int i = from; i <= to; i++) {
+            boolean end = i == to;
+            if (!end && (tokens.depth(i) != depth || !tokens.isKeyword(i, "OR"))) continue;
+            if (!end && firstOr == -1) firstOr = i;
+
+            String column = leadingColumn(tokens, operandStart, i);
+            if (column != null) {
+                columns.add(column.toLowerCase(Locale.ROOT));
+            }
+            operandStart = i + 1;
+        }
+
+        if (firstOr != -1 && columns.size() >= 2) {
+            issues.add(new Issue(Kind.OR_ACROSS_COLUMNS, tokens.start(firstOr), tokens.end(firstOr),
+                    "OR across different columns (" + String.join(", ", columns) + ") usually prevents a single index "
+                            + "range scan; split the query with UNION ALL or provide an index per column", -1, -1));
+        }
+    }
+
+    /**
+     * @return The column compared by the first condition of an OR operand when it is a column path followed
+     *         by a comparison, or null otherwise
+     */
+    private static String leadingColumn(SqlTokens tokens, int from, int to) {
+        int start = from;
+        while (start < to && !tokens.isSignificant(start)) start++;
+        if (start >= to) return null;
+        int depth = tokens.depth(start);
+
+        // AND binds tighter than OR, so "a = 1 AND b = 2" is a single operand; its first condition decides
+        int i = start;
+        if (tokens.isKeyword(i, "NOT")) i = tokens.nextSignificant(i);
+        if (!tokens.is(i, SqlTokenType.WORD) || tokens.depth(i) != depth) return null;
+
+        int end = i;
+        while (tokens.is(end + 1, SqlTokenType.DOT) && tokens.is(end + 2, SqlTokenType.WORD)) end += 2;
+        String column = tokens.text(i, end + 1);
+        return isComparisonOperand(tokens, i, end) ? column : null;
+    }
+
+    /**
+     * @return true if the expression {@code [first, last]} is directly compared to something
+     */
+    private static boolean isComparisonOperand(SqlTokens tokens, int first, int last) {
+        int next = tokens.nextSignificant(last);
+        if (isComparison(tokens, next)) return true;
+        int previous = tokens.previousSignificant(first);
+        return previous >= 0 && tokens.is(previous, SqlTokenType.OPERATOR) && COMPARISON_OPERATORS.contains(tokens.text(previous));
+    }
+
+    private static boolean isComparison(SqlTokens tokens, int i) {
+        if (tokens.is(i, SqlTokenType.OPERATOR)) return COMPARISON_OPERATORS.contains(tokens.text(i));
+        return tokens.is(i, SqlTokenType.WORD) && COMPARISON_WORDS.contains(tokens.text(i).toUpperCase(Locale.ROOT));
+    }
+
+    /**
+     * @return The column path ({@code col} or {@code alias.col}) the range consists of, or null for parameters,
+     *         literals and expressions
+     */
+    private static String columnPath(SqlTokens tokens, SqlTokens.Range range) {
+        int first = firstSignificant(tokens, range);
+        if (first < 0 || !tokens.is(first, SqlTokenType.WORD)) return null;
+        int last = first;
+        while (tokens.is(last + 1, SqlTokenType.DOT) && tokens.is(last + 2, SqlTokenType.WORD)) last += 2;
+        if (tokens.nextSignificant(last) < range.to()) return null;
+        String path = tokens.text(first, last + 1);
+        // Niladic keywords are values, not columns
+        return switch (path.toUpperCase(Locale.ROOT)) {
+            case "NULL", "TRUE", "FALSE", "CURRENT_DATE", "CURRENT_TIME", "CURRENT_TIMESTAMP", "LOCAL", "LOCALTIMESTAMP" -> null;
+            default -> path;
+        };
+    }
+
+    private static int firstSignificant(SqlTokens tokens, SqlTokens.Range range) {
+        for (int i = range.from(); i < range.to(); i++) {
+            if (tokens.isSignificant(i)) return i;
+        }
+        return -1;
+    }
+
+    private static boolean isOperator(SqlTokens tokens, int i, String operator) {
+        return tokens.is(i, SqlTokenType.OPERATOR) && tokens.text(i).equals(operator);
+    }
+}
@@ -0,0 +1,49 @@
+package me.kongkiat.octoquery.sql;
+
+import java.util.Iterator;
+
+/**
+ * Helpers for turning annotation literal text into query text.
+ */
+public final class QueryText {
+
+    private QueryText() {
+    }
+
+    /**
+     * Removes the surrounding quotes of a Java string literal or text block
+     * (up to three quote characters on each side) without running a regex over the whole literal.
+     *
+     * @param literalText The literal text as written in the source, e.g. {@code "SELECT 1"} or a text block
+     * @return The literal content between the quotes
+     */
+    public static String stripLiteralQuotes(String literalText) {
+        int start = 0;
+        int end = literalText.length();
+        while (start < end && start < 3 && literalText.charAt(start) == '"') start++;
+        int trailing = 0;
+        while (end > start && trailing < 3 && literalText.charAt(end - 1) == '"') {
+            end--;
+            trailing++;
+        }
+        return literalText.substring(start, end);
+    }
+
+    /**
+     * Compares two query texts line by line, ignoring leading and trailing whitespace on each line
+     * as well as blank lines at the start and end. Text block indentation is removed by the compiler
+     * and re-computed by the formatter, so two texts that are equal this way format to the same result.
+     *
+     * @param first A query text
+     * @param second Another query text
+     * @return true if both texts have the same lines apart from indentation
+     */
+    public static boolean equalsIgnoringIndent(String first, String second) {
+        Iterator<String> firstLines = first.strip().lines().iterator();
+        Iterator<String> secondLines = second.strip().lines().iterator();
+        while (firstLines.hasNext() && secondLines.hasNext()) {
+            if (!firstLines.next().strip().equals(secondLines.next().strip())) return false;
+        }
+        return !firstLines.hasNext() && !secondLines.hasNext();
+    }
+}
@@ -0,0 +1,196 @@
+package me.kongkiat.octoquery.sql;
+
+/**
+ * Single-pass lexer for SQL and JPQL query text.
+ * Walks the input exactly once and produces a {@link SqlTokens} stream that records
+ * every token's kind, position and parenthesis nesting depth, together with the
+ * matching partner of every parenthesis.
+ *
+ * The lexer never fails: unterminated strings and comments run to the end of the input
+ * and unbalanced parentheses are simply left without a partner.
+ */
+public final class SqlLexer {
+
+    private SqlLexer() {
+    }
+
+    /**
+     * Tokenizes a query.
+     *
+     * @param text The SQL/JPQL text to tokenize
+     * @return The token stream for the whole text
+     */
+    public static SqlTokens tokenize(CharSequence text) {
+        int length = text.length();
+        SqlTokens.Builder tokens = new SqlTokens.Builder(text, length / 3 + 16);
+
+        int i = 0;
+        int scanned = 0;
+        while (i < length) {
+            Cancellation.check(scanned++);
+            char c = text.charAt(i);
+            char next = i + 1 < length ? text.charAt(i + 1) : '\0';
+            int start = i;
+
+            if (Character.isWhitespace(c)) {
+                while (i < length && Character.isWhitespace(text.charAt(i))) i++;
+                tokens.add(SqlTokenType.WHITESPACE, start, i);
+            } else if (c == '-' && next == '-') {
+                while (i < length && text.charAt(i) != '\n' && text.charAt(i) != '\r') i++;
+                tokens.add(SqlTokenType.LINE_COMMENT, start, i);
+            } else if (c == '/' && next == '*') {
+                i = indexAfter(text, "*/", i + 2);
+                tokens.add(SqlTokenType.BLOCK_COMMENT, start, i);
+            } else if (c == '\'') {
+                i = skipQuoted(text, i, '\'');
+                tokens.add(SqlTokenType.STRING, start, i);
+            } else if (c == '"' || c == '`') {
+                i = skipQuoted(text, i, c);
+                tokens.add(SqlTokenType.QUOTED_IDENTIFIER, start, i);
+            } else if (c == '$' && Character.isDigit(next)) {
+                i++;
+                while (i < length && Character.isDigit(text.charAt(i))) i++;
+                tokens.add(SqlTokenType.PARAMETER, start, i);
+            } else if (c == '$' && dollarTagEnd(text, i) != -1) {
+                // PostgreSQL dollar quoting: $$ ... $$ or $tag$ ... $tag$
+                int tagEnd = dollarTagEnd(text, i);
+                String tag = text.subSequence(i, tagEnd).toString();
+                i = indexAfter(text, tag, tagEnd);
+                tokens.add(SqlTokenType.STRING, start, i);
+            } else if (c == ':' && next == ':') {
+                i += 2;
+                tokens.add(SqlTokenType.OPERATOR, start, i);
+            } else if ((c == ':' || c == '?') && next == '#' && i + 2 < length && text.charAt(i + 2) == '{') {
+                // SpEL parameter expression: :#{...} or ?#{...}
+                i = skipBraces(text, i + 2);
+                tokens.add(SqlTokenType.PARAMETER, start, i);
+            } else if (c == ':' && Character.isJavaIdentifierStart(next)) {
+                i++;
+                while (i < length && Character.isJavaIdentifierPart(text.charAt(i))) i++;
+                tokens.add(SqlTokenType.PARAMETER, start, i);
+            } else if (c == '?') {
+                i++;
+                while (i < length && Character.isDigit(text.charAt(i))) i++;
+                tokens.add(SqlTokenType.PARAMETER, start, i);
+            } else if (c == '(') {
+                tokens.openParen(start);
+                i++;
+            } else if (c == ')') {
+                tokens.closeParen(start);
+                i++;
+            } else if (c == ',') {
+                tokens.add(SqlTokenType.COMMA, start, ++i);
+            } else if (c == ';') {
+                tokens.add(SqlTokenType.SEMICOLON, start, ++i);
+            } else if (Character.isDigit(c) || (c == '.' && Character.isDigit(next) && !tokens.isWordBefore(start))) {
+                i = skipNumber(text, i);
+                tokens.add(SqlTokenType.NUMBER, start, i);
+            } else if (c == '.') {
+                tokens.add(SqlTokenType.DOT, start, ++i);
+            } else if (Character.isJavaIdentifierStart(c)) {
+                i++;
+                while (i < length && Character.isJavaIdentifierPart(text.charAt(i))) i++;
+                tokens.add(SqlTokenType.WORD, start, i);
+            } else {
+                i += isTwoCharOperator(c, next) ? 2 : 1;
+                tokens.add(SqlTokenType.OPERATOR, start, i);
+            }
+        }
+
+        return tokens.build();
+    }
+
+    /**
+     * Returns the position right after the next occurrence of {@code terminator},
+     * or the end of the text when it never occurs.
+     */
+    private static int indexAfter(CharSequence text, String terminator, int from) {
+        int last = text.length() - terminator.length();
+        for (int i = from; i <= last; i++) {
+            if (regionMatches(text, i, terminator)) {
+                return i + terminator.length();
+            }
+        }
+        return text.length();
+    }
+
+    /**
+     * Skips a quoted section starting at {@code start}. A doubled quote character is an escaped quote.
+     */
+    private static int skipQuoted(CharSequence text, int start, char quote) {
+        int i = start + 1;
+        while (i < text.length()) {
+            if (text.charAt(i) == quote) {
+                if (i + 1 < text.length() && text.charAt(i + 1) == quote) {
+                    i += 2;
+                    continue;
+                }
+                return i + 1;
+            }
+            i++;
+        }
+        return text.length();
+    }
+
+    /**
+     * Skips a balanced {@code {...}} block starting at the opening brace.
+     */
+    private static int skipBraces(CharSequence text, int openPos) {
+        int level = 0;
+        for (int i = openPos; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '{') {
+                level++;
+            } else if (c == '}' && --level == 0) {
+                return i + 1;
+            }
+        }
+        return text.length();
+    }
+
+    private static int skipNumber(CharSequence text, int start) {
+        int i = start;
+        int length = text.length();
+        while (i < length && (Character.isDigit(text.charAt(i)) || text.charAt(i) == '.')) i++;
+        if (i < length && (text.charAt(i) == 'e' || text.charAt(i) == 'E')) {
+            int exp = i + 1;
+            if (exp < length && (text.charAt(exp) == '+' || text.charAt(exp) == '-')) exp++;
+            if (exp < length && Character.isDigit(text.charAt(exp))) {
+                i = exp;
+                while (i < length && Character.isDigit(text.charAt(i))) i++;
+            }
+        }
+        return i;
+    }
+
+    /**
+     * Returns the end of a dollar-quote tag ({@code $$} or {@code $tag$}) starting at {@code start},
+     * or -1 when the text at that position is not a dollar-quote tag.
+     */
+    private static int dollarTagEnd(CharSequence text, int start) {
+        int i = start + 1;
+        while (i < text.length()) {
+            char c = text.charAt(i);
+            if (c == '$') return i + 1;
+            boolean valid = i == start + 1 ? Character.isLetter(c) || c == '_' : Character.isLetterOrDigit(c) || c == '_';
+            if (!valid) return -1;
+            i++;
+        }
+        return -1;
+    }
+
+    private static boolean isTwoCharOperator(char c, char next) {
+        return (c == '<' && (next == '=' || next == '>'))
+                || (c == '>' && next == '=')
+                || (c == '!' && next == '=')
+                || (c == '|' && next == '|');
+    }
+
+    static boolean regionMatches(CharSequence text, int offset, String other) {
+        if (offset < 0 || offset + other.length() > text.length()) return false;
+        for (int i = 0; i < other.length(); i++) {
+            if (text.charAt(offset + i) != other.charAt(i)) return false;
+        }
+        return true;
+    }
+}
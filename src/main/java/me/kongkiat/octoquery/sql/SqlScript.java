@@ -0,0 +1,193 @@
+package me.kongkiat.octoquery.sql;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Splits SQL scripts, such as Flyway migrations, into single statements.
+ *
+ * This class has no IntelliJ Platform dependencies so it can run outside the IDE.
+ */
+public final class SqlScript {
+
+    /**
+     * Character range of one statement in a script, without surrounding whitespace and without
+     * its terminating semicolon. Comments directly before a statement belong to it.
+     *
+     * @param start The offset of the first character
+     * @param end The offset after the last character
+     */
+    public record Statement(int start, int end) {
+    }
+
+    private SqlScript() {
+    }
+
+    /**
+     * Splits a script at every semicolon that is not inside a string, a quoted identifier,
+     * a comment, a PostgreSQL dollar-quoted body or a procedural block.
+     *
+     * Procedural blocks are the {@code BEGIN ... END} bodies of MySQL, H2 and Oracle routines and triggers,
+     * together with the declarations of an Oracle {@code DECLARE} block or an Oracle routine or package
+     * header ({@code CREATE PROCEDURE p IS ...}). {@code CASE ... END} nests inside them.
+     * {@code BEGIN;}, {@code BEGIN TRANSACTION} and similar forms start a transaction, not a block.
+     *
+     * @param script The script text
+     * @return The statements without their terminating semicolon; blank and comment-only statements are dropped
+     */
+    public static List<String> split(CharSequence script) {
+        List<String> statements = new ArrayList<>();
+        for (Statement statement : statements(script)) {
+            statements.add(script.subSequence(statement.start(), statement.end()).toString());
+        }
+        return statements;
+    }
+
+    /**
+     * Locates the statements of a script, see {@link #split}.
+     *
+     * @param script The script text
+     * @return The statement ranges in script order
+     */
+    public static List<Statement> statements(CharSequence script) {
+        SqlTokens tokens = SqlLexer.tokenize(script);
+        List<Statement> statements = new ArrayList<>();
+        int start = 0;
+        // Open BEGIN and CASE blocks, and declarations still waiting for their body
+        int blocks = 0;
+        Declarations declarations = Declarations.NONE;
+        Header header = Header.NONE;
+        boolean statementStart = true;
+        for (int i = 0; i < tokens.size(); i++) {
+            if (!tokens.isSignificant(i)) continue;
+            if (tokens.is(i, SqlTokenType.SEMICOLON)) {
+                if (blocks > 0 || declarations != Declarations.NONE) continue;
+                addIfSignificant(tokens, statements, start, i);
+                start = i + 1;
+                header = Header.NONE;
+                statementStart = true;
+                continue;
+            }
+            boolean first = statementStart;
+            statementStart = false;
+            // Words after a dot are column or table names such as t.end
+            if (!tokens.is(i, SqlTokenType.WORD) || tokens.is(tokens.previousSignificant(i), SqlTokenType.DOT)) continue;
+
+            if (tokens.isKeyword(i, "BEGIN")) {
+                if (!startsTransaction(tokens, i)) {
+                    blocks++;
+                    if (declarations == Declarations.UNTIL_BEGIN) declarations = Declarations.NONE;
+                }
+            } else if (tokens.isKeyword(i, "CASE")) {
+                blocks++;
+            } else if (tokens.isKeyword(i, "END")) {
+                int next = tokens.nextSignificant(i);
+                // IF, LOOP, WHILE and REPEAT open no block here, so their END does not close one
+                if (closesControlFlow(tokens, next)) {
+                    i = next;
+                    continue;
+                }
+                if (blocks > 0) {
+                    blocks--;
+                } else if (declarations == Declarations.UNTIL_END) {
+                    declarations = Declarations.NONE;
+                }
+                // END CASE closes a procedural CASE; its second word must not open another one
+                if (tokens.isKeyword(next, "CASE")) i = next;
+            } else if (blocks == 0 && declarations == Declarations.NONE) {
+                if (first && tokens.isKeyword(i, "CREATE")) {
+                    header = Header.CREATE;
+                } else if (tokens.isKeyword(i, "DECLARE")) {
+                    if (!declaresCursor(tokens, i)) declarations = Declarations.UNTIL_BEGIN;
+                } else if (header == Header.CREATE) {
+                    header = objectType(tokens, i);
+                } else if (header != Header.NONE && tokens.depth(i) == 0
+                        && (tokens.isKeyword(i, "IS") || tokens.isKeyword(i, "AS"))) {
+                    // PostgreSQL and H2 bodies are strings, as in AS $$ ... $$ or AS 'select 1'
+                    if (!tokens.is(tokens.nextSignificant(i), SqlTokenType.STRING)) {
+                        declarations = header == Header.PACKAGE ? Declarations.UNTIL_END : Declarations.UNTIL_BEGIN;
+                    }
+                    header = Header.NONE;
+                }
+            }
+        }
+        addIfSignificant(tokens, statements, start, tokens.size());
+        return statements;
+    }
+
+    /** What keeps the semicolons of an Oracle declaration section from ending the statement. */
+    private enum Declarations {
+        NONE,
+        /** Declarations up to the BEGIN of the body, as in DECLARE blocks, procedures, functions and triggers. */
+        UNTIL_BEGIN,
+        /** A package, whose members all end before its final END. */
+        UNTIL_END
+    }
+
+    /** Progress through the header of a CREATE statement, up to the IS or AS of an Oracle routine. */
+    private enum Header {
+        NONE,
+        CREATE,
+        ROUTINE,
+        PACKAGE
+    }
+
+    /**
+     * @return The header state after a word following CREATE
+     */
+    private static Header objectType(SqlTokens tokens, int index) {
+        if (tokens.isKeyword(index, "PACKAGE")) return Header.PACKAGE;
+        if (tokens.isKeyword(index, "PROCEDURE") || tokens.isKeyword(index, "FUNCTION") || tokens.isKeyword(index, "TRIGGER")) {
+            return Header.ROUTINE;
+        }
+        boolean modifier = tokens.isKeyword(index, "OR") || tokens.isKeyword(index, "REPLACE")
+                || tokens.isKeyword(index, "EDITIONABLE") || tokens.isKeyword(index, "NONEDITIONABLE");
+        return modifier ? Header.CREATE : Header.NONE;
+    }
+
+    private static boolean closesControlFlow(SqlTokens tokens, int index) {
+        return tokens.isKeyword(index, "IF") || tokens.isKeyword(index, "LOOP")
+                || tokens.isKeyword(index, "WHILE") || tokens.isKeyword(index, "REPEAT");
+    }
+
+    /**
+     * @return true for BEGIN;, BEGIN TRANSACTION, BEGIN WORK and the other forms that start a transaction
+     */
+    private static boolean startsTransaction(SqlTokens tokens, int index) {
+        int next = tokens.nextSignificant(index);
+        if (next >= tokens.size() || tokens.is(next, SqlTokenType.SEMICOLON)) return true;
+        for (String keyword : TRANSACTION_MODIFIERS) {
+            if (tokens.isKeyword(next, keyword)) return true;
+        }
+        return false;
+    }
+
+    private static final String[] TRANSACTION_MODIFIERS = {
+            "TRANSACTION", "TRAN", "WORK", "ISOLATION", "READ", "DEFERRED", "IMMEDIATE", "EXCLUSIVE"
+    };
+
+    /**
+     * @return true for a PostgreSQL {@code DECLARE name ... CURSOR FOR ...} statement
+     */
+    private static boolean declaresCursor(SqlTokens tokens, int index) {
+        for (int i = tokens.nextSignificant(tokens.nextSignificant(index)); i < tokens.size(); i = tokens.nextSignificant(i)) {
+            if (tokens.is(i, SqlTokenType.SEMICOLON)) return false;
+            if (tokens.isKeyword(i, "CURSOR")) return true;
+        }
+        return false;
+    }
+
+    private static void addIfSignificant(SqlTokens tokens, List<Statement> statements, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (tokens.isSignificant(i)) {
+                // Trim whitespace tokens; comments stay with the statement they precede
+                int first = from;
+                while (tokens.is(first, SqlTokenType.WHITESPACE)) first++;
+                int last = to - 1;
+                while (tokens.is(last, SqlTokenType.WHITESPACE)) last--;
+                statements.add(new Statement(tokens.start(first), tokens.end(last)));
+                return;
+            }
+        }
+    }
+}
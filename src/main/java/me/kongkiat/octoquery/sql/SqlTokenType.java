@@ -0,0 +1,32 @@
+package me.kongkiat.octoquery.sql;
+
+/**
+ * Token kinds produced by {@link SqlLexer}.
+ * The lexer is deliberately dialect-agnostic: keywords are reported as {@link #WORD}
+ * and recognized by the caller with {@link SqlTokens#isKeyword(int, String)}.
+ */
+public enum SqlTokenType {
+    /** Spaces, tabs and line breaks. */
+    WHITESPACE,
+    /** A {@code --} comment up to (but not including) the end of the line. */
+    LINE_COMMENT,
+    /** A {@code /* ... *}{@code /} comment. */
+    BLOCK_COMMENT,
+    /** A single-quoted string literal or a PostgreSQL dollar-quoted body. */
+    STRING,
+    /** A double-quoted or backtick-quoted identifier. */
+    QUOTED_IDENTIFIER,
+    /** An identifier or keyword, including Java-style class name segments. */
+    WORD,
+    /** A numeric literal. */
+    NUMBER,
+    /** A bind parameter: {@code :name}, {@code ?}, {@code ?1}, {@code $1} or a SpEL {@code :#{...}} expression. */
+    PARAMETER,
+    LPAREN,
+    RPAREN,
+    COMMA,
+    DOT,
+    SEMICOLON,
+    /** Any other punctuation such as {@code =}, {@code <>}, {@code ||}, {@code ::} or {@code *}. */
+    OPERATOR
+}
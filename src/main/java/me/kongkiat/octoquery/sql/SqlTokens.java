@@ -0,0 +1,308 @@
+package me.kongkiat.octoquery.sql;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Token stream produced by {@link SqlLexer}.
+ * Tokens are stored in parallel primitive arrays rather than as objects, so a query of
+ * tens of kilobytes costs a handful of array allocations no matter how many tokens it has.
+ *
+ * Depth convention: every token records the parenthesis nesting level it lives at.
+ * A parenthesis reports the level outside of it, so an opening and its matching closing
+ * parenthesis share the same depth and the tokens between them are one level deeper.
+ */
+public final class SqlTokens {
+    private static final SqlTokenType[] TYPES = SqlTokenType.values();
+
+    private final CharSequence text;
+    private final int size;
+    private final byte[] types;
+    private final int[] starts;
+    private final int[] ends;
+    private final int[] depths;
+    private final int[] partners;
+
+    private SqlTokens(CharSequence text, int size, byte[] types, int[] starts, int[] ends, int[] depths, int[] partners) {
+        this.text = text;
+        this.size = size;
+        this.types = types;
+        this.starts = starts;
+        this.ends = ends;
+        this.depths = depths;
+        this.partners = partners;
+    }
+
+    /**
+     * A half-open range of token indexes {@code [from, to)}.
+     */
+    public record Range(int from, int to) {
+        public boolean isEmpty() {
+            return from >= to;
+        }
+    }
+
+    public CharSequence text() {
+        return text;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public SqlTokenType type(int index) {
+        return TYPES[types[index]];
+    }
+
+    public int start(int index) {
+        return starts[index];
+    }
+
+    public int end(int index) {
+        return ends[index];
+    }
+
+    public int depth(int index) {
+        return depths[index];
+    }
+
+    /**
+     * @return The text of a single token
+     */
+    public String text(int index) {
+        return text.subSequence(starts[index], ends[index]).toString();
+    }
+
+    /**
+     * @return The raw text covered by the tokens {@code [from, to)}
+     */
+    public String text(int from, int to) {
+        if (from >= to) return "";
+        return text.subSequence(starts[from], ends[to - 1]).toString();
+    }
+
+    /**
+     * @return The raw text covered by the range, without surrounding whitespace
+     */
+    public String text(Range range) {
+        return text(range.from(), range.to()).trim();
+    }
+
+    /**
+     * Returns the text covered by the tokens {@code [from, to)} with comments removed
+     * and every whitespace run collapsed into a single space.
+     */
+    public String normalizedText(int from, int to) {
+        StringBuilder sb = new StringBuilder();
+        boolean pendingSpace = false;
+        for (int i = from; i < to; i++) {
+            if (!isSignificant(i)) {
+                pendingSpace = true;
+                continue;
+            }
+            if (pendingSpace && !sb.isEmpty()) {
+                sb.append(' ');
+            }
+            pendingSpace = false;
+            sb.append(text, starts[i], ends[i]);
+        }
+        return sb.toString();
+    }
+
+    public String normalizedText(Range range) {
+        return normalizedText(range.from(), range.to());
+    }
+
+    /**
+     * @return true when the token is neither whitespace nor a comment
+     */
+    public boolean isSignificant(int index) {
+        SqlTokenType type = type(index);
+        return type != SqlTokenType.WHITESPACE && type != SqlTokenType.LINE_COMMENT && type != SqlTokenType.BLOCK_COMMENT;
+    }
+
+    /**
+     * @return The index of the first significant token after {@code index}, or {@link #size()} if there is none
+     */
+    public int nextSignificant(int index) {
+        int i = index + 1;
+        while (i < size && !isSignificant(i)) i++;
+        return i;
+    }
+
+    /**
+     * @return The index of the last significant token before {@code index}, or -1 if there is none
+     */
+    public int previousSignificant(int index) {
+        int i = index - 1;
+        while (i >= 0 && !isSignificant(i)) i--;
+        return i;
+    }
+
+    public boolean is(int index, SqlTokenType type) {
+        return index >= 0 && index < size && types[index] == type.ordinal();
+    }
+
+    /**
+     * Case-insensitive keyword check that does not allocate.
+     *
+     * @param index The token index (out-of-range indexes are never a keyword)
+     * @param keyword The keyword to compare against
+     * @return true if the token is a {@link SqlTokenType#WORD} spelling the keyword
+     */
+    public boolean isKeyword(int index, String keyword) {
+        if (!is(index, SqlTokenType.WORD)) return false;
+        int start = starts[index];
+        if (ends[index] - start != keyword.length()) return false;
+        for (int i = 0; i < keyword.length(); i++) {
+            if (Character.toUpperCase(text.charAt(start + i)) != Character.toUpperCase(keyword.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return The index of the parenthesis matching the one at {@code index}, or -1 when it is unbalanced
+     */
+    public int matchingParen(int index) {
+        return partners[index];
+    }
+
+    /**
+     * Finds the first token at or after {@code from} that spells the keyword at the given depth.
+     *
+     * @return The token index, or -1 if not found before {@code to}
+     */
+    public int findKeyword(String keyword, int from, int to, int depth) {
+        for (int i = from; i < to; i++) {
+            if (depths[i] == depth && isKeyword(i, keyword)) return i;
+        }
+        return -1;
+    }
+
+    /**
+     * Splits the tokens {@code [from, to)} at every comma found at the given depth.
+     * Segments that contain only whitespace or comments are dropped.
+     *
+     * @return The ranges between top-level commas
+     */
+    public List<Range> splitByCommas(int from, int to, int depth) {
+        List<Range> parts = new ArrayList<>();
+        int segmentStart = from;
+        for (int i = from; i < to; i++) {
+            if (types[i] == SqlTokenType.COMMA.ordinal() && depths[i] == depth) {
+                addIfSignificant(parts, segmentStart, i);
+                segmentStart = i + 1;
+            }
+        }
+        addIfSignificant(parts, segmentStart, to);
+        return parts;
+    }
+
+    private void addIfSignificant(List<Range> parts, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (isSignificant(i)) {
+                parts.add(new Range(from, to));
+                return;
+            }
+        }
+    }
+
+    /**
+     * Returns the content of a quoted token without its delimiters.
+     * Tokens that are not quoted are returned as-is.
+     */
+    public String unquotedText(int index) {
+        String value = text(index);
+        SqlTokenType type = type(index);
+        if ((type == SqlTokenType.STRING || type == SqlTokenType.QUOTED_IDENTIFIER) && value.length() >= 2) {
+            char quote = value.charAt(0);
+            if (value.charAt(value.length() - 1) == quote) {
+                String doubled = String.valueOf(quote) + quote;
+                return value.substring(1, value.length() - 1).replace(doubled, String.valueOf(quote));
+            }
+        }
+        return value;
+    }
+
+    /**
+     * Growable builder used by {@link SqlLexer} while scanning.
+     */
+    static final class Builder {
+        private final CharSequence text;
+        private int size;
+        private byte[] types;
+        private int[] starts;
+        private int[] ends;
+        private int[] depths;
+        private int[] partners;
+
+        private int depth;
+        private int[] openStack = new int[16];
+        private int openCount;
+
+        Builder(CharSequence text, int capacity) {
+            this.text = text;
+            types = new byte[capacity];
+            starts = new int[capacity];
+            ends = new int[capacity];
+            depths = new int[capacity];
+            partners = new int[capacity];
+        }
+
+        void add(SqlTokenType type, int start, int end) {
+            ensureCapacity();
+            types[size] = (byte) type.ordinal();
+            starts[size] = start;
+            ends[size] = end;
+            depths[size] = depth;
+            partners[size] = -1;
+            size++;
+        }
+
+        void openParen(int offset) {
+            add(SqlTokenType.LPAREN, offset, offset + 1);
+            if (openCount == openStack.length) {
+                openStack = Arrays.copyOf(openStack, openCount * 2);
+            }
+            openStack[openCount++] = size - 1;
+            depth++;
+        }
+
+        void closeParen(int offset) {
+            if (openCount == 0) {
+                // Unbalanced closing parenthesis: keep the depth at zero and leave it unmatched
+                add(SqlTokenType.RPAREN, offset, offset + 1);
+                return;
+            }
+            depth--;
+            add(SqlTokenType.RPAREN, offset, offset + 1);
+            int open = openStack[--openCount];
+            partners[open] = size - 1;
+            partners[size - 1] = open;
+        }
+
+        /**
+         * @return true when the previous token is a word ending exactly at {@code offset}
+         */
+        boolean isWordBefore(int offset) {
+            return size > 0 && types[size - 1] == SqlTokenType.WORD.ordinal() && ends[size - 1] == offset;
+        }
+
+        private void ensureCapacity() {
+            if (size < types.length) return;
+            int capacity = types.length * 2;
+            types = Arrays.copyOf(types, capacity);
+            starts = Arrays.copyOf(starts, capacity);
+            ends = Arrays.copyOf(ends, capacity);
+            depths = Arrays.copyOf(depths, capacity);
+            partners = Arrays.copyOf(partners, capacity);
+        }
+
+        SqlTokens build() {
+            return new SqlTokens(text, size, types, starts, ends, depths, partners);
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package me.kongkiat.octoquery.sql;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Computes a small set of text edits turning one string into another, used to apply a formatted
+ * query literal to the document without replacing the whole literal.
+ *
+ * Lines are matched first by their content after indentation (longest common subsequence), so a
+ * re-indented query becomes one small whitespace edit per line instead of one large replacement.
+ * Each remaining run of changed lines is narrowed to its differing characters, line by line when the
+ * run has as many new lines as old ones.
+ *
+ * This class has no IntelliJ Platform dependencies so it can run outside the IDE.
+ */
+public final class TextDiff {
+    /** Above this many line pairs the line matching is skipped and one narrowed edit is produced. */
+    private static final long MAX_LINE_PAIRS = 1_000_000;
+
+    /**
+     * A replacement of {@code [start, end)} in the old text.
+     *
+     * @param start The start offset in the old text
+     * @param end The end offset in the old text
+     * @param text The replacement text
+     */
+    public record Edit(int start, int end, String text) {
+    }
+
+    private TextDiff() {
+    }
+
+    /**
+     * @param oldText The current text
+     * @param newText The wanted text
+     * @return Non-overlapping edits in ascending offset order; applying them from the last to the first
+     *         turns the old text into the new one. Empty when both texts are equal.
+     */
+    public static List<Edit> edits(String oldText, String newText) {
+        List<Edit> edits = new ArrayList<>();
+        if (oldText.equals(newText)) return edits;
+
+        List<Integer> oldLines = lineStarts(oldText);
+        List<Integer> newLines = lineStarts(newText);
+        int n = oldLines.size() - 1;
+        int m = newLines.size() - 1;
+        if ((long) n * m > MAX_LINE_PAIRS) {
+            addNarrowed(edits, oldText, 0, oldText.length(), newText, 0, newText.length());
+            return edits;
+        }
+
+        // lcs[i][j]: length of the longest common subsequence of old lines i.. and new lines j..
+        int[][] lcs = new int[n + 1][m + 1];
+        for (int i = n - 1; i >= 0; i--) {
+            for (int j = m - 1; j >= 0; j--) {
+                lcs[i][j] = lineEquals(oldText, oldLines, i, newText, newLines, j)
+                        ? lcs[i + 1][j + 1] + 1
+                        : Math.max(lcs[i + 1][j], lcs[i][j + 1]);
+            }
+        }
+
+        int i = 0;
+        int j = 0;
+        while (i < n || j < m) {
+            if (i < n && j < m && lineEquals(oldText, oldLines, i, newText, newLines, j)) {
+                // Same content, possibly with another indentation
+                addNarrowed(edits, oldText, oldLines.get(i), oldLines.get(i + 1), newText, newLines.get(j), newLines.get(j + 1));
+                i++;
+                j++;
+                continue;
+            }
+            // Collect one run of changed lines
+            int oldFrom = i;
+            int newFrom = j;
+            while ((i < n || j < m) && !(i < n && j < m && lineEquals(oldText, oldLines, i, newText, newLines, j))) {
+                if (j < m && (i == n || lcs[i][j + 1] >= lcs[i + 1][j])) {
+                    j++;
+                } else {
+                    i++;
+                }
+            }
+            addRun(edits, oldText, oldLines, oldFrom, i, newText, newLines, newFrom, j);
+        }
+        return edits;
+    }
+
+    private static void addRun(List<Edit> edits, String oldText, List<Integer> oldLines, int oldFrom, int oldTo,
+                               String newText, List<Integer> newLines, int newFrom, int newTo) {
+        if (oldTo - oldFrom == newTo - newFrom) {
+            for (int k = 0; k < oldTo - oldFrom; k++) {
+                addNarrowed(edits, oldText, oldLines.get(oldFrom + k), oldLines.get(oldFrom + k + 1),
+                        newText, newLines.get(newFrom + k), newLines.get(newFrom + k + 1));
+            }
+        } else {
+            addNarrowed(edits, oldText, oldLines.get(oldFrom), oldLines.get(oldTo),
+                    newText, newLines.get(newFrom), newLines.get(newTo));
+        }
+    }
+
+    /**
+     * Adds the edit replacing {@code oldText[oldStart, oldEnd)} by {@code newText[newStart, newEnd)},
+     * without their common prefix and suffix.
+     */
+    private static void addNarrowed(List<Edit> edits, String oldText, int oldStart, int oldEnd,
+                                    String newText, int newStart, int newEnd) {
+        while (oldStart < oldEnd && newStart < newEnd && oldText.charAt(oldStart) == newText.charAt(newStart)) {
+            oldStart++;
+            newStart++;
+        }
+        while (oldEnd > oldStart && newEnd > newStart && oldText.charAt(oldEnd - 1) == newText.charAt(newEnd - 1)) {
+            oldEnd--;
+            newEnd--;
+        }
+        if (oldStart < oldEnd || newStart < newEnd) {
+            edits.add(new Edit(oldStart, oldEnd, newText.substring(newStart, newEnd)));
+        }
+    }
+
+    /**
+     * @return The start offset of every line followed by the text length, so line k is {@code [starts[k], starts[k + 1])}
+     *         including its line break
+     */
+    private static List<Integer> lineStarts(String text) {
+        List<Integer> starts = new ArrayList<>();
+        starts.add(0);
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) == '\n' && i + 1 < text.length()) {
+                starts.add(i + 1);
+            }
+        }
+        starts.add(text.length());
+        return starts;
+    }
+
+    /**
+     * Compares two lines ignoring their leading spaces and tabs.
+     */
+    private static boolean lineEquals(String oldText, List<Integer> oldLines, int i, String newText, List<Integer> newLines, int j) {
+        int oldStart = skipIndent(oldText, oldLines.get(i), oldLines.get(i + 1));
+        int length = oldLines.get(i + 1) - oldStart;
+        int newStart = skipIndent(newText, newLines.get(j), newLines.get(j + 1));
+        return length == newLines.get(j + 1) - newStart && oldText.regionMatches(oldStart, newText, newStart, length);
+    }
+
+    private static int skipIndent(String text, int start, int end) {
+        while (start < end && (text.charAt(start) == ' ' || text.charAt(start) == '\t')) start++;
+        return start;
+    }
+}
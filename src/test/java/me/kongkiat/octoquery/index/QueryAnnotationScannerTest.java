@@ -0,0 +1,95 @@
+package me.kongkiat.octoquery.index;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class QueryAnnotationScannerTest {
+
+    private static final String REPOSITORY = """
+            package com.example;
+
+            import org.springframework.data.jpa.repository.NativeQuery;
+            import org.springframework.data.jpa.repository.Query;
+
+            interface UserRepository {
+                @Query("select u from User u")
+                List<User> all();
+
+                @Query(value = "select * from users", nativeQuery = true)
+                List<User> allNative();
+
+                @NativeQuery("select * from users where id = :id")
+                User byId(long id);
+
+                @org.springframework.data.jpa.repository.Query(value = "select u from User u", nativeQuery = false)
+                List<User> qualified();
+            }
+            """;
+
+    @Test
+    void findsQueryAnnotationsAtTheirOffsets() {
+        List<QuerySite> sites = QueryAnnotationScanner.scan(REPOSITORY);
+
+        assertEquals(List.of(
+                new QuerySite(REPOSITORY.indexOf("@Query(\"select u"), false),
+                new QuerySite(REPOSITORY.indexOf("@Query(value"), true),
+                new QuerySite(REPOSITORY.indexOf("@NativeQuery"), true),
+                new QuerySite(REPOSITORY.indexOf("@org."), false)), sites);
+    }
+
+    @Test
+    void findsSamePackageAnnotationsWithoutImport() {
+        String text = """
+                package com.example.repository;
+
+                interface Repo {
+                    @Query("select 1")
+                    void samePackage();
+                }
+                """;
+
+        assertEquals(List.of(new QuerySite(text.indexOf("@Query"), false)), QueryAnnotationScanner.scan(text));
+    }
+
+    @Test
+    void skipsCommentsAndLiterals() {
+        String text = """
+                import org.springframework.data.jpa.repository.Query;
+
+                interface Repo {
+                    // @Query("line comment")
+                    /* @Query("block comment") */
+                    String TEXT = "@Query(\\"string\\")";
+                    String BLOCK = \"""
+                            @Query("text block")
+                            \""";
+                    char AT = '@';
+                    @Query("select 1")
+                    void real();
+                }
+                """;
+
+        assertEquals(List.of(new QuerySite(text.indexOf("@Query(\"select 1"), false)), QueryAnnotationScanner.scan(text));
+    }
+
+    @Test
+    void ignoresOtherAnnotationsAndFilesWithoutQueries() {
+        assertTrue(QueryAnnotationScanner.scan("@Override @Modifying @QueryHints({}) void x();").isEmpty());
+        assertTrue(QueryAnnotationScanner.scan("class Plain { }").isEmpty());
+    }
+
+    @Test
+    void siteHashIgnoresEditsOutsideTheQueries() {
+        long hash = QueryAnnotationScanner.hashSites(REPOSITORY);
+
+        assertEquals(hash, QueryAnnotationScanner.hashSites("// header\n" + REPOSITORY.replace("all()", "findAll()")));
+        assertNotEquals(hash, QueryAnnotationScanner.hashSites(REPOSITORY.replace("from User u\")", "from User  u\")")));
+        assertNotEquals(hash, QueryAnnotationScanner.hashSites(REPOSITORY.replace("nativeQuery = false", "nativeQuery = true")));
+        assertNotEquals(hash, QueryAnnotationScanner.hashSites(REPOSITORY.replace("@NativeQuery", "@Deprecated")));
+    }
+}
@@ -0,0 +1,76 @@
+package me.kongkiat.octoquery.layout;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class QueryLayoutEngineTest {
+
+    @Test
+    void startsEachClauseOnItsOwnLine() {
+        assertEquals("SELECT a, b\nFROM t\nWHERE x = 1\n  AND y = 2\nORDER BY a",
+                format("select a,b from t where x = 1 and y = 2 order by a"));
+    }
+
+    @Test
+    void keepsJoinFetchOnItsJoinLine() {
+        assertEquals("SELECT u\nFROM User u\nJOIN fetch u.roles r\nWHERE u.active = TRUE\n  AND r.name = :name",
+                format("select u from User u join fetch u.roles r where u.active = true and r.name = :name"));
+    }
+
+    @Test
+    void startsFetchFirstOnANewLine() {
+        assertEquals("SELECT id\nFROM users\nORDER BY id\nfetch first 10 rows only",
+                format("select id from users order by id fetch first 10 rows only"));
+    }
+
+    @Test
+    void leavesKeywordsInStringsAndCommentsAlone() {
+        String formatted = format("select a from t where name = 'select from where' -- from where\n and b between 1 and 2");
+
+        assertEquals(1, count(formatted, "FROM "));
+        assertTrue(formatted.contains("'select from where'"));
+        assertTrue(formatted.contains("-- from where"));
+        assertTrue(formatted.contains("b BETWEEN 1 AND 2"));
+    }
+
+    @Test
+    void indentsSubqueries() {
+        String formatted = format("select u from User u where u.id in (select x.id from X x where x.a = 1 or x.b = 2)");
+
+        assertTrue(formatted.contains("\n    SELECT x.id\n    FROM X x\n    WHERE x.a = 1\n      OR x.b = 2"));
+    }
+
+    @Test
+    void preservesParameterAndCastSpacing() {
+        String formatted = format("SELECT  a,b FROM t WHERE x like %:name% and y::int = 1");
+
+        assertTrue(formatted.contains("%:name%"));
+        assertTrue(formatted.contains("y::int"));
+        assertTrue(formatted.contains("a, b"));
+    }
+
+    @Test
+    void formattingIsIdempotent() {
+        String[] queries = {
+                "select u from User u join fetch u.roles r where u.active = true and r.name = :name",
+                "select u from User u where u.id in (select x.id from X x where x.a = 1 or x.b = 2)",
+                "select a from t where name = 'select from where' -- from where\n and b between 1 and 2",
+        };
+        for (String query : queries) {
+            String once = format(query);
+            assertEquals(once, format(once));
+        }
+    }
+
+    private static String format(String query) {
+        return QueryLayoutEngine.format(query, LayoutOptions.DEFAULT);
+    }
+
+    private static int count(String text, String part) {
+        int count = 0;
+        for (int i = text.indexOf(part); i >= 0; i = text.indexOf(part, i + 1)) count++;
+        return count;
+    }
+}
@@ -0,0 +1,45 @@
+package me.kongkiat.octoquery.sql;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DtoConstructorFormatterTest {
+
+    private static final String QUERY = "select new com.example.Dto(u.id, concat(u.first, ' ', u.last)) "
+            + "from User u where u.note <> 'select new Fake(1)'";
+
+    @Test
+    void protectsOnlyRealConstructorExpressions() {
+        List<String> snippets = new ArrayList<>();
+        String protectedQuery = DtoConstructorFormatter.protectDtoConstructors(QUERY, snippets);
+
+        assertEquals("SELECT /* DTO_PLACEHOLDER_0_com.example.Dto */ from User u where u.note <> 'select new Fake(1)'",
+                protectedQuery);
+        assertEquals(List.of("select new com.example.Dto(u.id, concat(u.first, ' ', u.last))"), snippets);
+    }
+
+    @Test
+    void restoresOneArgumentPerLine() {
+        List<String> snippets = new ArrayList<>();
+        String protectedQuery = DtoConstructorFormatter.protectDtoConstructors(QUERY, snippets);
+
+        assertEquals("SELECT new com.example.Dto(\n    u.id,\n    concat(u.first, ' ', u.last)\n)"
+                        + " from User u where u.note <> 'select new Fake(1)'",
+                DtoConstructorFormatter.restoreAndFormatConstructors(protectedQuery, snippets));
+    }
+
+    @Test
+    void leavesQueriesWithoutConstructorsAlone() {
+        List<String> snippets = new ArrayList<>();
+        String query = "select u from User u -- select new Dto(u.id)\nwhere u.name = 'new Dto(1)'";
+
+        assertEquals(query, DtoConstructorFormatter.protectDtoConstructors(query, snippets));
+        assertTrue(snippets.isEmpty());
+        assertEquals(query, DtoConstructorFormatter.restoreAndFormatConstructors(query, snippets));
+    }
+}
@@ -0,0 +1,50 @@
+package me.kongkiat.octoquery.sql;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class JdbcStatementTest {
+
+    @Test
+    void replacesNamedAndOrdinalParameters() {
+        JdbcStatement statement = JdbcStatement.from("select * from users where status = :status and id = ?2 or id = $1");
+
+        assertEquals("select * from users where status = ? and id = ? or id = ?", statement.sql());
+        assertEquals(List.of("status", "2", "1"), statement.parameters());
+    }
+
+    @Test
+    void numbersBarePlaceholdersInOrder() {
+        JdbcStatement statement = JdbcStatement.from("update t set a = ? where b = ?");
+
+        assertEquals("update t set a = ? where b = ?", statement.sql());
+        assertEquals(List.of("1", "2"), statement.parameters());
+    }
+
+    @Test
+    void wrapsParametersAfterInInParentheses() {
+        JdbcStatement statement = JdbcStatement.from("select * from users where id in :ids and name not in (:names)");
+
+        assertEquals("select * from users where id in (?) and name not in (?)", statement.sql());
+        assertEquals(List.of("ids", "names"), statement.parameters());
+    }
+
+    @Test
+    void spelExpressionsHaveNoName() {
+        JdbcStatement statement = JdbcStatement.from("select * from users where tenant = :#{#tenant.id}");
+
+        assertEquals("select * from users where tenant = ?", statement.sql());
+        assertEquals(List.of(""), statement.parameters());
+    }
+
+    @Test
+    void leavesParametersInStringsAndCommentsAlone() {
+        JdbcStatement statement = JdbcStatement.from("  select ':name' -- :other\nfrom t where a = :a  ");
+
+        assertEquals("select ':name' -- :other\nfrom t where a = ?", statement.sql());
+        assertEquals(List.of("a"), statement.parameters());
+    }
+}
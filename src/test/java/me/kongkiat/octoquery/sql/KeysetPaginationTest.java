@@ -0,0 +1,67 @@
+package me.kongkiat.octoquery.sql;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class KeysetPaginationTest {
+
+    @Test
+    void mixedDirectionsExpandToOrChain() {
+        KeysetPagination result = KeysetPagination.rewrite("select u from User u order by u.createdAt desc, u.name asc", false);
+
+        assertNotNull(result);
+        assertEquals("select u from User u WHERE (u.createdAt < :lastCreatedAt"
+                + " OR (u.createdAt = :lastCreatedAt AND u.name > :lastName)"
+                + " OR (u.createdAt = :lastCreatedAt AND u.name = :lastName AND u.id > :lastId))"
+                + " order by u.createdAt desc, u.name asc, u.id", result.query());
+        assertEquals(List.of(
+                new KeysetPagination.Key("u.createdAt", "lastCreatedAt", true),
+                new KeysetPagination.Key("u.name", "lastName", false),
+                new KeysetPagination.Key("u.id", "lastId", false)), result.keys());
+        assertNull(result.limitParameter());
+        assertFalse(result.limitAdded());
+    }
+
+    @Test
+    void sameDirectionUsesRowValueAndDropsOffset() {
+        KeysetPagination result = KeysetPagination.rewrite(
+                "select * from users u order by u.created_at desc limit :size offset :offset", true);
+
+        assertNotNull(result);
+        assertEquals("select * from users u WHERE (u.created_at, u.id) < (:lastCreatedAt, :lastId)"
+                + " order by u.created_at desc, u.id DESC LIMIT :size", result.query());
+        assertEquals("size", result.limitParameter());
+        assertEquals("offset", result.offsetParameter());
+        assertFalse(result.limitAdded());
+    }
+
+    @Test
+    void nativeQueryWithoutLimitGetsOne() {
+        KeysetPagination result = KeysetPagination.rewrite("select * from users u order by u.created_at desc", true);
+
+        assertNotNull(result);
+        assertTrue(result.query().endsWith(" LIMIT :" + KeysetPagination.LIMIT_PARAMETER));
+        assertTrue(result.limitAdded());
+    }
+
+    @Test
+    void uniqueOrderNeedsNoTieBreaker() {
+        KeysetPagination result = KeysetPagination.rewrite("select u from User u order by u.id", false);
+
+        assertNotNull(result);
+        assertEquals("select u from User u WHERE u.id > :lastId order by u.id", result.query());
+    }
+
+    @Test
+    void queryWithoutOrderByCannotBeRewritten() {
+        assertNull(KeysetPagination.rewrite("select u from User u", false));
+        assertNull(KeysetPagination.rewrite("select u from User u where u.note = 'order by u.id'", false));
+    }
+}
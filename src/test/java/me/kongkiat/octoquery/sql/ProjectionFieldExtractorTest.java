@@ -0,0 +1,78 @@
+package me.kongkiat.octoquery.sql;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class ProjectionFieldExtractorTest {
+
+    @Test
+    void selectClauseEndsAtTheTopLevelFrom() {
+        SqlTokens tokens = SqlLexer.tokenize("select a, (select max(b) from x) as m, 'from' from t");
+        SqlTokens.Range clause = ProjectionFieldExtractor.extractSelectClause(tokens);
+
+        assertEquals("a, (select max(b) from x) as m, 'from'", tokens.text(clause).strip());
+        assertNull(ProjectionFieldExtractor.extractSelectClause(SqlLexer.tokenize("update t set a = 1")));
+    }
+
+    @Test
+    void aliasesComeFromTopLevelAsOnly() {
+        SqlTokens tokens = SqlLexer.tokenize(
+                "select u.id as id, cast(u.age as int) as age, u.name \"fullName\", u.mail as \"Mail\", u.id as id from users u");
+
+        assertEquals(List.of("id", "age", "Mail"),
+                ProjectionFieldExtractor.extractAliases(tokens, ProjectionFieldExtractor.extractSelectClause(tokens)));
+    }
+
+    @Test
+    void dtoFieldsComeFromPathsAndFunctionArguments() {
+        SqlTokens tokens = SqlLexer.tokenize(
+                "select new com.example.UserDto(u.id, upper(u.name), coalesce(u.nickname, ''), u.address.city) from User u");
+
+        assertEquals(List.of("id", "name", "nickname", "city"), ProjectionFieldExtractor.extractDtoConstructorFields(tokens));
+    }
+
+    @Test
+    void unnamedDtoArgumentsProduceNoField() {
+        SqlTokens tokens = SqlLexer.tokenize(
+                "select new com.example.Totals(o.id, count(*), price * quantity, 42, 'x', (select 1 from X x), total) from Order o");
+
+        assertEquals(List.of("id", "total"), ProjectionFieldExtractor.extractDtoConstructorFields(tokens));
+    }
+
+    @Test
+    void projectionFieldsDescribeTheirSource() {
+        SqlTokens tokens = SqlLexer.tokenize(
+                "select u.address.city as city, count(distinct o.id) as orders, o.price * 2 as doubled from User u");
+
+        assertEquals(List.of(
+                new ProjectionField("city", "u.address.city", null),
+                new ProjectionField("orders", "o.id", "COUNT"),
+                new ProjectionField("doubled", null, null)),
+                ProjectionFieldExtractor.extractProjectionFields(tokens, ProjectionFieldExtractor.extractSelectClause(tokens)));
+    }
+
+    @Test
+    void projectionFieldsFallBackToDtoArguments() {
+        SqlTokens tokens = SqlLexer.tokenize("select new com.example.UserDto(u.id, max(u.age)) from User u");
+
+        assertEquals(List.of(new ProjectionField("id", "u.id", null), new ProjectionField("age", "u.age", "MAX")),
+                ProjectionFieldExtractor.extractProjectionFields(tokens, ProjectionFieldExtractor.extractSelectClause(tokens)));
+    }
+
+    @Test
+    void fromSourcesMapAliasesToEntitiesAndJoinPaths() {
+        SqlTokens tokens = SqlLexer.tokenize("select u.name, o.total from User U join fetch u.orders as o "
+                + "left join Address on a.id = u.addressId where u.id = 1 fetch first 1 rows only");
+
+        Map<String, String> sources =
+                ProjectionFieldExtractor.extractFromSources(tokens, ProjectionFieldExtractor.extractSelectClause(tokens));
+
+        assertEquals(Map.of("u", "User", "o", "u.orders", "address", "Address"), sources);
+        assertEquals(List.of("u", "o", "address"), List.copyOf(sources.keySet()));
+    }
+}
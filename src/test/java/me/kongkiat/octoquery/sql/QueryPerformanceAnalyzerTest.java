@@ -0,0 +1,58 @@
+package me.kongkiat.octoquery.sql;
+
+import me.kongkiat.octoquery.sql.QueryPerformanceAnalyzer.Issue;
+import me.kongkiat.octoquery.sql.QueryPerformanceAnalyzer.Kind;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class QueryPerformanceAnalyzerTest {
+
+    private static final String QUERY = "select * from users where lower(email) = :email or name like '%x' or phone = :p";
+
+    @Test
+    void findsEachIssueKind() {
+        List<Issue> issues = QueryPerformanceAnalyzer.analyze(QUERY, true);
+
+        assertEquals(List.of(Kind.SELECT_STAR, Kind.FUNCTION_ON_COLUMN, Kind.OR_ACROSS_COLUMNS, Kind.LEADING_WILDCARD),
+                issues.stream().map(Issue::kind).toList());
+        assertEquals("*", text(issues.get(0)));
+        assertEquals("lower(email)", text(issues.get(1)));
+        assertEquals("or", text(issues.get(2)));
+        assertEquals("'%x'", text(issues.get(3)));
+    }
+
+    @Test
+    void leadingWildcardFixRemovesThePercentSign() {
+        Issue issue = QueryPerformanceAnalyzer.analyze(QUERY, true).get(3);
+
+        assertTrue(issue.hasFix());
+        assertEquals("%", QUERY.substring(issue.removeStart(), issue.removeEnd()));
+    }
+
+    @Test
+    void selectStarIsOnlyReportedForNativeQueries() {
+        List<Kind> kinds = QueryPerformanceAnalyzer.analyze(QUERY, false).stream().map(Issue::kind).toList();
+
+        assertEquals(List.of(Kind.FUNCTION_ON_COLUMN, Kind.OR_ACROSS_COLUMNS, Kind.LEADING_WILDCARD), kinds);
+    }
+
+    @Test
+    void ignoresKeywordsInCommentsAndStrings() {
+        String query = "select u.id from users u where u.note = 'select * from t where lower(x) like ''%y''' -- select * \n and u.id = 1";
+
+        assertTrue(QueryPerformanceAnalyzer.analyze(query, true).isEmpty());
+    }
+
+    @Test
+    void countStarIsNotSelectStar() {
+        assertTrue(QueryPerformanceAnalyzer.analyze("select count(*) from users", true).isEmpty());
+    }
+
+    private static String text(Issue issue) {
+        return QUERY.substring(issue.start(), issue.end());
+    }
+}
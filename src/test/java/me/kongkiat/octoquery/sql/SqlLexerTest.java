@@ -0,0 +1,92 @@
+package me.kongkiat.octoquery.sql;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class SqlLexerTest {
+
+    @Test
+    void keywordsInCommentsAndStringsAreNotWords() {
+        SqlTokens tokens = SqlLexer.tokenize("select 'from where' -- join on\n/* order by */ x from t");
+
+        assertEquals(List.of("select", "x", "from", "t"), words(tokens));
+        assertEquals(-1, tokens.findKeyword("WHERE", 0, tokens.size(), 0));
+        assertEquals(-1, tokens.findKeyword("ORDER", 0, tokens.size(), 0));
+    }
+
+    @Test
+    void tokenTypes() {
+        SqlTokens tokens = SqlLexer.tokenize("SELECT \"Name\", `id`, 42 FROM t WHERE a = :name AND b = ?1;");
+
+        assertEquals(List.of(SqlTokenType.WORD, SqlTokenType.QUOTED_IDENTIFIER, SqlTokenType.COMMA,
+                SqlTokenType.QUOTED_IDENTIFIER, SqlTokenType.COMMA, SqlTokenType.NUMBER, SqlTokenType.WORD,
+                SqlTokenType.WORD, SqlTokenType.WORD, SqlTokenType.WORD, SqlTokenType.OPERATOR, SqlTokenType.PARAMETER,
+                SqlTokenType.WORD, SqlTokenType.WORD, SqlTokenType.OPERATOR, SqlTokenType.PARAMETER,
+                SqlTokenType.SEMICOLON), significantTypes(tokens));
+    }
+
+    @Test
+    void escapedQuotesStayInsideTheString() {
+        SqlTokens tokens = SqlLexer.tokenize("where a = 'it''s from' and b = 1");
+
+        assertEquals(List.of("where", "a", "and", "b"), words(tokens));
+        assertEquals("'it''s from'", tokens.text(tokens.nextSignificant(tokens.nextSignificant(2))));
+    }
+
+    @Test
+    void dollarQuotedBodiesAreOneString() {
+        String sql = "as $$ begin select 1; end $$ language plpgsql; do $fn$ select ';' $fn$";
+        SqlTokens tokens = SqlLexer.tokenize(sql);
+
+        assertEquals(List.of("$$ begin select 1; end $$", "$fn$ select ';' $fn$"), texts(tokens, SqlTokenType.STRING));
+        assertEquals(List.of("as", "language", "plpgsql", "do"), words(tokens));
+    }
+
+    @Test
+    void positionalDollarParametersAreNotDollarQuotes() {
+        SqlTokens tokens = SqlLexer.tokenize("where a = $1 and b = $2");
+
+        assertEquals(List.of("where", "a", "and", "b"), words(tokens));
+        assertEquals(List.of(SqlTokenType.WORD, SqlTokenType.WORD, SqlTokenType.OPERATOR, SqlTokenType.PARAMETER,
+                SqlTokenType.WORD, SqlTokenType.WORD, SqlTokenType.OPERATOR, SqlTokenType.PARAMETER), significantTypes(tokens));
+    }
+
+    @Test
+    void spelExpressionsAreOneParameter() {
+        SqlTokens tokens = SqlLexer.tokenize("where u.id = :#{#user.id} and u.name = ?#{[1]}");
+
+        assertEquals(List.of(":#{#user.id}", "?#{[1]}"), texts(tokens, SqlTokenType.PARAMETER));
+    }
+
+    @Test
+    void unterminatedInputNeverFails() {
+        SqlTokens tokens = SqlLexer.tokenize("select 'open (");
+
+        assertEquals(SqlTokenType.STRING, tokens.type(tokens.size() - 1));
+        assertEquals("'open (", tokens.text(tokens.size() - 1));
+    }
+
+    private static List<String> words(SqlTokens tokens) {
+        return texts(tokens, SqlTokenType.WORD);
+    }
+
+    private static List<String> texts(SqlTokens tokens, SqlTokenType type) {
+        List<String> texts = new ArrayList<>();
+        for (int i = 0; i < tokens.size(); i++) {
+            if (tokens.is(i, type)) texts.add(tokens.text(i));
+        }
+        return texts;
+    }
+
+    private static List<SqlTokenType> significantTypes(SqlTokens tokens) {
+        List<SqlTokenType> types = new ArrayList<>();
+        for (int i = 0; i < tokens.size(); i++) {
+            if (tokens.isSignificant(i)) types.add(tokens.type(i));
+        }
+        return types;
+    }
+}
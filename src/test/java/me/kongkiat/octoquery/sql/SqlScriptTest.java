@@ -0,0 +1,75 @@
+package me.kongkiat.octoquery.sql;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class SqlScriptTest {
+
+    @Test
+    void splitsOnSemicolonsAndDropsThem() {
+        assertEquals(List.of("select 1", "select 2"), SqlScript.split("select 1;\nselect 2;"));
+    }
+
+    @Test
+    void keepsTheLastStatementWithoutSemicolon() {
+        assertEquals(List.of("select 1", "select 2"), SqlScript.split("select 1; select 2"));
+    }
+
+    @Test
+    void ignoresSemicolonsInCommentsAndStrings() {
+        List<String> parts = SqlScript.split("select ';' -- ; end\n; /* ; begin */ select 2");
+
+        assertEquals(2, parts.size());
+        assertEquals("select ';' -- ; end", parts.get(0));
+    }
+
+    @Test
+    void keepsDollarQuotedBodiesWhole() {
+        List<String> parts = SqlScript.split(
+                "create function f() returns int as $$ begin return 1; end $$ language plpgsql; select 1;");
+
+        assertEquals(List.of("create function f() returns int as $$ begin return 1; end $$ language plpgsql", "select 1"), parts);
+    }
+
+    @Test
+    void keepsProceduralBlocksWhole() {
+        assertEquals(2, SqlScript.split("create procedure p() begin declare x int; set x = 1; "
+                + "if x > 0 then select 1; end if; end; select 2;").size());
+        assertEquals(2, SqlScript.split("create procedure p() begin case x when 1 then select 1; end case; "
+                + "select 2; end; select 3;").size());
+        assertEquals(2, SqlScript.split("create trigger t before insert on a for each row begin set new.x = 1; "
+                + "set new.y = case when new.z then 1 else 2 end; end; insert into a values (1);").size());
+    }
+
+    @Test
+    void keepsOracleDeclarationsWithTheirBlock() {
+        assertEquals(2, SqlScript.split("declare x number; begin x := 1; end; select 1 from dual;").size());
+        assertEquals(2, SqlScript.split("create or replace procedure p is x number; begin x := 1; end; select 1 from dual;").size());
+        assertEquals(2, SqlScript.split("create package body pk as procedure a is begin null; end; "
+                + "function b return number is begin return 1; end; end pk; select 1;").size());
+    }
+
+    @Test
+    void transactionBeginIsAStatementOfItsOwn() {
+        assertEquals(6, SqlScript.split("begin; insert into a values (1); commit; begin transaction; select 1; end;").size());
+    }
+
+    @Test
+    void blockKeywordsAsColumnNamesDoNotOpenBlocks() {
+        assertEquals(2, SqlScript.split("select t.end, t.begin from t; select 2;").size());
+        assertEquals(3, SqlScript.split("declare c cursor for select 1; fetch c; close c;").size());
+    }
+
+    @Test
+    void statementOffsetsCoverTheirText() {
+        String script = "  select 1;\n\nselect 2";
+        List<SqlScript.Statement> statements = SqlScript.statements(script);
+
+        assertEquals(2, statements.size());
+        assertEquals("select 1", script.substring(statements.get(0).start(), statements.get(0).end()));
+        assertEquals("select 2", script.substring(statements.get(1).start(), statements.get(1).end()));
+    }
+}
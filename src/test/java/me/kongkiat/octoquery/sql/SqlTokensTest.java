@@ -0,0 +1,93 @@
+package me.kongkiat.octoquery.sql;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SqlTokensTest {
+
+    @Test
+    void parenthesesRecordDepthAndPartner() {
+        SqlTokens tokens = SqlLexer.tokenize("f(a, (b))");
+
+        assertEquals(9, tokens.size());
+        assertEquals(8, tokens.matchingParen(1));
+        assertEquals(1, tokens.matchingParen(8));
+        assertEquals(7, tokens.matchingParen(5));
+        assertEquals(0, tokens.depth(1));
+        assertEquals(1, tokens.depth(2));
+        assertEquals(1, tokens.depth(5));
+        assertEquals(2, tokens.depth(6));
+    }
+
+    @Test
+    void unbalancedParenthesesHaveNoPartner() {
+        SqlTokens tokens = SqlLexer.tokenize("f((x)");
+
+        assertEquals(-1, tokens.matchingParen(1));
+        assertEquals(4, tokens.matchingParen(2));
+    }
+
+    @Test
+    void keywordsMatchIgnoringCase() {
+        SqlTokens tokens = SqlLexer.tokenize("SeLeCt selected 'select'");
+
+        assertTrue(tokens.isKeyword(0, "SELECT"));
+        assertFalse(tokens.isKeyword(2, "SELECT"));
+        assertFalse(tokens.isKeyword(4, "SELECT"));
+        assertFalse(tokens.isKeyword(-1, "SELECT"));
+        assertFalse(tokens.isKeyword(99, "SELECT"));
+    }
+
+    @Test
+    void significantNeighboursSkipWhitespaceAndComments() {
+        SqlTokens tokens = SqlLexer.tokenize("a /* x */ -- y\n b");
+
+        assertEquals(tokens.size() - 1, tokens.nextSignificant(0));
+        assertEquals(0, tokens.previousSignificant(tokens.size() - 1));
+        assertEquals(tokens.size(), tokens.nextSignificant(tokens.size() - 1));
+        assertEquals(-1, tokens.previousSignificant(0));
+    }
+
+    @Test
+    void findKeywordOnlyAtTheGivenDepth() {
+        SqlTokens tokens = SqlLexer.tokenize("select (select 1 from x) from t");
+        int from = tokens.findKeyword("FROM", 0, tokens.size(), 0);
+
+        assertEquals("from", tokens.text(from));
+        assertEquals("t", tokens.text(tokens.nextSignificant(from)));
+        assertEquals(-1, tokens.findKeyword("WHERE", 0, tokens.size(), 0));
+    }
+
+    @Test
+    void splitByCommasOnlyAtTheGivenDepth() {
+        SqlTokens tokens = SqlLexer.tokenize("a, f(b, c), 'd, e', , -- f, g\n h");
+
+        List<String> texts = new ArrayList<>();
+        for (SqlTokens.Range item : tokens.splitByCommas(0, tokens.size(), 0)) {
+            texts.add(tokens.normalizedText(item));
+        }
+        assertEquals(List.of("a", "f(b, c)", "'d, e'", "h"), texts);
+    }
+
+    @Test
+    void normalizedTextDropsCommentsAndCollapsesWhitespace() {
+        SqlTokens tokens = SqlLexer.tokenize("  u.name  /* c */\n\t|| ' x  y'  ");
+
+        assertEquals("u.name || ' x  y'", tokens.normalizedText(0, tokens.size()));
+    }
+
+    @Test
+    void unquotedTextRemovesDelimitersAndDoubledQuotes() {
+        SqlTokens tokens = SqlLexer.tokenize("'it''s' \"Full Name\" plain");
+
+        assertEquals("it's", tokens.unquotedText(0));
+        assertEquals("Full Name", tokens.unquotedText(2));
+        assertEquals("plain", tokens.unquotedText(4));
+    }
+}
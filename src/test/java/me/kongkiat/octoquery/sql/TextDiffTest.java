@@ -0,0 +1,50 @@
+package me.kongkiat.octoquery.sql;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TextDiffTest {
+
+    @Test
+    void identicalTextsHaveNoEdits() {
+        assertTrue(TextDiff.edits("select a\nfrom t", "select a\nfrom t").isEmpty());
+    }
+
+    @Test
+    void indentChangesOnlyInsertWhitespace() {
+        String oldText = "select a\n  from t\n  where x = 1";
+        String newText = "select a\n    from t\n    where x = 2";
+        List<TextDiff.Edit> edits = TextDiff.edits(oldText, newText);
+
+        assertEquals(List.of(new TextDiff.Edit(11, 11, "  "), new TextDiff.Edit(20, 31, "  where x = 2")), edits);
+        assertEquals(newText, apply(oldText, edits));
+    }
+
+    @Test
+    void editsReproduceTheNewText() {
+        String[][] pairs = {
+                {"", "select 1"},
+                {"select 1", ""},
+                {"select a, b from t", "SELECT a,\n       b\nFROM t"},
+                {"a\nb\nc\nd", "a\nc\nd\ne"},
+                {"select a\nfrom t\n", "select a\nfrom t"},
+        };
+        for (String[] pair : pairs) {
+            assertEquals(pair[1], apply(pair[0], TextDiff.edits(pair[0], pair[1])));
+        }
+    }
+
+    private static String apply(String text, List<TextDiff.Edit> edits) {
+        StringBuilder result = new StringBuilder(text);
+        // Back to front, so the offsets of the earlier edits stay valid
+        for (int i = edits.size() - 1; i >= 0; i--) {
+            TextDiff.Edit edit = edits.get(i);
+            result.replace(edit.start(), edit.end(), edit.text());
+        }
+        return result.toString();
+    }
+}